@@ -1,15 +1,47 @@
 package com.bub6le.systemmonitoring.controller;
 
+import com.bub6le.systemmonitoring.ingest.BinaryIngestServer;
 import com.bub6le.systemmonitoring.model.Alert;
 import com.bub6le.systemmonitoring.model.SystemMetrics;
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.MetricsAggregate;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.repository.MetricsPartitionManager;
+import com.bub6le.systemmonitoring.repository.view.AlertView;
+import com.bub6le.systemmonitoring.repository.view.MetricsChartPoint;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
+import com.bub6le.systemmonitoring.rule.AlertRule;
+import com.bub6le.systemmonitoring.rule.AlertRuleEngine;
+import com.bub6le.systemmonitoring.rule.RuleEngineStats;
 import com.bub6le.systemmonitoring.service.AlertService;
+import com.bub6le.systemmonitoring.service.MetricsIngestService;
 import com.bub6le.systemmonitoring.service.SystemMetricsService;
 import com.bub6le.systemmonitoring.service.TaskService;
+import com.bub6le.systemmonitoring.store.DistributionEntry;
+import com.bub6le.systemmonitoring.store.MetricsHistoryStore;
+import com.bub6le.systemmonitoring.store.MetricsPoint;
+import com.bub6le.systemmonitoring.store.ServerSnapshot;
+import com.bub6le.systemmonitoring.store.cache.QueryCacheStats;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.downsample.DownsampledChart;
+import com.bub6le.systemmonitoring.store.ratelimit.AlertRateLimiter;
+import com.bub6le.systemmonitoring.store.ratelimit.RateLimitStats;
+import com.bub6le.systemmonitoring.store.rollup.RollupSeries;
+import com.bub6le.systemmonitoring.store.sketch.PercentileSnapshot;
+import com.bub6le.systemmonitoring.store.topk.TopMetric;
+import com.bub6le.systemmonitoring.store.topk.TopServerEntry;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -25,10 +57,33 @@ public class ApiController {
     @Autowired
     private AlertService alertService;
     
+    @Autowired
+    private MetricsIngestService metricsIngestService;
+    
+    @Autowired
+    private BinaryIngestServer binaryIngestServer;
+    
+    @Autowired
+    private WriteAheadLog writeAheadLog;
+    
+    @Autowired
+    private QueryResultCache queryResultCache;
+    
+    @Autowired
+    private AlertRuleEngine alertRuleEngine;
+    
+    @Autowired
+    private WebSocketController webSocketController;
+    
+    @Autowired
+    private AlertRateLimiter alertRateLimiter;
+    
     // 系统指标相关API
+    // 列表接口按时间倒序键集分页：limit默认100、最大1000，把返回的nextCursor作为cursor取下一页
     @GetMapping("/metrics")
-    public List<SystemMetrics> getAllMetrics() {
-        return systemMetricsService.getAllMetrics();
+    public CursorPage<SystemMetrics> getAllMetrics(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        return systemMetricsService.getMetricsPage(cursor, limit);
     }
     
     @GetMapping("/metrics/recent")
@@ -36,19 +91,107 @@ public class ApiController {
         return systemMetricsService.getRecentMetrics(minutes);
     }
     
+    // 每台服务器最近一次上报的值，不查数据库；includeStale=false时去掉已失联的服务器
+    @GetMapping("/metrics/latest")
+    public List<ServerSnapshot> getLatestMetrics(@RequestParam(defaultValue = "true") boolean includeStale) {
+        return systemMetricsService.getLatestMetrics(includeStale);
+    }
+    
+    // 时序图表只返回时间、CPU和内存，按时间正序
+    @GetMapping("/metrics/chart")
+    public List<MetricsChartPoint> getChartPoints(@RequestParam(defaultValue = "5") int minutes) {
+        return systemMetricsService.getChartPoints(minutes);
+    }
+    
+    // CPU和内存序列分别用LTTB降到最多points个点（上限2000），返回大小不随时间范围增长
+    @GetMapping("/metrics/chart/downsampled")
+    public DownsampledChart getDownsampledChart(@RequestParam(defaultValue = "60") int minutes,
+                                                @RequestParam(defaultValue = "300") int points) {
+        return systemMetricsService.getDownsampledChart(minutes, points);
+    }
+    
+    @GetMapping("/metrics/rollup")
+    public RollupSeries getMetricsRollup(@RequestParam(defaultValue = "60") int minutes,
+                                         @RequestParam(required = false) String serverName,
+                                         @RequestParam(defaultValue = "30") int minPoints) {
+        return systemMetricsService.getMetricsRollup(minutes, serverName, minPoints);
+    }
+    
+    // groupBy取值：NONE、SERVER、REGION、SERVICE_TYPE
+    @GetMapping("/metrics/aggregate")
+    public List<MetricsAggregate> getMetricsAggregate(@RequestParam(defaultValue = "60") int minutes,
+                                                      @RequestParam(defaultValue = "60") int bucketSeconds,
+                                                      @RequestParam(defaultValue = "NONE") MetricsGroupBy groupBy) {
+        return systemMetricsService.getMetricsAggregate(minutes, bucketSeconds, groupBy);
+    }
+    
+    // dimension取值：server、region、service
+    @GetMapping("/metrics/distribution")
+    public List<DistributionEntry> getMetricsDistribution(@RequestParam(defaultValue = "server") String dimension,
+                                                          @RequestParam(defaultValue = "5") int minutes,
+                                                          @RequestParam(defaultValue = "8") int limit) {
+        return systemMetricsService.getMetricsDistribution(MetricsGroupBy.fromParam(dimension), minutes, limit);
+    }
+    
+    // groupBy为SERVER/REGION/SERVICE_TYPE时每个维度值一份结果，key可指定单个维度值
+    @GetMapping("/metrics/percentiles")
+    public List<PercentileSnapshot> getMetricsPercentiles(@RequestParam(defaultValue = "60") int minutes,
+                                                          @RequestParam(defaultValue = "NONE") MetricsGroupBy groupBy,
+                                                          @RequestParam(required = false) String key,
+                                                          @RequestParam(defaultValue = "50") int limit) {
+        return systemMetricsService.getMetricsPercentiles(minutes, groupBy, key, limit);
+    }
+    
+    @GetMapping("/metrics/percentiles/series")
+    public List<PercentileSnapshot> getMetricsPercentileSeries(@RequestParam(defaultValue = "60") int minutes,
+                                                               @RequestParam(defaultValue = "NONE") MetricsGroupBy groupBy,
+                                                               @RequestParam(required = false) String key) {
+        return systemMetricsService.getMetricsPercentileSeries(minutes, groupBy, key);
+    }
+    
+    // metric取值：cpu、memory、disk、load、network_in、network_out；window形如30s、5m、1h
+    @GetMapping("/metrics/top")
+    public List<TopServerEntry> getTopServers(@RequestParam(defaultValue = "cpu") String metric,
+                                              @RequestParam(defaultValue = "20") int k,
+                                              @RequestParam(defaultValue = "5m") String window) {
+        return systemMetricsService.getTopServers(TopMetric.fromParam(metric), k, window);
+    }
+    
     @GetMapping("/metrics/server/{serverName}")
-    public List<SystemMetrics> getMetricsByServer(@PathVariable String serverName) {
-        return systemMetricsService.getMetricsByServer(serverName);
+    public CursorPage<SystemMetrics> getMetricsByServer(@PathVariable String serverName,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        return systemMetricsService.getMetricsPageByServer(serverName, cursor, limit);
     }
     
     @GetMapping("/metrics/region/{region}")
-    public List<SystemMetrics> getMetricsByRegion(@PathVariable String region) {
-        return systemMetricsService.getMetricsByRegion(region);
+    public CursorPage<SystemMetrics> getMetricsByRegion(@PathVariable String region,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        return systemMetricsService.getMetricsPageByRegion(region, cursor, limit);
     }
     
     @GetMapping("/metrics/service/{serviceType}")
-    public List<SystemMetrics> getMetricsByServiceType(@PathVariable String serviceType) {
-        return systemMetricsService.getMetricsByServiceType(serviceType);
+    public CursorPage<SystemMetrics> getMetricsByServiceType(@PathVariable String serviceType,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "100") int limit) {
+        return systemMetricsService.getMetricsPageByServiceType(serviceType, cursor, limit);
+    }
+    
+    @GetMapping("/metrics/history/{serverName}")
+    public List<MetricsPoint> getMetricsHistory(@PathVariable String serverName,
+                                                @RequestParam(defaultValue = "24") int hours) {
+        return systemMetricsService.getMetricsHistory(serverName, hours);
+    }
+    
+    @GetMapping("/metrics/history/stats")
+    public MetricsHistoryStore.HistoryStats getHistoryStats() {
+        return systemMetricsService.getHistoryStats();
+    }
+    
+    @GetMapping("/metrics/partitions")
+    public List<MetricsPartitionManager.PartitionInfo> getPartitions() {
+        return systemMetricsService.getPartitions();
     }
     
     @GetMapping("/metrics/health")
@@ -61,20 +204,53 @@ public class ApiController {
         return systemMetricsService.generateMockMetrics();
     }
     
+    // 请求体为JSON数组或NDJSON（每行一个样本）；durable=true时等WAL落盘后再返回
+    @PostMapping("/metrics/batch")
+    public MetricsIngestService.BatchIngestResult ingestMetricsBatch(InputStream body,
+                                                                     @RequestParam(defaultValue = "false") boolean durable) {
+        return metricsIngestService.submitJson(body, durable);
+    }
+    
+    @GetMapping("/metrics/ingest/stats")
+    public MetricsIngestService.IngestStats getIngestStats() {
+        return metricsIngestService.getIngestStats();
+    }
+    
+    @GetMapping("/metrics/ingest/binary/stats")
+    public BinaryIngestServer.BinaryIngestStats getBinaryIngestStats() {
+        return binaryIngestServer.getBinaryIngestStats();
+    }
+    
+    @GetMapping("/wal/stats")
+    public WriteAheadLog.WalStats getWalStats() {
+        return writeAheadLog.getWalStats();
+    }
+    
+    // 查询结果缓存的命中、未命中、淘汰和失效次数
+    @GetMapping("/cache/stats")
+    public QueryCacheStats getCacheStats() {
+        return queryResultCache.getStats();
+    }
+    
     // 任务相关API
     @GetMapping("/tasks")
-    public List<Task> getAllTasks() {
-        return taskService.getAllTasks();
+    public CursorPage<TaskView> getAllTasks(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        return taskService.getTasksPage(cursor, limit);
     }
     
     @GetMapping("/tasks/status/{status}")
-    public List<Task> getTasksByStatus(@PathVariable Task.TaskStatus status) {
-        return taskService.getTasksByStatus(status);
+    public CursorPage<TaskView> getTasksByStatus(@PathVariable Task.TaskStatus status,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "100") int limit) {
+        return taskService.getTasksPageByStatus(status, cursor, limit);
     }
     
     @GetMapping("/tasks/cluster/{cluster}")
-    public List<Task> getTasksByCluster(@PathVariable String cluster) {
-        return taskService.getTasksByCluster(cluster);
+    public CursorPage<TaskView> getTasksByCluster(@PathVariable String cluster,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        return taskService.getTasksPageByCluster(cluster, cursor, limit);
     }
     
     @PostMapping("/tasks")
@@ -104,30 +280,41 @@ public class ApiController {
     
     // 告警相关API
     @GetMapping("/alerts")
-    public List<Alert> getAllAlerts() {
-        return alertService.getAllAlerts();
+    public CursorPage<AlertView> getAllAlerts(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        return alertService.getAlertsPage(cursor, limit);
     }
     
     @GetMapping("/alerts/unresolved")
-    public List<Alert> getUnresolvedAlerts() {
-        return alertService.getUnresolvedAlerts();
+    public CursorPage<AlertView> getUnresolvedAlerts(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "100") int limit) {
+        return alertService.getUnresolvedAlertsPage(cursor, limit);
     }
     
     @GetMapping("/alerts/source/{source}")
-    public List<Alert> getAlertsBySource(@PathVariable String source) {
-        return alertService.getAlertsBySource(source);
+    public CursorPage<AlertView> getAlertsBySource(@PathVariable String source,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "100") int limit) {
+        return alertService.getAlertsPageBySource(source, cursor, limit);
     }
     
     @GetMapping("/alerts/severity/{severity}")
-    public List<Alert> getAlertsBySeverity(@PathVariable Alert.AlertSeverity severity) {
-        return alertService.getAlertsBySeverity(severity);
+    public CursorPage<AlertView> getAlertsBySeverity(@PathVariable Alert.AlertSeverity severity,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "100") int limit) {
+        return alertService.getAlertsPageBySeverity(severity, cursor, limit);
     }
     
+    // 同一来源、同一严重级别超出限流速率时返回429，告警不保存，只计入定期的限流汇总告警
     @PostMapping("/alerts")
     public Alert createAlert(@RequestParam String source, 
                            @RequestParam Alert.AlertSeverity severity, 
                            @RequestParam String message) {
-        return alertService.createAlert(source, severity, message);
+        Alert alert = alertService.createAlert(source, severity, message);
+        if (alert == null) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Alert rate limit exceeded for " + source);
+        }
+        return alert;
     }
     
     @PutMapping("/alerts/{alertId}/resolve")
@@ -135,13 +322,66 @@ public class ApiController {
         alertService.resolveAlert(alertId);
     }
     
+    // 批量解决：按id列表、来源、严重级别或早于olderThanMinutes分钟，每次只能指定其中一种条件。
+    // 有告警被解决时通过/topic/alerts-resolved推送一条汇总的变更事件
+    @PutMapping("/alerts/resolve")
+    public AlertService.BulkResolveResult resolveAlerts(@RequestParam(required = false) List<Long> ids,
+                                                        @RequestParam(required = false) String source,
+                                                        @RequestParam(required = false) Alert.AlertSeverity severity,
+                                                        @RequestParam(required = false) Integer olderThanMinutes) {
+        int criteria = (ids != null ? 1 : 0) + (source != null ? 1 : 0) + (severity != null ? 1 : 0)
+                + (olderThanMinutes != null ? 1 : 0);
+        if (criteria != 1) {
+            throw new IllegalArgumentException("Specify exactly one of ids, source, severity, olderThanMinutes");
+        }
+        AlertService.BulkResolveResult result;
+        if (ids != null) {
+            result = alertService.resolveAlerts(ids);
+        } else if (source != null) {
+            result = alertService.resolveAlertsBySource(source);
+        } else if (severity != null) {
+            result = alertService.resolveAlertsBySeverity(severity);
+        } else {
+            if (olderThanMinutes < 0) {
+                throw new IllegalArgumentException("olderThanMinutes must not be negative");
+            }
+            result = alertService.resolveAlertsBefore(LocalDateTime.now().minusMinutes(olderThanMinutes));
+        }
+        if (result.getResolvedCount() > 0) {
+            webSocketController.pushAlertsResolved(result);
+        }
+        return result;
+    }
+    
     @PostMapping("/alerts/generate")
     public Alert generateMockAlert() {
         return alertService.generateMockAlert();
     }
     
+    @GetMapping("/alerts/rate-limit/stats")
+    public RateLimitStats getAlertRateLimitStats() {
+        return alertRateLimiter.getStats();
+    }
+    
     @GetMapping("/alerts/summary")
     public AlertService.AlertSummary getAlertSummary() {
         return alertService.getAlertSummary();
     }
-}
\ No newline at end of file
+    
+    // 写入路径上生效的告警规则及其判断次数、触发次数
+    @GetMapping("/alerts/rules")
+    public List<AlertRule> getAlertRules() {
+        return alertRuleEngine.getRules();
+    }
+    
+    @GetMapping("/alerts/rules/stats")
+    public RuleEngineStats getAlertRuleStats() {
+        return alertRuleEngine.getStats();
+    }
+    
+    // 游标等参数格式错误时返回400
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+}
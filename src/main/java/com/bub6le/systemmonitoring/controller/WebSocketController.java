@@ -3,9 +3,13 @@ package com.bub6le.systemmonitoring.controller;
 import com.bub6le.systemmonitoring.model.Alert;
 import com.bub6le.systemmonitoring.model.SystemMetrics;
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.view.AlertView;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
 import com.bub6le.systemmonitoring.service.AlertService;
 import com.bub6le.systemmonitoring.service.SystemMetricsService;
 import com.bub6le.systemmonitoring.service.TaskService;
+import com.bub6le.systemmonitoring.store.topk.TopMetric;
+import com.bub6le.systemmonitoring.store.topk.TopServerEntry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
@@ -54,10 +58,20 @@ public class WebSocketController {
         messagingTemplate.convertAndSend("/topic/health", healthStatus);
     }
     
-    // 定时推送任务数据（每3秒）
+    // 定时推送最近5分钟CPU和负载最高的20台服务器（每5秒）
+    @Scheduled(fixedRate = 5000)
+    public void pushTopServers() {
+        List<TopServerEntry> topCpu = systemMetricsService.getTopServers(TopMetric.CPU, 20, "5m");
+        messagingTemplate.convertAndSend("/topic/top-servers/cpu", topCpu);
+        
+        List<TopServerEntry> topLoad = systemMetricsService.getTopServers(TopMetric.LOAD, 20, "5m");
+        messagingTemplate.convertAndSend("/topic/top-servers/load", topLoad);
+    }
+    
+    // 定时推送任务数据（每3秒），只推送页面展示的最近10个任务的只读投影
     @Scheduled(fixedRate = 3000)
     public void pushTasks() {
-        List<Task> tasks = taskService.getAllTasks();
+        List<TaskView> tasks = taskService.getRecentTaskViews(10);
         messagingTemplate.convertAndSend("/topic/tasks", tasks);
         
         // 推送任务摘要
@@ -65,10 +79,10 @@ public class WebSocketController {
         messagingTemplate.convertAndSend("/topic/task-summary", taskSummary);
     }
     
-    // 定时推送告警数据（每5秒）
+    // 定时推送告警数据（每5秒），只推送最新一页未解决告警，总数由摘要给出
     @Scheduled(fixedRate = 5000)
     public void pushAlerts() {
-        List<Alert> alerts = alertService.getUnresolvedAlerts();
+        List<AlertView> alerts = alertService.getUnresolvedAlertsPage(null, 10).items();
         messagingTemplate.convertAndSend("/topic/alerts", alerts);
         
         // 推送告警摘要
@@ -76,6 +90,11 @@ public class WebSocketController {
         messagingTemplate.convertAndSend("/topic/alert-summary", alertSummary);
     }
     
+    // 批量解决告警后推送一条汇总事件，客户端据此刷新告警列表和摘要，不逐条推送
+    public void pushAlertsResolved(AlertService.BulkResolveResult result) {
+        messagingTemplate.convertAndSend("/topic/alerts-resolved", result);
+    }
+    
     // 生成模拟数据的方法，可以通过API调用
     public void generateMockData() {
         // 生成模拟系统指标
@@ -91,7 +110,10 @@ public class WebSocketController {
         // 随机生成模拟告警
         if (Math.random() > 0.8) {
             Alert alert = alertService.generateMockAlert();
-            messagingTemplate.convertAndSend("/topic/new-alert", alert);
+            // 被限流丢弃时不推送；合并到已有告警时推送合并后的告警，客户端按id替换原来的行
+            if (alert != null) {
+                messagingTemplate.convertAndSend("/topic/new-alert", alert);
+            }
         }
     }
     
@@ -0,0 +1,255 @@
+package com.bub6le.systemmonitoring.ingest;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.MetricsIngestService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 面向采集代理的二进制指标接入，帧格式见 {@link MetricsFrameCodec}。
+ *
+ * 单个selector线程同时处理TCP监听、TCP连接和UDP报文。每个TCP连接持有一个直接内存读缓冲区，
+ * UDP共用一个，缓冲区在整个生命周期内复用；解码出的样本提交给 {@link MetricsIngestService}，
+ * 与HTTP写入走同一条批量落库路径。
+ */
+@Component
+public class BinaryIngestServer {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryIngestServer.class);
+
+    @Autowired
+    private MetricsIngestService metricsIngestService;
+
+    @Value("${monitoring.binary.enabled:false}")
+    private boolean enabled;
+
+    @Value("${monitoring.binary.tcp-port:9500}")
+    private int tcpPort;
+
+    @Value("${monitoring.binary.udp-port:9501}")
+    private int udpPort;
+
+    @Value("${monitoring.binary.buffer-size:65536}")
+    private int bufferSize;
+
+    private final MetricsFrameCodec codec = new MetricsFrameCodec();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private DatagramChannel datagramChannel;
+    private ByteBuffer datagramBuffer;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    private final AtomicLong acceptedFrames = new AtomicLong();
+    private final AtomicLong rejectedFrames = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            selector = Selector.open();
+
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.bind(new InetSocketAddress(tcpPort));
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+            datagramChannel = DatagramChannel.open();
+            datagramChannel.configureBlocking(false);
+            datagramChannel.bind(new InetSocketAddress(udpPort));
+            datagramChannel.register(selector, SelectionKey.OP_READ);
+            datagramBuffer = ByteBuffer.allocateDirect(bufferSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start binary ingest listener", e);
+        }
+
+        running = true;
+        selectorThread = new Thread(this::selectLoop, "metrics-binary-ingest");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("Binary metrics listener on tcp/{} udp/{}", getTcpPort(), getUdpPort());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getTcpPort() {
+        return serverChannel != null ? serverChannel.socket().getLocalPort() : -1;
+    }
+
+    public int getUdpPort() {
+        return datagramChannel != null ? datagramChannel.socket().getLocalPort() : -1;
+    }
+
+    private void selectLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else if (key.channel() == datagramChannel) {
+                            receiveDatagrams();
+                        } else if (key.isReadable()) {
+                            read(key);
+                        }
+                    } catch (IOException e) {
+                        log.debug("Closing binary ingest channel after I/O error", e);
+                        closeQuietly(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Binary ingest selector failed", e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.warn("Failed to close selector", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocateDirect(bufferSize));
+        connectionCount.incrementAndGet();
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        int read = channel.read(buffer);
+        if (read < 0) {
+            closeQuietly(key);
+            return;
+        }
+        buffer.flip();
+        boolean valid = drainFrames(buffer);
+        buffer.compact();
+        if (!valid) {
+            // 长度字段不合法时无法再找到帧边界，只能断开
+            log.warn("Closing binary ingest connection {} after invalid frame length", channel.getRemoteAddress());
+            closeQuietly(key);
+        }
+    }
+
+    private void receiveDatagrams() throws IOException {
+        while (true) {
+            datagramBuffer.clear();
+            if (datagramChannel.receive(datagramBuffer) == null) {
+                return;
+            }
+            datagramBuffer.flip();
+            drainFrames(datagramBuffer);
+            // 报文末尾不完整的帧直接丢弃
+            if (datagramBuffer.hasRemaining()) {
+                rejectedFrames.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 解码缓冲区中所有完整的帧，不完整的尾部留在缓冲区中。帧长度不合法时返回false。
+     */
+    private boolean drainFrames(ByteBuffer buffer) {
+        int maxFrameSize = buffer.capacity() - MetricsFrameCodec.LENGTH_FIELD_SIZE;
+        while (buffer.remaining() >= MetricsFrameCodec.LENGTH_FIELD_SIZE) {
+            int length = buffer.getInt(buffer.position());
+            if (length < MetricsFrameCodec.MIN_FRAME_SIZE || length > maxFrameSize) {
+                rejectedFrames.incrementAndGet();
+                return false;
+            }
+            if (buffer.remaining() < MetricsFrameCodec.LENGTH_FIELD_SIZE + length) {
+                break;
+            }
+            buffer.position(buffer.position() + MetricsFrameCodec.LENGTH_FIELD_SIZE);
+            SystemMetrics metrics = codec.decode(buffer, buffer.position() + length);
+            if (metrics != null && metricsIngestService.submit(metrics)) {
+                acceptedFrames.incrementAndGet();
+            } else {
+                rejectedFrames.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.debug("Failed to close channel", e);
+        }
+    }
+
+    public BinaryIngestStats getBinaryIngestStats() {
+        return new BinaryIngestStats(enabled, acceptedFrames.get(), rejectedFrames.get(), connectionCount.get());
+    }
+
+    public static class BinaryIngestStats {
+        private boolean enabled;
+        private long acceptedFrames;
+        private long rejectedFrames;
+        private long connectionCount;
+
+        public BinaryIngestStats(boolean enabled, long acceptedFrames, long rejectedFrames, long connectionCount) {
+            this.enabled = enabled;
+            this.acceptedFrames = acceptedFrames;
+            this.rejectedFrames = rejectedFrames;
+            this.connectionCount = connectionCount;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public long getAcceptedFrames() { return acceptedFrames; }
+        public long getRejectedFrames() { return rejectedFrames; }
+        public long getConnectionCount() { return connectionCount; }
+    }
+}
@@ -0,0 +1,126 @@
+package com.bub6le.systemmonitoring.ingest;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.util.EpochTime;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 指标二进制帧（大端序）：
+ * <pre>
+ * int    帧长度（不含本字段）
+ * byte   版本号，当前为1
+ * long   时间戳毫秒，0表示使用接收时间
+ * double cpuUsage, memoryUsage, diskUsage, networkIn, networkOut, loadAverage（NaN表示空）
+ * short  长度 + UTF-8字节：serverName, region, serviceType（长度-1表示空）
+ * </pre>
+ * TCP上帧首尾相接；UDP每个报文可以包含一个或多个完整的帧。
+ */
+public final class MetricsFrameCodec {
+
+    public static final byte VERSION = 1;
+    public static final int LENGTH_FIELD_SIZE = 4;
+    // 版本 + 时间戳 + 6个double + 3个字符串长度
+    public static final int MIN_FRAME_SIZE = 1 + 8 + 6 * 8 + 3 * 2;
+
+    private final Utf8StringCache strings = new Utf8StringCache(1024);
+
+    /**
+     * 解码buffer中position到end之间的一个帧体，结束后position位于end。
+     * 帧内容不合法时返回null。
+     */
+    public SystemMetrics decode(ByteBuffer buffer, int end) {
+        try {
+            if (end - buffer.position() < MIN_FRAME_SIZE || buffer.get() != VERSION) {
+                return null;
+            }
+            long timestamp = buffer.getLong();
+            SystemMetrics metrics = new SystemMetrics();
+            metrics.setCpuUsage(toBoxed(buffer.getDouble()));
+            metrics.setMemoryUsage(toBoxed(buffer.getDouble()));
+            metrics.setDiskUsage(toBoxed(buffer.getDouble()));
+            metrics.setNetworkIn(toBoxed(buffer.getDouble()));
+            metrics.setNetworkOut(toBoxed(buffer.getDouble()));
+            metrics.setLoadAverage(toBoxed(buffer.getDouble()));
+            metrics.setServerName(readString(buffer, end));
+            metrics.setRegion(readString(buffer, end));
+            metrics.setServiceType(readString(buffer, end));
+            if (timestamp != 0) {
+                metrics.setTimestamp(EpochTime.fromMillis(timestamp));
+            }
+            return metrics.getServerName() != null && !metrics.getServerName().isEmpty() ? metrics : null;
+        } catch (IllegalArgumentException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            return null;
+        } finally {
+            buffer.position(end);
+        }
+    }
+
+    /**
+     * 编码一个完整的帧（含长度字段），供客户端和测试使用。
+     */
+    public static void encode(SystemMetrics metrics, ByteBuffer out) {
+        byte[] serverName = toBytes(metrics.getServerName());
+        byte[] region = toBytes(metrics.getRegion());
+        byte[] serviceType = toBytes(metrics.getServiceType());
+        int length = MIN_FRAME_SIZE + byteLength(serverName) + byteLength(region) + byteLength(serviceType);
+
+        out.putInt(length);
+        out.put(VERSION);
+        out.putLong(metrics.getTimestamp() != null ? EpochTime.toMillis(metrics.getTimestamp()) : 0L);
+        out.putDouble(toPrimitive(metrics.getCpuUsage()));
+        out.putDouble(toPrimitive(metrics.getMemoryUsage()));
+        out.putDouble(toPrimitive(metrics.getDiskUsage()));
+        out.putDouble(toPrimitive(metrics.getNetworkIn()));
+        out.putDouble(toPrimitive(metrics.getNetworkOut()));
+        out.putDouble(toPrimitive(metrics.getLoadAverage()));
+        writeString(out, serverName);
+        writeString(out, region);
+        writeString(out, serviceType);
+    }
+
+    private String readString(ByteBuffer buffer, int end) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        if (buffer.position() + length > end) {
+            throw new IllegalArgumentException("String exceeds frame");
+        }
+        return strings.get(buffer, length);
+    }
+
+    private static void writeString(ByteBuffer out, byte[] bytes) {
+        if (bytes == null) {
+            out.putShort((short) -1);
+            return;
+        }
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static byte[] toBytes(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String too long for frame: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int byteLength(byte[] bytes) {
+        return bytes != null ? bytes.length : 0;
+    }
+
+    private static double toPrimitive(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double toBoxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
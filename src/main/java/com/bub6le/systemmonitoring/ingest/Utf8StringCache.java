@@ -0,0 +1,57 @@
+package com.bub6le.systemmonitoring.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按UTF-8字节内容缓存字符串。服务器名、地区这类维度取值很少，命中时直接返回已有的String，
+ * 解码时不再为每条样本分配。非线程安全，每个解码线程一个实例。
+ */
+final class Utf8StringCache {
+
+    private final byte[][] keys;
+    private final String[] values;
+    private final int mask;
+
+    Utf8StringCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+        this.keys = new byte[size][];
+        this.values = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 读取buffer当前位置起length个字节对应的字符串，并把position前移length。
+     */
+    String get(ByteBuffer buffer, int length) {
+        int start = buffer.position();
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.get(start + i);
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+
+        byte[] key = keys[slot];
+        if (key != null && key.length == length && matches(buffer, start, key)) {
+            buffer.position(start + length);
+            return values[slot];
+        }
+
+        // 未命中或冲突时覆盖该槽位
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        keys[slot] = bytes;
+        values[slot] = value;
+        return value;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -4,13 +4,22 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "alerts")
+@Table(name = "alerts", indexes = {
+    @Index(name = "idx_alerts_timestamp", columnList = "timestamp DESC, id DESC"),
+    @Index(name = "idx_alerts_resolved_time", columnList = "resolved, timestamp DESC, id DESC"),
+    @Index(name = "idx_alerts_severity_resolved", columnList = "severity, resolved"),
+    @Index(name = "idx_alerts_severity_time", columnList = "severity, timestamp DESC, id DESC"),
+    @Index(name = "idx_alerts_source", columnList = "source, timestamp DESC, id DESC"),
+    @Index(name = "idx_alerts_fingerprint", columnList = "source, severity, resolved, id DESC")
+})
+@EntityListeners(DimensionInterningListener.class)
 public class Alert {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @Convert(converter = DimensionConverter.class)
     @Column(name = "source")
     private String source;
     
@@ -27,10 +36,19 @@ public class Alert {
     @Column(name = "resolved")
     private Boolean resolved;
     
+    // 未解决期间相同(source, severity, message)的告警合并到同一行，记录出现次数和最近一次出现的时间
+    @Column(name = "occurrence_count")
+    private Long occurrenceCount;
+    
+    @Column(name = "last_seen")
+    private LocalDateTime lastSeen;
+    
     // Constructors
     public Alert() {
         this.timestamp = LocalDateTime.now();
         this.resolved = false;
+        this.occurrenceCount = 1L;
+        this.lastSeen = this.timestamp;
     }
     
     public Alert(String source, AlertSeverity severity, String message) {
@@ -89,6 +107,22 @@ public class Alert {
         this.resolved = resolved;
     }
     
+    public Long getOccurrenceCount() {
+        return occurrenceCount;
+    }
+    
+    public void setOccurrenceCount(Long occurrenceCount) {
+        this.occurrenceCount = occurrenceCount;
+    }
+    
+    public LocalDateTime getLastSeen() {
+        return lastSeen;
+    }
+    
+    public void setLastSeen(LocalDateTime lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+    
     // Alert Severity Enum
     public enum AlertSeverity {
         LOW("低"),
@@ -0,0 +1,32 @@
+package com.bub6le.systemmonitoring.model;
+
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * 维度列在数据库中存字典id，实体上仍然是字符串。
+ * 转换器由Hibernate在创建EntityManagerFactory时实例化，字典延迟注入以避免循环依赖。
+ *
+ * 写入和查询参数都经过这里，因此只查找不分配：没见过的值转成 {@link DimensionDictionary#NULL_ID}，
+ * 不会匹配任何行。写入的新值由 {@link DimensionInterningListener} 在保存前登记。
+ */
+@Converter
+public class DimensionConverter implements AttributeConverter<String, Integer> {
+
+    @Autowired
+    @Lazy
+    private DimensionDictionary dimensionDictionary;
+
+    @Override
+    public Integer convertToDatabaseColumn(String value) {
+        return value != null ? dimensionDictionary.find(value) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return id != null ? dimensionDictionary.lookup(id) : null;
+    }
+}
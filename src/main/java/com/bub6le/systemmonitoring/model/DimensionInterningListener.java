@@ -0,0 +1,30 @@
+package com.bub6le.systemmonitoring.model;
+
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+/**
+ * 写入实体前把维度值登记到字典。{@link DimensionConverter} 只查找不分配，
+ * 查询参数中没见过的值不会产生字典项，新值只在这里、即真正写入时分配id。
+ */
+public class DimensionInterningListener {
+
+    @Autowired
+    @Lazy
+    private DimensionDictionary dimensionDictionary;
+
+    @PrePersist
+    @PreUpdate
+    public void internDimensions(Object entity) {
+        if (entity instanceof SystemMetrics metrics) {
+            dimensionDictionary.intern(metrics.getServerName());
+            dimensionDictionary.intern(metrics.getRegion());
+            dimensionDictionary.intern(metrics.getServiceType());
+        } else if (entity instanceof Alert alert) {
+            dimensionDictionary.intern(alert.getSource());
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.bub6le.systemmonitoring.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "system_metrics")
+@Table(name = "system_metrics", indexes = {
+    @Index(name = "idx_metrics_timestamp", columnList = "timestamp DESC, id DESC"),
+    @Index(name = "idx_metrics_server_time", columnList = "server_name, timestamp DESC, id DESC"),
+    @Index(name = "idx_metrics_region", columnList = "region, timestamp DESC, id DESC"),
+    @Index(name = "idx_metrics_service_type", columnList = "service_type, timestamp DESC, id DESC")
+})
+@EntityListeners(DimensionInterningListener.class)
 public class SystemMetrics {
     
+    // 使用pooled序列分配主键，IDENTITY会让Hibernate无法进行JDBC批量插入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "system_metrics_seq")
+    @SequenceGenerator(name = "system_metrics_seq", sequenceName = "system_metrics_seq", allocationSize = 50)
     private Long id;
     
+    // 维度列在数据库中存字典id
+    @Convert(converter = DimensionConverter.class)
     @Column(name = "server_name")
     private String serverName;
     
@@ -35,12 +46,19 @@ public class SystemMetrics {
     @Column(name = "timestamp")
     private LocalDateTime timestamp;
     
+    @Convert(converter = DimensionConverter.class)
     @Column(name = "region")
     private String region;
     
+    @Convert(converter = DimensionConverter.class)
     @Column(name = "service_type")
     private String serviceType;
     
+    // 接受样本时追加的WAL记录起始LSN，回放时用于跳过已落库的样本；未启用WAL时为空
+    @JsonIgnore
+    @Column(name = "wal_lsn")
+    private Long walLsn;
+    
     // Constructors
     public SystemMetrics() {
         this.timestamp = LocalDateTime.now();
@@ -149,4 +167,12 @@ public class SystemMetrics {
     public void setServiceType(String serviceType) {
         this.serviceType = serviceType;
     }
+    
+    public Long getWalLsn() {
+        return walLsn;
+    }
+    
+    public void setWalLsn(Long walLsn) {
+        this.walLsn = walLsn;
+    }
 }
\ No newline at end of file
@@ -4,7 +4,13 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+    @Index(name = "idx_tasks_updated_time", columnList = "updated_time DESC"),
+    @Index(name = "idx_tasks_status_updated", columnList = "status, updated_time DESC"),
+    @Index(name = "idx_tasks_created_time", columnList = "created_time DESC, id DESC"),
+    @Index(name = "idx_tasks_status_created", columnList = "status, created_time DESC, id DESC"),
+    @Index(name = "idx_tasks_target_cluster", columnList = "target_cluster, created_time DESC, id DESC")
+})
 public class Task {
     
     @Id
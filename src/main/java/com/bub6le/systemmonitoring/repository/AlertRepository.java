@@ -1,10 +1,17 @@
 package com.bub6le.systemmonitoring.repository;
 
 import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.repository.view.AlertView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,4 +34,76 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
     
     @Query("SELECT COUNT(a) FROM Alert a WHERE a.resolved = false")
     Long countUnresolvedAlerts();
+    
+    @Query("SELECT a.severity AS severity, COUNT(a) AS alertCount FROM Alert a WHERE a.resolved = false GROUP BY a.severity")
+    List<SeverityCount> countUnresolvedBySeverity();
+    
+    // 指纹索引未命中时查找同一指纹的未解决告警，重启后重复的告警仍合并到原来的行
+    Alert findFirstBySourceAndSeverityAndMessageAndResolvedFalseOrderByIdDesc(String source,
+                                                                              Alert.AlertSeverity severity,
+                                                                              String message);
+    
+    // 把内存中累加的出现次数写回，已解决的行不再更新
+    @Transactional
+    @Modifying
+    @Query("UPDATE Alert a SET a.occurrenceCount = :occurrenceCount, a.lastSeen = :lastSeen WHERE a.id = :id AND a.resolved = false")
+    int updateOccurrences(@Param("id") long id, @Param("occurrenceCount") long occurrenceCount,
+                          @Param("lastSeen") LocalDateTime lastSeen);
+    
+    // 批量解决前在同一事务内按严重级别分组计数命中的未解决告警，用于扣减内存计数，不取出id
+    @Query("SELECT a.severity AS severity, COUNT(a) AS alertCount FROM Alert a WHERE a.resolved = false AND a.id IN :ids GROUP BY a.severity")
+    List<SeverityCount> countUnresolvedByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT a.severity AS severity, COUNT(a) AS alertCount FROM Alert a WHERE a.resolved = false AND a.source = :source GROUP BY a.severity")
+    List<SeverityCount> countUnresolvedBySource(@Param("source") String source);
+    
+    @Query("SELECT a.severity AS severity, COUNT(a) AS alertCount FROM Alert a WHERE a.resolved = false AND a.severity = :severity GROUP BY a.severity")
+    List<SeverityCount> countUnresolvedWithSeverity(@Param("severity") Alert.AlertSeverity severity);
+    
+    @Query("SELECT a.severity AS severity, COUNT(a) AS alertCount FROM Alert a WHERE a.resolved = false AND a.timestamp < :before GROUP BY a.severity")
+    List<SeverityCount> countUnresolvedBefore(@Param("before") LocalDateTime before);
+    
+    // 一条UPDATE解决一批告警，已解决的行不计入返回的行数
+    @Transactional
+    @Modifying
+    @Query("UPDATE Alert a SET a.resolved = true WHERE a.id IN :ids AND a.resolved = false")
+    int resolveByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // 按条件解决时直接执行一条集合UPDATE，不把命中的行取到应用中
+    @Transactional
+    @Modifying
+    @Query("UPDATE Alert a SET a.resolved = true WHERE a.resolved = false AND a.source = :source")
+    int resolveBySource(@Param("source") String source);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Alert a SET a.resolved = true WHERE a.resolved = false AND a.severity = :severity")
+    int resolveBySeverity(@Param("severity") Alert.AlertSeverity severity);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Alert a SET a.resolved = true WHERE a.resolved = false AND a.timestamp < :before")
+    int resolveBefore(@Param("before") LocalDateTime before);
+    
+    // 键集分页：取排在(timestamp, id)之后的行，直接投影为只读视图
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.AlertView(a.id, a.source, a.severity, a.message, a.timestamp, a.resolved, a.occurrenceCount, a.lastSeen) FROM Alert a WHERE a.timestamp <= :timestamp AND (a.timestamp < :timestamp OR a.id < :id) ORDER BY a.timestamp DESC, a.id DESC")
+    List<AlertView> findPage(@Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.AlertView(a.id, a.source, a.severity, a.message, a.timestamp, a.resolved, a.occurrenceCount, a.lastSeen) FROM Alert a WHERE a.resolved = false AND a.timestamp <= :timestamp AND (a.timestamp < :timestamp OR a.id < :id) ORDER BY a.timestamp DESC, a.id DESC")
+    List<AlertView> findUnresolvedPage(@Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.AlertView(a.id, a.source, a.severity, a.message, a.timestamp, a.resolved, a.occurrenceCount, a.lastSeen) FROM Alert a WHERE a.source = :source AND a.timestamp <= :timestamp AND (a.timestamp < :timestamp OR a.id < :id) ORDER BY a.timestamp DESC, a.id DESC")
+    List<AlertView> findPageBySource(@Param("source") String source,
+                                     @Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.AlertView(a.id, a.source, a.severity, a.message, a.timestamp, a.resolved, a.occurrenceCount, a.lastSeen) FROM Alert a WHERE a.severity = :severity AND a.timestamp <= :timestamp AND (a.timestamp < :timestamp OR a.id < :id) ORDER BY a.timestamp DESC, a.id DESC")
+    List<AlertView> findPageBySeverity(@Param("severity") Alert.AlertSeverity severity,
+                                       @Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    // 分组计数的接口投影，不加载告警实体
+    interface SeverityCount {
+        Alert.AlertSeverity getSeverity();
+        
+        Long getAlertCount();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.bub6le.systemmonitoring.repository;
+
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 一页键集分页结果。nextCursor为null表示没有下一页。
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * 把每页大小限制在[1, MAX_LIMIT]。查询时多取一行，用来判断是否还有下一页。
+     */
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * 解析游标并执行一次键集查询，多取一行判断是否还有下一页。
+     */
+    public static <T> CursorPage<T> fetch(String cursor, int limit, PageQuery<T> query, Function<T, PageCursor> cursorOf) {
+        PageCursor position = PageCursor.decode(cursor);
+        int pageSize = clampLimit(limit);
+        return of(query.find(position.timestamp(), position.id(), Limit.of(pageSize + 1)), pageSize, cursorOf);
+    }
+
+    /**
+     * 由多取一行的查询结果构造一页，最后一行的位置作为下一页的游标。
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    /**
+     * 仓库中的键集查询方法，取排在(timestamp, id)之后的至多limit行。
+     */
+    @FunctionalInterface
+    public interface PageQuery<T> {
+        List<T> find(LocalDateTime timestamp, long id, Limit limit);
+    }
+}
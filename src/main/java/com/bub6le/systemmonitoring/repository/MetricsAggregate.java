@@ -0,0 +1,21 @@
+package com.bub6le.systemmonitoring.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据库聚合查询的一行结果：一个时间桶（可选再按维度分组）内每列的统计值。
+ * groupKey在不分组时为null。列中没有非空值时统计值为NaN。
+ */
+public record MetricsAggregate(LocalDateTime bucketStart,
+                               String groupKey,
+                               long count,
+                               ColumnStats cpuUsage,
+                               ColumnStats memoryUsage,
+                               ColumnStats diskUsage,
+                               ColumnStats networkIn,
+                               ColumnStats networkOut,
+                               ColumnStats loadAverage) {
+
+    public record ColumnStats(double min, double max, double avg, double sum, long count) {
+    }
+}
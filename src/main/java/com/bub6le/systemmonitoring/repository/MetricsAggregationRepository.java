@@ -0,0 +1,143 @@
+package com.bub6le.systemmonitoring.repository;
+
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在数据库中按时间桶和维度做GROUP BY聚合，只返回统计值，不加载实体。
+ *
+ * 当前分区和时间范围重叠的已封存分区各查一次，再按(桶, 分组)合并各表的部分聚合。
+ */
+@Repository
+public class MetricsAggregationRepository {
+
+    private static final String[] COLUMNS = {
+        "cpu_usage", "memory_usage", "disk_usage", "network_in", "network_out", "load_average"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MetricsPartitionManager metricsPartitionManager;
+
+    @Autowired
+    private DimensionDictionary dimensionDictionary;
+
+    /**
+     * 聚合[startTime, endTime)内的数据。bucketMillis不大于0时整个范围作为一个桶，桶起点为startTime；
+     * 否则桶按bucketMillis的整数倍对齐。结果按桶时间、分组键排序。
+     */
+    public List<MetricsAggregate> aggregate(LocalDateTime startTime, LocalDateTime endTime,
+                                            long bucketMillis, MetricsGroupBy groupBy) {
+        boolean bucketed = bucketMillis > 0;
+        long originMillis = bucketed
+                ? Math.floorDiv(EpochTime.toMillis(startTime), bucketMillis) * bucketMillis
+                : EpochTime.toMillis(startTime);
+
+        Map<GroupKey, Accumulator> merged = new LinkedHashMap<>();
+        metricsPartitionManager.beginPartitionRead();
+        try {
+            for (String table : metricsPartitionManager.tablesOverlapping(startTime, endTime)) {
+                List<Object> args = new ArrayList<>();
+                if (bucketed) {
+                    args.add(Timestamp.valueOf(EpochTime.fromMillis(originMillis)));
+                    args.add(bucketMillis);
+                }
+                args.add(Timestamp.valueOf(startTime));
+                args.add(Timestamp.valueOf(endTime));
+                jdbcTemplate.query(buildSql(table, bucketed, groupBy), rs -> {
+                    GroupKey key = new GroupKey(rs.getLong("bucket"), rs.getObject("group_id", Integer.class));
+                    merged.computeIfAbsent(key, k -> new Accumulator()).add(rs);
+                }, args.toArray());
+            }
+        } finally {
+            metricsPartitionManager.endPartitionRead();
+        }
+
+        List<MetricsAggregate> result = new ArrayList<>(merged.size());
+        for (Map.Entry<GroupKey, Accumulator> entry : merged.entrySet()) {
+            GroupKey key = entry.getKey();
+            LocalDateTime bucketStart = EpochTime.fromMillis(originMillis + key.bucket() * Math.max(bucketMillis, 0));
+            String groupKey = key.groupId() != null ? dimensionDictionary.lookup(key.groupId()) : null;
+            result.add(entry.getValue().toAggregate(bucketStart, groupKey));
+        }
+        result.sort(Comparator.comparing(MetricsAggregate::bucketStart)
+                .thenComparing(MetricsAggregate::groupKey, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    private static String buildSql(String table, boolean bucketed, MetricsGroupBy groupBy) {
+        String bucketExpr = bucketed ? "DATEDIFF(MILLISECOND, CAST(? AS TIMESTAMP), timestamp) / CAST(? AS BIGINT)" : "0";
+        String groupExpr = groupBy.getColumn() != null ? groupBy.getColumn() : "CAST(NULL AS INT)";
+        StringBuilder sql = new StringBuilder("SELECT bucket, group_id, COUNT(*) AS sample_count");
+        for (String column : COLUMNS) {
+            sql.append(", COUNT(").append(column).append(") AS ").append(column).append("_count")
+               .append(", SUM(").append(column).append(") AS ").append(column).append("_sum")
+               .append(", MIN(").append(column).append(") AS ").append(column).append("_min")
+               .append(", MAX(").append(column).append(") AS ").append(column).append("_max");
+        }
+        sql.append(" FROM (SELECT ").append(bucketExpr).append(" AS bucket, ")
+           .append(groupExpr).append(" AS group_id, ").append(String.join(", ", COLUMNS))
+           .append(" FROM ").append(table)
+           .append(" WHERE timestamp >= ? AND timestamp < ?) t GROUP BY bucket, group_id");
+        return sql.toString();
+    }
+
+    private record GroupKey(long bucket, Integer groupId) {
+    }
+
+    // 合并多个分区对同一(桶, 分组)的部分聚合
+    private static final class Accumulator {
+        private long count;
+        private final long[] counts = new long[COLUMNS.length];
+        private final double[] sums = new double[COLUMNS.length];
+        private final double[] mins = new double[COLUMNS.length];
+        private final double[] maxs = new double[COLUMNS.length];
+
+        Accumulator() {
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+        }
+
+        void add(ResultSet rs) throws SQLException {
+            count += rs.getLong("sample_count");
+            for (int i = 0; i < COLUMNS.length; i++) {
+                long columnCount = rs.getLong(COLUMNS[i] + "_count");
+                if (columnCount == 0) {
+                    continue;
+                }
+                counts[i] += columnCount;
+                sums[i] += rs.getDouble(COLUMNS[i] + "_sum");
+                mins[i] = Math.min(mins[i], rs.getDouble(COLUMNS[i] + "_min"));
+                maxs[i] = Math.max(maxs[i], rs.getDouble(COLUMNS[i] + "_max"));
+            }
+        }
+
+        MetricsAggregate toAggregate(LocalDateTime bucketStart, String groupKey) {
+            return new MetricsAggregate(bucketStart, groupKey, count,
+                    stats(0), stats(1), stats(2), stats(3), stats(4), stats(5));
+        }
+
+        private MetricsAggregate.ColumnStats stats(int i) {
+            if (counts[i] == 0) {
+                return new MetricsAggregate.ColumnStats(Double.NaN, Double.NaN, Double.NaN, 0.0, 0);
+            }
+            return new MetricsAggregate.ColumnStats(mins[i], maxs[i], sums[i] / counts[i], sums[i], counts[i]);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bub6le.systemmonitoring.repository;
+
+/**
+ * 聚合查询的分组维度，对应system_metrics中保存字典id的列。
+ */
+public enum MetricsGroupBy {
+    NONE(null),
+    SERVER("server_name"),
+    REGION("region"),
+    SERVICE_TYPE("service_type");
+
+    private final String column;
+
+    MetricsGroupBy(String column) {
+        this.column = column;
+    }
+
+    String getColumn() {
+        return column;
+    }
+
+    /**
+     * 解析前端使用的维度名（server、region、service），也接受枚举名；无法识别时按服务器分组。
+     */
+    public static MetricsGroupBy fromParam(String value) {
+        if (value == null) {
+            return SERVER;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "region" -> REGION;
+            case "service", "service_type" -> SERVICE_TYPE;
+            case "none" -> NONE;
+            default -> SERVER;
+        };
+    }
+}
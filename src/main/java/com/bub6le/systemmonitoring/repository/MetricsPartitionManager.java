@@ -0,0 +1,437 @@
+package com.bub6le.systemmonitoring.repository;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.view.MetricsChartPoint;
+import com.bub6le.systemmonitoring.store.MetricsHistoryStore;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * system_metrics的按时间分区管理。
+ *
+ * JPA始终写入system_metrics（当前分区）。轮转时把当前表整体重命名为
+ * system_metrics_p{yyyyMMddHHmmss}并创建一张新的空表，不搬移任何数据；
+ * 保留期清理直接DROP整个分区表，不需要逐行DELETE。已被压缩历史持久化覆盖的分区
+ * 只保留raw-retention-days，更早的数据从 {@link MetricsHistoryStore} 读取。
+ */
+@Component
+public class MetricsPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsPartitionManager.class);
+
+    public static final String HEAD_TABLE = "system_metrics";
+    public static final String PARTITION_PREFIX = "system_metrics_p";
+    // 轮转时新当前表及其索引在改名前使用的临时名
+    private static final String NEXT_SUFFIX = "_next";
+    private static final String NEXT_TABLE = HEAD_TABLE + NEXT_SUFFIX;
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    // 与SystemMetrics上声明的@Index保持一致。封存时旧索引随表改名保留，新的当前表重新建索引
+    private static final String[][] HEAD_INDEXES = {
+        {"idx_metrics_timestamp", "timestamp DESC, id DESC"},
+        {"idx_metrics_server_time", "server_name, timestamp DESC, id DESC"},
+        {"idx_metrics_region", "region, timestamp DESC, id DESC"},
+        {"idx_metrics_service_type", "service_type, timestamp DESC, id DESC"}
+    };
+    // 键集分页的顺序：时间倒序，同一时间按id倒序
+    public static final Comparator<SystemMetrics> PAGE_ORDER =
+            Comparator.comparing(SystemMetrics::getTimestamp).thenComparing(SystemMetrics::getId).reversed();
+    private static final String COLUMNS =
+            "id, server_name, cpu_usage, memory_usage, disk_usage, network_in, network_out, load_average, timestamp, region, service_type";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DimensionDictionary dimensionDictionary;
+
+    @Autowired
+    private MetricsHistoryStore metricsHistoryStore;
+
+    @Value("${monitoring.partition.retention-days:14}")
+    private int retentionDays;
+
+    @Value("${monitoring.partition.raw-retention-days:3}")
+    private int rawRetentionDays;
+
+    // 已封存的分区，按表名（即封存时间）排序
+    private final ConcurrentSkipListMap<String, PartitionInfo> partitions = new ConcurrentSkipListMap<>();
+
+    // 轮转期间当前表短暂不存在，写入方持有读锁，轮转持有写锁
+    private final ReentrantReadWriteLock headLock = new ReentrantReadWriteLock();
+
+    // 遍历已封存分区的读取方持有读锁，删除分区表持有写锁
+    private final ReentrantReadWriteLock partitionLock = new ReentrantReadWriteLock();
+
+    // 轮转、删除分区与WAL检查点互斥，不影响写入和查询
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    @PostConstruct
+    public void discoverPartitions() {
+        List<String> tables = jdbcTemplate.queryForList(
+                "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) LIKE ?",
+                String.class, PARTITION_PREFIX + "%");
+        for (String table : tables) {
+            registerPartition(table.toLowerCase());
+        }
+    }
+
+    public void beginHeadWrite() {
+        headLock.readLock().lock();
+    }
+
+    public void endHeadWrite() {
+        headLock.readLock().unlock();
+    }
+
+    /**
+     * 在此之后、{@link #endPartitionRead()} 之前，已列出的分区表不会被删除。
+     */
+    public void beginPartitionRead() {
+        partitionLock.readLock().lock();
+    }
+
+    public void endPartitionRead() {
+        partitionLock.readLock().unlock();
+    }
+
+    /**
+     * 在维护锁下执行操作，期间不会轮转或删除分区；写入和查询照常进行。
+     */
+    public void runWithStablePartitions(Runnable action) {
+        maintenanceLock.lock();
+        try {
+            action.run();
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * 封存当前分区。当前表为空时不做任何事。
+     *
+     * 新的当前表先以临时名建好主键和索引，失败时只需删掉它；之后只剩改名，
+     * 任一步失败都按相反顺序撤销已完成的改名，不会留下半轮转的表结构。
+     */
+    @Scheduled(cron = "${monitoring.partition.rotate-cron:0 0 * * * *}")
+    public void rotate() {
+        runWithStablePartitions(this::rotateHead);
+    }
+
+    private void rotateHead() {
+        headLock.writeLock().lock();
+        try {
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + HEAD_TABLE, Integer.class);
+            if (rows == null || rows == 0) {
+                return;
+            }
+            String partition = PARTITION_PREFIX + LocalDateTime.now().format(SUFFIX_FORMAT);
+            String suffix = partition.substring(HEAD_TABLE.length());
+            createNextHead();
+
+            // 索引名在schema内唯一，封存分区的索引加上分区后缀，新表的临时索引改回正式名
+            List<String[]> renames = new ArrayList<>();
+            renames.add(new String[] {"TABLE", HEAD_TABLE, partition});
+            for (String[] index : HEAD_INDEXES) {
+                renames.add(new String[] {"INDEX", index[0], index[0] + suffix});
+            }
+            renames.add(new String[] {"TABLE", NEXT_TABLE, HEAD_TABLE});
+            for (String[] index : HEAD_INDEXES) {
+                renames.add(new String[] {"INDEX", index[0] + NEXT_SUFFIX, index[0]});
+            }
+            int done = 0;
+            try {
+                for (String[] rename : renames) {
+                    rename(rename[0], rename[1], rename[2]);
+                    done++;
+                }
+            } catch (RuntimeException e) {
+                for (int i = done - 1; i >= 0; i--) {
+                    String[] rename = renames.get(i);
+                    rename(rename[0], rename[2], rename[1]);
+                }
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + NEXT_TABLE);
+                throw e;
+            }
+            registerPartition(partition);
+            log.info("Sealed metrics partition {} ({} rows)", partition, rows);
+        } finally {
+            headLock.writeLock().unlock();
+        }
+    }
+
+    // 以临时名建好下一张当前表：复制列定义，补上CREATE TABLE AS丢掉的NOT NULL和主键，再建索引
+    private void createNextHead() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + NEXT_TABLE);
+        try {
+            jdbcTemplate.execute("CREATE TABLE " + NEXT_TABLE + " AS SELECT * FROM " + HEAD_TABLE + " WITH NO DATA");
+            jdbcTemplate.execute("ALTER TABLE " + NEXT_TABLE + " ALTER COLUMN id SET NOT NULL");
+            jdbcTemplate.execute("ALTER TABLE " + NEXT_TABLE + " ADD PRIMARY KEY (id)");
+            for (String[] index : HEAD_INDEXES) {
+                jdbcTemplate.execute("CREATE INDEX " + index[0] + NEXT_SUFFIX + " ON " + NEXT_TABLE + " (" + index[1] + ")");
+            }
+        } catch (RuntimeException e) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + NEXT_TABLE);
+            throw e;
+        }
+    }
+
+    private void rename(String kind, String from, String to) {
+        jdbcTemplate.execute("ALTER " + kind + " " + from + " RENAME TO " + to);
+    }
+
+    @Scheduled(fixedRate = 3600_000L)
+    public void dropExpiredPartitions() {
+        runWithStablePartitions(this::dropExpired);
+    }
+
+    private void dropExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusDays(retentionDays);
+        // 超过原始数据保留期、且所有样本都已写入持久化压缩块的分区也可以删除
+        long rawCutoffMillis = Math.min(EpochTime.toMillis(now.minusDays(rawRetentionDays)),
+                metricsHistoryStore.getPersistedThroughMillis());
+        List<String> expired = new ArrayList<>();
+        for (PartitionInfo partition : partitions.values()) {
+            if (partition.getMaxTimestamp() == null || partition.getMaxTimestamp().isBefore(cutoff)
+                    || EpochTime.toMillis(partition.getMaxTimestamp()) < rawCutoffMillis) {
+                expired.add(partition.getName());
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        // 先从映射中移除，新的读取方不再看到这些分区；再等已在遍历的读取方结束后删表
+        expired.forEach(partitions::remove);
+        partitionLock.writeLock().lock();
+        try {
+            for (String table : expired) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+                log.info("Dropped expired metrics partition {}", table);
+            }
+        } finally {
+            partitionLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询已封存分区中[startTime, endTime)的数据，只访问时间范围重叠的分区，结果按时间倒序。
+     * 当前分区由 {@link SystemMetricsRepository} 查询。
+     */
+    public List<SystemMetrics> findMetricsBetween(LocalDateTime startTime, LocalDateTime endTime) {
+        List<SystemMetrics> result = new ArrayList<>();
+        beginPartitionRead();
+        try {
+            for (PartitionInfo partition : partitions.values()) {
+                if (!partition.overlaps(startTime, endTime)) {
+                    continue;
+                }
+                result.addAll(jdbcTemplate.query(
+                        "SELECT " + COLUMNS + " FROM " + partition.getName() + " WHERE timestamp >= ? AND timestamp < ?",
+                        rowMapper, Timestamp.valueOf(startTime), Timestamp.valueOf(endTime)));
+            }
+        } finally {
+            endPartitionRead();
+        }
+        result.sort(Comparator.comparing(SystemMetrics::getTimestamp).reversed());
+        return result;
+    }
+
+    /**
+     * 与 {@link #findMetricsBetween} 相同的范围，只读取图表用到的三列。
+     */
+    public List<MetricsChartPoint> findChartPointsBetween(LocalDateTime startTime, LocalDateTime endTime) {
+        List<MetricsChartPoint> result = new ArrayList<>();
+        beginPartitionRead();
+        try {
+            for (PartitionInfo partition : partitions.values()) {
+                if (!partition.overlaps(startTime, endTime)) {
+                    continue;
+                }
+                result.addAll(jdbcTemplate.query(
+                        "SELECT timestamp, cpu_usage, memory_usage FROM " + partition.getName() + " WHERE timestamp >= ? AND timestamp < ?",
+                        chartPointMapper, Timestamp.valueOf(startTime), Timestamp.valueOf(endTime)));
+            }
+        } finally {
+            endPartitionRead();
+        }
+        result.sort(Comparator.comparing(MetricsChartPoint::timestamp).reversed());
+        return result;
+    }
+
+    /**
+     * 查询已封存分区中维度列等于value的全部数据，结果按(时间, id)倒序。
+     * 维度值不在字典中时不会有匹配的行，直接返回空列表。
+     */
+    public List<SystemMetrics> findByDimension(MetricsGroupBy dimension, String value) {
+        int dimensionId = dimensionDictionary.find(value);
+        if (dimensionId == DimensionDictionary.NULL_ID) {
+            return new ArrayList<>();
+        }
+        List<SystemMetrics> result = new ArrayList<>();
+        beginPartitionRead();
+        try {
+            for (PartitionInfo partition : partitions.values()) {
+                result.addAll(jdbcTemplate.query(
+                        "SELECT " + COLUMNS + " FROM " + partition.getName() + " WHERE " + dimension.getColumn() + " = ?",
+                        rowMapper, dimensionId));
+            }
+        } finally {
+            endPartitionRead();
+        }
+        result.sort(PAGE_ORDER);
+        return result;
+    }
+
+    /**
+     * 已封存分区上的键集分页：取排在(timestamp, id)之后的至多limit行，按(时间, id)倒序。
+     * dimension为NONE时不按维度过滤。从最新的分区往前查，已凑够limit行后跳过
+     * 最大时间早于第limit行的分区。
+     */
+    public List<SystemMetrics> findPage(MetricsGroupBy dimension, String value,
+                                        LocalDateTime timestamp, long id, int limit) {
+        boolean filtered = dimension != MetricsGroupBy.NONE;
+        int dimensionId = filtered ? dimensionDictionary.find(value) : DimensionDictionary.NULL_ID;
+        if (filtered && dimensionId == DimensionDictionary.NULL_ID) {
+            return new ArrayList<>();
+        }
+        String where = (filtered ? dimension.getColumn() + " = ? AND " : "")
+                + "timestamp <= ? AND (timestamp < ? OR id < ?) ORDER BY timestamp DESC, id DESC LIMIT ?";
+        List<Object> args = new ArrayList<>();
+        if (filtered) {
+            args.add(dimensionId);
+        }
+        args.addAll(List.of(Timestamp.valueOf(timestamp), Timestamp.valueOf(timestamp), id, limit));
+
+        List<SystemMetrics> result = new ArrayList<>();
+        beginPartitionRead();
+        try {
+            for (PartitionInfo partition : partitions.descendingMap().values()) {
+                if (partition.getMinTimestamp() == null || partition.getMinTimestamp().isAfter(timestamp)) {
+                    continue;
+                }
+                if (result.size() >= limit && partition.getMaxTimestamp().isBefore(result.get(limit - 1).getTimestamp())) {
+                    continue;
+                }
+                result.addAll(jdbcTemplate.query(
+                        "SELECT " + COLUMNS + " FROM " + partition.getName() + " WHERE " + where, rowMapper, args.toArray()));
+                result.sort(PAGE_ORDER);
+            }
+        } finally {
+            endPartitionRead();
+        }
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 返回可能包含[startTime, endTime)数据的表：当前表以及时间范围重叠的已封存分区。
+     * 调用方需在 {@link #beginPartitionRead()} 之后调用，并在查询完这些表后释放。
+     */
+    public List<String> tablesOverlapping(LocalDateTime startTime, LocalDateTime endTime) {
+        List<String> tables = new ArrayList<>();
+        tables.add(HEAD_TABLE);
+        for (PartitionInfo partition : partitions.values()) {
+            if (partition.overlaps(startTime, endTime)) {
+                tables.add(partition.getName());
+            }
+        }
+        return tables;
+    }
+
+    public List<PartitionInfo> getPartitions() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    private void registerPartition(String table) {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+                "SELECT MIN(timestamp) AS min_ts, MAX(timestamp) AS max_ts, COUNT(*) AS row_count FROM " + table);
+        partitions.put(table, new PartitionInfo(table,
+                toLocalDateTime(bounds.get("min_ts")),
+                toLocalDateTime(bounds.get("max_ts")),
+                ((Number) bounds.get("row_count")).longValue()));
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof LocalDateTime localDateTime) {
+            return localDateTime;
+        }
+        return null;
+    }
+
+    // 维度列存的是字典id，绕过JPA读取时需要自己反查
+    private String dimension(ResultSet rs, String column) throws SQLException {
+        Integer id = rs.getObject(column, Integer.class);
+        return id != null ? dimensionDictionary.lookup(id) : null;
+    }
+
+    private final RowMapper<SystemMetrics> rowMapper = (rs, rowNum) -> {
+        SystemMetrics metrics = new SystemMetrics(
+                dimension(rs, "server_name"),
+                rs.getObject("cpu_usage", Double.class),
+                rs.getObject("memory_usage", Double.class),
+                rs.getObject("disk_usage", Double.class),
+                rs.getObject("network_in", Double.class),
+                rs.getObject("network_out", Double.class),
+                rs.getObject("load_average", Double.class),
+                dimension(rs, "region"),
+                dimension(rs, "service_type"));
+        metrics.setId(rs.getLong("id"));
+        Timestamp timestamp = rs.getTimestamp("timestamp");
+        metrics.setTimestamp(timestamp != null ? timestamp.toLocalDateTime() : null);
+        return metrics;
+    };
+
+    private final RowMapper<MetricsChartPoint> chartPointMapper = (rs, rowNum) -> new MetricsChartPoint(
+            toLocalDateTime(rs.getTimestamp("timestamp")),
+            rs.getObject("cpu_usage", Double.class),
+            rs.getObject("memory_usage", Double.class));
+
+    public static class PartitionInfo {
+        private String name;
+        private LocalDateTime minTimestamp;
+        private LocalDateTime maxTimestamp;
+        private long rowCount;
+
+        public PartitionInfo(String name, LocalDateTime minTimestamp, LocalDateTime maxTimestamp, long rowCount) {
+            this.name = name;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+            this.rowCount = rowCount;
+        }
+
+        boolean overlaps(LocalDateTime startTime, LocalDateTime endTime) {
+            return minTimestamp != null && maxTimestamp != null
+                    && !maxTimestamp.isBefore(startTime) && minTimestamp.isBefore(endTime);
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public LocalDateTime getMinTimestamp() { return minTimestamp; }
+        public LocalDateTime getMaxTimestamp() { return maxTimestamp; }
+        public long getRowCount() { return rowCount; }
+    }
+}
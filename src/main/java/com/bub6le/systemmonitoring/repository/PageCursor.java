@@ -0,0 +1,43 @@
+package com.bub6le.systemmonitoring.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页的位置：上一页最后一行的(时间, id)。下一页取严格排在它之后（时间更早，或时间相同id更小）的行，
+ * 查询沿(时间 DESC, id DESC)索引定位后顺序读取，不需要OFFSET跳过前面的行。
+ *
+ * 对客户端编码为不透明的URL安全字符串。
+ */
+public record PageCursor(LocalDateTime timestamp, long id) {
+
+    // 第一页的起点，排在所有行之前
+    private static final PageCursor FIRST = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    public static PageCursor first() {
+        return FIRST;
+    }
+
+    public String encode() {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端传回的游标，为空时返回第一页的起点，格式错误时抛出IllegalArgumentException。
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+    }
+}
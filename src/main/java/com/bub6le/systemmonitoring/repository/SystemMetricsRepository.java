@@ -1,6 +1,8 @@
 package com.bub6le.systemmonitoring.repository;
 
 import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.view.MetricsChartPoint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -24,6 +26,9 @@ public interface SystemMetricsRepository extends JpaRepository<SystemMetrics, Lo
     @Query("SELECT sm FROM SystemMetrics sm WHERE sm.serverName = :serverName AND sm.timestamp >= :startTime ORDER BY sm.timestamp DESC")
     List<SystemMetrics> findRecentMetricsByServer(@Param("serverName") String serverName, @Param("startTime") LocalDateTime startTime);
     
+    @Query("SELECT sm FROM SystemMetrics sm WHERE sm.timestamp >= :startTime AND sm.timestamp < :endTime ORDER BY sm.timestamp DESC")
+    List<SystemMetrics> findMetricsBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+    
     @Query("SELECT AVG(sm.cpuUsage) FROM SystemMetrics sm WHERE sm.timestamp >= :startTime")
     Double getAverageCpuUsage(@Param("startTime") LocalDateTime startTime);
     
@@ -32,4 +37,25 @@ public interface SystemMetricsRepository extends JpaRepository<SystemMetrics, Lo
     
     @Query("SELECT sm FROM SystemMetrics sm WHERE sm.timestamp >= :startTime ORDER BY sm.timestamp DESC")
     List<SystemMetrics> findLatestMetrics(@Param("startTime") LocalDateTime startTime);
+
+    // 图表只需要时间、CPU和内存三列
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.MetricsChartPoint(sm.timestamp, sm.cpuUsage, sm.memoryUsage) "
+            + "FROM SystemMetrics sm WHERE sm.timestamp >= :startTime AND sm.timestamp < :endTime ORDER BY sm.timestamp DESC")
+    List<MetricsChartPoint> findChartPointsBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+    
+    // 键集分页：取排在(timestamp, id)之后的行。条件写成先按时间范围再细分，便于沿索引定位
+    @Query("SELECT sm FROM SystemMetrics sm WHERE sm.timestamp <= :timestamp AND (sm.timestamp < :timestamp OR sm.id < :id) ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<SystemMetrics> findPage(@Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    @Query("SELECT sm FROM SystemMetrics sm WHERE sm.serverName = :serverName AND sm.timestamp <= :timestamp AND (sm.timestamp < :timestamp OR sm.id < :id) ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<SystemMetrics> findPageByServerName(@Param("serverName") String serverName,
+                                             @Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    @Query("SELECT sm FROM SystemMetrics sm WHERE sm.region = :region AND sm.timestamp <= :timestamp AND (sm.timestamp < :timestamp OR sm.id < :id) ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<SystemMetrics> findPageByRegion(@Param("region") String region,
+                                         @Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    @Query("SELECT sm FROM SystemMetrics sm WHERE sm.serviceType = :serviceType AND sm.timestamp <= :timestamp AND (sm.timestamp < :timestamp OR sm.id < :id) ORDER BY sm.timestamp DESC, sm.id DESC")
+    List<SystemMetrics> findPageByServiceType(@Param("serviceType") String serviceType,
+                                              @Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
 }
\ No newline at end of file
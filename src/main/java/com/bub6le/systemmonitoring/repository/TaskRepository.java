@@ -1,10 +1,14 @@
 package com.bub6le.systemmonitoring.repository;
 
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -22,4 +26,20 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     
     @Query("SELECT COUNT(t) FROM Task t WHERE t.status = :status")
     Long countByStatus(Task.TaskStatus status);
+    
+    // 最近更新的任务，用于定时推送
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.TaskView(t.id, t.taskName, t.targetCluster, t.status, t.progress, t.createdTime, t.updatedTime) FROM Task t ORDER BY t.updatedTime DESC, t.id DESC")
+    List<TaskView> findRecentlyUpdatedViews(Limit limit);
+    
+    // 键集分页按创建时间：updatedTime随进度变化，用它做游标会在翻页期间漏行或重复。结果直接投影为只读视图
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.TaskView(t.id, t.taskName, t.targetCluster, t.status, t.progress, t.createdTime, t.updatedTime) FROM Task t WHERE t.createdTime <= :timestamp AND (t.createdTime < :timestamp OR t.id < :id) ORDER BY t.createdTime DESC, t.id DESC")
+    List<TaskView> findPage(@Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.TaskView(t.id, t.taskName, t.targetCluster, t.status, t.progress, t.createdTime, t.updatedTime) FROM Task t WHERE t.status = :status AND t.createdTime <= :timestamp AND (t.createdTime < :timestamp OR t.id < :id) ORDER BY t.createdTime DESC, t.id DESC")
+    List<TaskView> findPageByStatus(@Param("status") Task.TaskStatus status,
+                                    @Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
+    
+    @Query("SELECT new com.bub6le.systemmonitoring.repository.view.TaskView(t.id, t.taskName, t.targetCluster, t.status, t.progress, t.createdTime, t.updatedTime) FROM Task t WHERE t.targetCluster = :targetCluster AND t.createdTime <= :timestamp AND (t.createdTime < :timestamp OR t.id < :id) ORDER BY t.createdTime DESC, t.id DESC")
+    List<TaskView> findPageByTargetCluster(@Param("targetCluster") String targetCluster,
+                                           @Param("timestamp") LocalDateTime timestamp, @Param("id") long id, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.bub6le.systemmonitoring.repository.view;
+
+import com.bub6le.systemmonitoring.model.Alert;
+
+import java.time.LocalDateTime;
+
+/**
+ * 告警列表的只读投影，由查询直接构造，不经过持久化上下文。
+ */
+public record AlertView(Long id,
+                        String source,
+                        Alert.AlertSeverity severity,
+                        String message,
+                        LocalDateTime timestamp,
+                        Boolean resolved,
+                        Long occurrenceCount,
+                        LocalDateTime lastSeen) {
+}
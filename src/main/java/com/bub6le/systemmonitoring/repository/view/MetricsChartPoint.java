@@ -0,0 +1,11 @@
+package com.bub6le.systemmonitoring.repository.view;
+
+import java.time.LocalDateTime;
+
+/**
+ * 时序图表的一个点，只包含图表用到的列。
+ */
+public record MetricsChartPoint(LocalDateTime timestamp,
+                                Double cpuUsage,
+                                Double memoryUsage) {
+}
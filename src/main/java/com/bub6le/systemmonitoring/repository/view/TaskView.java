@@ -0,0 +1,17 @@
+package com.bub6le.systemmonitoring.repository.view;
+
+import com.bub6le.systemmonitoring.model.Task;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任务列表的只读投影，由查询直接构造，不经过持久化上下文。
+ */
+public record TaskView(Long id,
+                       String taskName,
+                       String targetCluster,
+                       Task.TaskStatus status,
+                       Integer progress,
+                       LocalDateTime createdTime,
+                       LocalDateTime updatedTime) {
+}
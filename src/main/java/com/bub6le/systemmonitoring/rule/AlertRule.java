@@ -0,0 +1,69 @@
+package com.bub6le.systemmonitoring.rule;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 一条阈值告警规则：scope为NONE时对所有服务器生效，否则只对scopeValue对应的服务器、区域或服务类型生效。
+ * durationSeconds大于0时要求条件在这么长的样本时间内持续成立才触发。
+ *
+ * 表达式格式为 [server|region|service=值:] 指标 运算符 阈值 [for N秒s] 严重级别，例如
+ * {@code cpu > 85 for 60s HIGH} 或 {@code region=华东: disk >= 95 CRITICAL}，多条规则用分号分隔。
+ */
+public record AlertRule(String expression,
+                        MetricsGroupBy scope,
+                        String scopeValue,
+                        RuleMetric metric,
+                        RuleOperator operator,
+                        double threshold,
+                        long durationSeconds,
+                        Alert.AlertSeverity severity) {
+
+    private static final Pattern EXPRESSION = Pattern.compile(
+            "(?:(server|region|service)\\s*=\\s*([^:]+?)\\s*:)?\\s*([a-z_]+)\\s*(>=|<=|>|<)\\s*(-?[0-9]+(?:\\.[0-9]+)?)"
+                    + "(?:\\s+for\\s+([0-9]+)s)?\\s+([a-z]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    public static AlertRule parse(String expression) {
+        String trimmed = expression.trim();
+        Matcher matcher = EXPRESSION.matcher(trimmed);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid alert rule: " + trimmed);
+        }
+        MetricsGroupBy scope = matcher.group(1) != null ? MetricsGroupBy.fromParam(matcher.group(1)) : MetricsGroupBy.NONE;
+        Alert.AlertSeverity severity;
+        try {
+            severity = Alert.AlertSeverity.valueOf(matcher.group(7).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown alert severity in rule: " + trimmed);
+        }
+        return new AlertRule(trimmed, scope, matcher.group(2),
+                RuleMetric.fromExpression(matcher.group(3)),
+                RuleOperator.fromSymbol(matcher.group(4)),
+                Double.parseDouble(matcher.group(5)),
+                matcher.group(6) != null ? Long.parseLong(matcher.group(6)) : 0L,
+                severity);
+    }
+
+    /**
+     * 解析分号分隔的多条规则，空白项忽略。
+     */
+    public static List<AlertRule> parseAll(String expressions) {
+        List<AlertRule> rules = new ArrayList<>();
+        if (expressions == null) {
+            return rules;
+        }
+        for (String expression : expressions.split(";")) {
+            if (!expression.isBlank()) {
+                rules.add(parse(expression));
+            }
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,217 @@
+package com.bub6le.systemmonitoring.rule;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.service.AlertService;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在写入路径上逐条判断告警规则，条件成立并持续到规则要求的时长时通过AlertService产生告警。
+ *
+ * 规则按作用范围编入索引：全局规则一张表，按服务器、区域、服务类型限定的规则各按维度值分组，
+ * 每条样本只取出全局规则和与自身维度值对应的规则，不逐条扫描全部规则。
+ * 每条规则只记录当前条件成立的服务器及其开始时间，条件不成立时移除，所以状态规模与正在越限的服务器数相当。
+ * 一次越限只告警一次，条件恢复后才会再次触发；告警在写入事务提交后才产生。持续时间按样本时间计算，
+ * 超过maxSampleAgeSeconds的旧样本（如预写日志回放）只更新状态，不产生告警。
+ */
+@Component
+public class AlertRuleEngine implements MetricsIngestListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertRuleEngine.class);
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired(required = false)
+    private PlatformTransactionManager transactionManager;
+
+    private final List<AlertRule> rules;
+    private final RuleIndex index;
+    private final long maxSampleAgeMillis;
+
+    private final AtomicLong sampleCount = new AtomicLong();
+    private final AtomicLong evaluationCount = new AtomicLong();
+    private final AtomicLong alertsRaised = new AtomicLong();
+
+    public AlertRuleEngine(@Value("${monitoring.rules.definitions:cpu > 85 for 60s HIGH; memory > 90 for 60s HIGH; load > 5 for 60s MEDIUM}") String definitions,
+                           @Value("${monitoring.rules.max-sample-age-seconds:300}") int maxSampleAgeSeconds) {
+        this.rules = Collections.unmodifiableList(AlertRule.parseAll(definitions));
+        this.index = new RuleIndex(rules);
+        this.maxSampleAgeMillis = maxSampleAgeSeconds * 1000L;
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        String serverName = metrics.getServerName();
+        if (serverName == null || metrics.getTimestamp() == null) {
+            return;
+        }
+        sampleCount.incrementAndGet();
+        long sampleMillis = EpochTime.toMillis(metrics.getTimestamp());
+        boolean fresh = sampleMillis >= EpochTime.nowMillis() - maxSampleAgeMillis;
+        evaluate(index.global, metrics, serverName, sampleMillis, fresh);
+        evaluate(index.byServer.get(serverName), metrics, serverName, sampleMillis, fresh);
+        if (metrics.getRegion() != null) {
+            evaluate(index.byRegion.get(metrics.getRegion()), metrics, serverName, sampleMillis, fresh);
+        }
+        if (metrics.getServiceType() != null) {
+            evaluate(index.byServiceType.get(metrics.getServiceType()), metrics, serverName, sampleMillis, fresh);
+        }
+    }
+
+    private void evaluate(List<CompiledRule> candidates, SystemMetrics metrics, String serverName,
+                          long sampleMillis, boolean fresh) {
+        if (candidates == null) {
+            return;
+        }
+        evaluationCount.addAndGet(candidates.size());
+        for (CompiledRule compiled : candidates) {
+            AlertRule rule = compiled.rule;
+            double value = rule.metric().valueOf(metrics);
+            if (!rule.operator().test(value, rule.threshold())) {
+                compiled.breaches.remove(serverName);
+                continue;
+            }
+            if (compiled.shouldFire(serverName, sampleMillis, fresh)) {
+                raise(rule, serverName, value);
+            }
+        }
+    }
+
+    // 消息只由规则本身决定，同一规则反复触发时指纹相同，可以合并到同一条未解决告警；观测值只记入日志
+    private void raise(AlertRule rule, String serverName, double value) {
+        String message = String.format(Locale.ROOT, "%s %s %s", rule.metric().getLabel(),
+                rule.operator().getSymbol(), formatThreshold(rule.threshold()));
+        if (rule.durationSeconds() > 0) {
+            message += "，持续" + rule.durationSeconds() + "秒";
+        }
+        log.info("Rule '{}' fired on {} with observed value {}", rule.expression(), serverName,
+                String.format(Locale.ROOT, "%.1f", value));
+        createAlert(rule, serverName, message);
+    }
+
+    // 监听器在指标写入事务的提交回调中调用，外层事务的资源仍然绑定在线程上，需要在新事务中保存；
+    // 告警保存失败不影响已提交的指标
+    private void createAlert(AlertRule rule, String serverName, String message) {
+        try {
+            Alert alert;
+            if (transactionManager != null) {
+                TransactionTemplate template = new TransactionTemplate(transactionManager);
+                template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                alert = template.execute(status -> alertService.createAlert(serverName, rule.severity(), message));
+            } else {
+                alert = alertService.createAlert(serverName, rule.severity(), message);
+            }
+            // 被限流丢弃时返回null，不计入已产生的告警
+            if (alert != null) {
+                alertsRaised.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to raise alert for rule '{}' on {}", rule.expression(), serverName, e);
+        }
+    }
+
+    private static String formatThreshold(double threshold) {
+        return threshold == Math.rint(threshold) ? String.valueOf((long) threshold) : String.valueOf(threshold);
+    }
+
+    public List<AlertRule> getRules() {
+        return rules;
+    }
+
+    public RuleEngineStats getStats() {
+        int activeBreaches = 0;
+        for (CompiledRule compiled : index.all) {
+            activeBreaches += compiled.breaches.size();
+        }
+        return new RuleEngineStats(rules.size(), sampleCount.get(), evaluationCount.get(),
+                alertsRaised.get(), activeBreaches);
+    }
+
+    /**
+     * 按作用范围分组的规则，构建后只读。
+     */
+    private static final class RuleIndex {
+        private final List<CompiledRule> all = new ArrayList<>();
+        private final List<CompiledRule> global = new ArrayList<>();
+        private final Map<String, List<CompiledRule>> byServer = new HashMap<>();
+        private final Map<String, List<CompiledRule>> byRegion = new HashMap<>();
+        private final Map<String, List<CompiledRule>> byServiceType = new HashMap<>();
+
+        private RuleIndex(List<AlertRule> rules) {
+            for (AlertRule rule : rules) {
+                CompiledRule compiled = new CompiledRule(rule);
+                all.add(compiled);
+                MetricsGroupBy scope = rule.scope();
+                if (scope == MetricsGroupBy.NONE) {
+                    global.add(compiled);
+                    continue;
+                }
+                Map<String, List<CompiledRule>> target = switch (scope) {
+                    case REGION -> byRegion;
+                    case SERVICE_TYPE -> byServiceType;
+                    default -> byServer;
+                };
+                target.computeIfAbsent(rule.scopeValue(), key -> new ArrayList<>()).add(compiled);
+            }
+        }
+    }
+
+    private static final class CompiledRule {
+        private final AlertRule rule;
+        private final long durationMillis;
+        private final ConcurrentHashMap<String, Breach> breaches = new ConcurrentHashMap<>();
+
+        private CompiledRule(AlertRule rule) {
+            this.rule = rule;
+            this.durationMillis = rule.durationSeconds() * 1000L;
+        }
+
+        // 记录条件成立的样本，达到持续时长且本次越限尚未告警时返回true
+        private boolean shouldFire(String serverName, long sampleMillis, boolean fresh) {
+            Breach breach = breaches.get(serverName);
+            if (breach == null) {
+                breach = breaches.computeIfAbsent(serverName, key -> new Breach(sampleMillis));
+            }
+            synchronized (breach) {
+                if (breach.fired) {
+                    return false;
+                }
+                breach.sinceMillis = Math.min(breach.sinceMillis, sampleMillis);
+                if (!fresh || sampleMillis - breach.sinceMillis < durationMillis) {
+                    return false;
+                }
+                breach.fired = true;
+                return true;
+            }
+        }
+    }
+
+    private static final class Breach {
+        private long sinceMillis;
+        private boolean fired;
+
+        private Breach(long sinceMillis) {
+            this.sinceMillis = sinceMillis;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.bub6le.systemmonitoring.rule;
+
+/**
+ * 规则引擎的累计统计。evaluations为实际判断的规则次数，activeBreaches为当前条件成立中的(规则, 服务器)数。
+ */
+public record RuleEngineStats(int ruleCount,
+                              long samples,
+                              long evaluations,
+                              long alertsRaised,
+                              int activeBreaches) {
+}
@@ -0,0 +1,55 @@
+package com.bub6le.systemmonitoring.rule;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+
+/**
+ * 规则可以判断的指标，name为规则表达式中使用的名字。
+ */
+public enum RuleMetric {
+    CPU("cpu", "CPU使用率"),
+    MEMORY("memory", "内存使用率"),
+    DISK("disk", "磁盘使用率"),
+    LOAD("load", "系统负载"),
+    NETWORK_IN("network_in", "网络流入"),
+    NETWORK_OUT("network_out", "网络流出");
+
+    private final String expressionName;
+    private final String label;
+
+    RuleMetric(String expressionName, String label) {
+        this.expressionName = expressionName;
+        this.label = label;
+    }
+
+    public String getExpressionName() {
+        return expressionName;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 取出样本中对应的值，字段为空时返回NaN。
+     */
+    double valueOf(SystemMetrics metrics) {
+        Double value = switch (this) {
+            case CPU -> metrics.getCpuUsage();
+            case MEMORY -> metrics.getMemoryUsage();
+            case DISK -> metrics.getDiskUsage();
+            case LOAD -> metrics.getLoadAverage();
+            case NETWORK_IN -> metrics.getNetworkIn();
+            case NETWORK_OUT -> metrics.getNetworkOut();
+        };
+        return value != null ? value : Double.NaN;
+    }
+
+    static RuleMetric fromExpression(String name) {
+        for (RuleMetric metric : values()) {
+            if (metric.expressionName.equalsIgnoreCase(name)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rule metric: " + name);
+    }
+}
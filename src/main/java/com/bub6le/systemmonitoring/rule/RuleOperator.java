@@ -0,0 +1,39 @@
+package com.bub6le.systemmonitoring.rule;
+
+/**
+ * 规则的比较运算符。NaN与任何阈值比较都不成立。
+ */
+public enum RuleOperator {
+    GT(">"),
+    GE(">="),
+    LT("<"),
+    LE("<=");
+
+    private final String symbol;
+
+    RuleOperator(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    boolean test(double value, double threshold) {
+        return switch (this) {
+            case GT -> value > threshold;
+            case GE -> value >= threshold;
+            case LT -> value < threshold;
+            case LE -> value <= threshold;
+        };
+    }
+
+    static RuleOperator fromSymbol(String symbol) {
+        for (RuleOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return operator;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rule operator: " + symbol);
+    }
+}
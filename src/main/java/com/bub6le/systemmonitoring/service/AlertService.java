@@ -2,11 +2,39 @@ package com.bub6le.systemmonitoring.service;
 
 import com.bub6le.systemmonitoring.model.Alert;
 import com.bub6le.systemmonitoring.repository.AlertRepository;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.PageCursor;
+import com.bub6le.systemmonitoring.repository.view.AlertView;
+import com.bub6le.systemmonitoring.store.AlertFingerprint;
+import com.bub6le.systemmonitoring.store.AlertFingerprintIndex;
+import com.bub6le.systemmonitoring.store.AlertSeverityCounters;
+import com.bub6le.systemmonitoring.store.cache.CacheRegion;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.ratelimit.AlertRateLimiter;
+import com.bub6le.systemmonitoring.store.ratelimit.SuppressedAlerts;
+import com.bub6le.systemmonitoring.store.wal.WalCodec;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Service
 public class AlertService {
@@ -14,39 +42,325 @@ public class AlertService {
     @Autowired
     private AlertRepository alertRepository;
     
+    @Autowired
+    private WriteAheadLog writeAheadLog;
+    
+    @Autowired
+    private QueryResultCache queryResultCache;
+    
+    @Autowired
+    private AlertFingerprintIndex alertFingerprintIndex;
+    
+    @Autowired
+    private AlertSeverityCounters alertSeverityCounters;
+    
+    @Autowired
+    private AlertRateLimiter alertRateLimiter;
+    
+    @Value("${monitoring.alerts.coalesce-idle-minutes:60}")
+    private int coalesceIdleMinutes;
+    
+    // 每条UPDATE和每条预写日志记录最多包含的告警数
+    private static final int RESOLVE_BATCH_SIZE = 1000;
+    
+    // 限流汇总告警的来源，以及消息中列出的来源数
+    public static final String RATE_LIMIT_SOURCE = "告警限流";
+    private static final int SUPPRESSED_SUMMARY_SOURCES = 5;
+    
     private final Random random = new Random();
     
+    @Transactional(readOnly = true)
     public List<Alert> getAllAlerts() {
         return alertRepository.findAllOrderByTimestamp();
     }
     
+    @Transactional(readOnly = true)
     public List<Alert> getUnresolvedAlerts() {
-        return alertRepository.findUnresolvedAlerts();
+        return queryResultCache.getUntilInvalidated(CacheRegion.ALERTS, "unresolved",
+                () -> Collections.unmodifiableList(alertRepository.findUnresolvedAlerts()));
     }
     
+    @Transactional(readOnly = true)
     public List<Alert> getAlertsBySource(String source) {
         return alertRepository.findBySource(source);
     }
     
+    @Transactional(readOnly = true)
     public List<Alert> getAlertsBySeverity(Alert.AlertSeverity severity) {
         return alertRepository.findBySeverity(severity);
     }
     
+    // 以下分页查询按(timestamp, id)倒序，cursor为上一页返回的nextCursor。结果为只读投影，不进入持久化上下文
+    @Transactional(readOnly = true)
+    public CursorPage<AlertView> getAlertsPage(String cursor, int limit) {
+        return CursorPage.fetch(cursor, limit, alertRepository::findPage, AlertService::cursorOf);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<AlertView> getUnresolvedAlertsPage(String cursor, int limit) {
+        return queryResultCache.getUntilInvalidated(CacheRegion.ALERTS, "unresolved:" + cursor + ':' + limit,
+                () -> CursorPage.fetch(cursor, limit, alertRepository::findUnresolvedPage, AlertService::cursorOf));
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<AlertView> getAlertsPageBySource(String source, String cursor, int limit) {
+        return CursorPage.fetch(cursor, limit,
+                (timestamp, id, max) -> alertRepository.findPageBySource(source, timestamp, id, max),
+                AlertService::cursorOf);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<AlertView> getAlertsPageBySeverity(Alert.AlertSeverity severity, String cursor, int limit) {
+        return CursorPage.fetch(cursor, limit,
+                (timestamp, id, max) -> alertRepository.findPageBySeverity(severity, timestamp, id, max),
+                AlertService::cursorOf);
+    }
+    
+    private static PageCursor cursorOf(AlertView alert) {
+        return new PageCursor(alert.timestamp(), alert.id());
+    }
+    
+    /**
+     * 保存告警。新的未解决告警按(source, severity, message)指纹合并：已有相同指纹的未解决告警时
+     * 只在内存中累加出现次数和最近出现时间并返回合并后的告警，计数由{@link #flushCoalescedAlerts}定期写回。
+     */
     public Alert saveAlert(Alert alert) {
-        return alertRepository.save(alert);
+        if (alert.getId() == null && !Boolean.TRUE.equals(alert.getResolved())) {
+            return coalesceOrCreate(alert, () -> persistNewUnresolved(alert));
+        }
+        if (alert.getId() != null) {
+            // 更新前的状态未知，无法判断计数增减，下次读取摘要时重新校准
+            afterCommit(alertSeverityCounters::invalidate);
+        }
+        if (Boolean.TRUE.equals(alert.getResolved())) {
+            alertFingerprintIndex.remove(alert.getId());
+        }
+        return persist(alert);
+    }
+    
+    private Alert coalesceOrCreate(Alert alert, Supplier<Alert> create) {
+        return alertFingerprintIndex.record(AlertFingerprint.of(alert), alert.getTimestamp(),
+                () -> alertRepository.findFirstBySourceAndSeverityAndMessageAndResolvedFalseOrderByIdDesc(
+                        alert.getSource(), alert.getSeverity(), alert.getMessage()),
+                create);
+    }
+    
+    private Alert persistNewUnresolved(Alert alert) {
+        Alert saved = persist(alert);
+        Alert.AlertSeverity severity = saved.getSeverity();
+        afterCommit(() -> alertSeverityCounters.increment(severity));
+        return saved;
+    }
+    
+    private Alert persist(Alert alert) {
+        Alert saved = alertRepository.save(alert);
+        // 提交后记录保存后的完整状态（含id），回放时按id覆盖；回滚的写入不写日志
+        afterCommit(() -> writeAheadLog.appendAlert(saved));
+        queryResultCache.invalidate(CacheRegion.ALERTS);
+        return saved;
+    }
+    
+    // 严重级别计数和预写日志在事务提交后才变化，回滚的写入不计入；不在事务中时立即执行
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
     
+    /**
+     * 新建告警。依次检查内存中的指纹索引、限流令牌桶，最后才查库和建行：
+     * 合并到索引中已有的未解决告警不占用限流额度，也不访问数据库；索引未命中时，
+     * 同一来源、同一严重级别超出限流速率则直接丢弃，返回null，告警风暴不会变成大量查库。
+     * 拿到额度后仍先查找数据库中已有的未解决告警（例如重启后或指纹被清理后），找到时合并。
+     * 被丢弃的告警由{@link #publishSuppressedSummary}定期汇总为一条告警。
+     */
     public Alert createAlert(String source, Alert.AlertSeverity severity, String message) {
         Alert alert = new Alert(source, severity, message);
-        return saveAlert(alert);
+        Alert coalesced = alertFingerprintIndex.coalesceIfPresent(AlertFingerprint.of(alert), alert.getTimestamp());
+        if (coalesced != null) {
+            return coalesced;
+        }
+        if (!alertRateLimiter.tryAcquire(source, severity)) {
+            return null;
+        }
+        return coalesceOrCreate(alert, () -> persistNewUnresolved(alert));
+    }
+    
+    // 把上一周期被限流丢弃的告警汇总为一条，级别取被丢弃告警中最高的，消息列出丢弃最多的几个来源
+    @Scheduled(fixedDelayString = "${monitoring.alerts.rate-limit.summary-interval-ms:60000}")
+    public void publishSuppressedSummary() {
+        List<SuppressedAlerts> suppressed = new ArrayList<>(alertRateLimiter.drainSuppressed());
+        if (suppressed.isEmpty()) {
+            return;
+        }
+        suppressed.sort(Comparator.comparingLong(SuppressedAlerts::count).reversed());
+        long total = 0;
+        Alert.AlertSeverity severity = null;
+        for (SuppressedAlerts entry : suppressed) {
+            total += entry.count();
+            if (entry.severity() != null && (severity == null || entry.severity().compareTo(severity) > 0)) {
+                severity = entry.severity();
+            }
+        }
+        StringBuilder message = new StringBuilder("限流丢弃了").append(total).append("条告警：");
+        for (int i = 0; i < Math.min(suppressed.size(), SUPPRESSED_SUMMARY_SOURCES); i++) {
+            SuppressedAlerts entry = suppressed.get(i);
+            if (i > 0) {
+                message.append("、");
+            }
+            message.append(entry.source()).append('/').append(entry.severity()).append(" ×").append(entry.count());
+        }
+        if (suppressed.size() > SUPPRESSED_SUMMARY_SOURCES) {
+            message.append(" 等").append(suppressed.size()).append("组");
+        }
+        saveAlert(new Alert(RATE_LIMIT_SOURCE, severity, message.toString()));
     }
     
     public void resolveAlert(Long alertId) {
         Alert alert = alertRepository.findById(alertId).orElse(null);
         if (alert != null) {
+            // 带上内存中尚未写回的出现次数
+            Alert coalesced = alertFingerprintIndex.remove(alertId);
+            if (coalesced != null) {
+                alert.setOccurrenceCount(coalesced.getOccurrenceCount());
+                alert.setLastSeen(coalesced.getLastSeen());
+            }
+            boolean wasUnresolved = !Boolean.TRUE.equals(alert.getResolved());
             alert.setResolved(true);
-            saveAlert(alert);
+            persist(alert);
+            if (wasUnresolved) {
+                Alert.AlertSeverity severity = alert.getSeverity();
+                afterCommit(() -> alertSeverityCounters.decrement(severity));
+            }
+        }
+    }
+    
+    // 以下批量解决在同一事务内先按严重级别分组计数，再执行集合UPDATE，不把命中的行取到应用中。
+    // 按id解决时每批RESOLVE_BATCH_SIZE个id一条UPDATE，按条件解决时只执行一条UPDATE
+    @Transactional
+    public BulkResolveResult resolveAlerts(List<Long> alertIds) {
+        if (alertIds == null || alertIds.isEmpty()) {
+            return new BulkResolveResult(0);
+        }
+        Map<Alert.AlertSeverity, Long> expected = new HashMap<>();
+        List<List<Long>> batches = new ArrayList<>();
+        for (int from = 0; from < alertIds.size(); from += RESOLVE_BATCH_SIZE) {
+            List<Long> ids = List.copyOf(alertIds.subList(from, Math.min(from + RESOLVE_BATCH_SIZE, alertIds.size())));
+            addCounts(expected, alertRepository.countUnresolvedByIdIn(ids));
+            batches.add(ids);
+        }
+        if (expected.isEmpty()) {
+            return new BulkResolveResult(0);
+        }
+        // 先写回合并中的出现次数，行解决后不再接受写回
+        flushCoalescedAlerts();
+        long resolvedCount = 0;
+        for (List<Long> ids : batches) {
+            resolvedCount += alertRepository.resolveByIdIn(ids);
+            for (Long id : ids) {
+                alertFingerprintIndex.remove(id);
+            }
+        }
+        // 回放时按id解决，未命中或已解决的id不受影响
+        return finishResolve(resolvedCount, expected, () -> {
+            for (List<Long> ids : batches) {
+                writeAheadLog.appendAlertsResolved(ids);
+            }
+        });
+    }
+    
+    @Transactional
+    public BulkResolveResult resolveAlertsBySource(String source) {
+        return resolveMatching(alertRepository.countUnresolvedBySource(source),
+                () -> alertRepository.resolveBySource(source),
+                alert -> source.equals(alert.getSource()),
+                WalCodec.ResolveCriteria.bySource(source));
+    }
+    
+    @Transactional
+    public BulkResolveResult resolveAlertsBySeverity(Alert.AlertSeverity severity) {
+        return resolveMatching(alertRepository.countUnresolvedWithSeverity(severity),
+                () -> alertRepository.resolveBySeverity(severity),
+                alert -> alert.getSeverity() == severity,
+                WalCodec.ResolveCriteria.bySeverity(severity));
+    }
+    
+    @Transactional
+    public BulkResolveResult resolveAlertsBefore(LocalDateTime before) {
+        return resolveMatching(alertRepository.countUnresolvedBefore(before),
+                () -> alertRepository.resolveBefore(before),
+                alert -> alert.getTimestamp() != null && alert.getTimestamp().isBefore(before),
+                WalCodec.ResolveCriteria.before(before));
+    }
+    
+    private BulkResolveResult resolveMatching(List<AlertRepository.SeverityCount> counts, IntSupplier resolve,
+                                              Predicate<Alert> matches, WalCodec.ResolveCriteria criteria) {
+        Map<Alert.AlertSeverity, Long> expected = new HashMap<>();
+        addCounts(expected, counts);
+        if (expected.isEmpty()) {
+            return new BulkResolveResult(0);
         }
+        flushCoalescedAlerts();
+        int resolvedCount = resolve.getAsInt();
+        alertFingerprintIndex.removeMatching(matches);
+        // 预写日志只记录条件，回放时执行同样的UPDATE
+        return finishResolve(resolvedCount, expected, () -> writeAheadLog.appendAlertsResolvedMatching(criteria));
+    }
+    
+    private static void addCounts(Map<Alert.AlertSeverity, Long> counts, List<AlertRepository.SeverityCount> rows) {
+        for (AlertRepository.SeverityCount row : rows) {
+            if (row.getAlertCount() != null && row.getAlertCount() > 0) {
+                counts.merge(row.getSeverity(), row.getAlertCount(), Long::sum);
+            }
+        }
+    }
+    
+    private BulkResolveResult finishResolve(long resolvedCount, Map<Alert.AlertSeverity, Long> expected, Runnable appendWal) {
+        queryResultCache.invalidate(CacheRegion.ALERTS);
+        // 计数之后有告警被新建或单独解决时，无法知道各级别的实际增减，计数改为重新校准
+        boolean exact = resolvedCount == expected.values().stream().mapToLong(Long::longValue).sum();
+        // 回滚的解决不写日志，也不改计数
+        afterCommit(() -> {
+            if (resolvedCount > 0) {
+                appendWal.run();
+            }
+            if (exact) {
+                expected.forEach(alertSeverityCounters::decrement);
+            } else {
+                alertSeverityCounters.invalidate();
+            }
+        });
+        return new BulkResolveResult(resolvedCount);
+    }
+    
+    // 把合并告警累加的出现次数写回数据库和预写日志，并清理长时间没有再出现的指纹
+    @Scheduled(fixedDelayString = "${monitoring.alerts.coalesce-flush-ms:5000}")
+    public void flushCoalescedAlerts() {
+        List<Alert> dirty = alertFingerprintIndex.drainDirty();
+        for (Alert alert : dirty) {
+            try {
+                if (alertRepository.updateOccurrences(alert.getId(), alert.getOccurrenceCount(), alert.getLastSeen()) == 0) {
+                    // 行已解决或不存在（例如建行的事务回滚了），之后的重复告警另建一行
+                    alertFingerprintIndex.remove(alert.getId());
+                } else {
+                    afterCommit(() -> writeAheadLog.appendAlert(alert));
+                }
+            } catch (RuntimeException e) {
+                alertFingerprintIndex.markDirty(alert.getId());
+                throw e;
+            }
+        }
+        if (!dirty.isEmpty()) {
+            queryResultCache.invalidate(CacheRegion.ALERTS);
+        }
+        alertFingerprintIndex.evictIdle(LocalDateTime.now().minusMinutes(coalesceIdleMinutes));
     }
     
     // 生成模拟告警数据
@@ -131,24 +445,43 @@ public class AlertService {
         return messages[random.nextInt(messages.length)];
     }
     
+    /**
+     * 未解决告警摘要，直接汇总内存中的严重级别计数。计数未校准时（启动前或出现无法判断增减的更新后）先校准一次。
+     */
+    @Transactional(readOnly = true)
     public AlertSummary getAlertSummary() {
-        long unresolvedCount = alertRepository.countUnresolvedAlerts();
-        List<Alert> recentAlerts = getUnresolvedAlerts();
+        if (!alertSeverityCounters.isReconciled()) {
+            reconcileSeverityCounts();
+        }
+        return new AlertSummary(alertSeverityCounters.getTotal(),
+                alertSeverityCounters.get(Alert.AlertSeverity.LOW),
+                alertSeverityCounters.get(Alert.AlertSeverity.MEDIUM),
+                alertSeverityCounters.get(Alert.AlertSeverity.HIGH),
+                alertSeverityCounters.get(Alert.AlertSeverity.CRITICAL),
+                alertFingerprintIndex.getCoalescedCount());
+    }
+    
+    // 启动完成后用一次按严重级别的分组计数校准内存计数，此后由告警的新建和解决增减
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconcileSeverityCounts() {
+        Map<Alert.AlertSeverity, Long> counts = new HashMap<>();
+        for (AlertRepository.SeverityCount row : alertRepository.countUnresolvedBySeverity()) {
+            counts.put(row.getSeverity(), row.getAlertCount() != null ? row.getAlertCount() : 0L);
+        }
+        alertSeverityCounters.reconcile(counts);
+    }
+    
+    // 批量解决只返回实际解决的行数：集合UPDATE不取出被解决的id
+    public static class BulkResolveResult {
+        private long resolvedCount;
         
-        long lowCount = recentAlerts.stream()
-            .filter(a -> a.getSeverity() == Alert.AlertSeverity.LOW)
-            .count();
-        long mediumCount = recentAlerts.stream()
-            .filter(a -> a.getSeverity() == Alert.AlertSeverity.MEDIUM)
-            .count();
-        long highCount = recentAlerts.stream()
-            .filter(a -> a.getSeverity() == Alert.AlertSeverity.HIGH)
-            .count();
-        long criticalCount = recentAlerts.stream()
-            .filter(a -> a.getSeverity() == Alert.AlertSeverity.CRITICAL)
-            .count();
+        public BulkResolveResult(long resolvedCount) {
+            this.resolvedCount = resolvedCount;
+        }
         
-        return new AlertSummary(unresolvedCount, lowCount, mediumCount, highCount, criticalCount);
+        // Getters
+        public long getResolvedCount() { return resolvedCount; }
     }
     
     public static class AlertSummary {
@@ -157,14 +490,21 @@ public class AlertService {
         private long mediumCount;
         private long highCount;
         private long criticalCount;
+        private long coalescedCount;
         
         public AlertSummary(long unresolvedCount, long lowCount, long mediumCount, 
                           long highCount, long criticalCount) {
+            this(unresolvedCount, lowCount, mediumCount, highCount, criticalCount, 0L);
+        }
+        
+        public AlertSummary(long unresolvedCount, long lowCount, long mediumCount,
+                          long highCount, long criticalCount, long coalescedCount) {
             this.unresolvedCount = unresolvedCount;
             this.lowCount = lowCount;
             this.mediumCount = mediumCount;
             this.highCount = highCount;
             this.criticalCount = criticalCount;
+            this.coalescedCount = coalescedCount;
         }
         
         // Getters
@@ -173,5 +513,6 @@ public class AlertService {
         public long getMediumCount() { return mediumCount; }
         public long getHighCount() { return highCount; }
         public long getCriticalCount() { return criticalCount; }
+        public long getCoalescedCount() { return coalescedCount; }
     }
 }
\ No newline at end of file
@@ -5,12 +5,15 @@ import com.bub6le.systemmonitoring.model.SystemMetrics;
 import com.bub6le.systemmonitoring.model.Task;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.Random;
 
+// 先完成WAL恢复，再生成演示数据
 @Service
+@DependsOn("walRecoveryService")
 public class DataInitializationService {
     
     @Autowired
@@ -61,6 +64,9 @@ public class DataInitializationService {
         // 生成5个初始告警
         for (int i = 0; i < 5; i++) {
             Alert alert = alertService.generateMockAlert();
+            if (alert == null) {
+                continue;
+            }
             // 设置为过去的时间
             alert.setTimestamp(LocalDateTime.now().minusMinutes(random.nextInt(120)));
             // 随机设置一些告警为已解决
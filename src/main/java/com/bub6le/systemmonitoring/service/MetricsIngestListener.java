@@ -0,0 +1,12 @@
+package com.bub6le.systemmonitoring.service;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+
+/**
+ * 指标落库后的回调，用于维护各类内存结构。写入事务提交后才调用，回滚的样本不会通知。
+ * 实现需要足够轻量，它运行在写入线程上。
+ */
+public interface MetricsIngestListener {
+
+    void onMetricsIngested(SystemMetrics metrics);
+}
@@ -0,0 +1,364 @@
+package com.bub6le.systemmonitoring.service;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.MetricsPartitionManager;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 指标异步写入管道：样本先进入有界队列，由后台线程按批量大小或时间间隔批量落库。
+ * 样本在入队前追加到WAL，已接受但还在队列中的样本在崩溃后可以回放。
+ */
+@Service
+public class MetricsIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsIngestService.class);
+
+    // append的返回值，表示样本被拒绝
+    private static final long REJECTED = Long.MIN_VALUE;
+
+    @Autowired
+    private SystemMetricsService systemMetricsService;
+
+    @Autowired
+    private MetricsPartitionManager metricsPartitionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WriteAheadLog writeAheadLog;
+
+    @Value("${monitoring.ingest.queue-capacity:20000}")
+    private int queueCapacity;
+
+    @Value("${monitoring.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${monitoring.ingest.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${monitoring.ingest.durable-timeout-ms:5000}")
+    private long durableTimeoutMs;
+
+    private BlockingQueue<SystemMetrics> queue;
+    private Thread flushThread;
+    private volatile boolean running;
+    // 提交方互斥：确认有空位后先写日志再入队，只有刷新线程会腾出空位，入队一定成功
+    private final Object submitLock = new Object();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flushThread = new Thread(this::flushLoop, "metrics-ingest-flusher");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (flushThread != null) {
+            flushThread.interrupt();
+            try {
+                flushThread.join(flushIntervalMs * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // 关闭前把队列中剩余的样本写完
+        List<SystemMetrics> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 提交一条样本，队列已满时立即返回false，不阻塞调用方。
+     */
+    public boolean submit(SystemMetrics metrics) {
+        return append(metrics) != REJECTED;
+    }
+
+    // 接受样本：写日志后入队，返回日志记录的结束LSN（未启用WAL时为-1）；拒绝时返回REJECTED
+    private long append(SystemMetrics metrics) {
+        if (metrics == null) {
+            rejectedCount.incrementAndGet();
+            return REJECTED;
+        }
+        long lsn;
+        synchronized (submitLock) {
+            if (queue.remainingCapacity() == 0) {
+                rejectedCount.incrementAndGet();
+                return REJECTED;
+            }
+            lsn = writeAheadLog.appendMetrics(metrics);
+            queue.add(metrics);
+        }
+        acceptedCount.incrementAndGet();
+        return lsn;
+    }
+
+    public BatchIngestResult submitJson(InputStream body) {
+        return submitJson(body, false);
+    }
+
+    /**
+     * 流式解析JSON数组或NDJSON请求体，逐条提交到写入队列，不在内存中构造样本列表。
+     * 单条样本字段缺失或类型错误时只拒绝该条；JSON语法错误时停止解析，返回已处理的计数和错误信息。
+     * durable为true时等已接受样本的WAL记录落盘后再返回，超时则结果中durable为false。
+     */
+    public BatchIngestResult submitJson(InputStream body, boolean durable) {
+        long accepted = 0;
+        long rejected = 0;
+        long lastLsn = -1;
+        String error = null;
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                SystemMetrics metrics = null;
+                if (token == JsonToken.START_OBJECT) {
+                    metrics = readMetrics(parser);
+                } else {
+                    parser.skipChildren();
+                }
+                long lsn = append(metrics);
+                if (lsn != REJECTED) {
+                    accepted++;
+                    lastLsn = Math.max(lastLsn, lsn);
+                } else {
+                    rejected++;
+                }
+                token = parser.nextToken();
+            }
+        } catch (JacksonException e) {
+            error = e.getOriginalMessage();
+        }
+        return new BatchIngestResult(accepted, rejected, error, durable && awaitDurable(lastLsn));
+    }
+
+    private boolean awaitDurable(long lsn) {
+        try {
+            return writeAheadLog.awaitDurable(lsn, durableTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // 解析器位于START_OBJECT，读到对应的END_OBJECT为止；样本不合法时返回null
+    private SystemMetrics readMetrics(JsonParser parser) {
+        SystemMetrics metrics = new SystemMetrics();
+        while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "serverName" -> metrics.setServerName(text(parser, value));
+                case "region" -> metrics.setRegion(text(parser, value));
+                case "serviceType" -> metrics.setServiceType(text(parser, value));
+                case "cpuUsage" -> metrics.setCpuUsage(number(parser, value));
+                case "memoryUsage" -> metrics.setMemoryUsage(number(parser, value));
+                case "diskUsage" -> metrics.setDiskUsage(number(parser, value));
+                case "networkIn" -> metrics.setNetworkIn(number(parser, value));
+                case "networkOut" -> metrics.setNetworkOut(number(parser, value));
+                case "loadAverage" -> metrics.setLoadAverage(number(parser, value));
+                case "timestamp" -> metrics.setTimestamp(timestamp(parser, value));
+                default -> parser.skipChildren();
+            }
+        }
+        boolean valid = metrics.getServerName() != null && !metrics.getServerName().isBlank()
+                && metrics.getTimestamp() != null
+                && isValid(metrics.getCpuUsage()) && isValid(metrics.getMemoryUsage())
+                && isValid(metrics.getDiskUsage()) && isValid(metrics.getNetworkIn())
+                && isValid(metrics.getNetworkOut()) && isValid(metrics.getLoadAverage());
+        return valid ? metrics : null;
+    }
+
+    private static String text(JsonParser parser, JsonToken value) {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    // JSON中不会出现NaN，用它标记类型错误的数值字段
+    private static Double number(JsonParser parser, JsonToken value) {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        parser.skipChildren();
+        return Double.NaN;
+    }
+
+    // 支持ISO-8601字符串或毫秒时间戳，缺省为当前时间；格式错误返回null
+    private static LocalDateTime timestamp(JsonParser parser, JsonToken value) {
+        if (value == JsonToken.VALUE_NULL) {
+            return LocalDateTime.now();
+        }
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return EpochTime.fromMillis(parser.getLongValue());
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return LocalDateTime.parse(parser.getValueAsString());
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static boolean isValid(Double value) {
+        return value == null || !value.isNaN();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void flushLoop() {
+        List<SystemMetrics> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                SystemMetrics first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 在一个刷新周期内尽量攒满一批
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    if (batch.size() >= batchSize) {
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    SystemMetrics next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<SystemMetrics> batch) {
+        metricsPartitionManager.beginHeadWrite();
+        try {
+            systemMetricsService.saveMetricsBatch(new ArrayList<>(batch));
+            flushedCount.addAndGet(batch.size());
+            batchCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            // 失败的批次不重试，也同样释放，否则检查点无法推进；在下一次检查点之前重启时由WAL回放补回
+            failedCount.addAndGet(batch.size());
+            log.warn("Failed to flush {} metrics", batch.size(), e);
+        } finally {
+            metricsPartitionManager.endHeadWrite();
+            batch.forEach(writeAheadLog::release);
+        }
+    }
+
+    public IngestStats getIngestStats() {
+        return new IngestStats(acceptedCount.get(), rejectedCount.get(), flushedCount.get(),
+                failedCount.get(), batchCount.get(), queue.size());
+    }
+
+    public static class BatchIngestResult {
+        private long acceptedCount;
+        private long rejectedCount;
+        private String error;
+        private boolean durable;
+
+        public BatchIngestResult(long acceptedCount, long rejectedCount, String error, boolean durable) {
+            this.acceptedCount = acceptedCount;
+            this.rejectedCount = rejectedCount;
+            this.error = error;
+            this.durable = durable;
+        }
+
+        // Getters
+        public long getAcceptedCount() { return acceptedCount; }
+        public long getRejectedCount() { return rejectedCount; }
+        public String getError() { return error; }
+        public boolean isDurable() { return durable; }
+    }
+
+    public static class IngestStats {
+        private long acceptedCount;
+        private long rejectedCount;
+        private long flushedCount;
+        private long failedCount;
+        private long batchCount;
+        private int queueSize;
+
+        public IngestStats(long acceptedCount, long rejectedCount, long flushedCount,
+                         long failedCount, long batchCount, int queueSize) {
+            this.acceptedCount = acceptedCount;
+            this.rejectedCount = rejectedCount;
+            this.flushedCount = flushedCount;
+            this.failedCount = failedCount;
+            this.batchCount = batchCount;
+            this.queueSize = queueSize;
+        }
+
+        // Getters
+        public long getAcceptedCount() { return acceptedCount; }
+        public long getRejectedCount() { return rejectedCount; }
+        public long getFlushedCount() { return flushedCount; }
+        public long getFailedCount() { return failedCount; }
+        public long getBatchCount() { return batchCount; }
+        public int getQueueSize() { return queueSize; }
+    }
+}
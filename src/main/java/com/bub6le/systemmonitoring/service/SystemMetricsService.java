@@ -1,45 +1,483 @@
 package com.bub6le.systemmonitoring.service;
 
 import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.MetricsAggregate;
+import com.bub6le.systemmonitoring.repository.MetricsAggregationRepository;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.repository.MetricsPartitionManager;
+import com.bub6le.systemmonitoring.repository.PageCursor;
 import com.bub6le.systemmonitoring.repository.SystemMetricsRepository;
+import com.bub6le.systemmonitoring.repository.view.MetricsChartPoint;
+import com.bub6le.systemmonitoring.store.DimensionDistributionStore;
+import com.bub6le.systemmonitoring.store.DistributionEntry;
+import com.bub6le.systemmonitoring.store.HealthWindowAggregator;
+import com.bub6le.systemmonitoring.store.LatestMetricsRegistry;
+import com.bub6le.systemmonitoring.store.MetricsHistoryStore;
+import com.bub6le.systemmonitoring.store.MetricsPoint;
+import com.bub6le.systemmonitoring.store.RecentMetricsWindow;
+import com.bub6le.systemmonitoring.store.ServerSnapshot;
+import com.bub6le.systemmonitoring.store.cache.CacheRegion;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.downsample.DownsampledChart;
+import com.bub6le.systemmonitoring.store.downsample.LttbDownsampler;
+import com.bub6le.systemmonitoring.store.rollup.MetricsRollupStore;
+import com.bub6le.systemmonitoring.store.rollup.RollupPoint;
+import com.bub6le.systemmonitoring.store.rollup.RollupResolution;
+import com.bub6le.systemmonitoring.store.rollup.RollupSeries;
+import com.bub6le.systemmonitoring.store.sketch.PercentileSketchStore;
+import com.bub6le.systemmonitoring.store.sketch.PercentileSnapshot;
+import com.bub6le.systemmonitoring.store.topk.TopMetric;
+import com.bub6le.systemmonitoring.store.topk.TopServerEntry;
+import com.bub6le.systemmonitoring.store.topk.TopServersTracker;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
+import com.bub6le.systemmonitoring.util.EpochTime;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 
 @Service
 public class SystemMetricsService {
     
+    // 降采样图表在这个范围内直接读原始样本，更长的范围读预聚合
+    private static final int RAW_CHART_MAX_MINUTES = 15;
+    private static final int MAX_CHART_POINTS = 2000;
+    
     @Autowired
     private SystemMetricsRepository systemMetricsRepository;
     
+    @Autowired
+    private MetricsPartitionManager metricsPartitionManager;
+    
+    @Autowired
+    private MetricsAggregationRepository metricsAggregationRepository;
+    
+    @Autowired
+    private RecentMetricsWindow recentMetricsWindow;
+    
+    @Autowired
+    private HealthWindowAggregator healthWindowAggregator;
+    
+    @Autowired
+    private DimensionDistributionStore dimensionDistributionStore;
+    
+    @Autowired
+    private LatestMetricsRegistry latestMetricsRegistry;
+    
+    @Autowired
+    private MetricsHistoryStore metricsHistoryStore;
+    
+    @Autowired
+    private MetricsRollupStore metricsRollupStore;
+    
+    @Autowired
+    private PercentileSketchStore percentileSketchStore;
+    
+    @Autowired
+    private TopServersTracker topServersTracker;
+    
+    @Autowired
+    private QueryResultCache queryResultCache;
+    
+    @Autowired
+    private WriteAheadLog writeAheadLog;
+    
+    @Autowired(required = false)
+    private List<MetricsIngestListener> ingestListeners = new ArrayList<>();
+    
     private final Random random = new Random();
     
     public List<SystemMetrics> getAllMetrics() {
         return systemMetricsRepository.findAll();
     }
     
+    // 同一时间桶内的相同查询共享结果，写入指标时失效
     public List<SystemMetrics> getRecentMetrics(int minutes) {
+        return queryResultCache.get(CacheRegion.METRICS, "recent:" + minutes,
+                () -> Collections.unmodifiableList(loadRecentMetrics(minutes)));
+    }
+    
+    // 热窗口覆盖的部分直接读内存，只有更早的部分才查询数据库
+    private List<SystemMetrics> loadRecentMetrics(int minutes) {
+        LocalDateTime startTime = LocalDateTime.now().minusMinutes(minutes);
+        LocalDateTime coverageStart = recentMetricsWindow.getCoverageStart();
+        if (!startTime.isBefore(coverageStart)) {
+            return recentMetricsWindow.findSince(startTime);
+        }
+        
+        List<SystemMetrics> result = new ArrayList<>(recentMetricsWindow.findSince(coverageStart));
+        result.addAll(findStoredMetricsBetween(startTime, coverageStart));
+        return result;
+    }
+    
+    // 当前分区与已封存分区合并，按时间倒序
+    private List<SystemMetrics> findStoredMetricsBetween(LocalDateTime startTime, LocalDateTime endTime) {
+        List<SystemMetrics> stored = systemMetricsRepository.findMetricsBetween(startTime, endTime);
+        List<SystemMetrics> sealed = metricsPartitionManager.findMetricsBetween(startTime, endTime);
+        if (sealed.isEmpty()) {
+            return stored;
+        }
+        List<SystemMetrics> merged = new ArrayList<>(stored);
+        merged.addAll(sealed);
+        merged.sort(Comparator.comparing(SystemMetrics::getTimestamp).reversed());
+        return merged;
+    }
+    
+    // 时序图表用的精简数据点，按时间正序。热窗口覆盖的部分读内存，更早的部分只查询三列
+    public List<MetricsChartPoint> getChartPoints(int minutes) {
+        return queryResultCache.get(CacheRegion.METRICS, "chart:" + minutes,
+                () -> Collections.unmodifiableList(loadChartPoints(minutes)));
+    }
+    
+    private List<MetricsChartPoint> loadChartPoints(int minutes) {
         LocalDateTime startTime = LocalDateTime.now().minusMinutes(minutes);
-        return systemMetricsRepository.findRecentMetrics(startTime);
+        LocalDateTime coverageStart = recentMetricsWindow.getCoverageStart();
+        List<MetricsChartPoint> points = new ArrayList<>();
+        LocalDateTime windowStart = startTime.isBefore(coverageStart) ? coverageStart : startTime;
+        for (SystemMetrics metrics : recentMetricsWindow.findSince(windowStart)) {
+            points.add(new MetricsChartPoint(metrics.getTimestamp(), metrics.getCpuUsage(), metrics.getMemoryUsage()));
+        }
+        if (startTime.isBefore(coverageStart)) {
+            points.addAll(systemMetricsRepository.findChartPointsBetween(startTime, coverageStart));
+            points.addAll(metricsPartitionManager.findChartPointsBetween(startTime, coverageStart));
+        }
+        points.sort(Comparator.comparing(MetricsChartPoint::timestamp));
+        return points;
+    }
+    
+    /**
+     * 最近N分钟的CPU和内存序列，每个序列用LTTB降到最多points个点，返回大小与时间范围无关。
+     * 短范围读原始样本，长范围读能提供至少points个桶的最粗预聚合（取桶内平均值）。
+     */
+    public DownsampledChart getDownsampledChart(int minutes, int points) {
+        int target = Math.max(Math.min(points, MAX_CHART_POINTS), 3);
+        return queryResultCache.get(CacheRegion.METRICS, "chart-lttb:" + minutes + ":" + target,
+                () -> loadDownsampledChart(minutes, target));
+    }
+    
+    private DownsampledChart loadDownsampledChart(int minutes, int points) {
+        LocalDateTime now = LocalDateTime.now();
+        long toMillis = EpochTime.toMillis(now);
+        long fromMillis = toMillis - minutes * 60_000L;
+        LttbDownsampler cpu = new LttbDownsampler(fromMillis, toMillis, points);
+        LttbDownsampler memory = new LttbDownsampler(fromMillis, toMillis, points);
+        
+        String source;
+        int rawPoints;
+        if (minutes <= RAW_CHART_MAX_MINUTES) {
+            List<MetricsChartPoint> chartPoints = getChartPoints(minutes);
+            for (MetricsChartPoint point : chartPoints) {
+                long timestamp = EpochTime.toMillis(point.timestamp());
+                cpu.add(timestamp, point.cpuUsage() != null ? point.cpuUsage() : Double.NaN);
+                memory.add(timestamp, point.memoryUsage() != null ? point.memoryUsage() : Double.NaN);
+            }
+            source = "raw";
+            rawPoints = chartPoints.size();
+        } else {
+            RollupResolution resolution = RollupResolution.choose(toMillis - fromMillis, points);
+            List<RollupPoint> rollup = metricsRollupStore.query(null, resolution, now.minusMinutes(minutes), now.plusSeconds(1));
+            for (RollupPoint point : rollup) {
+                long timestamp = EpochTime.toMillis(point.timestamp());
+                cpu.add(timestamp, point.cpuUsage().avg());
+                memory.add(timestamp, point.memoryUsage().avg());
+            }
+            source = resolution.getLabel();
+            rawPoints = rollup.size();
+        }
+        return new DownsampledChart(source, rawPoints, points,
+                Collections.unmodifiableList(cpu.finish()), Collections.unmodifiableList(memory.finish()));
+    }
+    
+    // 每台服务器的最新值，直接读内存登记表
+    public List<ServerSnapshot> getLatestMetrics(boolean includeStale) {
+        return latestMetricsRegistry.snapshot(includeStale);
     }
     
+    @Transactional(readOnly = true)
     public List<SystemMetrics> getMetricsByServer(String serverName) {
-        return systemMetricsRepository.findByServerName(serverName);
+        return mergeSealed(systemMetricsRepository.findByServerName(serverName),
+                metricsPartitionManager.findByDimension(MetricsGroupBy.SERVER, serverName), Integer.MAX_VALUE);
     }
     
+    @Transactional(readOnly = true)
     public List<SystemMetrics> getMetricsByRegion(String region) {
-        return systemMetricsRepository.findByRegion(region);
+        return mergeSealed(systemMetricsRepository.findByRegion(region),
+                metricsPartitionManager.findByDimension(MetricsGroupBy.REGION, region), Integer.MAX_VALUE);
     }
     
+    @Transactional(readOnly = true)
     public List<SystemMetrics> getMetricsByServiceType(String serviceType) {
-        return systemMetricsRepository.findByServiceType(serviceType);
+        return mergeSealed(systemMetricsRepository.findByServiceType(serviceType),
+                metricsPartitionManager.findByDimension(MetricsGroupBy.SERVICE_TYPE, serviceType), Integer.MAX_VALUE);
+    }
+    
+    // 以下分页查询按(timestamp, id)倒序，cursor为上一页返回的nextCursor。表格需要全部列，因此仍返回实体
+    @Transactional(readOnly = true)
+    public CursorPage<SystemMetrics> getMetricsPage(String cursor, int limit) {
+        return fetchPage(cursor, limit, MetricsGroupBy.NONE, null, systemMetricsRepository::findPage);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<SystemMetrics> getMetricsPageByServer(String serverName, String cursor, int limit) {
+        return fetchPage(cursor, limit, MetricsGroupBy.SERVER, serverName,
+                (timestamp, id, max) -> systemMetricsRepository.findPageByServerName(serverName, timestamp, id, max));
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<SystemMetrics> getMetricsPageByRegion(String region, String cursor, int limit) {
+        return fetchPage(cursor, limit, MetricsGroupBy.REGION, region,
+                (timestamp, id, max) -> systemMetricsRepository.findPageByRegion(region, timestamp, id, max));
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<SystemMetrics> getMetricsPageByServiceType(String serviceType, String cursor, int limit) {
+        return fetchPage(cursor, limit, MetricsGroupBy.SERVICE_TYPE, serviceType,
+                (timestamp, id, max) -> systemMetricsRepository.findPageByServiceType(serviceType, timestamp, id, max));
+    }
+    
+    // 当前分区和已封存分区各取一页再合并，翻页可以跨过轮转边界
+    private CursorPage<SystemMetrics> fetchPage(String cursor, int limit, MetricsGroupBy dimension, String value,
+                                                CursorPage.PageQuery<SystemMetrics> headQuery) {
+        return CursorPage.fetch(cursor, limit, (timestamp, id, max) -> mergeSealed(
+                headQuery.find(timestamp, id, max),
+                metricsPartitionManager.findPage(dimension, value, timestamp, id, max.max()), max.max()),
+                SystemMetricsService::cursorOf);
+    }
+    
+    // 先查当前分区再查已封存分区，两次查询之间发生轮转时同一行可能读到两次，按id去重
+    private static List<SystemMetrics> mergeSealed(List<SystemMetrics> head, List<SystemMetrics> sealed, int limit) {
+        if (sealed.isEmpty()) {
+            return head;
+        }
+        List<SystemMetrics> merged = new ArrayList<>(head);
+        Set<Long> seen = new HashSet<>();
+        for (SystemMetrics metrics : head) {
+            seen.add(metrics.getId());
+        }
+        for (SystemMetrics metrics : sealed) {
+            if (seen.add(metrics.getId())) {
+                merged.add(metrics);
+            }
+        }
+        merged.sort(MetricsPartitionManager.PAGE_ORDER);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+    
+    private static PageCursor cursorOf(SystemMetrics metrics) {
+        return new PageCursor(metrics.getTimestamp(), metrics.getId());
+    }
+    
+    // 从压缩历史中读取某台服务器最近N小时的数据点
+    public List<MetricsPoint> getMetricsHistory(String serverName, int hours) {
+        LocalDateTime now = LocalDateTime.now();
+        return metricsHistoryStore.scan(serverName, now.minusHours(hours), now.plusSeconds(1)).toList();
+    }
+    
+    public List<MetricsPartitionManager.PartitionInfo> getPartitions() {
+        return metricsPartitionManager.getPartitions();
+    }
+    
+    public MetricsHistoryStore.HistoryStats getHistoryStats() {
+        return metricsHistoryStore.getHistoryStats();
+    }
+    
+    // 按时间范围选择最粗且点数仍不少于minPoints的预聚合粒度
+    public RollupSeries getMetricsRollup(int minutes, String serverName, int minPoints) {
+        LocalDateTime now = LocalDateTime.now();
+        RollupResolution resolution = RollupResolution.choose(minutes * 60_000L, minPoints);
+        return new RollupSeries(resolution.getLabel(), resolution.getStepMillis() / 1000,
+                metricsRollupStore.query(serverName, resolution, now.minusMinutes(minutes), now.plusSeconds(1)));
+    }
+    
+    // 最近N分钟按时间桶（和可选维度）在数据库中聚合，bucketSeconds不大于0时整个范围合成一个桶
+    public List<MetricsAggregate> getMetricsAggregate(int minutes, int bucketSeconds, MetricsGroupBy groupBy) {
+        LocalDateTime now = LocalDateTime.now();
+        return metricsAggregationRepository.aggregate(now.minusMinutes(minutes), now.plusSeconds(1),
+                bucketSeconds * 1000L, groupBy != null ? groupBy : MetricsGroupBy.NONE);
+    }
+    
+    // 最近N分钟按维度分组，取平均CPU最高的前limit组。窗口覆盖之前的部分由数据库分组聚合补齐。
+    // minutes不大于0时按各服务器当前值分组
+    public List<DistributionEntry> getMetricsDistribution(MetricsGroupBy dimension, int minutes, int limit) {
+        MetricsGroupBy groupBy = dimension == null || dimension == MetricsGroupBy.NONE ? MetricsGroupBy.SERVER : dimension;
+        if (minutes <= 0) {
+            return limitEntries(currentDistribution(groupBy), limit);
+        }
+        LocalDateTime startTime = LocalDateTime.now().minusMinutes(minutes);
+        LocalDateTime coverageStart = dimensionDistributionStore.getCoverageStart();
+        Map<String, RecentMetricsWindow.WindowAggregate> groups =
+                dimensionDistributionStore.aggregateSince(groupBy, startTime);
+        if (startTime.isBefore(coverageStart)) {
+            for (MetricsAggregate stored : metricsAggregationRepository.aggregate(startTime, coverageStart, 0, groupBy)) {
+                if (stored.groupKey() == null) {
+                    continue;
+                }
+                groups.computeIfAbsent(stored.groupKey(), key -> new RecentMetricsWindow.WindowAggregate())
+                      .addSums(stored.count(),
+                               stored.cpuUsage().sum(), stored.cpuUsage().count(),
+                               stored.memoryUsage().sum(), stored.memoryUsage().count(),
+                               stored.loadAverage().sum(), stored.loadAverage().count());
+            }
+        }
+        
+        List<DistributionEntry> entries = new ArrayList<>(groups.size());
+        for (Map.Entry<String, RecentMetricsWindow.WindowAggregate> group : groups.entrySet()) {
+            RecentMetricsWindow.WindowAggregate aggregate = group.getValue();
+            entries.add(new DistributionEntry(group.getKey(), aggregate.getCount(),
+                    aggregate.getAvgCpu(), aggregate.getAvgMemory(), aggregate.getAvgLoad()));
+        }
+        return limitEntries(entries, limit);
+    }
+    
+    // 在线服务器的最新值按维度分组，count为服务器数
+    private List<DistributionEntry> currentDistribution(MetricsGroupBy groupBy) {
+        Map<String, RecentMetricsWindow.WindowAggregate> groups = new HashMap<>();
+        for (ServerSnapshot snapshot : latestMetricsRegistry.snapshot(false)) {
+            String key = switch (groupBy) {
+                case REGION -> snapshot.region();
+                case SERVICE_TYPE -> snapshot.serviceType();
+                default -> snapshot.serverName();
+            };
+            if (key == null) {
+                continue;
+            }
+            groups.computeIfAbsent(key, k -> new RecentMetricsWindow.WindowAggregate())
+                  .addSums(1,
+                           valueOrZero(snapshot.cpuUsage()), snapshot.cpuUsage() != null ? 1 : 0,
+                           valueOrZero(snapshot.memoryUsage()), snapshot.memoryUsage() != null ? 1 : 0,
+                           valueOrZero(snapshot.loadAverage()), snapshot.loadAverage() != null ? 1 : 0);
+        }
+        List<DistributionEntry> entries = new ArrayList<>(groups.size());
+        for (Map.Entry<String, RecentMetricsWindow.WindowAggregate> group : groups.entrySet()) {
+            RecentMetricsWindow.WindowAggregate aggregate = group.getValue();
+            entries.add(new DistributionEntry(group.getKey(), aggregate.getCount(),
+                    aggregate.getAvgCpu(), aggregate.getAvgMemory(), aggregate.getAvgLoad()));
+        }
+        return entries;
+    }
+    
+    private static double valueOrZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+    
+    private static List<DistributionEntry> limitEntries(List<DistributionEntry> entries, int limit) {
+        entries.sort(Comparator.comparingDouble(DistributionEntry::avgCpu).reversed());
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, Math.max(limit, 0))) : entries;
     }
     
+    // 最近N分钟的分位数，每个维度值一份，按CPU p95从高到低取前limit个
+    public List<PercentileSnapshot> getMetricsPercentiles(int minutes, MetricsGroupBy groupBy, String key, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PercentileSnapshot> snapshots = percentileSketchStore.summarize(groupBy, key, now.minusMinutes(minutes), now.plusSeconds(1));
+        return snapshots.size() > limit ? new ArrayList<>(snapshots.subList(0, Math.max(limit, 0))) : snapshots;
+    }
+    
+    // 最近N分钟逐个时间桶的分位数，key为空时为全部样本
+    public List<PercentileSnapshot> getMetricsPercentileSeries(int minutes, MetricsGroupBy groupBy, String key) {
+        LocalDateTime now = LocalDateTime.now();
+        return percentileSketchStore.series(groupBy, key, now.minusMinutes(minutes), now.plusSeconds(1));
+    }
+    
+    // 窗口内指定指标平均值最高的k台服务器，window形如30s、5m、1h，纯数字按分钟计
+    public List<TopServerEntry> getTopServers(TopMetric metric, int k, String window) {
+        return topServersTracker.top(metric, k, parseWindowMillis(window));
+    }
+    
+    // 无法解析时使用5分钟
+    private static long parseWindowMillis(String window) {
+        long defaultMillis = 5 * 60_000L;
+        if (window == null || window.isBlank()) {
+            return defaultMillis;
+        }
+        String value = window.trim().toLowerCase();
+        long unit = switch (value.charAt(value.length() - 1)) {
+            case 's' -> 1000L;
+            case 'h' -> 3600_000L;
+            default -> 60_000L;
+        };
+        if (Character.isLetter(value.charAt(value.length() - 1))) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            long amount = Long.parseLong(value);
+            return amount > 0 ? amount * unit : defaultMillis;
+        } catch (NumberFormatException e) {
+            return defaultMillis;
+        }
+    }
+    
+    // 不经过写入队列的单条写入，同样在落库前追加WAL记录
     public SystemMetrics saveMetrics(SystemMetrics metrics) {
-        return systemMetricsRepository.save(metrics);
+        writeAheadLog.appendMetrics(metrics);
+        SystemMetrics saved;
+        metricsPartitionManager.beginHeadWrite();
+        try {
+            saved = systemMetricsRepository.save(metrics);
+            notifyIngested(saved != null ? List.of(saved) : List.of());
+        } finally {
+            metricsPartitionManager.endHeadWrite();
+            releaseAfterCompletion(metrics);
+        }
+        return saved;
+    }
+    
+    // 外层事务完成（提交或回滚）后才算落库结束，检查点不能越过还没提交的记录
+    private void releaseAfterCompletion(SystemMetrics metrics) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    writeAheadLog.release(metrics);
+                }
+            });
+        } else {
+            writeAheadLog.release(metrics);
+        }
+    }
+    
+    // 批量写入，单个事务内由Hibernate按jdbc.batch_size分批提交。
+    // 调用方需要用MetricsPartitionManager.beginHeadWrite/endHeadWrite包住整个事务，避免与分区轮转交错
+    @Transactional
+    public List<SystemMetrics> saveMetricsBatch(List<SystemMetrics> batch) {
+        List<SystemMetrics> saved = systemMetricsRepository.saveAll(batch);
+        notifyIngested(saved);
+        return saved;
+    }
+    
+    // 事务提交后再通知各内存结构并失效缓存，回滚的批次不会留在内存中；不在事务中时立即通知
+    private void notifyIngested(List<SystemMetrics> saved) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishIngested(saved);
+                }
+            });
+        } else {
+            publishIngested(saved);
+        }
+    }
+    
+    private void publishIngested(List<SystemMetrics> saved) {
+        for (SystemMetrics metrics : saved) {
+            for (MetricsIngestListener listener : ingestListeners) {
+                listener.onMetricsIngested(metrics);
+            }
+        }
+        queryResultCache.invalidate(CacheRegion.METRICS);
     }
     
     // 生成模拟数据用于演示
@@ -67,18 +505,44 @@ public class SystemMetricsService {
         return saveMetrics(metrics);
     }
     
-    // 获取系统健康状态
     public SystemHealthStatus getSystemHealthStatus() {
+        return queryResultCache.get(CacheRegion.METRICS, "health", this::computeSystemHealthStatus);
+    }
+    
+    // 获取系统健康状态，直接读取滑动窗口中按时间桶维护的累加值
+    private SystemHealthStatus computeSystemHealthStatus() {
         LocalDateTime startTime = LocalDateTime.now().minusMinutes(5);
-        List<SystemMetrics> recentMetrics = systemMetricsRepository.findLatestMetrics(startTime);
+        LocalDateTime coverageStart = healthWindowAggregator.getCoverageStart();
+        RecentMetricsWindow.WindowAggregate aggregate = healthWindowAggregator.snapshot();
+        if (startTime.isBefore(coverageStart)) {
+            // 窗口之前的部分只取数据库算好的累加和
+            for (MetricsAggregate stored : metricsAggregationRepository.aggregate(
+                    startTime, coverageStart, 0, MetricsGroupBy.NONE)) {
+                aggregate.addSums(stored.count(),
+                        stored.cpuUsage().sum(), stored.cpuUsage().count(),
+                        stored.memoryUsage().sum(), stored.memoryUsage().count(),
+                        stored.loadAverage().sum(), stored.loadAverage().count());
+            }
+        }
         
-        if (recentMetrics.isEmpty()) {
-            return new SystemHealthStatus("未知", 0.0, 0.0, 0.0, 0);
+        // 在线与失联的服务器数取自最新值登记表
+        int liveServers = 0;
+        int staleServers = 0;
+        for (ServerSnapshot snapshot : latestMetricsRegistry.snapshot(true)) {
+            if (snapshot.stale()) {
+                staleServers++;
+            } else {
+                liveServers++;
+            }
         }
         
-        double avgCpu = recentMetrics.stream().mapToDouble(SystemMetrics::getCpuUsage).average().orElse(0.0);
-        double avgMemory = recentMetrics.stream().mapToDouble(SystemMetrics::getMemoryUsage).average().orElse(0.0);
-        double avgLoad = recentMetrics.stream().mapToDouble(SystemMetrics::getLoadAverage).average().orElse(0.0);
+        if (aggregate.getCount() == 0) {
+            return new SystemHealthStatus("未知", 0.0, 0.0, 0.0, 0, liveServers, staleServers);
+        }
+        
+        double avgCpu = aggregate.getAvgCpu();
+        double avgMemory = aggregate.getAvgMemory();
+        double avgLoad = aggregate.getAvgLoad();
         
         String healthStatus = "健康";
         if (avgCpu > 85 || avgMemory > 90 || avgLoad > 5) {
@@ -87,7 +551,8 @@ public class SystemMetricsService {
             healthStatus = "警告";
         }
         
-        return new SystemHealthStatus(healthStatus, avgCpu, avgMemory, avgLoad, recentMetrics.size());
+        return new SystemHealthStatus(healthStatus, avgCpu, avgMemory, avgLoad, (int) aggregate.getCount(),
+                liveServers, staleServers);
     }
     
     public static class SystemHealthStatus {
@@ -96,13 +561,22 @@ public class SystemMetricsService {
         private double avgMemory;
         private double avgLoad;
         private int serverCount;
+        private int liveServerCount;
+        private int staleServerCount;
         
         public SystemHealthStatus(String status, double avgCpu, double avgMemory, double avgLoad, int serverCount) {
+            this(status, avgCpu, avgMemory, avgLoad, serverCount, 0, 0);
+        }
+        
+        public SystemHealthStatus(String status, double avgCpu, double avgMemory, double avgLoad, int serverCount,
+                                  int liveServerCount, int staleServerCount) {
             this.status = status;
             this.avgCpu = avgCpu;
             this.avgMemory = avgMemory;
             this.avgLoad = avgLoad;
             this.serverCount = serverCount;
+            this.liveServerCount = liveServerCount;
+            this.staleServerCount = staleServerCount;
         }
         
         // Getters
@@ -111,5 +585,7 @@ public class SystemMetricsService {
         public double getAvgMemory() { return avgMemory; }
         public double getAvgLoad() { return avgLoad; }
         public int getServerCount() { return serverCount; }
+        public int getLiveServerCount() { return liveServerCount; }
+        public int getStaleServerCount() { return staleServerCount; }
     }
 }
\ No newline at end of file
@@ -1,10 +1,21 @@
 package com.bub6le.systemmonitoring.service;
 
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.PageCursor;
 import com.bub6le.systemmonitoring.repository.TaskRepository;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
+import com.bub6le.systemmonitoring.store.cache.CacheRegion;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -14,22 +25,77 @@ public class TaskService {
     @Autowired
     private TaskRepository taskRepository;
     
+    @Autowired
+    private WriteAheadLog writeAheadLog;
+    
+    @Autowired
+    private QueryResultCache queryResultCache;
+    
     private final Random random = new Random();
     
+    @Transactional(readOnly = true)
     public List<Task> getAllTasks() {
-        return taskRepository.findAllOrderByUpdatedTime();
+        return queryResultCache.getUntilInvalidated(CacheRegion.TASKS, "all",
+                () -> Collections.unmodifiableList(taskRepository.findAllOrderByUpdatedTime()));
     }
     
+    @Transactional(readOnly = true)
     public List<Task> getTasksByStatus(Task.TaskStatus status) {
         return taskRepository.findByStatus(status);
     }
     
+    @Transactional(readOnly = true)
     public List<Task> getTasksByCluster(String cluster) {
         return taskRepository.findByTargetCluster(cluster);
     }
     
+    // 最近更新的limit个任务，只读投影，供定时推送使用
+    @Transactional(readOnly = true)
+    public List<TaskView> getRecentTaskViews(int limit) {
+        int max = CursorPage.clampLimit(limit);
+        return queryResultCache.getUntilInvalidated(CacheRegion.TASKS, "recent:" + max,
+                () -> taskRepository.findRecentlyUpdatedViews(Limit.of(max)));
+    }
+    
+    // 以下分页查询按(createdTime, id)倒序，cursor为上一页返回的nextCursor。结果为只读投影，不进入持久化上下文
+    @Transactional(readOnly = true)
+    public CursorPage<TaskView> getTasksPage(String cursor, int limit) {
+        return CursorPage.fetch(cursor, limit, taskRepository::findPage, TaskService::cursorOf);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<TaskView> getTasksPageByStatus(Task.TaskStatus status, String cursor, int limit) {
+        return CursorPage.fetch(cursor, limit,
+                (timestamp, id, max) -> taskRepository.findPageByStatus(status, timestamp, id, max),
+                TaskService::cursorOf);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<TaskView> getTasksPageByCluster(String cluster, String cursor, int limit) {
+        return CursorPage.fetch(cursor, limit,
+                (timestamp, id, max) -> taskRepository.findPageByTargetCluster(cluster, timestamp, id, max),
+                TaskService::cursorOf);
+    }
+    
+    private static PageCursor cursorOf(TaskView task) {
+        return new PageCursor(task.createdTime(), task.id());
+    }
+    
     public Task saveTask(Task task) {
-        return taskRepository.save(task);
+        Task saved = taskRepository.save(task);
+        // 提交后记录保存后的完整状态（含id），回放时按id覆盖；在外层事务中时等事务提交再写
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    writeAheadLog.appendTask(saved);
+                }
+            });
+        } else {
+            writeAheadLog.appendTask(saved);
+        }
+        queryResultCache.invalidate(CacheRegion.TASKS);
+        return saved;
     }
     
     public Task createTask(String taskName, String targetCluster) {
@@ -95,7 +161,12 @@ public class TaskService {
         return saveTask(task);
     }
     
+    @Transactional(readOnly = true)
     public TaskStatusSummary getTaskStatusSummary() {
+        return queryResultCache.getUntilInvalidated(CacheRegion.TASKS, "summary", this::countTasksByStatus);
+    }
+    
+    private TaskStatusSummary countTasksByStatus() {
         long queuedCount = taskRepository.countByStatus(Task.TaskStatus.QUEUED);
         long runningCount = taskRepository.countByStatus(Task.TaskStatus.RUNNING);
         long failedCount = taskRepository.countByStatus(Task.TaskStatus.FAILED);
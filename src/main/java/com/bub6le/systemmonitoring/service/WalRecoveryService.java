@@ -0,0 +1,375 @@
+package com.bub6le.systemmonitoring.service;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.MetricsPartitionManager;
+import com.bub6le.systemmonitoring.store.MetricsHistoryStore;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.store.rollup.MetricsRollupStore;
+import com.bub6le.systemmonitoring.store.wal.WalCodec;
+import com.bub6le.systemmonitoring.store.wal.WalRecord;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 启动时从WAL恢复数据，并周期性做检查点。
+ *
+ * 检查点不阻塞写入：先取WAL的低水位LSN（之前的记录都已提交），再用H2的SCRIPT逐表导出到
+ * snapshot-{LSN}目录。已封存的指标分区不再变化，每个分区只在partitions目录下导出一次，
+ * 快照中的清单记录检查点时存在的分区。恢复时导入快照和清单中的分区，再回放检查点之后的WAL记录；
+ * 导出期间已经落库的指标按wal_lsn跳过，告警和任务按id覆盖，回放是幂等的。
+ */
+@Service
+public class WalRecoveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(WalRecoveryService.class);
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SCRIPT_SUFFIX = ".sql.gz";
+    private static final String PARTITIONS_DIR = "partitions";
+    private static final String PARTITION_MANIFEST = "partitions.txt";
+    // 快照目录中的三份导出，按导出顺序
+    private static final String TABLES_SCRIPT = "tables" + SCRIPT_SUFFIX;
+    private static final String HEAD_SCRIPT = "head" + SCRIPT_SUFFIX;
+    private static final String DICTIONARY_SCRIPT = "dictionary" + SCRIPT_SUFFIX;
+    private static final String DICTIONARY_TABLE = "dimension_dictionary";
+    // 与SystemMetrics上的@SequenceGenerator保持一致
+    private static final String METRICS_SEQUENCE = "system_metrics_seq";
+    private static final int METRICS_ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private WriteAheadLog writeAheadLog;
+
+    @Autowired
+    private SystemMetricsService systemMetricsService;
+
+    @Autowired
+    private MetricsPartitionManager metricsPartitionManager;
+
+    @Autowired
+    private DimensionDictionary dimensionDictionary;
+
+    @Autowired
+    private MetricsHistoryStore metricsHistoryStore;
+
+    @Autowired
+    private MetricsRollupStore metricsRollupStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QueryResultCache queryResultCache;
+
+    @Value("${monitoring.wal.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    @PostConstruct
+    public void recover() {
+        if (!writeAheadLog.isEnabled()) {
+            return;
+        }
+        long checkpointLsn = writeAheadLog.getCheckpointLsn();
+        Path snapshot = snapshotPath(checkpointLsn);
+        if (checkpointLsn > 0 && Files.isDirectory(snapshot)) {
+            restoreSnapshot(snapshot);
+            dimensionDictionary.reload();
+            metricsPartitionManager.discoverPartitions();
+            restartMetricsSequence();
+            metricsHistoryStore.reload();
+            metricsRollupStore.rebuildFromHistory();
+            log.info("Restored snapshot {}", snapshot.getFileName());
+        }
+
+        List<SystemMetrics> pending = new ArrayList<>(replayBatchSize);
+        long replayed = writeAheadLog.replay((lsn, record) -> {
+            switch (record.type()) {
+                case METRICS -> {
+                    SystemMetrics metrics = WalCodec.decodeMetrics(record.payload());
+                    metrics.setWalLsn(lsn);
+                    pending.add(metrics);
+                    if (pending.size() >= replayBatchSize) {
+                        replayMetrics(pending);
+                    }
+                }
+                case ALERT -> mergeAlert(WalCodec.decodeAlert(record.payload()));
+                case ALERTS_RESOLVED -> resolveAlerts(WalCodec.decodeAlertIds(record.payload()));
+                case ALERTS_RESOLVED_MATCHING -> resolveAlertsMatching(WalCodec.decodeResolveCriteria(record.payload()));
+                case TASK -> mergeTask(WalCodec.decodeTask(record.payload()));
+            }
+        });
+        replayMetrics(pending);
+        restartIdentity("alerts");
+        restartIdentity("tasks");
+        // 告警和任务绕过服务直接写表，缓存的查询结果统一作废
+        queryResultCache.invalidateAll();
+
+        if (replayed > 0) {
+            log.info("Replayed {} WAL records", replayed);
+            // 回放完立即做一次检查点，下次启动不必再回放同样的记录
+            checkpoint();
+        }
+    }
+
+    /**
+     * 导出快照并推进检查点。导出期间只持有分区维护锁（不轮转、不删除分区），写入照常进行。
+     *
+     * 没有跨表一致的快照，按依赖顺序分别导出：先导出告警、任务和压缩历史块等表，再导出当前表，
+     * 字典最后导出。字典项总是先于引用它的行提交，后导出的字典包含前面各表引用的所有id；
+     * 历史块先于当前表导出，块中的样本在当前表快照中都有对应的行，回放不会重复写入历史。
+     * 低水位之前的记录在导出开始前都已提交，一定在快照中；之后的记录由回放补齐或跳过。
+     */
+    @Scheduled(fixedDelayString = "${monitoring.wal.checkpoint-interval-ms:600000}",
+               initialDelayString = "${monitoring.wal.checkpoint-interval-ms:600000}")
+    public void checkpoint() {
+        if (!writeAheadLog.isEnabled()) {
+            return;
+        }
+        metricsHistoryStore.flush();
+        long lsn = writeAheadLog.getLowWaterLsn();
+        Path snapshot = snapshotPath(lsn);
+        if (lsn == writeAheadLog.getCheckpointLsn() && Files.isDirectory(snapshot)) {
+            return;
+        }
+        List<String> partitions = new ArrayList<>();
+        metricsPartitionManager.runWithStablePartitions(() -> {
+            Path tmp = writeAheadLog.getDirectory().resolve(SNAPSHOT_PREFIX + lsn + ".tmp");
+            try {
+                for (MetricsPartitionManager.PartitionInfo partition : metricsPartitionManager.getPartitions()) {
+                    scriptPartitionOnce(partition.getName());
+                    partitions.add(partition.getName());
+                }
+                deleteRecursively(tmp);
+                Files.createDirectories(tmp);
+                Files.write(tmp.resolve(PARTITION_MANIFEST), partitions, StandardCharsets.UTF_8);
+                script(tmp.resolve(TABLES_SCRIPT), otherTables());
+                script(tmp.resolve(HEAD_SCRIPT), List.of(MetricsPartitionManager.HEAD_TABLE));
+                script(tmp.resolve(DICTIONARY_SCRIPT), List.of(DICTIONARY_TABLE));
+                Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to publish snapshot", e);
+            }
+        });
+        writeAheadLog.checkpoint(lsn);
+        deleteObsoleteFiles(snapshot, partitions);
+        log.info("WAL checkpoint at LSN {}", lsn);
+    }
+
+    // 已封存分区不再变化，导出过的不再重复导出
+    private void scriptPartitionOnce(String partition) throws IOException {
+        Path path = partitionScriptPath(partition);
+        if (Files.exists(path)) {
+            return;
+        }
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(partition + ".tmp");
+        script(tmp, List.of(partition));
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void script(Path path, List<String> tables) {
+        jdbcTemplate.execute("SCRIPT DROP TO '" + sqlPath(path) + "' COMPRESSION GZIP TABLE " + String.join(", ", tables));
+    }
+
+    // 指标表和字典之外的所有表
+    private List<String> otherTables() {
+        return jdbcTemplate.queryForList(
+                "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'",
+                String.class).stream()
+                .filter(table -> !table.toLowerCase().startsWith(MetricsPartitionManager.HEAD_TABLE)
+                        && !table.equalsIgnoreCase(DICTIONARY_TABLE))
+                .toList();
+    }
+
+    private void restoreSnapshot(Path snapshot) {
+        runScript(snapshot.resolve(TABLES_SCRIPT));
+        runScript(snapshot.resolve(HEAD_SCRIPT));
+        runScript(snapshot.resolve(DICTIONARY_SCRIPT));
+        try {
+            for (String partition : Files.readAllLines(snapshot.resolve(PARTITION_MANIFEST), StandardCharsets.UTF_8)) {
+                runScript(partitionScriptPath(partition));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read partition manifest", e);
+        }
+    }
+
+    private void runScript(Path path) {
+        jdbcTemplate.execute("RUNSCRIPT FROM '" + sqlPath(path) + "' COMPRESSION GZIP");
+    }
+
+    // 按表导出的快照不含序列；pooled优化器把序列值当作一组id的上界，移到最大id之后再多留一组
+    private void restartMetricsSequence() {
+        List<String> tables = new ArrayList<>();
+        tables.add(MetricsPartitionManager.HEAD_TABLE);
+        metricsPartitionManager.getPartitions().forEach(partition -> tables.add(partition.getName()));
+        long maxId = 0;
+        for (String table : tables) {
+            Long id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            maxId = Math.max(maxId, id != null ? id : 0);
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE " + METRICS_SEQUENCE + " RESTART WITH " + (maxId + METRICS_ALLOCATION_SIZE + 1));
+    }
+
+    private void replayMetrics(List<SystemMetrics> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<SystemMetrics> missing = withoutStored(pending);
+        if (!missing.isEmpty()) {
+            metricsPartitionManager.beginHeadWrite();
+            try {
+                systemMetricsService.saveMetricsBatch(missing);
+            } finally {
+                metricsPartitionManager.endHeadWrite();
+            }
+        }
+        pending.clear();
+    }
+
+    // 低水位之后、快照导出之前已落库的样本已在快照中，按wal_lsn跳过。行的时间戳与记录相同，先按时间范围缩小查询
+    private List<SystemMetrics> withoutStored(List<SystemMetrics> batch) {
+        LocalDateTime from = batch.stream().map(SystemMetrics::getTimestamp).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = batch.stream().map(SystemMetrics::getTimestamp).max(Comparator.naturalOrder()).orElseThrow();
+        long minLsn = batch.get(0).getWalLsn();
+        long maxLsn = batch.get(batch.size() - 1).getWalLsn();
+        Set<Long> stored = new HashSet<>();
+        metricsPartitionManager.beginPartitionRead();
+        try {
+            for (String table : metricsPartitionManager.tablesOverlapping(from, to.plusNanos(1))) {
+                stored.addAll(jdbcTemplate.queryForList(
+                        "SELECT wal_lsn FROM " + table + " WHERE timestamp >= ? AND timestamp <= ? AND wal_lsn BETWEEN ? AND ?",
+                        Long.class, Timestamp.valueOf(from), Timestamp.valueOf(to), minLsn, maxLsn));
+            }
+        } finally {
+            metricsPartitionManager.endPartitionRead();
+        }
+        List<SystemMetrics> missing = new ArrayList<>(batch.size());
+        for (SystemMetrics metrics : batch) {
+            if (!stored.contains(metrics.getWalLsn())) {
+                missing.add(metrics);
+            }
+        }
+        return missing;
+    }
+
+    // 告警和任务会被更新，WAL中保存的是每次保存后的完整状态，按id覆盖即可
+    private void mergeAlert(Alert alert) {
+        jdbcTemplate.update(
+                "MERGE INTO alerts (id, source, severity, message, timestamp, resolved, occurrence_count, last_seen) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                alert.getId(), alert.getSource() != null ? dimensionDictionary.intern(alert.getSource()) : null,
+                alert.getSeverity() != null ? alert.getSeverity().name() : null,
+                alert.getMessage(), toTimestamp(alert.getTimestamp()), alert.getResolved(),
+                alert.getOccurrenceCount(), toTimestamp(alert.getLastSeen()));
+    }
+
+    private void resolveAlerts(List<Long> alertIds) {
+        jdbcTemplate.batchUpdate("UPDATE alerts SET resolved = TRUE WHERE id = ?", alertIds, alertIds.size(),
+                (statement, id) -> statement.setLong(1, id));
+    }
+
+    private void resolveAlertsMatching(WalCodec.ResolveCriteria criteria) {
+        if (criteria.source() != null) {
+            // 字典中没有的来源不会有告警
+            int sourceId = dimensionDictionary.find(criteria.source());
+            if (sourceId != DimensionDictionary.NULL_ID) {
+                jdbcTemplate.update("UPDATE alerts SET resolved = TRUE WHERE source = ? AND resolved = FALSE", sourceId);
+            }
+        } else if (criteria.severity() != null) {
+            jdbcTemplate.update("UPDATE alerts SET resolved = TRUE WHERE severity = ? AND resolved = FALSE",
+                    criteria.severity().name());
+        } else if (criteria.before() != null) {
+            jdbcTemplate.update("UPDATE alerts SET resolved = TRUE WHERE timestamp < ? AND resolved = FALSE",
+                    toTimestamp(criteria.before()));
+        }
+    }
+
+    private void mergeTask(Task task) {
+        jdbcTemplate.update(
+                "MERGE INTO tasks (id, task_name, target_cluster, status, progress, created_time, updated_time) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                task.getId(), task.getTaskName(), task.getTargetCluster(),
+                task.getStatus() != null ? task.getStatus().name() : null,
+                task.getProgress(), toTimestamp(task.getCreatedTime()), toTimestamp(task.getUpdatedTime()));
+    }
+
+    // 显式写入的id不会推进自增序列，回放后把序列移到最大id之后
+    private void restartIdentity(String table) {
+        Long next = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table, Long.class);
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+    }
+
+    // 删除旧快照，以及已不在清单中（分区已删除）的分区导出
+    private void deleteObsoleteFiles(Path keep, List<String> partitions) {
+        try (Stream<Path> files = Files.list(writeAheadLog.getDirectory())) {
+            for (Path path : files.filter(p -> p.getFileName().toString().startsWith(SNAPSHOT_PREFIX)).toList()) {
+                if (!path.equals(keep)) {
+                    deleteRecursively(path);
+                }
+            }
+            Path partitionsDir = writeAheadLog.getDirectory().resolve(PARTITIONS_DIR);
+            if (Files.isDirectory(partitionsDir)) {
+                try (Stream<Path> scripts = Files.list(partitionsDir)) {
+                    for (Path path : scripts.toList()) {
+                        String name = path.getFileName().toString();
+                        if (!name.endsWith(SCRIPT_SUFFIX) || !partitions.contains(name.substring(0, name.length() - SCRIPT_SUFFIX.length()))) {
+                            Files.deleteIfExists(path);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to clean up old snapshots", e);
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private Path snapshotPath(long lsn) {
+        return writeAheadLog.getDirectory().resolve(SNAPSHOT_PREFIX + lsn);
+    }
+
+    private Path partitionScriptPath(String partition) {
+        return writeAheadLog.getDirectory().resolve(PARTITIONS_DIR).resolve(partition + SCRIPT_SUFFIX);
+    }
+
+    private static String sqlPath(Path path) {
+        return path.toAbsolutePath().toString().replace('\\', '/').replace("'", "''");
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.Alert;
+
+/**
+ * 告警指纹。未解决期间指纹相同的告警视为同一告警的重复出现。
+ */
+public record AlertFingerprint(String source, Alert.AlertSeverity severity, String message) {
+
+    public static AlertFingerprint of(Alert alert) {
+        return new AlertFingerprint(alert.getSource(), alert.getSeverity(), alert.getMessage());
+    }
+}
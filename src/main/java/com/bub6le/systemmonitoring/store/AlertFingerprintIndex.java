@@ -0,0 +1,253 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 未解决告警的指纹索引，重复的告警只在内存中累加出现次数和最近出现时间，不访问数据库。
+ *
+ * 每个指纹对应数据库中的一行未解决告警。累加后的计数标记为待写回，由调用方定期取出批量更新；
+ * 告警解决后从索引中移除，之后同一指纹的告警会重新建一行。
+ */
+@Component
+public class AlertFingerprintIndex {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentHashMap<AlertFingerprint, Entry> entries = new ConcurrentHashMap<>();
+    // 事务中新建、尚未提交的行。提交后移入entries，回滚后丢弃
+    private final ConcurrentHashMap<AlertFingerprint, Entry> pending = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AlertFingerprint> fingerprintsById = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    // 按指纹分段的加载锁，查找和建行的数据库访问在锁内、ConcurrentHashMap的compute之外进行
+    private final Object[] loadLocks = new Object[LOCK_STRIPES];
+
+    public AlertFingerprintIndex() {
+        for (int i = 0; i < loadLocks.length; i++) {
+            loadLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 记录一次指纹为fingerprint的告警。索引中已有时累加次数并返回合并后的告警；
+     * 否则先用findExisting查找已有的未解决告警，找到时同样累加，找不到时调用create新建。
+     * 同一指纹的并发调用串行执行，不会建出两行。在事务中新建的行提交后才进入索引，
+     * 提交前到达的重复告警累加到待提交的条目上，事务回滚时连同条目一起丢弃。
+     */
+    public Alert record(AlertFingerprint fingerprint, LocalDateTime seenAt,
+                        Supplier<Alert> findExisting, Supplier<Alert> create) {
+        Alert coalesced = coalesceIfPresent(fingerprint, seenAt);
+        if (coalesced != null) {
+            return coalesced;
+        }
+        Entry entry;
+        synchronized (lockFor(fingerprint)) {
+            entry = entries.get(fingerprint);
+            if (entry == null) {
+                entry = pending.get(fingerprint);
+            }
+            if (entry != null) {
+                return coalesce(entry, seenAt);
+            }
+            Alert existing = findExisting.get();
+            if (existing != null && existing.getId() != null) {
+                Entry found = new Entry(existing);
+                publish(fingerprint, found);
+                return coalesce(found, seenAt);
+            }
+            Alert created = create.get();
+            if (created != null && created.getId() != null) {
+                publishAfterCommit(fingerprint, new Entry(created));
+            }
+            return created;
+        }
+    }
+
+    /**
+     * 只查内存：索引中已有该指纹时累加次数并返回合并后的告警，否则返回null，不访问数据库。
+     * 用于在占用限流额度和查库之前先合并重复告警。
+     */
+    public Alert coalesceIfPresent(AlertFingerprint fingerprint, LocalDateTime seenAt) {
+        Entry entry = entries.get(fingerprint);
+        return entry != null ? coalesce(entry, seenAt) : null;
+    }
+
+    private Alert coalesce(Entry entry, LocalDateTime seenAt) {
+        coalescedCount.incrementAndGet();
+        return entry.repeat(seenAt);
+    }
+
+    private void publishAfterCommit(AlertFingerprint fingerprint, Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(fingerprint, entry);
+            return;
+        }
+        pending.put(fingerprint, entry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (lockFor(fingerprint)) {
+                    if (pending.remove(fingerprint, entry) && status == STATUS_COMMITTED) {
+                        publish(fingerprint, entry);
+                    }
+                }
+            }
+        });
+    }
+
+    private void publish(AlertFingerprint fingerprint, Entry entry) {
+        fingerprintsById.put(entry.id, fingerprint);
+        entries.put(fingerprint, entry);
+    }
+
+    private Object lockFor(AlertFingerprint fingerprint) {
+        return loadLocks[(fingerprint.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    /**
+     * 告警已解决或删除，移除对应指纹。返回带有最新计数的告警，不在索引中时返回null。
+     */
+    public Alert remove(Long alertId) {
+        if (alertId == null) {
+            return null;
+        }
+        AlertFingerprint fingerprint = fingerprintsById.remove(alertId);
+        if (fingerprint == null) {
+            return null;
+        }
+        Alert[] removed = new Alert[1];
+        entries.computeIfPresent(fingerprint, (key, entry) -> {
+            if (entry.id != alertId) {
+                return entry;
+            }
+            removed[0] = entry.snapshot();
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * 按条件批量解决后，移除满足filter的指纹。filter收到的是条目的快照，返回移除的条目数。
+     */
+    public int removeMatching(Predicate<Alert> filter) {
+        int removed = 0;
+        for (Entry entry : entries.values()) {
+            if (filter.test(entry.snapshot()) && remove(entry.id) != null) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 取出有未写回计数的告警并清除标记。写回失败时调用方可以用{@link #markDirty}重新标记。
+     */
+    public List<Alert> drainDirty() {
+        List<Alert> dirty = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            Alert snapshot = entry.drain();
+            if (snapshot != null) {
+                dirty.add(snapshot);
+            }
+        }
+        return dirty;
+    }
+
+    public void markDirty(Long alertId) {
+        AlertFingerprint fingerprint = fingerprintsById.get(alertId);
+        Entry entry = fingerprint != null ? entries.get(fingerprint) : null;
+        if (entry != null) {
+            synchronized (entry) {
+                entry.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * 移除最近出现早于before且没有未写回计数的条目。之后再出现时会从数据库重新加载。
+     */
+    public int evictIdle(LocalDateTime before) {
+        int evicted = 0;
+        for (Entry entry : entries.values()) {
+            boolean idle;
+            synchronized (entry) {
+                idle = !entry.dirty && entry.lastSeen.isBefore(before);
+            }
+            if (idle && remove(entry.id) != null) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public void clear() {
+        entries.clear();
+        pending.clear();
+        fingerprintsById.clear();
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String source;
+        private final Alert.AlertSeverity severity;
+        private final String message;
+        private final LocalDateTime timestamp;
+        private long occurrences;
+        private LocalDateTime lastSeen;
+        private boolean dirty;
+
+        private Entry(Alert alert) {
+            this.id = alert.getId();
+            this.source = alert.getSource();
+            this.severity = alert.getSeverity();
+            this.message = alert.getMessage();
+            this.timestamp = alert.getTimestamp();
+            this.occurrences = alert.getOccurrenceCount() != null ? alert.getOccurrenceCount() : 1L;
+            this.lastSeen = alert.getLastSeen() != null ? alert.getLastSeen() : alert.getTimestamp();
+        }
+
+        private synchronized Alert repeat(LocalDateTime seenAt) {
+            occurrences++;
+            if (seenAt != null && (lastSeen == null || seenAt.isAfter(lastSeen))) {
+                lastSeen = seenAt;
+            }
+            dirty = true;
+            return snapshot();
+        }
+
+        private synchronized Alert drain() {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            return snapshot();
+        }
+
+        private synchronized Alert snapshot() {
+            Alert alert = new Alert(source, severity, message);
+            alert.setId(id);
+            alert.setTimestamp(timestamp);
+            alert.setOccurrenceCount(occurrences);
+            alert.setLastSeen(lastSeen);
+            return alert;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按严重级别维护的未解决告警数，告警新建、解决时增减，读取只汇总内存计数。
+ *
+ * 计数以数据库为准：启动后以及出现无法判断增减的更新时标记为未校准，
+ * 由调用方用一次分组计数查询重新校准。严重级别为空的告警单独计数，只计入总数。
+ */
+@Component
+public class AlertSeverityCounters {
+
+    private static final Alert.AlertSeverity[] SEVERITIES = Alert.AlertSeverity.values();
+
+    private final LongAdder[] unresolved = new LongAdder[SEVERITIES.length + 1];
+    private volatile boolean reconciled;
+
+    public AlertSeverityCounters() {
+        for (int i = 0; i < unresolved.length; i++) {
+            unresolved[i] = new LongAdder();
+        }
+    }
+
+    public void increment(Alert.AlertSeverity severity) {
+        unresolved[slot(severity)].increment();
+    }
+
+    public void decrement(Alert.AlertSeverity severity) {
+        unresolved[slot(severity)].decrement();
+    }
+
+    public void decrement(Alert.AlertSeverity severity, long count) {
+        unresolved[slot(severity)].add(-count);
+    }
+
+    public long get(Alert.AlertSeverity severity) {
+        return unresolved[slot(severity)].sum();
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (LongAdder counter : unresolved) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    public boolean isReconciled() {
+        return reconciled;
+    }
+
+    /**
+     * 用数据库的分组计数覆盖内存计数，key为null表示严重级别为空的告警。
+     * 只遍历entrySet，Map.of()这类不接受null键查询的Map也可以传入。
+     */
+    public synchronized void reconcile(Map<Alert.AlertSeverity, Long> counts) {
+        for (LongAdder adder : unresolved) {
+            adder.reset();
+        }
+        for (Map.Entry<Alert.AlertSeverity, Long> entry : counts.entrySet()) {
+            if (entry.getValue() != null) {
+                unresolved[slot(entry.getKey())].add(entry.getValue());
+            }
+        }
+        reconciled = true;
+    }
+
+    public void invalidate() {
+        reconciled = false;
+    }
+
+    private static int slot(Alert.AlertSeverity severity) {
+        return severity != null ? severity.ordinal() : SEVERITIES.length;
+    }
+}
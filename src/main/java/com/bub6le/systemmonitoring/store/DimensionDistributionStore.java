@@ -0,0 +1,130 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按服务器、区域、服务类型分别维护的分组计数。与 {@link HealthWindowAggregator} 相同，
+ * 窗口切成固定数量的时间桶，每个桶内以维度字典id为键保存CPU、内存、负载的累加和与计数。
+ *
+ * 查询只合并所需时间范围内的桶，代价与维度值个数成正比，与样本数量无关。
+ */
+@Component
+public class DimensionDistributionStore implements MetricsIngestListener {
+
+    private static final MetricsGroupBy[] DIMENSIONS = {
+        MetricsGroupBy.SERVER, MetricsGroupBy.REGION, MetricsGroupBy.SERVICE_TYPE
+    };
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final DimensionDictionary dimensionDictionary;
+    private final long[] bucketStarts;
+    private final EnumMap<MetricsGroupBy, Map<Integer, RecentMetricsWindow.WindowAggregate>[]> buckets =
+            new EnumMap<>(MetricsGroupBy.class);
+    private final long createdAt;
+
+    @SuppressWarnings("unchecked")
+    public DimensionDistributionStore(@Value("${monitoring.distribution.window-minutes:60}") int windowMinutes,
+                                      @Value("${monitoring.distribution.bucket-seconds:60}") int bucketSeconds,
+                                      DimensionDictionary dimensionDictionary) {
+        this.windowMillis = windowMinutes * 60_000L;
+        this.bucketMillis = bucketSeconds * 1000L;
+        this.dimensionDictionary = dimensionDictionary;
+        int bucketCount = (int) ((windowMillis + bucketMillis - 1) / bucketMillis) + 1;
+        this.bucketStarts = new long[bucketCount];
+        Arrays.fill(bucketStarts, Long.MIN_VALUE);
+        for (MetricsGroupBy dimension : DIMENSIONS) {
+            Map<Integer, RecentMetricsWindow.WindowAggregate>[] ring = new Map[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                ring[i] = new HashMap<>();
+            }
+            buckets.put(dimension, ring);
+        }
+        this.createdAt = EpochTime.nowMillis();
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        if (metrics.getTimestamp() == null) {
+            return;
+        }
+        long timestamp = EpochTime.toMillis(metrics.getTimestamp());
+        // 早于创建时间的样本由调用方从数据库补齐，再计入桶会重复统计
+        if (timestamp < createdAt || timestamp < EpochTime.nowMillis() - windowMillis) {
+            return;
+        }
+        // 实体写入时已经入过字典，这里只是查表
+        int serverId = dimensionDictionary.intern(metrics.getServerName());
+        int regionId = dimensionDictionary.intern(metrics.getRegion());
+        int serviceTypeId = dimensionDictionary.intern(metrics.getServiceType());
+
+        long bucketStart = Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+        int index = (int) Math.floorMod(bucketStart / bucketMillis, (long) bucketStarts.length);
+        synchronized (this) {
+            if (bucketStarts[index] > bucketStart) {
+                return;
+            }
+            if (bucketStarts[index] < bucketStart) {
+                bucketStarts[index] = bucketStart;
+                for (MetricsGroupBy dimension : DIMENSIONS) {
+                    buckets.get(dimension)[index] = new HashMap<>();
+                }
+            }
+            add(MetricsGroupBy.SERVER, index, serverId, metrics);
+            add(MetricsGroupBy.REGION, index, regionId, metrics);
+            add(MetricsGroupBy.SERVICE_TYPE, index, serviceTypeId, metrics);
+        }
+    }
+
+    private void add(MetricsGroupBy dimension, int index, int id, SystemMetrics metrics) {
+        if (id == DimensionDictionary.NULL_ID) {
+            return;
+        }
+        buckets.get(dimension)[index]
+                .computeIfAbsent(id, key -> new RecentMetricsWindow.WindowAggregate())
+                .add(metrics);
+    }
+
+    /**
+     * 窗口内数据完整的起始时间，早于它的部分需要调用方从数据库补齐。
+     */
+    public LocalDateTime getCoverageStart() {
+        return EpochTime.fromMillis(Math.max(createdAt, EpochTime.nowMillis() - windowMillis));
+    }
+
+    /**
+     * 合并startTime所在桶及之后的各桶，返回维度值到累加结果的映射。
+     */
+    public synchronized Map<String, RecentMetricsWindow.WindowAggregate> aggregateSince(MetricsGroupBy dimension,
+                                                                                      LocalDateTime startTime) {
+        Map<String, RecentMetricsWindow.WindowAggregate> result = new HashMap<>();
+        Map<Integer, RecentMetricsWindow.WindowAggregate>[] ring = buckets.get(dimension);
+        if (ring == null) {
+            return result;
+        }
+        long from = Math.max(EpochTime.toMillis(startTime), EpochTime.nowMillis() - windowMillis);
+        long oldestBucket = Math.floorDiv(from, bucketMillis) * bucketMillis;
+        for (int i = 0; i < bucketStarts.length; i++) {
+            if (bucketStarts[i] < oldestBucket) {
+                continue;
+            }
+            for (Map.Entry<Integer, RecentMetricsWindow.WindowAggregate> entry : ring[i].entrySet()) {
+                result.computeIfAbsent(dimensionDictionary.lookup(entry.getKey()),
+                        key -> new RecentMetricsWindow.WindowAggregate()).merge(entry.getValue());
+            }
+        }
+        return result;
+    }
+}
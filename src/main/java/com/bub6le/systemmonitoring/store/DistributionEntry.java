@@ -0,0 +1,11 @@
+package com.bub6le.systemmonitoring.store;
+
+/**
+ * 某个维度值（服务器、区域或服务类型）在时间范围内的样本数与平均值。
+ */
+public record DistributionEntry(String key,
+                                long count,
+                                double avgCpu,
+                                double avgMemory,
+                                double avgLoad) {
+}
@@ -0,0 +1,86 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 健康检查用的滑动窗口聚合：窗口切成固定数量的时间桶，每个桶只保存CPU、内存、负载的累加和与计数。
+ *
+ * 写入时只更新样本所在的桶，桶在被新时间段复用或滑出窗口时作废。读取只合并固定数量的桶，
+ * 开销与服务器数量和样本数量无关。窗口起点按桶对齐，最早的一个桶可能部分超出窗口。
+ */
+@Component
+public class HealthWindowAggregator implements MetricsIngestListener {
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final long[] bucketStarts;
+    private final RecentMetricsWindow.WindowAggregate[] buckets;
+    // 启动之前写入的数据不在桶中
+    private final long createdAt;
+
+    public HealthWindowAggregator(@Value("${monitoring.health.window-minutes:5}") int windowMinutes,
+                                  @Value("${monitoring.health.bucket-seconds:5}") int bucketSeconds) {
+        this.windowMillis = windowMinutes * 60_000L;
+        this.bucketMillis = bucketSeconds * 1000L;
+        int bucketCount = (int) ((windowMillis + bucketMillis - 1) / bucketMillis) + 1;
+        this.bucketStarts = new long[bucketCount];
+        this.buckets = new RecentMetricsWindow.WindowAggregate[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            bucketStarts[i] = Long.MIN_VALUE;
+            buckets[i] = new RecentMetricsWindow.WindowAggregate();
+        }
+        this.createdAt = EpochTime.nowMillis();
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        if (metrics.getTimestamp() == null) {
+            return;
+        }
+        long timestamp = EpochTime.toMillis(metrics.getTimestamp());
+        // 早于创建时间的样本由调用方从数据库补齐，再计入桶会重复统计
+        if (timestamp < createdAt || timestamp < EpochTime.nowMillis() - windowMillis) {
+            return;
+        }
+        long bucketStart = Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+        int index = (int) Math.floorMod(bucketStart / bucketMillis, (long) buckets.length);
+        synchronized (this) {
+            if (bucketStarts[index] > bucketStart) {
+                // 槽位已被更新的时间段占用，迟到的样本丢弃
+                return;
+            }
+            if (bucketStarts[index] < bucketStart) {
+                bucketStarts[index] = bucketStart;
+                buckets[index] = new RecentMetricsWindow.WindowAggregate();
+            }
+            buckets[index].add(metrics);
+        }
+    }
+
+    /**
+     * 窗口内数据完整的起始时间，早于它的部分需要调用方从数据库补齐。
+     */
+    public LocalDateTime getCoverageStart() {
+        return EpochTime.fromMillis(Math.max(createdAt, EpochTime.nowMillis() - windowMillis));
+    }
+
+    /**
+     * 合并窗口内各个桶的累加值。
+     */
+    public synchronized RecentMetricsWindow.WindowAggregate snapshot() {
+        long oldestBucket = Math.floorDiv(EpochTime.nowMillis() - windowMillis, bucketMillis) * bucketMillis;
+        RecentMetricsWindow.WindowAggregate aggregate = new RecentMetricsWindow.WindowAggregate();
+        for (int i = 0; i < buckets.length; i++) {
+            if (bucketStarts[i] >= oldestBucket) {
+                aggregate.merge(buckets[i]);
+            }
+        }
+        return aggregate;
+    }
+}
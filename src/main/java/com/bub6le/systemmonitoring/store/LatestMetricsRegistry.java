@@ -0,0 +1,78 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每台服务器最新一条指标的登记表，写入时按样本时间只保留更新的一条。
+ *
+ * 读取只遍历服务器，代价为O(服务器数)，不访问数据库。超过staleSeconds没有新样本的服务器标记为stale，
+ * 超过evictMinutes的从登记表中移除。
+ */
+@Component
+public class LatestMetricsRegistry implements MetricsIngestListener {
+
+    private final long staleMillis;
+    private final long evictMillis;
+    private final ConcurrentHashMap<String, SystemMetrics> latest = new ConcurrentHashMap<>();
+
+    public LatestMetricsRegistry(@Value("${monitoring.latest.stale-seconds:120}") int staleSeconds,
+                                 @Value("${monitoring.latest.evict-minutes:60}") int evictMinutes) {
+        this.staleMillis = staleSeconds * 1000L;
+        this.evictMillis = evictMinutes * 60_000L;
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        if (metrics.getServerName() == null || metrics.getTimestamp() == null) {
+            return;
+        }
+        // 迟到的旧样本不覆盖更新的值
+        latest.merge(metrics.getServerName(), metrics,
+                (current, incoming) -> incoming.getTimestamp().isBefore(current.getTimestamp()) ? current : incoming);
+    }
+
+    /**
+     * 所有服务器的最新值，按服务器名排序。includeStale为false时只返回仍在上报的服务器。
+     */
+    public List<ServerSnapshot> snapshot(boolean includeStale) {
+        long staleBefore = EpochTime.nowMillis() - staleMillis;
+        List<ServerSnapshot> result = new ArrayList<>(latest.size());
+        for (SystemMetrics metrics : latest.values()) {
+            ServerSnapshot snapshot = toSnapshot(metrics, staleBefore);
+            if (includeStale || !snapshot.stale()) {
+                result.add(snapshot);
+            }
+        }
+        result.sort(Comparator.comparing(ServerSnapshot::serverName));
+        return result;
+    }
+
+    public ServerSnapshot find(String serverName) {
+        SystemMetrics metrics = latest.get(serverName);
+        return metrics != null ? toSnapshot(metrics, EpochTime.nowMillis() - staleMillis) : null;
+    }
+
+    private static ServerSnapshot toSnapshot(SystemMetrics metrics, long staleBefore) {
+        return new ServerSnapshot(metrics.getServerName(), metrics.getRegion(), metrics.getServiceType(),
+                metrics.getCpuUsage(), metrics.getMemoryUsage(), metrics.getDiskUsage(),
+                metrics.getNetworkIn(), metrics.getNetworkOut(), metrics.getLoadAverage(),
+                metrics.getTimestamp(), EpochTime.toMillis(metrics.getTimestamp()) < staleBefore);
+    }
+
+    // 每分钟移除长时间没有上报的服务器
+    @Scheduled(fixedRate = 60_000L)
+    public void evictIdleServers() {
+        long cutoff = EpochTime.nowMillis() - evictMillis;
+        latest.values().removeIf(metrics -> EpochTime.toMillis(metrics.getTimestamp()) < cutoff);
+    }
+}
@@ -0,0 +1,352 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.store.gorilla.CompressedMetricsBlock;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.store.gorilla.MetricsBlockBuilder;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按服务器保存的压缩指标历史。样本先写入当前打开的块，写满后封存为不可变的压缩块；
+ * 范围扫描只解码与时间范围重叠的块，并以流的形式逐条返回。
+ *
+ * 封存的块定期写入metrics_history_blocks表（字节形式），启动和快照恢复后从表中加载。
+ * 打开时间超过maxOpenMinutes的块提前封存，{@link #getPersistedThroughMillis()} 之前的样本都已持久化，
+ * 对应的原始指标分区可以提前删除。没有JdbcTemplate时（单元测试）只在内存中工作。
+ */
+@Component
+public class MetricsHistoryStore implements MetricsIngestListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsHistoryStore.class);
+
+    private final int blockSize;
+    private final long retentionMillis;
+    private final ConcurrentHashMap<String, SeriesHistory> series = new ConcurrentHashMap<>();
+    // 已封存、尚未写入表中的块，按封存顺序排列
+    private final ConcurrentLinkedDeque<PendingBlock> unpersisted = new ConcurrentLinkedDeque<>();
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private DimensionDictionary dimensionDictionary;
+
+    @Value("${monitoring.history.max-open-minutes:30}")
+    private int maxOpenMinutes = 30;
+
+    public MetricsHistoryStore(@Value("${monitoring.history.block-size:240}") int blockSize,
+                               @Value("${monitoring.history.retention-days:14}") int retentionDays) {
+        this.blockSize = blockSize;
+        this.retentionMillis = retentionDays * 24L * 3600_000L;
+    }
+
+    @PostConstruct
+    public void load() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS metrics_history_blocks (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "server_id INT NOT NULL, min_ts BIGINT NOT NULL, max_ts BIGINT NOT NULL, sample_count INT NOT NULL, data BLOB NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_history_blocks_max_ts ON metrics_history_blocks (max_ts)");
+        reload();
+    }
+
+    /**
+     * 丢弃内存中的历史，从表中重新加载已持久化的块。数据库被整体替换（如WAL快照恢复）后调用。
+     */
+    public synchronized void reload() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        series.clear();
+        unpersisted.clear();
+        int[] loaded = new int[1];
+        jdbcTemplate.query("SELECT server_id, min_ts, max_ts, sample_count, data FROM metrics_history_blocks ORDER BY id", rs -> {
+            String serverName = dimensionDictionary.lookup(rs.getInt("server_id"));
+            if (serverName == null) {
+                return;
+            }
+            CompressedMetricsBlock block = CompressedMetricsBlock.fromBytes(rs.getBytes("data"),
+                    rs.getInt("sample_count"), rs.getLong("min_ts"), rs.getLong("max_ts"));
+            series.computeIfAbsent(serverName, SeriesHistory::new).sealed.add(block);
+            loaded[0]++;
+        });
+        if (loaded[0] > 0) {
+            log.info("Loaded {} compressed history blocks", loaded[0]);
+        }
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        if (metrics.getServerName() == null || metrics.getTimestamp() == null) {
+            return;
+        }
+        double[] values = {
+            toPrimitive(metrics.getCpuUsage()),
+            toPrimitive(metrics.getMemoryUsage()),
+            toPrimitive(metrics.getDiskUsage()),
+            toPrimitive(metrics.getNetworkIn()),
+            toPrimitive(metrics.getNetworkOut()),
+            toPrimitive(metrics.getLoadAverage())
+        };
+        series.computeIfAbsent(metrics.getServerName(), SeriesHistory::new)
+              .append(EpochTime.toMillis(metrics.getTimestamp()), values);
+    }
+
+    /**
+     * 扫描[from, to)范围内的数据点。块按写入顺序返回，块内乱序写入的样本保持写入顺序。
+     */
+    public Stream<MetricsPoint> scan(String serverName, LocalDateTime from, LocalDateTime to) {
+        SeriesHistory history = series.get(serverName);
+        if (history == null) {
+            return Stream.empty();
+        }
+        long fromMillis = EpochTime.toMillis(from);
+        long toMillis = EpochTime.toMillis(to);
+        return history.blocksOverlapping(fromMillis, toMillis).stream()
+                .flatMap(block -> decode(block, fromMillis, toMillis));
+    }
+
+    /**
+     * 依次回调每台服务器在[from, to)内的数据点，用于从历史重建其他内存结构（如预聚合）。
+     */
+    public void forEachPoint(LocalDateTime from, LocalDateTime to, BiConsumer<String, MetricsPoint> consumer) {
+        for (String serverName : series.keySet()) {
+            try (Stream<MetricsPoint> points = scan(serverName, from, to)) {
+                points.forEach(point -> consumer.accept(serverName, point));
+            }
+        }
+    }
+
+    private static Stream<MetricsPoint> decode(CompressedMetricsBlock block, long fromMillis, long toMillis) {
+        CompressedMetricsBlock.Cursor cursor = block.cursor();
+        Iterator<MetricsPoint> iterator = new Iterator<>() {
+            private MetricsPoint next = advance();
+
+            private MetricsPoint advance() {
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    long timestamp = cursor.timestamp();
+                    if (timestamp >= fromMillis && timestamp < toMillis) {
+                        return new MetricsPoint(EpochTime.fromMillis(timestamp),
+                                cursor.value(0), cursor.value(1), cursor.value(2),
+                                cursor.value(3), cursor.value(4), cursor.value(5));
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public MetricsPoint next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                MetricsPoint current = next;
+                next = advance();
+                return current;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // 每小时清理一次过期的压缩块
+    @Scheduled(fixedRate = 3600_000L)
+    public void evictExpiredBlocks() {
+        long cutoff = EpochTime.nowMillis() - retentionMillis;
+        series.values().forEach(history -> history.evictBefore(cutoff));
+        unpersisted.removeIf(pending -> pending.block().getMaxTimestamp() < cutoff);
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update("DELETE FROM metrics_history_blocks WHERE max_ts < ?", cutoff);
+        }
+    }
+
+    /**
+     * 封存打开过久的块，并把已封存的块写入表中。
+     */
+    @Scheduled(fixedDelayString = "${monitoring.history.persist-interval-ms:10000}")
+    public void persistSealedBlocks() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        long openCutoff = EpochTime.nowMillis() - maxOpenMinutes * 60_000L;
+        series.values().forEach(history -> history.sealIfOpenedBefore(openCutoff));
+        writePending();
+    }
+
+    /**
+     * 封存所有打开的块并全部写入表中。检查点在导出快照前调用，快照中的块覆盖检查点之前的全部样本。
+     */
+    public void flush() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        series.values().forEach(history -> history.sealIfOpenedBefore(Long.MAX_VALUE));
+        writePending();
+    }
+
+    private void writePending() {
+        PendingBlock pending;
+        while ((pending = unpersisted.pollFirst()) != null) {
+            CompressedMetricsBlock block = pending.block();
+            try {
+                jdbcTemplate.update("INSERT INTO metrics_history_blocks (server_id, min_ts, max_ts, sample_count, data) VALUES (?, ?, ?, ?, ?)",
+                        dimensionDictionary.intern(pending.serverName()), block.getMinTimestamp(), block.getMaxTimestamp(),
+                        block.getCount(), block.toBytes());
+            } catch (RuntimeException e) {
+                unpersisted.offerFirst(pending);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 早于返回时间（毫秒）的已写入样本都在已持久化的块中；没有待持久化的样本时返回Long.MAX_VALUE，
+     * 不持久化时返回Long.MIN_VALUE。
+     */
+    public long getPersistedThroughMillis() {
+        if (jdbcTemplate == null) {
+            return Long.MIN_VALUE;
+        }
+        long through = Long.MAX_VALUE;
+        for (PendingBlock pending : unpersisted) {
+            through = Math.min(through, pending.block().getMinTimestamp());
+        }
+        for (SeriesHistory history : series.values()) {
+            through = Math.min(through, history.openSince());
+        }
+        return through;
+    }
+
+    public HistoryStats getHistoryStats() {
+        long samples = 0;
+        long bytes = 0;
+        int blocks = 0;
+        for (SeriesHistory history : series.values()) {
+            for (CompressedMetricsBlock block : history.allBlocks()) {
+                samples += block.getCount();
+                bytes += block.getSizeInBytes();
+                blocks++;
+            }
+        }
+        return new HistoryStats(series.size(), blocks, samples, bytes);
+    }
+
+    private static double toPrimitive(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private final class SeriesHistory {
+        private final String serverName;
+        private final CopyOnWriteArrayList<CompressedMetricsBlock> sealed = new CopyOnWriteArrayList<>();
+        private MetricsBlockBuilder open = new MetricsBlockBuilder(blockSize);
+
+        SeriesHistory(String serverName) {
+            this.serverName = serverName;
+        }
+
+        synchronized void append(long timestamp, double[] values) {
+            open.append(timestamp, values);
+            if (open.getCount() >= blockSize) {
+                seal();
+            }
+        }
+
+        synchronized void sealIfOpenedBefore(long cutoffMillis) {
+            if (open.getCount() > 0 && open.getMinTimestamp() < cutoffMillis) {
+                seal();
+            }
+        }
+
+        // 打开块中最早的样本时间，打开块为空时返回Long.MAX_VALUE
+        synchronized long openSince() {
+            return open.getCount() > 0 ? open.getMinTimestamp() : Long.MAX_VALUE;
+        }
+
+        // 调用方持有this锁
+        private void seal() {
+            CompressedMetricsBlock block = open.snapshot();
+            sealed.add(block);
+            if (jdbcTemplate != null) {
+                unpersisted.add(new PendingBlock(serverName, block));
+            }
+            open = new MetricsBlockBuilder(blockSize);
+        }
+
+        List<CompressedMetricsBlock> blocksOverlapping(long fromMillis, long toMillis) {
+            List<CompressedMetricsBlock> result = new ArrayList<>();
+            for (CompressedMetricsBlock block : allBlocks()) {
+                if (block.overlaps(fromMillis, toMillis)) {
+                    result.add(block);
+                }
+            }
+            return result;
+        }
+
+        List<CompressedMetricsBlock> allBlocks() {
+            List<CompressedMetricsBlock> result = new ArrayList<>(sealed);
+            synchronized (this) {
+                if (open.getCount() > 0) {
+                    result.add(open.snapshot());
+                }
+            }
+            return result;
+        }
+
+        void evictBefore(long cutoffMillis) {
+            sealed.removeIf(block -> block.getMaxTimestamp() < cutoffMillis);
+        }
+    }
+
+    private record PendingBlock(String serverName, CompressedMetricsBlock block) {
+    }
+
+    public static class HistoryStats {
+        private int seriesCount;
+        private int blockCount;
+        private long sampleCount;
+        private long compressedBytes;
+
+        public HistoryStats(int seriesCount, int blockCount, long sampleCount, long compressedBytes) {
+            this.seriesCount = seriesCount;
+            this.blockCount = blockCount;
+            this.sampleCount = sampleCount;
+            this.compressedBytes = compressedBytes;
+        }
+
+        // Getters
+        public int getSeriesCount() { return seriesCount; }
+        public int getBlockCount() { return blockCount; }
+        public long getSampleCount() { return sampleCount; }
+        public long getCompressedBytes() { return compressedBytes; }
+        public double getBytesPerSample() { return sampleCount == 0 ? 0.0 : (double) compressedBytes / sampleCount; }
+    }
+}
@@ -0,0 +1,15 @@
+package com.bub6le.systemmonitoring.store;
+
+import java.time.LocalDateTime;
+
+/**
+ * 从压缩历史中解码出的单个数据点，不携带维度字符串。空值以NaN表示。
+ */
+public record MetricsPoint(LocalDateTime timestamp,
+                           double cpuUsage,
+                           double memoryUsage,
+                           double diskUsage,
+                           double networkIn,
+                           double networkOut,
+                           double loadAverage) {
+}
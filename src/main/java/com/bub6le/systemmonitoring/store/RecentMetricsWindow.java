@@ -0,0 +1,259 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 最近N分钟指标的内存热窗口。每台服务器一个环形缓冲区，每个指标列一个基本类型数组。
+ *
+ * 窗口只对 {@link #getCoverageStart()} 之后的数据是完整的：启动之前写入的数据，
+ * 以及因某台服务器写入过快被覆盖掉的数据，仍需要从数据库读取。
+ */
+@Component
+public class RecentMetricsWindow implements MetricsIngestListener {
+
+    private final long windowMillis;
+    private final int capacityPerServer;
+    private final DimensionDictionary dimensionDictionary;
+    private final ConcurrentHashMap<String, ServerRing> rings = new ConcurrentHashMap<>();
+
+    // 窗口内数据完整的起始时间（毫秒），只会前移
+    private final AtomicLong coverageFloor;
+
+    public RecentMetricsWindow(@Value("${monitoring.hot-window.minutes:10}") int windowMinutes,
+                               @Value("${monitoring.hot-window.capacity-per-server:2048}") int capacityPerServer,
+                               DimensionDictionary dimensionDictionary) {
+        this.windowMillis = windowMinutes * 60_000L;
+        this.capacityPerServer = capacityPerServer;
+        this.dimensionDictionary = dimensionDictionary;
+        this.coverageFloor = new AtomicLong(EpochTime.nowMillis());
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        if (metrics.getServerName() == null || metrics.getTimestamp() == null) {
+            return;
+        }
+        ServerRing ring = rings.computeIfAbsent(metrics.getServerName(),
+                name -> new ServerRing(name, capacityPerServer, dimensionDictionary));
+        long overwritten = ring.append(metrics);
+        if (overwritten != Long.MIN_VALUE) {
+            coverageFloor.accumulateAndGet(overwritten + 1, Math::max);
+        }
+    }
+
+    public LocalDateTime getCoverageStart() {
+        return EpochTime.fromMillis(coverageStartMillis());
+    }
+
+    private long coverageStartMillis() {
+        return Math.max(coverageFloor.get(), EpochTime.nowMillis() - windowMillis);
+    }
+
+    /**
+     * 返回startTime之后（且在覆盖范围内）的样本，按时间倒序。
+     */
+    public List<SystemMetrics> findSince(LocalDateTime startTime) {
+        long from = Math.max(EpochTime.toMillis(startTime), coverageStartMillis());
+        List<SystemMetrics> result = new ArrayList<>();
+        for (ServerRing ring : rings.values()) {
+            ring.collect(from, result);
+        }
+        result.sort(Comparator.comparing(SystemMetrics::getTimestamp).reversed());
+        return result;
+    }
+
+    public List<SystemMetrics> findSinceByServer(String serverName, LocalDateTime startTime) {
+        ServerRing ring = rings.get(serverName);
+        if (ring == null) {
+            return new ArrayList<>();
+        }
+        long from = Math.max(EpochTime.toMillis(startTime), coverageStartMillis());
+        List<SystemMetrics> result = new ArrayList<>();
+        ring.collect(from, result);
+        result.sort(Comparator.comparing(SystemMetrics::getTimestamp).reversed());
+        return result;
+    }
+
+    /**
+     * 直接在基本类型数组上累加CPU、内存和负载，不创建实体对象。
+     */
+    public WindowAggregate aggregateSince(LocalDateTime startTime) {
+        long from = Math.max(EpochTime.toMillis(startTime), coverageStartMillis());
+        WindowAggregate aggregate = new WindowAggregate();
+        for (ServerRing ring : rings.values()) {
+            ring.accumulate(from, aggregate);
+        }
+        return aggregate;
+    }
+
+    public int getServerCount() {
+        return rings.size();
+    }
+
+    private static final class ServerRing {
+        private final String serverName;
+        private final DimensionDictionary dictionary;
+        private final long[] ids;
+        private final long[] timestamps;
+        private final double[] cpuUsage;
+        private final double[] memoryUsage;
+        private final double[] diskUsage;
+        private final double[] networkIn;
+        private final double[] networkOut;
+        private final double[] loadAverage;
+        // region和serviceType保存字典id
+        private final int[] regions;
+        private final int[] serviceTypes;
+
+        private int head;
+        private int size;
+
+        ServerRing(String serverName, int capacity, DimensionDictionary dictionary) {
+            this.serverName = serverName;
+            this.dictionary = dictionary;
+            this.ids = new long[capacity];
+            this.timestamps = new long[capacity];
+            this.cpuUsage = new double[capacity];
+            this.memoryUsage = new double[capacity];
+            this.diskUsage = new double[capacity];
+            this.networkIn = new double[capacity];
+            this.networkOut = new double[capacity];
+            this.loadAverage = new double[capacity];
+            this.regions = new int[capacity];
+            this.serviceTypes = new int[capacity];
+        }
+
+        /**
+         * 追加一条样本，返回被覆盖样本的时间戳；未覆盖时返回Long.MIN_VALUE。
+         */
+        synchronized long append(SystemMetrics metrics) {
+            int capacity = timestamps.length;
+            long overwritten = size == capacity ? timestamps[head] : Long.MIN_VALUE;
+
+            ids[head] = metrics.getId() != null ? metrics.getId() : 0L;
+            timestamps[head] = EpochTime.toMillis(metrics.getTimestamp());
+            cpuUsage[head] = toPrimitive(metrics.getCpuUsage());
+            memoryUsage[head] = toPrimitive(metrics.getMemoryUsage());
+            diskUsage[head] = toPrimitive(metrics.getDiskUsage());
+            networkIn[head] = toPrimitive(metrics.getNetworkIn());
+            networkOut[head] = toPrimitive(metrics.getNetworkOut());
+            loadAverage[head] = toPrimitive(metrics.getLoadAverage());
+            regions[head] = dictionary.intern(metrics.getRegion());
+            serviceTypes[head] = dictionary.intern(metrics.getServiceType());
+
+            head = (head + 1) % capacity;
+            if (size < capacity) {
+                size++;
+            }
+            return overwritten;
+        }
+
+        synchronized void collect(long fromMillis, List<SystemMetrics> out) {
+            int capacity = timestamps.length;
+            for (int i = 0, idx = (head - size + capacity) % capacity; i < size; i++, idx = (idx + 1) % capacity) {
+                if (timestamps[idx] >= fromMillis) {
+                    out.add(materialize(idx));
+                }
+            }
+        }
+
+        synchronized void accumulate(long fromMillis, WindowAggregate aggregate) {
+            int capacity = timestamps.length;
+            for (int i = 0, idx = (head - size + capacity) % capacity; i < size; i++, idx = (idx + 1) % capacity) {
+                if (timestamps[idx] >= fromMillis) {
+                    aggregate.add(cpuUsage[idx], memoryUsage[idx], loadAverage[idx]);
+                }
+            }
+        }
+
+        private SystemMetrics materialize(int idx) {
+            SystemMetrics metrics = new SystemMetrics(serverName,
+                    toBoxed(cpuUsage[idx]), toBoxed(memoryUsage[idx]), toBoxed(diskUsage[idx]),
+                    toBoxed(networkIn[idx]), toBoxed(networkOut[idx]), toBoxed(loadAverage[idx]),
+                    dictionary.lookup(regions[idx]), dictionary.lookup(serviceTypes[idx]));
+            metrics.setId(ids[idx] != 0L ? ids[idx] : null);
+            metrics.setTimestamp(EpochTime.fromMillis(timestamps[idx]));
+            return metrics;
+        }
+
+        // 空值用NaN表示
+        private static double toPrimitive(Double value) {
+            return value != null ? value : Double.NaN;
+        }
+
+        private static Double toBoxed(double value) {
+            return Double.isNaN(value) ? null : value;
+        }
+    }
+
+    /**
+     * 窗口聚合结果，可以继续叠加数据库中较早部分的样本。
+     */
+    public static class WindowAggregate {
+        private long count;
+        private double cpuSum;
+        private long cpuCount;
+        private double memorySum;
+        private long memoryCount;
+        private double loadSum;
+        private long loadCount;
+
+        public void add(SystemMetrics metrics) {
+            add(metrics.getCpuUsage() != null ? metrics.getCpuUsage() : Double.NaN,
+                metrics.getMemoryUsage() != null ? metrics.getMemoryUsage() : Double.NaN,
+                metrics.getLoadAverage() != null ? metrics.getLoadAverage() : Double.NaN);
+        }
+
+        void add(double cpu, double memory, double load) {
+            count++;
+            if (!Double.isNaN(cpu)) {
+                cpuSum += cpu;
+                cpuCount++;
+            }
+            if (!Double.isNaN(memory)) {
+                memorySum += memory;
+                memoryCount++;
+            }
+            if (!Double.isNaN(load)) {
+                loadSum += load;
+                loadCount++;
+            }
+        }
+
+        /**
+         * 叠加已经在别处（如数据库）算好的累加和与计数。
+         */
+        public void addSums(long count, double cpuSum, long cpuCount, double memorySum, long memoryCount,
+                            double loadSum, long loadCount) {
+            this.count += count;
+            this.cpuSum += cpuSum;
+            this.cpuCount += cpuCount;
+            this.memorySum += memorySum;
+            this.memoryCount += memoryCount;
+            this.loadSum += loadSum;
+            this.loadCount += loadCount;
+        }
+
+        void merge(WindowAggregate other) {
+            addSums(other.count, other.cpuSum, other.cpuCount, other.memorySum, other.memoryCount,
+                    other.loadSum, other.loadCount);
+        }
+
+        public long getCount() { return count; }
+        public double getAvgCpu() { return cpuCount == 0 ? 0.0 : cpuSum / cpuCount; }
+        public double getAvgMemory() { return memoryCount == 0 ? 0.0 : memorySum / memoryCount; }
+        public double getAvgLoad() { return loadCount == 0 ? 0.0 : loadSum / loadCount; }
+    }
+}
@@ -0,0 +1,19 @@
+package com.bub6le.systemmonitoring.store;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一台服务器最近一次上报的指标值。stale表示超过阈值没有新数据，lastSeen为最近一次样本的时间。
+ */
+public record ServerSnapshot(String serverName,
+                             String region,
+                             String serviceType,
+                             Double cpuUsage,
+                             Double memoryUsage,
+                             Double diskUsage,
+                             Double networkIn,
+                             Double networkOut,
+                             Double loadAverage,
+                             LocalDateTime lastSeen,
+                             boolean stale) {
+}
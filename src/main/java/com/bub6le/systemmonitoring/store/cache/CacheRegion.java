@@ -0,0 +1,10 @@
+package com.bub6le.systemmonitoring.store.cache;
+
+/**
+ * 查询缓存的失效范围。同一区域内的结果依赖同一张表，写入时整体失效。
+ */
+public enum CacheRegion {
+    METRICS,
+    TASKS,
+    ALERTS
+}
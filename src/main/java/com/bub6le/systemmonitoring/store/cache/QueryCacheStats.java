@@ -0,0 +1,14 @@
+package com.bub6le.systemmonitoring.store.cache;
+
+/**
+ * 查询缓存的累计统计。hits包含等待同一查询正在进行的加载而直接拿到结果的请求。
+ * size包含已失效、尚未被替换或淘汰的条目。
+ */
+public record QueryCacheStats(long hits,
+                              long misses,
+                              double hitRate,
+                              long evictions,
+                              long invalidations,
+                              int size,
+                              int maxEntries) {
+}
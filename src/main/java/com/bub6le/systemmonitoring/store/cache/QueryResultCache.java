@@ -0,0 +1,163 @@
+package com.bub6le.systemmonitoring.store.cache;
+
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 服务层的查询结果缓存，键为区域、查询和对齐的时间桶。
+ *
+ * 同一时间桶内的相同查询只执行一次：第一个请求负责加载，并发到达的请求等待同一个结果，
+ * 所以多个客户端轮询或多个定时推送同时触发时，数据库只承担一次查询。
+ * 每个区域有一个版本号，写入时递增，旧版本的条目不再命中；加载开始时记录版本号，
+ * 加载期间发生的写入会让这次结果在下一次读取时失效，不会把旧数据留在缓存里。
+ * 失效只递增版本号，不遍历条目，也不争用条目表的锁，每个写入批次的代价是常数；
+ * 旧版本的条目在下一次读取同一个键时被替换，或者按最近最少使用淘汰。
+ * 条目总数有上限。缓存的结果由多个调用方共享，调用方不能修改。
+ */
+@Component
+public class QueryResultCache {
+
+    private static final long UNBUCKETED = Long.MIN_VALUE;
+
+    private final int maxEntries;
+    private final long bucketMillis;
+    private final AtomicLongArray generations = new AtomicLongArray(CacheRegion.values().length);
+    private final LinkedHashMap<String, Entry> entries;
+
+    // 失效不进entries的锁，单独计数
+    private final LongAdder invalidations = new LongAdder();
+
+    // 以下计数都在entries的锁内更新
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public QueryResultCache(@Value("${monitoring.query-cache.max-entries:256}") int maxEntries,
+                            @Value("${monitoring.query-cache.bucket-millis:2000}") long bucketMillis) {
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.bucketMillis = Math.max(bucketMillis, 1);
+        // 按访问顺序排列，迭代器的第一个元素就是最近最少使用的条目
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 返回当前时间桶内key对应的结果，没有可用结果时调用loader加载。用于“最近N分钟”这类随时间滑动的查询，
+     * 结果最多比当前时间落后一个桶。loader抛出的异常原样传给调用方，结果不缓存。
+     */
+    public <T> T get(CacheRegion region, String key, Supplier<T> loader) {
+        return load(region, key, Math.floorDiv(EpochTime.nowMillis(), bucketMillis), loader);
+    }
+
+    /**
+     * 与时间无关的查询，结果一直有效，直到区域内发生写入。
+     */
+    public <T> T getUntilInvalidated(CacheRegion region, String key, Supplier<T> loader) {
+        return load(region, key, UNBUCKETED, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(CacheRegion region, String key, long bucket, Supplier<T> loader) {
+        long generation = generations.get(region.ordinal());
+        String cacheKey = region.name() + ':' + key;
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(cacheKey);
+            if (entry != null && entry.bucket == bucket && entry.generation == generation) {
+                hits++;
+            } else {
+                misses++;
+                entry = new Entry(bucket, generation);
+                entries.put(cacheKey, entry);
+                owner = true;
+                if (entries.size() > maxEntries) {
+                    Iterator<String> eldest = entries.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions++;
+                }
+            }
+        }
+
+        if (owner) {
+            try {
+                T value = loader.get();
+                entry.result.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                entry.result.completeExceptionally(e);
+                synchronized (entries) {
+                    entries.remove(cacheKey, entry);
+                }
+                throw e;
+            }
+        }
+        try {
+            return (T) entry.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 使区域内的全部结果失效。在事务中调用时，提交后会再失效一次，避免提交前读到旧数据的查询把结果留在缓存里。
+     */
+    public void invalidate(CacheRegion region) {
+        invalidateNow(region);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(region);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        for (CacheRegion region : CacheRegion.values()) {
+            invalidate(region);
+        }
+    }
+
+    private void invalidateNow(CacheRegion region) {
+        generations.incrementAndGet(region.ordinal());
+        invalidations.increment();
+    }
+
+    public QueryCacheStats getStats() {
+        synchronized (entries) {
+            long total = hits + misses;
+            return new QueryCacheStats(hits, misses, total == 0 ? 0.0 : (double) hits / total,
+                    evictions, invalidations.sum(), entries.size(), maxEntries);
+        }
+    }
+
+    private static final class Entry {
+        private final long bucket;
+        private final long generation;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(long bucket, long generation) {
+            this.bucket = bucket;
+            this.generation = generation;
+        }
+    }
+}
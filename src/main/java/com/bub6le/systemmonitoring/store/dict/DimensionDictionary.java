@@ -0,0 +1,128 @@
+package com.bub6le.systemmonitoring.store.dict;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 维度字典：把服务器名、地区、服务类型、告警来源等重复出现的字符串映射为紧凑的int id。
+ *
+ * 数据库中只存id，内存中按id保存一份字符串；id只增不复用，新值在独立事务中写入
+ * dimension_dictionary表，外层写入回滚也不会留下没有字典项的id。
+ * 没有JdbcTemplate时（单元测试）只在内存中工作。
+ */
+@Component
+public class DimensionDictionary {
+
+    public static final int NULL_ID = -1;
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired(required = false)
+    private PlatformTransactionManager transactionManager;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private int size;
+
+    @PostConstruct
+    public void load() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS dimension_dictionary "
+                + "(id INT PRIMARY KEY, dimension_value VARCHAR(255) NOT NULL UNIQUE)");
+        reload();
+    }
+
+    /**
+     * 从表中重新加载字典，数据库被整体替换（如WAL快照恢复）后调用。
+     */
+    public synchronized void reload() {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        ids.clear();
+        values = new String[64];
+        size = 0;
+        RowCallbackHandler handler = rs -> register(rs.getInt("id"), rs.getString("dimension_value"));
+        jdbcTemplate.query("SELECT id, dimension_value FROM dimension_dictionary ORDER BY id", handler);
+    }
+
+    /**
+     * 返回字符串对应的id，不存在时分配新id。null对应 {@link #NULL_ID}。
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        return id != null ? id : internSlow(value);
+    }
+
+    /**
+     * 只查找不分配，不存在时返回 {@link #NULL_ID}。
+     */
+    public int find(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        Integer id = ids.get(value);
+        return id != null ? id : NULL_ID;
+    }
+
+    public String lookup(int id) {
+        String[] current = values;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int internSlow(String value) {
+        Integer existing = ids.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int id = size;
+        persist(id, value);
+        register(id, value);
+        return id;
+    }
+
+    private void persist(int id, String value) {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        if (transactionManager == null) {
+            jdbcTemplate.update("INSERT INTO dimension_dictionary (id, dimension_value) VALUES (?, ?)", id, value);
+            return;
+        }
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.executeWithoutResult(status ->
+                jdbcTemplate.update("INSERT INTO dimension_dictionary (id, dimension_value) VALUES (?, ?)", id, value));
+    }
+
+    // 调用方持有this锁；先发布字符串再发布id，lookup总能看到已分配的id
+    private void register(int id, String value) {
+        String[] current = values;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(current.length * 2, id + 1));
+        }
+        current[id] = value;
+        values = current;
+        ids.put(value, id);
+        size = Math.max(size, id + 1);
+    }
+}
@@ -0,0 +1,14 @@
+package com.bub6le.systemmonitoring.store.downsample;
+
+import java.util.List;
+
+/**
+ * 降采样后的时序图表数据。source为raw表示来自原始样本，否则为所用预聚合的粒度；
+ * rawPoints为降采样前的点数。每个序列单独降采样，各序列的时间点不一定相同。
+ */
+public record DownsampledChart(String source,
+                               int rawPoints,
+                               int targetPoints,
+                               List<SeriesPoint> cpuUsage,
+                               List<SeriesPoint> memoryUsage) {
+}
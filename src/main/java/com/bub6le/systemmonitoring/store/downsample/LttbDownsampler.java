@@ -0,0 +1,165 @@
+package com.bub6le.systemmonitoring.store.downsample;
+
+import com.bub6le.systemmonitoring.util.EpochTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 按Largest-Triangle-Three-Buckets把一个序列降到最多threshold个点，输入按时间升序逐点送入。
+ *
+ * 首尾两点总是保留，[from, to)按时间等分成threshold-2个桶，每个非空桶保留一个点：
+ * 与上一个保留点、下一个桶的平均点构成的三角形面积最大的那个。选点只依赖下一个桶，
+ * 所以只缓存当前桶和下一个桶，不需要先把整个序列读入内存，也不需要预先知道点数。
+ * 空桶不输出点，数据稀疏时输出点数少于threshold。非线程安全。
+ */
+public final class LttbDownsampler {
+
+    private static final int MIN_THRESHOLD = 3;
+
+    private final long fromMillis;
+    private final long spanMillis;
+    private final int bucketCount;
+    private final List<SeriesPoint> selected = new ArrayList<>();
+
+    // 时间以相对from的毫秒数参与计算，避免大数相乘损失精度
+    private Bucket current;
+    private Bucket next;
+    private double anchorX;
+    private double anchorY;
+    private long lastMillis;
+    private SeriesPoint last;
+    private int count;
+
+    public LttbDownsampler(long fromMillis, long toMillis, int threshold) {
+        this.fromMillis = fromMillis;
+        this.spanMillis = Math.max(toMillis - fromMillis, 1);
+        this.bucketCount = Math.max(threshold, MIN_THRESHOLD) - 2;
+    }
+
+    /**
+     * 送入一个点，时间不能早于上一个点。NaN忽略。
+     */
+    public void add(long timestampMillis, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        SeriesPoint point = new SeriesPoint(EpochTime.fromMillis(timestampMillis), value);
+        count++;
+        lastMillis = timestampMillis;
+        last = point;
+        if (count == 1) {
+            selected.add(point);
+            anchorX = timestampMillis - fromMillis;
+            anchorY = value;
+            return;
+        }
+
+        int index = bucketIndex(timestampMillis);
+        if (current == null) {
+            current = new Bucket(index);
+        } else if (index != current.index && (next == null || index != next.index)) {
+            if (next != null) {
+                // 下一个桶已完整，当前桶可以选点
+                select(current, next.avgX(), next.avgY());
+                current = next;
+            }
+            next = new Bucket(index);
+        }
+        (next != null ? next : current).add(timestampMillis - fromMillis, point);
+    }
+
+    /**
+     * 结束输入，返回保留的点。
+     */
+    public List<SeriesPoint> finish() {
+        if (count > 1) {
+            // 最后一个点单独保留，不参与桶内选点
+            Bucket tail = next != null ? next : current;
+            tail.removeLast(lastMillis - fromMillis);
+            double lastX = lastMillis - fromMillis;
+            if (!current.isEmpty()) {
+                if (next != null && !next.isEmpty()) {
+                    select(current, next.avgX(), next.avgY());
+                } else {
+                    select(current, lastX, last.value());
+                }
+            }
+            if (next != null && !next.isEmpty()) {
+                select(next, lastX, last.value());
+            }
+            selected.add(last);
+        }
+        current = null;
+        next = null;
+        return selected;
+    }
+
+    public int getInputCount() {
+        return count;
+    }
+
+    private int bucketIndex(long timestampMillis) {
+        long offset = Math.min(Math.max(timestampMillis - fromMillis, 0), spanMillis - 1);
+        return (int) (offset * bucketCount / spanMillis);
+    }
+
+    private void select(Bucket bucket, double nextX, double nextY) {
+        int best = 0;
+        double bestArea = -1;
+        for (int i = 0; i < bucket.points.size(); i++) {
+            double x = bucket.xs[i];
+            double y = bucket.points.get(i).value();
+            double area = Math.abs((anchorX - nextX) * (y - anchorY) - (anchorX - x) * (nextY - anchorY));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        SeriesPoint point = bucket.points.get(best);
+        selected.add(point);
+        anchorX = bucket.xs[best];
+        anchorY = point.value();
+    }
+
+    private static final class Bucket {
+        private final int index;
+        private final List<SeriesPoint> points = new ArrayList<>();
+        private double[] xs = new double[8];
+        private double sumX;
+        private double sumY;
+
+        private Bucket(int index) {
+            this.index = index;
+        }
+
+        private void add(double x, SeriesPoint point) {
+            if (points.size() == xs.length) {
+                xs = Arrays.copyOf(xs, xs.length * 2);
+            }
+            xs[points.size()] = x;
+            points.add(point);
+            sumX += x;
+            sumY += point.value();
+        }
+
+        private void removeLast(double x) {
+            SeriesPoint point = points.remove(points.size() - 1);
+            sumX -= x;
+            sumY -= point.value();
+        }
+
+        private boolean isEmpty() {
+            return points.isEmpty();
+        }
+
+        private double avgX() {
+            return sumX / points.size();
+        }
+
+        private double avgY() {
+            return sumY / points.size();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.bub6le.systemmonitoring.store.downsample;
+
+import java.time.LocalDateTime;
+
+/**
+ * 单个序列中的一个点。
+ */
+public record SeriesPoint(LocalDateTime timestamp, double value) {
+}
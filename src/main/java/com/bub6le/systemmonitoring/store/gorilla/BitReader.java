@@ -0,0 +1,33 @@
+package com.bub6le.systemmonitoring.store.gorilla;
+
+/**
+ * {@link BitWriter} 的对应读取器。
+ */
+final class BitReader {
+
+    private final long[] words;
+    private int bitPosition;
+
+    BitReader(long[] words) {
+        this.words = words;
+    }
+
+    boolean readBit() {
+        return readBits(1) == 1L;
+    }
+
+    long readBits(int bitCount) {
+        long result = 0;
+        int remaining = bitCount;
+        while (remaining > 0) {
+            int wordIndex = bitPosition >>> 6;
+            int available = 64 - (bitPosition & 63);
+            int take = Math.min(remaining, available);
+            long chunk = (words[wordIndex] >>> (available - take)) & BitWriter.mask(take);
+            result = take == 64 ? chunk : (result << take) | chunk;
+            bitPosition += take;
+            remaining -= take;
+        }
+        return result;
+    }
+}
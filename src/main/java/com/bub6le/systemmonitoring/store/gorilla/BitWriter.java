@@ -0,0 +1,51 @@
+package com.bub6le.systemmonitoring.store.gorilla;
+
+import java.util.Arrays;
+
+/**
+ * 按位追加写入，高位在前。
+ */
+final class BitWriter {
+
+    private long[] words;
+    private int bitPosition;
+
+    BitWriter(int initialWords) {
+        this.words = new long[Math.max(1, initialWords)];
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1L : 0L, 1);
+    }
+
+    /**
+     * 写入value的低bitCount位，bitCount取值1~64。
+     */
+    void writeBits(long value, int bitCount) {
+        int remaining = bitCount;
+        while (remaining > 0) {
+            int wordIndex = bitPosition >>> 6;
+            if (wordIndex >= words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            int free = 64 - (bitPosition & 63);
+            int take = Math.min(remaining, free);
+            long chunk = (value >>> (remaining - take)) & mask(take);
+            words[wordIndex] |= chunk << (free - take);
+            bitPosition += take;
+            remaining -= take;
+        }
+    }
+
+    int bitLength() {
+        return bitPosition;
+    }
+
+    long[] toWords() {
+        return Arrays.copyOf(words, (bitPosition + 63) >>> 6);
+    }
+
+    static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+}
@@ -0,0 +1,156 @@
+package com.bub6le.systemmonitoring.store.gorilla;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 已封存的不可变压缩块。通过 {@link #cursor()} 顺序解码，不会一次性展开整个块。
+ */
+public final class CompressedMetricsBlock {
+
+    public static final int COLUMN_COUNT = 6;
+
+    private final long[] data;
+    private final int count;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+
+    CompressedMetricsBlock(long[] data, int count, long minTimestamp, long maxTimestamp) {
+        this.data = data;
+        this.count = count;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public int getSizeInBytes() {
+        return data.length * Long.BYTES;
+    }
+
+    public boolean overlaps(long fromMillis, long toMillis) {
+        return count > 0 && maxTimestamp >= fromMillis && minTimestamp < toMillis;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * 压缩数据的字节形式，用于持久化。样本数和时间范围需要另外保存，由 {@link #fromBytes} 还原。
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(data.length * Long.BYTES);
+        buffer.asLongBuffer().put(data);
+        return buffer.array();
+    }
+
+    public static CompressedMetricsBlock fromBytes(byte[] bytes, int count, long minTimestamp, long maxTimestamp) {
+        long[] data = new long[bytes.length / Long.BYTES];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(data);
+        return new CompressedMetricsBlock(data, count, minTimestamp, maxTimestamp);
+    }
+
+    /**
+     * 解码游标。每次 {@link #next()} 之后通过 {@link #timestamp()} 和 {@link #value(int)} 读取当前样本，
+     * 值数组被复用，调用方不应持有引用。
+     */
+    public final class Cursor implements Iterator<Cursor> {
+        private final BitReader reader = new BitReader(data);
+        private final long[] previousValues = new long[COLUMN_COUNT];
+        private final int[] previousLeading = new int[COLUMN_COUNT];
+        private final int[] previousTrailing = new int[COLUMN_COUNT];
+        private final double[] values = new double[COLUMN_COUNT];
+
+        private int position;
+        private long timestamp;
+        private long previousDelta;
+
+        @Override
+        public boolean hasNext() {
+            return position < count;
+        }
+
+        @Override
+        public Cursor next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            readTimestamp();
+            for (int column = 0; column < COLUMN_COUNT; column++) {
+                values[column] = Double.longBitsToDouble(readValue(column));
+            }
+            position++;
+            return this;
+        }
+
+        public long timestamp() {
+            return timestamp;
+        }
+
+        public double value(int column) {
+            return values[column];
+        }
+
+        private void readTimestamp() {
+            if (position == 0) {
+                timestamp = reader.readBits(64);
+                previousDelta = 0;
+                return;
+            }
+            long zigzag;
+            if (!reader.readBit()) {
+                zigzag = 0;
+            } else if (!reader.readBit()) {
+                zigzag = reader.readBits(7);
+            } else if (!reader.readBit()) {
+                zigzag = reader.readBits(9);
+            } else if (!reader.readBit()) {
+                zigzag = reader.readBits(12);
+            } else {
+                zigzag = reader.readBits(64);
+            }
+            long deltaOfDelta = (zigzag >>> 1) ^ -(zigzag & 1);
+            long delta = previousDelta + deltaOfDelta;
+            timestamp += delta;
+            previousDelta = delta;
+        }
+
+        private long readValue(int column) {
+            if (position == 0) {
+                previousValues[column] = reader.readBits(64);
+                previousLeading[column] = -1;
+                return previousValues[column];
+            }
+            if (!reader.readBit()) {
+                return previousValues[column];
+            }
+            long xor;
+            if (!reader.readBit()) {
+                int leading = previousLeading[column];
+                int trailing = previousTrailing[column];
+                xor = reader.readBits(64 - leading - trailing) << trailing;
+            } else {
+                int leading = (int) reader.readBits(5);
+                int significant = (int) reader.readBits(6) + 1;
+                int trailing = 64 - leading - significant;
+                xor = reader.readBits(significant) << trailing;
+                previousLeading[column] = leading;
+                previousTrailing[column] = trailing;
+            }
+            previousValues[column] ^= xor;
+            return previousValues[column];
+        }
+    }
+}
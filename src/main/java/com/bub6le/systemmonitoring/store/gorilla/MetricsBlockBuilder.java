@@ -0,0 +1,116 @@
+package com.bub6le.systemmonitoring.store.gorilla;
+
+/**
+ * Gorilla风格的块编码器：时间戳使用delta-of-delta，数值列使用XOR编码。
+ * 每个样本依次写入时间戳和 {@link CompressedMetricsBlock#COLUMN_COUNT} 个数值列。
+ * 非线程安全，由调用方加锁。
+ */
+public final class MetricsBlockBuilder {
+
+    private final BitWriter writer;
+    private final long[] previousValues = new long[CompressedMetricsBlock.COLUMN_COUNT];
+    private final int[] previousLeading = new int[CompressedMetricsBlock.COLUMN_COUNT];
+    private final int[] previousTrailing = new int[CompressedMetricsBlock.COLUMN_COUNT];
+
+    private int count;
+    private long previousTimestamp;
+    private long previousDelta;
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+
+    public MetricsBlockBuilder(int expectedSamples) {
+        // 经验值：每个样本压缩后约二三十字节
+        this.writer = new BitWriter(Math.max(4, expectedSamples * 3));
+    }
+
+    public void append(long timestamp, double[] values) {
+        writeTimestamp(timestamp);
+        for (int column = 0; column < CompressedMetricsBlock.COLUMN_COUNT; column++) {
+            writeValue(column, Double.doubleToLongBits(values[column]));
+        }
+        count++;
+        minTimestamp = Math.min(minTimestamp, timestamp);
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+    }
+
+    private void writeTimestamp(long timestamp) {
+        if (count == 0) {
+            writer.writeBits(timestamp, 64);
+            previousTimestamp = timestamp;
+            previousDelta = 0;
+            return;
+        }
+        long delta = timestamp - previousTimestamp;
+        long deltaOfDelta = delta - previousDelta;
+        long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+        if (zigzag == 0) {
+            writer.writeBit(false);
+        } else if (zigzag < (1L << 7)) {
+            writer.writeBits(0b10, 2);
+            writer.writeBits(zigzag, 7);
+        } else if (zigzag < (1L << 9)) {
+            writer.writeBits(0b110, 3);
+            writer.writeBits(zigzag, 9);
+        } else if (zigzag < (1L << 12)) {
+            writer.writeBits(0b1110, 4);
+            writer.writeBits(zigzag, 12);
+        } else {
+            writer.writeBits(0b1111, 4);
+            writer.writeBits(zigzag, 64);
+        }
+        previousTimestamp = timestamp;
+        previousDelta = delta;
+    }
+
+    private void writeValue(int column, long bits) {
+        if (count == 0) {
+            writer.writeBits(bits, 64);
+            previousValues[column] = bits;
+            previousLeading[column] = -1;
+            return;
+        }
+        long xor = bits ^ previousValues[column];
+        previousValues[column] = bits;
+        if (xor == 0) {
+            writer.writeBit(false);
+            return;
+        }
+        writer.writeBit(true);
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        int prevLeading = previousLeading[column];
+        int prevTrailing = previousTrailing[column];
+        if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+            // 有效位落在上一个窗口内，复用窗口
+            writer.writeBit(false);
+            writer.writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+        } else {
+            int significant = 64 - leading - trailing;
+            writer.writeBit(true);
+            writer.writeBits(leading, 5);
+            writer.writeBits(significant - 1, 6);
+            writer.writeBits(xor >>> trailing, significant);
+            previousLeading[column] = leading;
+            previousTrailing[column] = trailing;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * 生成当前内容的不可变快照，构建器可以继续追加。
+     */
+    public CompressedMetricsBlock snapshot() {
+        return new CompressedMetricsBlock(writer.toWords(), count, minTimestamp, maxTimestamp);
+    }
+}
@@ -0,0 +1,92 @@
+package com.bub6le.systemmonitoring.store.ratelimit;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 新建告警的准入控制，每个(来源, 严重级别)一个令牌桶：允许burst条突发，之后每分钟最多perMinute条。
+ *
+ * 超出速率的告警直接丢弃，只累加计数，由调用方定期取出汇总，单个来源的告警风暴不会压垮数据库和页面。
+ * 令牌桶数量有上限，超过maxBuckets后新出现的来源按严重级别共用溢出桶，来源再多内存也是有界的。
+ */
+@Component
+public class AlertRateLimiter {
+
+    // 溢出桶的来源名
+    public static final String OVERFLOW_SOURCE = "其他来源";
+
+    private final int burst;
+    private final double perMinute;
+    private final int maxBuckets;
+    private final double refillPerMillis;
+    private final ConcurrentHashMap<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public AlertRateLimiter(@Value("${monitoring.alerts.rate-limit.burst:20}") int burst,
+                            @Value("${monitoring.alerts.rate-limit.per-minute:30}") double perMinute,
+                            @Value("${monitoring.alerts.rate-limit.max-buckets:10000}") int maxBuckets) {
+        this.burst = Math.max(burst, 1);
+        this.perMinute = Math.max(perMinute, 0.0);
+        this.maxBuckets = Math.max(maxBuckets, 1);
+        this.refillPerMillis = this.perMinute / 60_000.0;
+    }
+
+    /**
+     * 为一条新告警取令牌，返回false表示这条告警应被丢弃。
+     */
+    public boolean tryAcquire(String source, Alert.AlertSeverity severity) {
+        return tryAcquire(source, severity, EpochTime.nowMillis());
+    }
+
+    boolean tryAcquire(String source, Alert.AlertSeverity severity, long nowMillis) {
+        BucketKey key = new BucketKey(source, severity);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                key = new BucketKey(OVERFLOW_SOURCE, severity);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(burst, refillPerMillis, nowMillis));
+        }
+        if (bucket.tryAcquire(nowMillis)) {
+            admitted.increment();
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * 取出上次调用以来被丢弃的告警数并清零，同时移除已经补满且没有丢弃记录的令牌桶。
+     */
+    public List<SuppressedAlerts> drainSuppressed() {
+        return drainSuppressed(EpochTime.nowMillis());
+    }
+
+    List<SuppressedAlerts> drainSuppressed(long nowMillis) {
+        List<SuppressedAlerts> result = new ArrayList<>();
+        for (Map.Entry<BucketKey, TokenBucket> entry : buckets.entrySet()) {
+            long count = entry.getValue().drainSuppressed();
+            if (count > 0) {
+                result.add(new SuppressedAlerts(entry.getKey().source(), entry.getKey().severity(), count));
+            }
+            buckets.computeIfPresent(entry.getKey(), (key, bucket) -> bucket.isIdle(nowMillis) ? null : bucket);
+        }
+        return result;
+    }
+
+    public RateLimitStats getStats() {
+        return new RateLimitStats(admitted.sum(), suppressed.sum(), buckets.size(), maxBuckets, burst, perMinute);
+    }
+
+    private record BucketKey(String source, Alert.AlertSeverity severity) {
+    }
+}
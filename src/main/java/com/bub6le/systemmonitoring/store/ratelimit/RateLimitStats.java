@@ -0,0 +1,13 @@
+package com.bub6le.systemmonitoring.store.ratelimit;
+
+/**
+ * 告警限流的累计统计。trackedBuckets为当前维护的(来源, 严重级别)令牌桶数，
+ * 超过maxBuckets后新的来源共用溢出桶。
+ */
+public record RateLimitStats(long admitted,
+                             long suppressed,
+                             int trackedBuckets,
+                             int maxBuckets,
+                             int burst,
+                             double perMinute) {
+}
@@ -0,0 +1,11 @@
+package com.bub6le.systemmonitoring.store.ratelimit;
+
+import com.bub6le.systemmonitoring.model.Alert;
+
+/**
+ * 上次汇总以来某个来源、某个严重级别被限流丢弃的告警数。
+ */
+public record SuppressedAlerts(String source,
+                               Alert.AlertSeverity severity,
+                               long count) {
+}
@@ -0,0 +1,53 @@
+package com.bub6le.systemmonitoring.store.ratelimit;
+
+/**
+ * 令牌桶：容量为capacity，按refillPerMillis的速率补充。令牌在取用时按流逝的时间补足，不需要定时任务。
+ * 同时记录被拒绝、尚未汇总的次数。
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerMillis;
+    private double tokens;
+    private long lastRefill;
+    private long suppressed;
+
+    TokenBucket(double capacity, double refillPerMillis, long nowMillis) {
+        this.capacity = capacity;
+        this.refillPerMillis = refillPerMillis;
+        this.tokens = capacity;
+        this.lastRefill = nowMillis;
+    }
+
+    /**
+     * 取一个令牌，没有令牌时记一次拒绝并返回false。
+     */
+    synchronized boolean tryAcquire(long nowMillis) {
+        refill(nowMillis);
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return true;
+        }
+        suppressed++;
+        return false;
+    }
+
+    synchronized long drainSuppressed() {
+        long count = suppressed;
+        suppressed = 0;
+        return count;
+    }
+
+    // 令牌已补满且没有待汇总的拒绝，移除后重新创建的桶状态相同
+    synchronized boolean isIdle(long nowMillis) {
+        refill(nowMillis);
+        return tokens >= capacity && suppressed == 0;
+    }
+
+    private void refill(long nowMillis) {
+        if (nowMillis > lastRefill) {
+            tokens = Math.min(capacity, tokens + (nowMillis - lastRefill) * refillPerMillis);
+            lastRefill = nowMillis;
+        }
+    }
+}
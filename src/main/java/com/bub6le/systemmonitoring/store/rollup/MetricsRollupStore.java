@@ -0,0 +1,175 @@
+package com.bub6le.systemmonitoring.store.rollup;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.store.MetricsHistoryStore;
+import com.bub6le.systemmonitoring.store.MetricsPoint;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 写入时持续维护的1分钟/5分钟/1小时预聚合，按服务器分别保存。
+ *
+ * 预聚合只在内存中，启动和快照恢复后从已持久化的压缩历史重建（覆盖范围受历史保留期限制）。
+ * 超过idle-server-hours没有新样本的服务器整体移除。
+ */
+@Component
+public class MetricsRollupStore implements MetricsIngestListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsRollupStore.class);
+
+    private final ConcurrentHashMap<String, ServerRollups> servers = new ConcurrentHashMap<>();
+
+    @Autowired(required = false)
+    private MetricsHistoryStore metricsHistoryStore;
+
+    @Value("${monitoring.rollup.idle-server-hours:24}")
+    private int idleServerHours = 24;
+
+    @PostConstruct
+    public void init() {
+        rebuildFromHistory();
+    }
+
+    /**
+     * 丢弃内存中的预聚合，按已加载的压缩历史重建。历史存储重新加载后、WAL回放前调用，调用期间不应有写入。
+     */
+    public void rebuildFromHistory() {
+        if (metricsHistoryStore == null) {
+            return;
+        }
+        servers.clear();
+        long now = EpochTime.nowMillis();
+        long from = now - RollupResolution.ONE_HOUR.getRetentionMillis();
+        int[] rebuilt = new int[1];
+        metricsHistoryStore.forEachPoint(EpochTime.fromMillis(from), EpochTime.fromMillis(now + 24 * 3600_000L),
+                (serverName, point) -> {
+                    add(serverName, EpochTime.toMillis(point.timestamp()), valuesOf(point));
+                    rebuilt[0]++;
+                });
+        if (rebuilt[0] > 0) {
+            log.info("Rebuilt rollups for {} servers from {} history points", servers.size(), rebuilt[0]);
+        }
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        if (metrics.getServerName() == null || metrics.getTimestamp() == null) {
+            return;
+        }
+        double[] values = {
+            toPrimitive(metrics.getCpuUsage()),
+            toPrimitive(metrics.getMemoryUsage()),
+            toPrimitive(metrics.getDiskUsage()),
+            toPrimitive(metrics.getNetworkIn()),
+            toPrimitive(metrics.getNetworkOut()),
+            toPrimitive(metrics.getLoadAverage())
+        };
+        add(metrics.getServerName(), EpochTime.toMillis(metrics.getTimestamp()), values);
+    }
+
+    private void add(String serverName, long timestamp, double[] values) {
+        ServerRollups rollups = servers.computeIfAbsent(serverName, name -> new ServerRollups());
+        for (RollupResolution resolution : RollupResolution.values()) {
+            rollups.buckets(resolution)
+                   .computeIfAbsent(resolution.bucketStart(timestamp), RollupBucket::new)
+                   .add(timestamp, values);
+        }
+        rollups.lastSampleMillis.accumulateAndGet(timestamp, Math::max);
+    }
+
+    /**
+     * 查询[from, to)范围内的聚合点。serverName为空时合并所有服务器。
+     */
+    public List<RollupPoint> query(String serverName, RollupResolution resolution,
+                                   LocalDateTime from, LocalDateTime to) {
+        long fromBucket = resolution.bucketStart(EpochTime.toMillis(from));
+        long toMillis = EpochTime.toMillis(to);
+
+        if (serverName != null) {
+            ServerRollups rollups = servers.get(serverName);
+            if (rollups == null) {
+                return new ArrayList<>();
+            }
+            List<RollupPoint> points = new ArrayList<>();
+            for (RollupBucket bucket : rollups.buckets(resolution).subMap(fromBucket, true, toMillis, false).values()) {
+                points.add(bucket.toPoint());
+            }
+            return points;
+        }
+
+        TreeMap<Long, RollupBucket> merged = new TreeMap<>();
+        for (ServerRollups rollups : servers.values()) {
+            NavigableMap<Long, RollupBucket> range = rollups.buckets(resolution).subMap(fromBucket, true, toMillis, false);
+            for (Map.Entry<Long, RollupBucket> entry : range.entrySet()) {
+                entry.getValue().mergeInto(merged.computeIfAbsent(entry.getKey(), RollupBucket::new));
+            }
+        }
+        List<RollupPoint> points = new ArrayList<>(merged.size());
+        for (RollupBucket bucket : merged.values()) {
+            points.add(bucket.toPoint());
+        }
+        return points;
+    }
+
+    // 每5分钟按各粒度的保留时长清理过期桶，并移除长时间没有样本的服务器
+    @Scheduled(fixedRate = 300_000L)
+    public void evictExpiredBuckets() {
+        long now = EpochTime.nowMillis();
+        long idleBefore = now - idleServerHours * 3600_000L;
+        servers.entrySet().removeIf(entry -> entry.getValue().lastSampleMillis.get() < idleBefore);
+        for (ServerRollups rollups : servers.values()) {
+            for (RollupResolution resolution : RollupResolution.values()) {
+                rollups.buckets(resolution).headMap(now - resolution.getRetentionMillis()).clear();
+            }
+        }
+    }
+
+    public int getServerCount() {
+        return servers.size();
+    }
+
+    private static double[] valuesOf(MetricsPoint point) {
+        return new double[] {
+            point.cpuUsage(), point.memoryUsage(), point.diskUsage(),
+            point.networkIn(), point.networkOut(), point.loadAverage()
+        };
+    }
+
+    private static double toPrimitive(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static final class ServerRollups {
+        private final AtomicLong lastSampleMillis = new AtomicLong(Long.MIN_VALUE);
+        private final EnumMap<RollupResolution, ConcurrentSkipListMap<Long, RollupBucket>> byResolution =
+                new EnumMap<>(RollupResolution.class);
+
+        ServerRollups() {
+            for (RollupResolution resolution : RollupResolution.values()) {
+                byResolution.put(resolution, new ConcurrentSkipListMap<>());
+            }
+        }
+
+        ConcurrentSkipListMap<Long, RollupBucket> buckets(RollupResolution resolution) {
+            return byResolution.get(resolution);
+        }
+    }
+}
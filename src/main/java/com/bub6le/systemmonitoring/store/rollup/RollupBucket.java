@@ -0,0 +1,82 @@
+package com.bub6le.systemmonitoring.store.rollup;
+
+import com.bub6le.systemmonitoring.util.EpochTime;
+
+import java.util.Arrays;
+
+/**
+ * 单个时间桶内每列的min/max/sum/count/last。NaN表示缺失值，不参与统计。
+ */
+final class RollupBucket {
+
+    static final int COLUMN_COUNT = 6;
+
+    private final long bucketStart;
+    private final double[] min = new double[COLUMN_COUNT];
+    private final double[] max = new double[COLUMN_COUNT];
+    private final double[] sum = new double[COLUMN_COUNT];
+    private final long[] counts = new long[COLUMN_COUNT];
+    private final double[] last = new double[COLUMN_COUNT];
+    private final long[] lastTimestamp = new long[COLUMN_COUNT];
+    private long count;
+
+    RollupBucket(long bucketStart) {
+        this.bucketStart = bucketStart;
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        Arrays.fill(last, Double.NaN);
+        Arrays.fill(lastTimestamp, Long.MIN_VALUE);
+    }
+
+    long getBucketStart() {
+        return bucketStart;
+    }
+
+    synchronized void add(long timestamp, double[] values) {
+        count++;
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            double value = values[column];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            min[column] = Math.min(min[column], value);
+            max[column] = Math.max(max[column], value);
+            sum[column] += value;
+            counts[column]++;
+            if (timestamp >= lastTimestamp[column]) {
+                last[column] = value;
+                lastTimestamp[column] = timestamp;
+            }
+        }
+    }
+
+    synchronized void mergeInto(RollupBucket target) {
+        target.count += count;
+        for (int column = 0; column < COLUMN_COUNT; column++) {
+            if (counts[column] == 0) {
+                continue;
+            }
+            target.min[column] = Math.min(target.min[column], min[column]);
+            target.max[column] = Math.max(target.max[column], max[column]);
+            target.sum[column] += sum[column];
+            target.counts[column] += counts[column];
+            if (lastTimestamp[column] >= target.lastTimestamp[column]) {
+                target.last[column] = last[column];
+                target.lastTimestamp[column] = lastTimestamp[column];
+            }
+        }
+    }
+
+    synchronized RollupPoint toPoint() {
+        return new RollupPoint(EpochTime.fromMillis(bucketStart), count,
+                stats(0), stats(1), stats(2), stats(3), stats(4), stats(5));
+    }
+
+    private RollupPoint.ColumnStats stats(int column) {
+        if (counts[column] == 0) {
+            return new RollupPoint.ColumnStats(Double.NaN, Double.NaN, Double.NaN, 0, Double.NaN);
+        }
+        return new RollupPoint.ColumnStats(min[column], max[column], sum[column] / counts[column],
+                counts[column], last[column]);
+    }
+}
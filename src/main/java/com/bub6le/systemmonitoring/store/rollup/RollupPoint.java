@@ -0,0 +1,19 @@
+package com.bub6le.systemmonitoring.store.rollup;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一个时间桶的聚合结果。
+ */
+public record RollupPoint(LocalDateTime timestamp,
+                          long count,
+                          ColumnStats cpuUsage,
+                          ColumnStats memoryUsage,
+                          ColumnStats diskUsage,
+                          ColumnStats networkIn,
+                          ColumnStats networkOut,
+                          ColumnStats loadAverage) {
+
+    public record ColumnStats(double min, double max, double avg, long count, double last) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.bub6le.systemmonitoring.store.rollup;
+
+/**
+ * 预聚合的时间粒度及各自的保留时长。
+ */
+public enum RollupResolution {
+    ONE_MINUTE("1m", 60_000L, 24 * 3600_000L),
+    FIVE_MINUTES("5m", 5 * 60_000L, 7 * 24 * 3600_000L),
+    ONE_HOUR("1h", 3600_000L, 90 * 24 * 3600_000L);
+
+    private final String label;
+    private final long stepMillis;
+    private final long retentionMillis;
+
+    RollupResolution(String label, long stepMillis, long retentionMillis) {
+        this.label = label;
+        this.stepMillis = stepMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getStepMillis() {
+        return stepMillis;
+    }
+
+    public long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    public long bucketStart(long timestampMillis) {
+        return timestampMillis - Math.floorMod(timestampMillis, stepMillis);
+    }
+
+    /**
+     * 选择在给定范围内仍能产生至少minPoints个点的最粗粒度；都不满足时返回最细粒度。
+     */
+    public static RollupResolution choose(long rangeMillis, int minPoints) {
+        RollupResolution[] resolutions = values();
+        for (int i = resolutions.length - 1; i >= 0; i--) {
+            if (rangeMillis / resolutions[i].stepMillis >= minPoints) {
+                return resolutions[i];
+            }
+        }
+        return resolutions[0];
+    }
+}
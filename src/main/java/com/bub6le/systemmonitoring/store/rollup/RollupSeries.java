@@ -0,0 +1,6 @@
+package com.bub6le.systemmonitoring.store.rollup;
+
+import java.util.List;
+
+public record RollupSeries(String resolution, long stepSeconds, List<RollupPoint> points) {
+}
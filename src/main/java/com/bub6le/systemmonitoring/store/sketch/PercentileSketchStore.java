@@ -0,0 +1,190 @@
+package com.bub6le.systemmonitoring.store.sketch;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 按时间桶维护的分位数草图。每个样本同时计入全局、所属服务器、区域和服务类型四份草图，
+ * 维度值以字典id为键。查询时把所需时间范围内的桶合并，不保存也不扫描原始样本。
+ */
+@Component
+public class PercentileSketchStore implements MetricsIngestListener {
+
+    // 不分组时使用的键
+    private static final int ALL = Integer.MIN_VALUE;
+    private static final int COLUMN_COUNT = 5;
+
+    private final long bucketMillis;
+    private final long retentionMillis;
+    private final double relativeAccuracy;
+    private final DimensionDictionary dimensionDictionary;
+    private final EnumMap<MetricsGroupBy, ConcurrentHashMap<Integer, ConcurrentSkipListMap<Long, SketchBucket>>> sketches =
+            new EnumMap<>(MetricsGroupBy.class);
+
+    public PercentileSketchStore(@Value("${monitoring.percentile.bucket-seconds:300}") int bucketSeconds,
+                                 @Value("${monitoring.percentile.retention-minutes:360}") int retentionMinutes,
+                                 @Value("${monitoring.percentile.relative-accuracy:0.02}") double relativeAccuracy,
+                                 DimensionDictionary dimensionDictionary) {
+        this.bucketMillis = bucketSeconds * 1000L;
+        this.retentionMillis = retentionMinutes * 60_000L;
+        this.relativeAccuracy = relativeAccuracy;
+        this.dimensionDictionary = dimensionDictionary;
+        for (MetricsGroupBy groupBy : MetricsGroupBy.values()) {
+            sketches.put(groupBy, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        if (metrics.getTimestamp() == null) {
+            return;
+        }
+        long bucketStart = Math.floorDiv(EpochTime.toMillis(metrics.getTimestamp()), bucketMillis) * bucketMillis;
+        double[] values = {
+            toPrimitive(metrics.getCpuUsage()),
+            toPrimitive(metrics.getMemoryUsage()),
+            toPrimitive(metrics.getLoadAverage()),
+            toPrimitive(metrics.getNetworkIn()),
+            toPrimitive(metrics.getNetworkOut())
+        };
+        add(MetricsGroupBy.NONE, ALL, bucketStart, values);
+        add(MetricsGroupBy.SERVER, dimensionDictionary.intern(metrics.getServerName()), bucketStart, values);
+        add(MetricsGroupBy.REGION, dimensionDictionary.intern(metrics.getRegion()), bucketStart, values);
+        add(MetricsGroupBy.SERVICE_TYPE, dimensionDictionary.intern(metrics.getServiceType()), bucketStart, values);
+    }
+
+    private void add(MetricsGroupBy groupBy, int id, long bucketStart, double[] values) {
+        if (id == DimensionDictionary.NULL_ID) {
+            return;
+        }
+        sketches.get(groupBy)
+                .computeIfAbsent(id, key -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(bucketStart, start -> new SketchBucket(relativeAccuracy))
+                .add(values);
+    }
+
+    /**
+     * 合并[from, to)内的桶，每个维度值返回一份分位数，按CPU p95从高到低排序。
+     * key不为空时只返回该维度值；groupBy为NONE时返回全部样本的一份结果。
+     */
+    public List<PercentileSnapshot> summarize(MetricsGroupBy groupBy, String key, LocalDateTime from, LocalDateTime to) {
+        long fromBucket = Math.floorDiv(EpochTime.toMillis(from), bucketMillis) * bucketMillis;
+        long toMillis = EpochTime.toMillis(to);
+        List<PercentileSnapshot> result = new ArrayList<>();
+        for (Map.Entry<Integer, ConcurrentSkipListMap<Long, SketchBucket>> entry : select(groupBy, key).entrySet()) {
+            SketchBucket merged = new SketchBucket(relativeAccuracy);
+            for (SketchBucket bucket : entry.getValue().subMap(fromBucket, true, toMillis, false).values()) {
+                bucket.mergeInto(merged);
+            }
+            if (merged.count() > 0) {
+                result.add(merged.toSnapshot(from, groupKey(entry.getKey())));
+            }
+        }
+        result.sort(Comparator.comparingDouble((PercentileSnapshot snapshot) -> snapshot.cpuUsage().p95()).reversed());
+        return result;
+    }
+
+    /**
+     * 单个维度值（groupBy为NONE时为全部样本）在[from, to)内逐桶的分位数，按时间排序。
+     */
+    public List<PercentileSnapshot> series(MetricsGroupBy groupBy, String key, LocalDateTime from, LocalDateTime to) {
+        long fromBucket = Math.floorDiv(EpochTime.toMillis(from), bucketMillis) * bucketMillis;
+        long toMillis = EpochTime.toMillis(to);
+        MetricsGroupBy effective = key == null ? MetricsGroupBy.NONE : groupBy;
+        Map<Integer, ConcurrentSkipListMap<Long, SketchBucket>> selected = select(effective, key);
+        List<PercentileSnapshot> points = new ArrayList<>();
+        for (Map.Entry<Integer, ConcurrentSkipListMap<Long, SketchBucket>> entry : selected.entrySet()) {
+            NavigableMap<Long, SketchBucket> range = entry.getValue().subMap(fromBucket, true, toMillis, false);
+            for (Map.Entry<Long, SketchBucket> bucket : range.entrySet()) {
+                SketchBucket copy = new SketchBucket(relativeAccuracy);
+                bucket.getValue().mergeInto(copy);
+                points.add(copy.toSnapshot(EpochTime.fromMillis(bucket.getKey()), groupKey(entry.getKey())));
+            }
+        }
+        points.sort(Comparator.comparing(PercentileSnapshot::timestamp));
+        return points;
+    }
+
+    private Map<Integer, ConcurrentSkipListMap<Long, SketchBucket>> select(MetricsGroupBy groupBy, String key) {
+        ConcurrentHashMap<Integer, ConcurrentSkipListMap<Long, SketchBucket>> byKey =
+                sketches.get(groupBy != null ? groupBy : MetricsGroupBy.NONE);
+        if (groupBy == null || groupBy == MetricsGroupBy.NONE || key == null) {
+            return byKey;
+        }
+        int id = dimensionDictionary.find(key);
+        ConcurrentSkipListMap<Long, SketchBucket> buckets = byKey.get(id);
+        return buckets != null ? Map.of(id, buckets) : Map.of();
+    }
+
+    private String groupKey(int id) {
+        return id == ALL ? null : dimensionDictionary.lookup(id);
+    }
+
+    // 每5分钟清理超过保留时长的桶
+    @Scheduled(fixedRate = 300_000L)
+    public void evictExpiredBuckets() {
+        long cutoff = EpochTime.nowMillis() - retentionMillis;
+        for (ConcurrentHashMap<Integer, ConcurrentSkipListMap<Long, SketchBucket>> byKey : sketches.values()) {
+            byKey.values().forEach(buckets -> buckets.headMap(cutoff).clear());
+            byKey.values().removeIf(ConcurrentSkipListMap::isEmpty);
+        }
+    }
+
+    private static double toPrimitive(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static final class SketchBucket {
+        private final QuantileSketch[] columns = new QuantileSketch[COLUMN_COUNT];
+        private long count;
+
+        SketchBucket(double relativeAccuracy) {
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                columns[i] = new QuantileSketch(relativeAccuracy);
+            }
+        }
+
+        synchronized void add(double[] values) {
+            count++;
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                columns[i].add(values[i]);
+            }
+        }
+
+        synchronized void mergeInto(SketchBucket target) {
+            target.count += count;
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                target.columns[i].merge(columns[i]);
+            }
+        }
+
+        long count() {
+            return count;
+        }
+
+        PercentileSnapshot toSnapshot(LocalDateTime timestamp, String groupKey) {
+            return new PercentileSnapshot(timestamp, groupKey, count,
+                    PercentileSnapshot.ColumnPercentiles.of(columns[0]),
+                    PercentileSnapshot.ColumnPercentiles.of(columns[1]),
+                    PercentileSnapshot.ColumnPercentiles.of(columns[2]),
+                    PercentileSnapshot.ColumnPercentiles.of(columns[3]),
+                    PercentileSnapshot.ColumnPercentiles.of(columns[4]));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.bub6le.systemmonitoring.store.sketch;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一个分组（或一个时间桶）的分位数。groupKey在不分组时为null，没有数据的列各项为NaN。
+ */
+public record PercentileSnapshot(LocalDateTime timestamp,
+                                 String groupKey,
+                                 long count,
+                                 ColumnPercentiles cpuUsage,
+                                 ColumnPercentiles memoryUsage,
+                                 ColumnPercentiles loadAverage,
+                                 ColumnPercentiles networkIn,
+                                 ColumnPercentiles networkOut) {
+
+    public record ColumnPercentiles(double p50, double p95, double p99, double max) {
+
+        static ColumnPercentiles of(QuantileSketch sketch) {
+            return new ColumnPercentiles(sketch.quantile(0.50), sketch.quantile(0.95),
+                    sketch.quantile(0.99), sketch.getMax());
+        }
+    }
+}
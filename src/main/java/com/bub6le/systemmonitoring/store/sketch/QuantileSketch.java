@@ -0,0 +1,141 @@
+package com.bub6le.systemmonitoring.store.sketch;
+
+/**
+ * 可合并的分位数草图：按对数划分区间计数（DDSketch的做法），任一分位数的相对误差不超过relativeAccuracy。
+ *
+ * 区间i覆盖(gamma^(i-1), gamma^i]，gamma = (1+a)/(1-a)。计数保存在连续的long数组中，
+ * 只覆盖实际出现过的区间范围。只接受非负值，足够小的值计入零值桶。非线程安全。
+ */
+public final class QuantileSketch {
+
+    private static final double MIN_INDEXABLE = 1e-9;
+    private static final int GROW_SLACK = 8;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1): " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * 记录一个值。NaN和负值忽略。
+     */
+    public void add(double value) {
+        if (Double.isNaN(value) || value < 0) {
+            return;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value < MIN_INDEXABLE) {
+            zeroCount++;
+            return;
+        }
+        int index = index(value);
+        ensureCapacity(index, index);
+        counts[index - offset]++;
+    }
+
+    /**
+     * 把other的计数叠加到当前草图，两者的精度必须相同。
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (other.counts.length == 0) {
+            return;
+        }
+        ensureCapacity(other.offset, other.offset + other.counts.length - 1);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[other.offset + i - offset] += other.counts[i];
+        }
+    }
+
+    /**
+     * 返回q分位（0到1）的近似值；没有数据时返回NaN。
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        long cumulative = zeroCount;
+        if (cumulative > rank) {
+            return min;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative > rank) {
+                return Math.max(min, Math.min(max, value(offset + i)));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    // 区间内与两端相对误差相同的代表值
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private void ensureCapacity(int minIndex, int maxIndex) {
+        if (counts.length == 0) {
+            offset = minIndex - GROW_SLACK;
+            counts = new long[maxIndex - minIndex + 1 + 2 * GROW_SLACK];
+            return;
+        }
+        int currentMax = offset + counts.length - 1;
+        if (minIndex >= offset && maxIndex <= currentMax) {
+            return;
+        }
+        int newOffset = minIndex < offset ? minIndex - GROW_SLACK : offset;
+        int newMax = maxIndex > currentMax ? maxIndex + GROW_SLACK : currentMax;
+        long[] grown = new long[newMax - newOffset + 1];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+}
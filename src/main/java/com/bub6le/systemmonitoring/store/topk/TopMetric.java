@@ -0,0 +1,47 @@
+package com.bub6le.systemmonitoring.store.topk;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+
+/**
+ * Top-K排行可以使用的指标。
+ */
+public enum TopMetric {
+    CPU,
+    MEMORY,
+    DISK,
+    LOAD,
+    NETWORK_IN,
+    NETWORK_OUT;
+
+    /**
+     * 取出样本中对应的值，字段为空时返回NaN。
+     */
+    double valueOf(SystemMetrics metrics) {
+        Double value = switch (this) {
+            case CPU -> metrics.getCpuUsage();
+            case MEMORY -> metrics.getMemoryUsage();
+            case DISK -> metrics.getDiskUsage();
+            case LOAD -> metrics.getLoadAverage();
+            case NETWORK_IN -> metrics.getNetworkIn();
+            case NETWORK_OUT -> metrics.getNetworkOut();
+        };
+        return value != null ? value : Double.NaN;
+    }
+
+    /**
+     * 解析前端使用的指标名（cpu、memory、disk、load、network_in、network_out），无法识别时按CPU排行。
+     */
+    public static TopMetric fromParam(String value) {
+        if (value == null) {
+            return CPU;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "memory", "mem" -> MEMORY;
+            case "disk" -> DISK;
+            case "load", "load_average" -> LOAD;
+            case "network_in", "net_in" -> NETWORK_IN;
+            case "network_out", "net_out" -> NETWORK_OUT;
+            default -> CPU;
+        };
+    }
+}
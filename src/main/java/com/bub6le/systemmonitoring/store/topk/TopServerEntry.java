@@ -0,0 +1,13 @@
+package com.bub6le.systemmonitoring.store.topk;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一台服务器在窗口内某个指标的平均值、最大值、样本数和最近一次上报时间。
+ */
+public record TopServerEntry(String serverName,
+                             double average,
+                             double max,
+                             long count,
+                             LocalDateTime lastSeen) {
+}
@@ -0,0 +1,156 @@
+package com.bub6le.systemmonitoring.store.topk;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.MetricsIngestListener;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按服务器维护的滑动窗口统计，用于回答“最近一段时间哪些服务器的某项指标最高”。
+ *
+ * 每台服务器一个固定长度的时间桶环，桶内按指标保存累加和、计数与最大值，写入时只更新样本所在的桶。
+ * 查询时逐台服务器合并窗口内的桶，用容量为k的小顶堆筛选，代价为O(服务器数 * log k)，与样本数量无关。
+ */
+@Component
+public class TopServersTracker implements MetricsIngestListener {
+
+    private static final TopMetric[] METRICS = TopMetric.values();
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final ConcurrentHashMap<String, ServerWindow> servers = new ConcurrentHashMap<>();
+
+    public TopServersTracker(@Value("${monitoring.topk.window-minutes:15}") int windowMinutes,
+                             @Value("${monitoring.topk.bucket-seconds:10}") int bucketSeconds) {
+        this.windowMillis = windowMinutes * 60_000L;
+        this.bucketMillis = bucketSeconds * 1000L;
+        this.bucketCount = (int) ((windowMillis + bucketMillis - 1) / bucketMillis) + 1;
+    }
+
+    @Override
+    public void onMetricsIngested(SystemMetrics metrics) {
+        if (metrics.getServerName() == null || metrics.getTimestamp() == null) {
+            return;
+        }
+        long timestamp = EpochTime.toMillis(metrics.getTimestamp());
+        if (timestamp < EpochTime.nowMillis() - windowMillis) {
+            return;
+        }
+        long bucketStart = Math.floorDiv(timestamp, bucketMillis) * bucketMillis;
+        int index = (int) Math.floorMod(bucketStart / bucketMillis, (long) bucketCount);
+        servers.computeIfAbsent(metrics.getServerName(), name -> new ServerWindow(bucketCount))
+               .add(index, bucketStart, timestamp, metrics);
+    }
+
+    /**
+     * 窗口内指标平均值最高的k台服务器，按平均值从高到低排列。windowMillis超过保留窗口时按保留窗口计算。
+     */
+    public List<TopServerEntry> top(TopMetric metric, int k, long windowMillis) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        long from = EpochTime.nowMillis() - Math.min(Math.max(windowMillis, 0), this.windowMillis);
+        long oldestBucket = Math.floorDiv(from, bucketMillis) * bucketMillis;
+
+        Comparator<TopServerEntry> byAverage = Comparator.comparingDouble(TopServerEntry::average);
+        PriorityQueue<TopServerEntry> heap = new PriorityQueue<>(k + 1, byAverage);
+        for (var entry : servers.entrySet()) {
+            TopServerEntry candidate = entry.getValue().summarize(entry.getKey(), metric, oldestBucket);
+            if (candidate == null) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.offer(candidate);
+            } else if (candidate.average() > heap.peek().average()) {
+                heap.poll();
+                heap.offer(candidate);
+            }
+        }
+        List<TopServerEntry> result = new ArrayList<>(heap);
+        result.sort(byAverage.reversed());
+        return result;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    // 每分钟移除整个窗口内都没有上报的服务器
+    @Scheduled(fixedRate = 60_000L)
+    public void evictIdleServers() {
+        long cutoff = EpochTime.nowMillis() - windowMillis;
+        servers.values().removeIf(window -> window.getLastSeen() < cutoff);
+    }
+
+    private static final class ServerWindow {
+        private final long[] bucketStarts;
+        private final double[][] sums;
+        private final long[][] counts;
+        private final double[][] maxima;
+        private volatile long lastSeen = Long.MIN_VALUE;
+
+        ServerWindow(int bucketCount) {
+            bucketStarts = new long[bucketCount];
+            Arrays.fill(bucketStarts, Long.MIN_VALUE);
+            sums = new double[bucketCount][METRICS.length];
+            counts = new long[bucketCount][METRICS.length];
+            maxima = new double[bucketCount][METRICS.length];
+        }
+
+        synchronized void add(int index, long bucketStart, long timestamp, SystemMetrics metrics) {
+            if (bucketStarts[index] > bucketStart) {
+                // 槽位已被更新的时间段占用，迟到的样本丢弃
+                return;
+            }
+            if (bucketStarts[index] < bucketStart) {
+                bucketStarts[index] = bucketStart;
+                Arrays.fill(sums[index], 0);
+                Arrays.fill(counts[index], 0);
+                Arrays.fill(maxima[index], Double.NEGATIVE_INFINITY);
+            }
+            for (TopMetric metric : METRICS) {
+                double value = metric.valueOf(metrics);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                int m = metric.ordinal();
+                sums[index][m] += value;
+                counts[index][m]++;
+                maxima[index][m] = Math.max(maxima[index][m], value);
+            }
+            lastSeen = Math.max(lastSeen, timestamp);
+        }
+
+        synchronized TopServerEntry summarize(String serverName, TopMetric metric, long oldestBucket) {
+            int m = metric.ordinal();
+            double sum = 0;
+            long count = 0;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < bucketStarts.length; i++) {
+                if (bucketStarts[i] >= oldestBucket && counts[i][m] > 0) {
+                    sum += sums[i][m];
+                    count += counts[i][m];
+                    max = Math.max(max, maxima[i][m]);
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            return new TopServerEntry(serverName, sum / count, max, count, EpochTime.fromMillis(lastSeen));
+        }
+
+        long getLastSeen() {
+            return lastSeen;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.bub6le.systemmonitoring.store.wal;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.model.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WAL记录的二进制编码。每个可空字段前写一个字节的非空标记。
+ */
+public final class WalCodec {
+
+    private WalCodec() {
+    }
+
+    public static byte[] encodeMetrics(SystemMetrics metrics) {
+        return encode(out -> {
+            writeString(out, metrics.getServerName());
+            writeDouble(out, metrics.getCpuUsage());
+            writeDouble(out, metrics.getMemoryUsage());
+            writeDouble(out, metrics.getDiskUsage());
+            writeDouble(out, metrics.getNetworkIn());
+            writeDouble(out, metrics.getNetworkOut());
+            writeDouble(out, metrics.getLoadAverage());
+            writeTime(out, metrics.getTimestamp());
+            writeString(out, metrics.getRegion());
+            writeString(out, metrics.getServiceType());
+        });
+    }
+
+    public static SystemMetrics decodeMetrics(byte[] payload) {
+        return decode(payload, in -> {
+            SystemMetrics metrics = new SystemMetrics();
+            metrics.setServerName(readString(in));
+            metrics.setCpuUsage(readDouble(in));
+            metrics.setMemoryUsage(readDouble(in));
+            metrics.setDiskUsage(readDouble(in));
+            metrics.setNetworkIn(readDouble(in));
+            metrics.setNetworkOut(readDouble(in));
+            metrics.setLoadAverage(readDouble(in));
+            metrics.setTimestamp(readTime(in));
+            metrics.setRegion(readString(in));
+            metrics.setServiceType(readString(in));
+            return metrics;
+        });
+    }
+
+    public static byte[] encodeAlert(Alert alert) {
+        return encode(out -> {
+            writeLong(out, alert.getId());
+            writeString(out, alert.getSource());
+            writeString(out, alert.getSeverity() != null ? alert.getSeverity().name() : null);
+            writeString(out, alert.getMessage());
+            writeTime(out, alert.getTimestamp());
+            writeBoolean(out, alert.getResolved());
+            writeLong(out, alert.getOccurrenceCount());
+            writeTime(out, alert.getLastSeen());
+        });
+    }
+
+    public static Alert decodeAlert(byte[] payload) {
+        return decode(payload, in -> {
+            Alert alert = new Alert();
+            alert.setId(readLong(in));
+            alert.setSource(readString(in));
+            String severity = readString(in);
+            alert.setSeverity(severity != null ? Alert.AlertSeverity.valueOf(severity) : null);
+            alert.setMessage(readString(in));
+            alert.setTimestamp(readTime(in));
+            alert.setResolved(readBoolean(in));
+            // 旧版本写入的记录没有出现次数和最近出现时间
+            if (in.available() > 0) {
+                alert.setOccurrenceCount(readLong(in));
+                alert.setLastSeen(readTime(in));
+            } else {
+                alert.setOccurrenceCount(1L);
+                alert.setLastSeen(alert.getTimestamp());
+            }
+            return alert;
+        });
+    }
+
+    // 批量解决只记录被解决的告警id，回放时按id把这些行标记为已解决
+    public static byte[] encodeAlertIds(List<Long> ids) {
+        return encode(out -> {
+            out.writeInt(ids.size());
+            for (Long id : ids) {
+                out.writeLong(id);
+            }
+        });
+    }
+
+    public static List<Long> decodeAlertIds(byte[] payload) {
+        return decode(payload, in -> {
+            int count = in.readInt();
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ids.add(in.readLong());
+            }
+            return ids;
+        });
+    }
+
+    // 按条件批量解决只记录条件，三个条件只有一个非空，回放时执行同样的集合UPDATE
+    public static byte[] encodeResolveCriteria(ResolveCriteria criteria) {
+        return encode(out -> {
+            writeString(out, criteria.source());
+            writeString(out, criteria.severity() != null ? criteria.severity().name() : null);
+            writeTime(out, criteria.before());
+        });
+    }
+
+    public static ResolveCriteria decodeResolveCriteria(byte[] payload) {
+        return decode(payload, in -> {
+            String source = readString(in);
+            String severity = readString(in);
+            LocalDateTime before = readTime(in);
+            return new ResolveCriteria(source, severity != null ? Alert.AlertSeverity.valueOf(severity) : null, before);
+        });
+    }
+
+    public static byte[] encodeTask(Task task) {
+        return encode(out -> {
+            writeLong(out, task.getId());
+            writeString(out, task.getTaskName());
+            writeString(out, task.getTargetCluster());
+            writeString(out, task.getStatus() != null ? task.getStatus().name() : null);
+            out.writeBoolean(task.getProgress() != null);
+            if (task.getProgress() != null) {
+                out.writeInt(task.getProgress());
+            }
+            writeTime(out, task.getCreatedTime());
+            writeTime(out, task.getUpdatedTime());
+        });
+    }
+
+    public static Task decodeTask(byte[] payload) {
+        return decode(payload, in -> {
+            Task task = new Task();
+            task.setId(readLong(in));
+            task.setTaskName(readString(in));
+            task.setTargetCluster(readString(in));
+            String status = readString(in);
+            task.setStatus(status != null ? Task.TaskStatus.valueOf(status) : null);
+            task.setProgress(in.readBoolean() ? in.readInt() : null);
+            // setStatus/setProgress会刷新updatedTime，时间字段最后恢复
+            task.setCreatedTime(readTime(in));
+            task.setUpdatedTime(readTime(in));
+            return task;
+        });
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T decode(byte[] payload, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return reader.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : (value ? 1 : 0));
+    }
+
+    private static Boolean readBoolean(DataInputStream in) throws IOException {
+        byte value = in.readByte();
+        return value < 0 ? null : value == 1;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toLocalDate().toEpochDay());
+            out.writeLong(value.toLocalTime().toNanoOfDay());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochDay = in.readLong();
+        long nanoOfDay = in.readLong();
+        return LocalDateTime.of(java.time.LocalDate.ofEpochDay(epochDay), java.time.LocalTime.ofNanoOfDay(nanoOfDay));
+    }
+
+    public record ResolveCriteria(String source, Alert.AlertSeverity severity, LocalDateTime before) {
+
+        public static ResolveCriteria bySource(String source) {
+            return new ResolveCriteria(source, null, null);
+        }
+
+        public static ResolveCriteria bySeverity(Alert.AlertSeverity severity) {
+            return new ResolveCriteria(null, severity, null);
+        }
+
+        public static ResolveCriteria before(LocalDateTime before) {
+            return new ResolveCriteria(null, null, before);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.bub6le.systemmonitoring.store.wal;
+
+public record WalRecord(WalRecordType type, byte[] payload) {
+}
@@ -0,0 +1,28 @@
+package com.bub6le.systemmonitoring.store.wal;
+
+public enum WalRecordType {
+    METRICS((byte) 1),
+    ALERT((byte) 2),
+    TASK((byte) 3),
+    ALERTS_RESOLVED((byte) 4),
+    ALERTS_RESOLVED_MATCHING((byte) 5);
+
+    private final byte code;
+
+    WalRecordType(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static WalRecordType fromCode(byte code) {
+        for (WalRecordType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown WAL record type: " + code);
+    }
+}
@@ -0,0 +1,127 @@
+package com.bub6le.systemmonitoring.store.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * 固定大小的内存映射日志段。文件名为段内第一条记录的LSN。
+ *
+ * 记录格式：[int 长度][int CRC32][byte 类型][payload]，长度包含类型字节。
+ * 新建文件全部为0，读到长度为0或CRC不匹配（写到一半崩溃）即视为段结束。
+ */
+final class WalSegment {
+
+    static final int HEADER_SIZE = 8;
+    static final String SUFFIX = ".wal";
+
+    private final Path path;
+    private final long baseLsn;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private WalSegment(Path path, long baseLsn, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.baseLsn = baseLsn;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static WalSegment create(Path dir, long baseLsn, int capacity) throws IOException {
+        Path path = dir.resolve(fileName(baseLsn));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        return new WalSegment(path, baseLsn, channel, buffer);
+    }
+
+    static WalSegment openReadOnly(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        return new WalSegment(path, parseBaseLsn(path), channel, buffer);
+    }
+
+    static String fileName(long baseLsn) {
+        return String.format("%020d", baseLsn) + SUFFIX;
+    }
+
+    static long parseBaseLsn(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    boolean hasRoom(int payloadLength) {
+        return buffer.remaining() >= HEADER_SIZE + 1 + payloadLength;
+    }
+
+    /**
+     * 追加一条记录，返回记录结束位置的LSN。调用方负责同步。
+     */
+    long append(WalRecordType type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type.getCode());
+        crc.update(payload);
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.put(type.getCode());
+        buffer.put(payload);
+        // 先写内容再写头部，长度字段相当于提交标记
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, payload.length + 1);
+        return baseLsn + buffer.position();
+    }
+
+    /**
+     * 顺序读取段内所有完整记录，回调参数为记录起始LSN和记录本身。
+     */
+    long read(BiConsumer<Long, WalRecord> consumer) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        while (view.remaining() >= HEADER_SIZE + 1) {
+            int start = view.position();
+            int length = view.getInt();
+            int checksum = view.getInt();
+            if (length <= 0 || length > view.remaining()) {
+                view.position(start);
+                break;
+            }
+            byte[] body = new byte[length];
+            view.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                view.position(start);
+                break;
+            }
+            byte[] payload = new byte[length - 1];
+            System.arraycopy(body, 1, payload, 0, payload.length);
+            consumer.accept(baseLsn + start, new WalRecord(WalRecordType.fromCode(body[0]), payload));
+        }
+        return baseLsn + view.position();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getBaseLsn() {
+        return baseLsn;
+    }
+
+    long getEndLsn() {
+        return baseLsn + buffer.position();
+    }
+}
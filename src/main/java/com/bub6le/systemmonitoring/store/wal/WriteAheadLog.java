@@ -0,0 +1,427 @@
+package com.bub6le.systemmonitoring.store.wal;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.model.Task;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * 指标、告警、任务写入的预写日志。
+ *
+ * 记录追加到内存映射的日志段中，不逐条fsync；后台线程按固定间隔统一force一次（组提交），
+ * 需要同步持久化的调用方可以用 {@link #awaitDurable(long, long)} 等待。
+ * 日志段写满后滚动到新文件；checkpoint之后，LSN小于检查点的整段文件会被删除，
+ * 启动回放只需要从检查点开始。
+ *
+ * 指标在被接受时（入队之前）追加，记录起始LSN随样本写入wal_lsn列，回放时据此跳过已落库的样本；
+ * 落库完成前记录算作进行中，{@link #getLowWaterLsn()} 不会越过它。告警和任务在提交之后追加完整状态，
+ * 回放按id覆盖。
+ */
+@Component
+public class WriteAheadLog {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long syncIntervalMs;
+
+    // 所有日志段（含当前段），按起始LSN排序
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    // 启动时已存在、待回放的日志段
+    private final List<Path> recoverableSegments = new ArrayList<>();
+
+    private WalSegment active;
+    private volatile long checkpointLsn;
+    private volatile long durableLsn;
+    private volatile boolean replaying;
+    private volatile boolean running;
+    private Thread syncThread;
+    private final Object durableMonitor = new Object();
+
+    private final AtomicLong appendedRecords = new AtomicLong();
+    private final AtomicLong syncCount = new AtomicLong();
+
+    // 已追加、尚未落库（提交或放弃）的指标记录起始LSN
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    public WriteAheadLog(@Value("${monitoring.wal.enabled:true}") boolean enabled,
+                         @Value("${monitoring.wal.dir:data/wal}") String directory,
+                         @Value("${monitoring.wal.segment-size:16777216}") int segmentSize,
+                         @Value("${monitoring.wal.sync-interval-ms:100}") long syncIntervalMs) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            checkpointLsn = readCheckpoint();
+            long nextLsn = checkpointLsn;
+            for (Path path : listSegmentFiles()) {
+                long baseLsn = WalSegment.parseBaseLsn(path);
+                segments.put(baseLsn, path);
+                recoverableSegments.add(path);
+                nextLsn = Math.max(nextLsn, baseLsn + Files.size(path));
+            }
+            // 从不在旧段上继续追加，旧段末尾可能是写到一半的记录
+            active = WalSegment.create(directory, nextLsn, segmentSize);
+            segments.put(nextLsn, active.getPath());
+            durableLsn = nextLsn;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open WAL in " + directory, e);
+        }
+
+        running = true;
+        syncThread = new Thread(this::syncLoop, "wal-group-commit");
+        syncThread.setDaemon(true);
+        syncThread.start();
+        log.info("WAL opened in {} ({} segments to recover, checkpoint LSN {})",
+                directory, recoverableSegments.size(), checkpointLsn);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled || active == null) {
+            return;
+        }
+        running = false;
+        if (syncThread != null) {
+            syncThread.interrupt();
+            try {
+                syncThread.join(syncIntervalMs * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            sync();
+            try {
+                active.close();
+            } catch (IOException e) {
+                log.warn("Failed to close WAL segment {}", active.getPath(), e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 样本被接受时追加指标记录，并把记录起始LSN设为样本的walLsn。样本落库（或确定放弃）后
+     * 必须调用 {@link #release(SystemMetrics)}。返回记录结束位置的LSN，可用于 {@link #awaitDurable(long, long)}；
+     * 未启用或正在回放时返回-1，样本不带LSN。
+     */
+    public long appendMetrics(SystemMetrics metrics) {
+        if (!enabled || replaying) {
+            return -1;
+        }
+        byte[] payload = WalCodec.encodeMetrics(metrics);
+        long lsn;
+        synchronized (this) {
+            long start = reserve(payload.length);
+            lsn = active.append(WalRecordType.METRICS, payload);
+            metrics.setWalLsn(start);
+            inFlight.add(start);
+        }
+        appendedRecords.incrementAndGet();
+        return lsn;
+    }
+
+    public void release(SystemMetrics metrics) {
+        if (metrics.getWalLsn() != null) {
+            inFlight.remove(metrics.getWalLsn());
+        }
+    }
+
+    public long appendAlert(Alert alert) {
+        return append(WalRecordType.ALERT, WalCodec.encodeAlert(alert));
+    }
+
+    public long appendAlertsResolved(List<Long> alertIds) {
+        return append(WalRecordType.ALERTS_RESOLVED, WalCodec.encodeAlertIds(alertIds));
+    }
+
+    public long appendAlertsResolvedMatching(WalCodec.ResolveCriteria criteria) {
+        return append(WalRecordType.ALERTS_RESOLVED_MATCHING, WalCodec.encodeResolveCriteria(criteria));
+    }
+
+    public long appendTask(Task task) {
+        return append(WalRecordType.TASK, WalCodec.encodeTask(task));
+    }
+
+    /**
+     * 追加一条记录，返回记录结束位置的LSN。未启用或正在回放时返回-1。
+     * 记录只写入映射内存，由组提交线程统一落盘。
+     */
+    public long append(WalRecordType type, byte[] payload) {
+        if (!enabled || replaying) {
+            return -1;
+        }
+        long lsn;
+        synchronized (this) {
+            reserve(payload.length);
+            lsn = active.append(type, payload);
+        }
+        appendedRecords.incrementAndGet();
+        return lsn;
+    }
+
+    // 调用方持有this锁。当前段放不下时先滚动，返回下一条记录的起始LSN
+    private long reserve(int payloadLength) {
+        if (!active.hasRoom(payloadLength)) {
+            roll(payloadLength);
+        }
+        return active.getEndLsn();
+    }
+
+    /**
+     * 等待指定LSN之前的记录落盘，超时返回false。
+     */
+    public boolean awaitDurable(long lsn, long timeoutMs) throws InterruptedException {
+        if (!enabled || lsn < 0) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (durableMonitor) {
+            while (durableLsn < lsn) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                durableMonitor.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    public synchronized long getCurrentLsn() {
+        return active != null ? active.getEndLsn() : 0;
+    }
+
+    public long getCheckpointLsn() {
+        return checkpointLsn;
+    }
+
+    /**
+     * 可以作为检查点的LSN：在此之前追加的记录都已提交到数据库（指标已落库，告警和任务提交后才追加）。
+     * 没有进行中的指标时等于当前LSN。
+     */
+    public synchronized long getLowWaterLsn() {
+        long current = getCurrentLsn();
+        return inFlight.isEmpty() ? current : Math.min(current, inFlight.first());
+    }
+
+    /**
+     * 按顺序回放启动前已存在的日志段中LSN不小于检查点的记录。回放期间追加被忽略。
+     * 返回回放的记录数。
+     */
+    public long replay(BiConsumer<Long, WalRecord> handler) {
+        if (!enabled) {
+            return 0;
+        }
+        AtomicLong replayed = new AtomicLong();
+        replaying = true;
+        try {
+            for (Path path : recoverableSegments) {
+                WalSegment segment = WalSegment.openReadOnly(path);
+                try {
+                    segment.read((lsn, record) -> {
+                        if (lsn >= checkpointLsn) {
+                            handler.accept(lsn, record);
+                            replayed.incrementAndGet();
+                        }
+                    });
+                } finally {
+                    segment.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay WAL", e);
+        } finally {
+            replaying = false;
+        }
+        return replayed.get();
+    }
+
+    /**
+     * 记录检查点：LSN之前的数据已由其他方式持久化。检查点之前的整段日志文件直接删除。
+     */
+    public void checkpoint(long lsn) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(tmp, Long.toString(lsn), StandardCharsets.US_ASCII);
+            Files.move(tmp, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpointLsn = lsn;
+
+            // 一个段的记录全部小于下一段的起始LSN，下一段起点不超过检查点即可删除
+            for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+                Long next = segments.higherKey(entry.getKey());
+                if (next == null || next > lsn) {
+                    break;
+                }
+                Files.deleteIfExists(entry.getValue());
+                segments.remove(entry.getKey());
+                recoverableSegments.remove(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write WAL checkpoint", e);
+        }
+    }
+
+    /**
+     * 将当前段已写入的记录落盘。由组提交线程周期调用。
+     */
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        WalSegment segment;
+        long lsn;
+        synchronized (this) {
+            segment = active;
+            lsn = segment.getEndLsn();
+        }
+        if (lsn <= durableLsn) {
+            return;
+        }
+        segment.force();
+        syncCount.incrementAndGet();
+        markDurable(lsn);
+    }
+
+    private void syncLoop() {
+        while (running) {
+            try {
+                Thread.sleep(syncIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            try {
+                sync();
+            } catch (RuntimeException e) {
+                log.warn("WAL sync failed", e);
+            }
+        }
+    }
+
+    // 调用方持有this锁
+    private void roll(int payloadLength) {
+        if (WalSegment.HEADER_SIZE + 1 + payloadLength > segmentSize) {
+            throw new IllegalArgumentException("WAL record of " + payloadLength + " bytes exceeds segment size");
+        }
+        try {
+            active.force();
+            long endLsn = active.getEndLsn();
+            active.close();
+            markDurable(endLsn);
+            active = WalSegment.create(directory, endLsn, segmentSize);
+            segments.put(endLsn, active.getPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll WAL segment", e);
+        }
+    }
+
+    private void markDurable(long lsn) {
+        synchronized (durableMonitor) {
+            if (lsn > durableLsn) {
+                durableLsn = lsn;
+            }
+            durableMonitor.notifyAll();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(path, StandardCharsets.US_ASCII).trim());
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(WalSegment.SUFFIX))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    public WalStats getWalStats() {
+        return new WalStats(enabled, segments.size(), getCurrentLsn(), durableLsn, checkpointLsn,
+                appendedRecords.get(), syncCount.get(), inFlight.size());
+    }
+
+    public static class WalStats {
+        private boolean enabled;
+        private int segmentCount;
+        private long currentLsn;
+        private long durableLsn;
+        private long checkpointLsn;
+        private long appendedRecords;
+        private long syncCount;
+        private int inFlightRecords;
+
+        public WalStats(boolean enabled, int segmentCount, long currentLsn, long durableLsn,
+                        long checkpointLsn, long appendedRecords, long syncCount, int inFlightRecords) {
+            this.enabled = enabled;
+            this.segmentCount = segmentCount;
+            this.currentLsn = currentLsn;
+            this.durableLsn = durableLsn;
+            this.checkpointLsn = checkpointLsn;
+            this.appendedRecords = appendedRecords;
+            this.syncCount = syncCount;
+            this.inFlightRecords = inFlightRecords;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public int getSegmentCount() { return segmentCount; }
+        public long getCurrentLsn() { return currentLsn; }
+        public long getDurableLsn() { return durableLsn; }
+        public long getCheckpointLsn() { return checkpointLsn; }
+        public long getAppendedRecords() { return appendedRecords; }
+        public long getSyncCount() { return syncCount; }
+        public int getInFlightRecords() { return inFlightRecords; }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bub6le.systemmonitoring.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * LocalDateTime与毫秒时间戳互转。内存结构统一按UTC偏移换算，避免夏令时导致的跳变。
+ */
+public final class EpochTime {
+
+    private EpochTime() {
+    }
+
+    public static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    public static long nowMillis() {
+        return toMillis(LocalDateTime.now());
+    }
+}
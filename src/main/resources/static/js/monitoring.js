@@ -177,6 +177,15 @@ function initializeWebSocket() {
                     addNewAlert(alert);
                 }
             });
+            
+            // 批量解决告警时只收到一条汇总事件，重新加载告警列表和摘要
+            stompClient.subscribe('/topic/alerts-resolved', function(message) {
+                if (dataStreamActive && !historyPlayback) {
+                    const result = JSON.parse(message.body);
+                    console.log('收到批量解决告警事件:', result);
+                    reloadAlerts(result);
+                }
+            });
         }, function(error) {
             console.error('WebSocket连接错误:', error);
             showNotification('WebSocket连接失败: ' + error, 'error');
@@ -447,7 +456,7 @@ function loadInitialData() {
         method: 'GET',
         success: function(data) {
             console.log('任务数据加载成功:', data);
-            updateTaskList(data);
+            updateTaskList(data.items);
         },
         error: function(xhr, status, error) {
             console.error('加载任务数据失败:', error);
@@ -474,7 +483,7 @@ function loadInitialData() {
         method: 'GET',
         success: function(data) {
             console.log('告警数据加载成功:', data);
-            updateAlertList(data);
+            updateAlertList(data.items);
         },
         error: function(xhr, status, error) {
             console.error('加载告警数据失败:', error);
@@ -614,11 +623,13 @@ function updateAlertList(alerts) {
 function createAlertItem(alert) {
     const severityClass = alert.severity.toLowerCase();
     const severityText = getSeverityText(alert.severity);
-    const timeAgo = getTimeAgo(alert.timestamp);
+    // 重复出现的告警合并为一条，显示出现次数和最近一次出现的时间
+    const occurrences = alert.occurrenceCount > 1 ? ` ×${alert.occurrenceCount}` : '';
+    const timeAgo = getTimeAgo(alert.lastSeen || alert.timestamp);
     
     return $(`
-        <div class="alert-item ${severityClass} fade-in">
-            <div class="alert-source">${alert.source}</div>
+        <div class="alert-item ${severityClass} fade-in" data-alert-id="${alert.id}">
+            <div class="alert-source">${alert.source}${occurrences}</div>
             <div class="alert-message">${alert.message}</div>
             <div class="alert-time">${severityText} • ${timeAgo}</div>
         </div>
@@ -693,7 +704,7 @@ function updateCharts(metrics) {
         
         // 更新分布图表
         const dimension = $('#dimensionSelect').val();
-        updateDistributionChart(sortedMetrics, dimension);
+        updateDistributionChart(dimension);
         
         console.log('图表更新完成');
     } catch (error) {
@@ -702,72 +713,40 @@ function updateCharts(metrics) {
     }
 }
 
-// 更新分布图表
-function updateDistributionChart(metrics, dimension) {
-    try {
-        console.log('开始更新分布图表，维度:', dimension);
-        
-        if (!distributionChart) {
-            console.error('分布图表未初始化');
-            return;
-        }
-        
-        const distribution = {};
-        
-        metrics.forEach(metric => {
-            let key;
-            switch (dimension) {
-                case 'server':
-                    key = metric.serverName;
-                    break;
-                case 'region':
-                    key = metric.region;
-                    break;
-                case 'service':
-                    key = metric.serviceType;
-                    break;
-                default:
-                    key = metric.serverName;
-            }
-            
-            if (!distribution[key]) {
-                distribution[key] = {
-                    count: 0,
-                    totalCpu: 0,
-                    totalMemory: 0,
-                    avgCpu: 0
-                };
-            }
-            distribution[key].count++;
-            distribution[key].totalCpu += metric.cpuUsage;
-            distribution[key].totalMemory += metric.memoryUsage;
-        });
-        
-        // 计算平均值
-        Object.keys(distribution).forEach(key => {
-            const data = distribution[key];
-            data.avgCpu = data.totalCpu / data.count;
-        });
-        
-        // 按平均值排序
-        const sortedDistribution = Object.entries(distribution)
-            .sort((a, b) => b[1].avgCpu - a[1].avgCpu)
-            .slice(0, 8); // 限制显示前8个
-        
-        const labels = sortedDistribution.map(item => item[0]);
-        const data = sortedDistribution.map(item => item[1].avgCpu);
-        
-        console.log('分布图表数据 - 标签:', labels, '数据:', data);
-        
-        distributionChart.data.labels = labels;
-        distributionChart.data.datasets[0].data = data;
-        distributionChart.update('none'); // 使用 'none' 模式避免动画，提高性能
-        
-        console.log('分布图表更新完成');
-    } catch (error) {
-        console.error('更新分布图表时发生错误:', error);
-        showNotification('更新分布图表失败', 'error');
+// 更新分布图表，分组和排序在服务端完成，只取前8组
+function updateDistributionChart(dimension) {
+    console.log('开始更新分布图表，维度:', dimension);
+    
+    if (!distributionChart) {
+        console.error('分布图表未初始化');
+        return;
     }
+    
+    $.ajax({
+        url: `/api/metrics/distribution?dimension=${encodeURIComponent(dimension || 'server')}&minutes=5&limit=8`,
+        method: 'GET',
+        success: function(entries) {
+            try {
+                const labels = entries.map(entry => entry.key);
+                const data = entries.map(entry => entry.avgCpu);
+                
+                console.log('分布图表数据 - 标签:', labels, '数据:', data);
+                
+                distributionChart.data.labels = labels;
+                distributionChart.data.datasets[0].data = data;
+                distributionChart.update('none'); // 使用 'none' 模式避免动画，提高性能
+                
+                console.log('分布图表更新完成');
+            } catch (error) {
+                console.error('更新分布图表时发生错误:', error);
+                showNotification('更新分布图表失败', 'error');
+            }
+        },
+        error: function(xhr, status, error) {
+            console.error('加载分布数据失败:', error);
+            showNotification('加载分布数据失败', 'error');
+        }
+    });
 }
 
 // 显示任务详情
@@ -855,18 +834,9 @@ function addNewMetric(metric) {
         timeSeriesChart.data.datasets[1].data.push(metric.memoryUsage);
         timeSeriesChart.update('none');
         
-        // 获取当前维度的最新数据并更新分布图表
+        // 更新当前维度的分布图表
         const dimension = $('#dimensionSelect').val();
-        $.ajax({
-            url: '/api/metrics/recent?minutes=5',
-            method: 'GET',
-            success: function(data) {
-                updateDistributionChart(data, dimension);
-            },
-            error: function(xhr, status, error) {
-                console.error('获取最新指标数据失败:', error);
-            }
-        });
+        updateDistributionChart(dimension);
         
         console.log('新指标添加完成');
     } catch (error) {
@@ -891,6 +861,8 @@ function addNewTask(task) {
 function addNewAlert(alert) {
     const alertList = $('#alertList');
     const alertItem = createAlertItem(alert);
+    // 合并到已有行的重复告警与原告警id相同，替换原来的行并更新出现次数，不重复添加
+    alertList.children(`[data-alert-id="${alert.id}"]`).remove();
     alertList.prepend(alertItem);
     
     // 限制显示数量
@@ -899,6 +871,33 @@ function addNewAlert(alert) {
     }
 }
 
+// 批量解决后重新加载未解决告警和告警摘要
+function reloadAlerts(result) {
+    showNotification(`已解决${result.resolvedCount}条告警`, 'success');
+    
+    $.ajax({
+        url: '/api/alerts/unresolved',
+        method: 'GET',
+        success: function(data) {
+            updateAlertList(data.items);
+        },
+        error: function(xhr, status, error) {
+            console.error('加载告警数据失败:', error);
+        }
+    });
+    
+    $.ajax({
+        url: '/api/alerts/summary',
+        method: 'GET',
+        success: function(data) {
+            updateAlertSummary(data);
+        },
+        error: function(xhr, status, error) {
+            console.error('加载告警摘要数据失败:', error);
+        }
+    });
+}
+
 // 切换主题
 function toggleTheme() {
     // 这里可以实现主题切换逻辑
@@ -917,38 +916,58 @@ function filterData(searchTerm) {
 // 更新图表维度
 function updateChartsDimension(dimension) {
     console.log('更新图表维度:', dimension);
+    updateDistributionChart(dimension);
+}
+
+// 加载历史数据
+function loadHistoricalData(timeRange) {
+    console.log('加载历史数据，时间范围:', timeRange);
+    
+    // 服务端按LTTB降采样，无论时间范围多长都只返回固定数量的点
     $.ajax({
-        url: '/api/metrics/recent?minutes=5',
+        url: `/api/metrics/chart/downsampled?minutes=${timeRange}&points=300`,
         method: 'GET',
-        success: function(data) {
-            console.log('维度数据加载成功:', data);
-            updateDistributionChart(data, dimension);
+        success: function(chart) {
+            console.log('历史数据加载成功，来源:', chart.source, '原始点数:', chart.rawPoints);
+            if (!timeSeriesChart || !chart.cpuUsage) {
+                return;
+            }
+            updateDownsampledChart(chart);
         },
         error: function(xhr, status, error) {
-            console.error('加载维度数据失败:', error);
-            showNotification('加载维度数据失败', 'error');
+            console.error('加载历史数据失败:', error);
+            showNotification('加载历史数据失败', 'error');
         }
     });
-}
-
-// 加载历史数据
-function loadHistoricalData(timeRange) {
-    console.log('加载历史数据，时间范围:', timeRange);
+    
+    // 降采样结果只有CPU和内存序列，指标卡片和数据表格用各服务器最近一次上报的值刷新
     $.ajax({
-        url: `/api/metrics/recent?minutes=${timeRange}`,
+        url: '/api/metrics/latest?includeStale=false',
         method: 'GET',
         success: function(data) {
-            console.log('历史数据加载成功:', data);
-            updateCharts(data);
             updateMetricsDisplay(data);
         },
         error: function(xhr, status, error) {
-            console.error('加载历史数据失败:', error);
-            showNotification('加载历史数据失败', 'error');
+            console.error('加载最新指标失败:', error);
         }
     });
 }
 
+// CPU和内存序列各自降采样，时间点不同，按时间合并成共同的横轴，缺失的位置留空并连线跨过
+function updateDownsampledChart(chart) {
+    const timestamps = [...new Set([...chart.cpuUsage, ...chart.memoryUsage].map(p => p.timestamp))]
+        .sort((a, b) => new Date(a) - new Date(b));
+    const alignTo = function(series) {
+        const values = new Map(series.map(p => [p.timestamp, p.value]));
+        return timestamps.map(t => values.has(t) ? values.get(t) : null);
+    };
+    timeSeriesChart.data.labels = timestamps.map(t => formatTime(t));
+    timeSeriesChart.data.datasets[0].data = alignTo(chart.cpuUsage);
+    timeSeriesChart.data.datasets[1].data = alignTo(chart.memoryUsage);
+    timeSeriesChart.data.datasets.forEach(dataset => dataset.spanGaps = true);
+    timeSeriesChart.update('none');
+}
+
 // 切换历史回放
 function toggleHistoryPlayback() {
     historyPlayback = !historyPlayback;
@@ -3,9 +3,30 @@ package com.bub6le.systemmonitoring.controller;
 import com.bub6le.systemmonitoring.model.Alert;
 import com.bub6le.systemmonitoring.model.SystemMetrics;
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.MetricsAggregate;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.repository.PageCursor;
+import com.bub6le.systemmonitoring.repository.view.AlertView;
+import com.bub6le.systemmonitoring.repository.view.MetricsChartPoint;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
+import com.bub6le.systemmonitoring.rule.AlertRule;
+import com.bub6le.systemmonitoring.rule.AlertRuleEngine;
+import com.bub6le.systemmonitoring.rule.RuleEngineStats;
 import com.bub6le.systemmonitoring.service.AlertService;
 import com.bub6le.systemmonitoring.service.SystemMetricsService;
 import com.bub6le.systemmonitoring.service.TaskService;
+import com.bub6le.systemmonitoring.store.DistributionEntry;
+import com.bub6le.systemmonitoring.store.ServerSnapshot;
+import com.bub6le.systemmonitoring.store.cache.QueryCacheStats;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.downsample.DownsampledChart;
+import com.bub6le.systemmonitoring.store.downsample.SeriesPoint;
+import com.bub6le.systemmonitoring.store.ratelimit.AlertRateLimiter;
+import com.bub6le.systemmonitoring.store.ratelimit.RateLimitStats;
+import com.bub6le.systemmonitoring.store.sketch.PercentileSnapshot;
+import com.bub6le.systemmonitoring.store.topk.TopMetric;
+import com.bub6le.systemmonitoring.store.topk.TopServerEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -13,10 +34,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -34,12 +60,26 @@ class ApiControllerTest {
     @Mock
     private AlertService alertService;
 
+    @Mock
+    private QueryResultCache queryResultCache;
+
+    @Mock
+    private AlertRuleEngine alertRuleEngine;
+
+    @Mock
+    private WebSocketController webSocketController;
+
+    @Mock
+    private AlertRateLimiter alertRateLimiter;
+
     @InjectMocks
     private ApiController apiController;
 
     private SystemMetrics testMetric;
     private Task testTask;
     private Alert testAlert;
+    private TaskView testTaskView;
+    private AlertView testAlertView;
 
     @BeforeEach
     void setUp() {
@@ -57,6 +97,11 @@ class ApiControllerTest {
         testAlert = new Alert("server-01", Alert.AlertSeverity.HIGH, "CPU使用率过高");
         testAlert.setId(1L);
         testAlert.setResolved(false);
+
+        testTaskView = new TaskView(1L, "系统备份", "生产集群", Task.TaskStatus.RUNNING, 50,
+            testTask.getCreatedTime(), testTask.getUpdatedTime());
+        testAlertView = new AlertView(1L, "server-01", Alert.AlertSeverity.HIGH, "CPU使用率过高",
+            testAlert.getTimestamp(), false, 1L, testAlert.getTimestamp());
     }
 
     @Test
@@ -64,17 +109,45 @@ class ApiControllerTest {
     void testGetAllMetrics() {
         // Given
         List<SystemMetrics> metrics = Arrays.asList(testMetric);
-        when(systemMetricsService.getAllMetrics()).thenReturn(metrics);
+        when(systemMetricsService.getMetricsPage(null, 100)).thenReturn(new CursorPage<>(metrics, null));
 
         // When
-        List<SystemMetrics> result = apiController.getAllMetrics();
+        List<SystemMetrics> result = apiController.getAllMetrics(null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("server-01", result.get(0).getServerName());
         assertEquals(75.5, result.get(0).getCpuUsage());
-        verify(systemMetricsService, times(1)).getAllMetrics();
+        verify(systemMetricsService, times(1)).getMetricsPage(null, 100);
+    }
+
+    @Test
+    @DisplayName("测试按游标翻页获取系统指标")
+    void testGetAllMetricsWithCursor() {
+        // Given
+        String cursor = new PageCursor(LocalDateTime.of(2026, 1, 1, 12, 0), 42L).encode();
+        when(systemMetricsService.getMetricsPage(cursor, 20)).thenReturn(new CursorPage<>(List.of(testMetric), "next"));
+
+        // When
+        CursorPage<SystemMetrics> page = apiController.getAllMetrics(cursor, 20);
+
+        // Then
+        assertEquals(1, page.items().size());
+        assertEquals("next", page.nextCursor());
+        verify(systemMetricsService, times(1)).getMetricsPage(cursor, 20);
+    }
+
+    @Test
+    @DisplayName("测试参数错误返回400")
+    void testHandleIllegalArgument() {
+        // When
+        ResponseEntity<Map<String, String>> response =
+            apiController.handleIllegalArgument(new IllegalArgumentException("Invalid page cursor: x"));
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals("Invalid page cursor: x", response.getBody().get("error"));
     }
 
     @Test
@@ -94,21 +167,72 @@ class ApiControllerTest {
         verify(systemMetricsService, times(1)).getRecentMetrics(5);
     }
 
+    @Test
+    @DisplayName("测试获取图表数据点")
+    void testGetChartPoints() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        List<MetricsChartPoint> points = List.of(new MetricsChartPoint(now.minusSeconds(5), 40.0, 50.0),
+                                                 new MetricsChartPoint(now, 75.5, 60.2));
+        when(systemMetricsService.getChartPoints(15)).thenReturn(points);
+
+        // When
+        List<MetricsChartPoint> result = apiController.getChartPoints(15);
+
+        // Then
+        assertEquals(points, result);
+        verify(systemMetricsService, times(1)).getChartPoints(15);
+    }
+
+    @Test
+    @DisplayName("测试获取降采样图表")
+    void testGetDownsampledChart() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        DownsampledChart chart = new DownsampledChart("1m", 1440, 300,
+                List.of(new SeriesPoint(now, 75.5)), List.of(new SeriesPoint(now, 60.2)));
+        when(systemMetricsService.getDownsampledChart(1440, 300)).thenReturn(chart);
+
+        // When
+        DownsampledChart result = apiController.getDownsampledChart(1440, 300);
+
+        // Then
+        assertEquals(chart, result);
+        verify(systemMetricsService, times(1)).getDownsampledChart(1440, 300);
+    }
+
+    @Test
+    @DisplayName("测试获取每台服务器的最新值")
+    void testGetLatestMetrics() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        List<ServerSnapshot> snapshots = List.of(new ServerSnapshot("server-01", "北京", "Web服务",
+                75.5, 60.2, 45.8, 500.0, 250.0, 2.5, now, false));
+        when(systemMetricsService.getLatestMetrics(false)).thenReturn(snapshots);
+
+        // When
+        List<ServerSnapshot> result = apiController.getLatestMetrics(false);
+
+        // Then
+        assertEquals(snapshots, result);
+        verify(systemMetricsService, times(1)).getLatestMetrics(false);
+    }
+
     @Test
     @DisplayName("测试根据服务器名称获取系统指标")
     void testGetMetricsByServer() {
         // Given
         List<SystemMetrics> metrics = Arrays.asList(testMetric);
-        when(systemMetricsService.getMetricsByServer("server-01")).thenReturn(metrics);
+        when(systemMetricsService.getMetricsPageByServer("server-01", null, 100)).thenReturn(new CursorPage<>(metrics, null));
 
         // When
-        List<SystemMetrics> result = apiController.getMetricsByServer("server-01");
+        List<SystemMetrics> result = apiController.getMetricsByServer("server-01", null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("server-01", result.get(0).getServerName());
-        verify(systemMetricsService, times(1)).getMetricsByServer("server-01");
+        verify(systemMetricsService, times(1)).getMetricsPageByServer("server-01", null, 100);
     }
 
     @Test
@@ -116,16 +240,16 @@ class ApiControllerTest {
     void testGetMetricsByRegion() {
         // Given
         List<SystemMetrics> metrics = Arrays.asList(testMetric);
-        when(systemMetricsService.getMetricsByRegion("北京")).thenReturn(metrics);
+        when(systemMetricsService.getMetricsPageByRegion("北京", null, 100)).thenReturn(new CursorPage<>(metrics, null));
 
         // When
-        List<SystemMetrics> result = apiController.getMetricsByRegion("北京");
+        List<SystemMetrics> result = apiController.getMetricsByRegion("北京", null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("北京", result.get(0).getRegion());
-        verify(systemMetricsService, times(1)).getMetricsByRegion("北京");
+        verify(systemMetricsService, times(1)).getMetricsPageByRegion("北京", null, 100);
     }
 
     @Test
@@ -133,16 +257,86 @@ class ApiControllerTest {
     void testGetMetricsByServiceType() {
         // Given
         List<SystemMetrics> metrics = Arrays.asList(testMetric);
-        when(systemMetricsService.getMetricsByServiceType("Web服务")).thenReturn(metrics);
+        when(systemMetricsService.getMetricsPageByServiceType("Web服务", null, 100)).thenReturn(new CursorPage<>(metrics, null));
 
         // When
-        List<SystemMetrics> result = apiController.getMetricsByServiceType("Web服务");
+        List<SystemMetrics> result = apiController.getMetricsByServiceType("Web服务", null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Web服务", result.get(0).getServiceType());
-        verify(systemMetricsService, times(1)).getMetricsByServiceType("Web服务");
+        verify(systemMetricsService, times(1)).getMetricsPageByServiceType("Web服务", null, 100);
+    }
+
+    @Test
+    @DisplayName("测试获取数据库聚合指标")
+    void testGetMetricsAggregate() {
+        // Given
+        MetricsAggregate.ColumnStats stats = new MetricsAggregate.ColumnStats(10.0, 30.0, 20.0, 40.0, 2);
+        MetricsAggregate aggregate = new MetricsAggregate(LocalDateTime.now(), "server-01", 2,
+            stats, stats, stats, stats, stats, stats);
+        when(systemMetricsService.getMetricsAggregate(60, 60, MetricsGroupBy.SERVER)).thenReturn(List.of(aggregate));
+
+        // When
+        List<MetricsAggregate> result = apiController.getMetricsAggregate(60, 60, MetricsGroupBy.SERVER);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("server-01", result.get(0).groupKey());
+        assertEquals(20.0, result.get(0).cpuUsage().avg());
+        verify(systemMetricsService, times(1)).getMetricsAggregate(60, 60, MetricsGroupBy.SERVER);
+    }
+
+    @Test
+    @DisplayName("测试获取维度分布")
+    void testGetMetricsDistribution() {
+        // Given
+        DistributionEntry entry = new DistributionEntry("北京", 10, 65.5, 55.2, 2.1);
+        when(systemMetricsService.getMetricsDistribution(MetricsGroupBy.REGION, 5, 8)).thenReturn(List.of(entry));
+
+        // When
+        List<DistributionEntry> result = apiController.getMetricsDistribution("region", 5, 8);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("北京", result.get(0).key());
+        verify(systemMetricsService, times(1)).getMetricsDistribution(MetricsGroupBy.REGION, 5, 8);
+    }
+
+    @Test
+    @DisplayName("测试获取Top-K服务器")
+    void testGetTopServers() {
+        // Given
+        List<TopServerEntry> top = List.of(new TopServerEntry("server-01", 3.5, 4.0, 12, LocalDateTime.now()));
+        when(systemMetricsService.getTopServers(TopMetric.LOAD, 20, "5m")).thenReturn(top);
+
+        // When
+        List<TopServerEntry> result = apiController.getTopServers("load", 20, "5m");
+
+        // Then
+        assertEquals(top, result);
+        verify(systemMetricsService, times(1)).getTopServers(TopMetric.LOAD, 20, "5m");
+    }
+
+    @Test
+    @DisplayName("测试获取分位数")
+    void testGetMetricsPercentiles() {
+        // Given
+        PercentileSnapshot.ColumnPercentiles stats = new PercentileSnapshot.ColumnPercentiles(20.0, 80.0, 95.0, 99.0);
+        PercentileSnapshot snapshot = new PercentileSnapshot(LocalDateTime.now(), null, 10, stats, stats, stats, stats, stats);
+        when(systemMetricsService.getMetricsPercentiles(60, MetricsGroupBy.NONE, null, 50)).thenReturn(List.of(snapshot));
+        when(systemMetricsService.getMetricsPercentileSeries(60, MetricsGroupBy.SERVER, "server-01")).thenReturn(List.of(snapshot));
+
+        // When
+        List<PercentileSnapshot> summary = apiController.getMetricsPercentiles(60, MetricsGroupBy.NONE, null, 50);
+        List<PercentileSnapshot> series = apiController.getMetricsPercentileSeries(60, MetricsGroupBy.SERVER, "server-01");
+
+        // Then
+        assertEquals(80.0, summary.get(0).cpuUsage().p95());
+        assertEquals(1, series.size());
+        verify(systemMetricsService, times(1)).getMetricsPercentiles(60, MetricsGroupBy.NONE, null, 50);
+        verify(systemMetricsService, times(1)).getMetricsPercentileSeries(60, MetricsGroupBy.SERVER, "server-01");
     }
 
     @Test
@@ -186,52 +380,52 @@ class ApiControllerTest {
     @DisplayName("测试获取所有任务")
     void testGetAllTasks() {
         // Given
-        List<Task> tasks = Arrays.asList(testTask);
-        when(taskService.getAllTasks()).thenReturn(tasks);
+        List<TaskView> tasks = Arrays.asList(testTaskView);
+        when(taskService.getTasksPage(null, 100)).thenReturn(new CursorPage<>(tasks, null));
 
         // When
-        List<Task> result = apiController.getAllTasks();
+        List<TaskView> result = apiController.getAllTasks(null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("系统备份", result.get(0).getTaskName());
-        assertEquals("生产集群", result.get(0).getTargetCluster());
-        verify(taskService, times(1)).getAllTasks();
+        assertEquals("系统备份", result.get(0).taskName());
+        assertEquals("生产集群", result.get(0).targetCluster());
+        verify(taskService, times(1)).getTasksPage(null, 100);
     }
 
     @Test
     @DisplayName("测试根据状态获取任务")
     void testGetTasksByStatus() {
         // Given
-        List<Task> tasks = Arrays.asList(testTask);
-        when(taskService.getTasksByStatus(Task.TaskStatus.RUNNING)).thenReturn(tasks);
+        List<TaskView> tasks = Arrays.asList(testTaskView);
+        when(taskService.getTasksPageByStatus(Task.TaskStatus.RUNNING, null, 100)).thenReturn(new CursorPage<>(tasks, null));
 
         // When
-        List<Task> result = apiController.getTasksByStatus(Task.TaskStatus.RUNNING);
+        List<TaskView> result = apiController.getTasksByStatus(Task.TaskStatus.RUNNING, null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals(Task.TaskStatus.RUNNING, result.get(0).getStatus());
-        verify(taskService, times(1)).getTasksByStatus(Task.TaskStatus.RUNNING);
+        assertEquals(Task.TaskStatus.RUNNING, result.get(0).status());
+        verify(taskService, times(1)).getTasksPageByStatus(Task.TaskStatus.RUNNING, null, 100);
     }
 
     @Test
     @DisplayName("测试根据集群获取任务")
     void testGetTasksByCluster() {
         // Given
-        List<Task> tasks = Arrays.asList(testTask);
-        when(taskService.getTasksByCluster("生产集群")).thenReturn(tasks);
+        List<TaskView> tasks = Arrays.asList(testTaskView);
+        when(taskService.getTasksPageByCluster("生产集群", null, 100)).thenReturn(new CursorPage<>(tasks, null));
 
         // When
-        List<Task> result = apiController.getTasksByCluster("生产集群");
+        List<TaskView> result = apiController.getTasksByCluster("生产集群", null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("生产集群", result.get(0).getTargetCluster());
-        verify(taskService, times(1)).getTasksByCluster("生产集群");
+        assertEquals("生产集群", result.get(0).targetCluster());
+        verify(taskService, times(1)).getTasksPageByCluster("生产集群", null, 100);
     }
 
     @Test
@@ -318,69 +512,69 @@ class ApiControllerTest {
     @DisplayName("测试获取所有告警")
     void testGetAllAlerts() {
         // Given
-        List<Alert> alerts = Arrays.asList(testAlert);
-        when(alertService.getAllAlerts()).thenReturn(alerts);
+        List<AlertView> alerts = Arrays.asList(testAlertView);
+        when(alertService.getAlertsPage(null, 100)).thenReturn(new CursorPage<>(alerts, null));
 
         // When
-        List<Alert> result = apiController.getAllAlerts();
+        List<AlertView> result = apiController.getAllAlerts(null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("server-01", result.get(0).getSource());
-        assertEquals(Alert.AlertSeverity.HIGH, result.get(0).getSeverity());
-        verify(alertService, times(1)).getAllAlerts();
+        assertEquals("server-01", result.get(0).source());
+        assertEquals(Alert.AlertSeverity.HIGH, result.get(0).severity());
+        verify(alertService, times(1)).getAlertsPage(null, 100);
     }
 
     @Test
     @DisplayName("测试获取未解决的告警")
     void testGetUnresolvedAlerts() {
         // Given
-        List<Alert> alerts = Arrays.asList(testAlert);
-        when(alertService.getUnresolvedAlerts()).thenReturn(alerts);
+        List<AlertView> alerts = Arrays.asList(testAlertView);
+        when(alertService.getUnresolvedAlertsPage(null, 100)).thenReturn(new CursorPage<>(alerts, null));
 
         // When
-        List<Alert> result = apiController.getUnresolvedAlerts();
+        List<AlertView> result = apiController.getUnresolvedAlerts(null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertFalse(result.get(0).getResolved());
-        verify(alertService, times(1)).getUnresolvedAlerts();
+        assertFalse(result.get(0).resolved());
+        verify(alertService, times(1)).getUnresolvedAlertsPage(null, 100);
     }
 
     @Test
     @DisplayName("测试根据来源获取告警")
     void testGetAlertsBySource() {
         // Given
-        List<Alert> alerts = Arrays.asList(testAlert);
-        when(alertService.getAlertsBySource("server-01")).thenReturn(alerts);
+        List<AlertView> alerts = Arrays.asList(testAlertView);
+        when(alertService.getAlertsPageBySource("server-01", null, 100)).thenReturn(new CursorPage<>(alerts, null));
 
         // When
-        List<Alert> result = apiController.getAlertsBySource("server-01");
+        List<AlertView> result = apiController.getAlertsBySource("server-01", null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals("server-01", result.get(0).getSource());
-        verify(alertService, times(1)).getAlertsBySource("server-01");
+        assertEquals("server-01", result.get(0).source());
+        verify(alertService, times(1)).getAlertsPageBySource("server-01", null, 100);
     }
 
     @Test
     @DisplayName("测试根据严重程度获取告警")
     void testGetAlertsBySeverity() {
         // Given
-        List<Alert> alerts = Arrays.asList(testAlert);
-        when(alertService.getAlertsBySeverity(Alert.AlertSeverity.HIGH)).thenReturn(alerts);
+        List<AlertView> alerts = Arrays.asList(testAlertView);
+        when(alertService.getAlertsPageBySeverity(Alert.AlertSeverity.HIGH, null, 100)).thenReturn(new CursorPage<>(alerts, null));
 
         // When
-        List<Alert> result = apiController.getAlertsBySeverity(Alert.AlertSeverity.HIGH);
+        List<AlertView> result = apiController.getAlertsBySeverity(Alert.AlertSeverity.HIGH, null, 100).items();
 
         // Then
         assertNotNull(result);
         assertEquals(1, result.size());
-        assertEquals(Alert.AlertSeverity.HIGH, result.get(0).getSeverity());
-        verify(alertService, times(1)).getAlertsBySeverity(Alert.AlertSeverity.HIGH);
+        assertEquals(Alert.AlertSeverity.HIGH, result.get(0).severity());
+        verify(alertService, times(1)).getAlertsPageBySeverity(Alert.AlertSeverity.HIGH, null, 100);
     }
 
     @Test
@@ -414,6 +608,73 @@ class ApiControllerTest {
         verify(alertService, times(1)).resolveAlert(1L);
     }
 
+    @Test
+    @DisplayName("测试创建告警 - 超出限流速率")
+    void testCreateAlertRateLimited() {
+        // Given - 被限流时服务返回null
+        when(alertService.createAlert("test-source", Alert.AlertSeverity.MEDIUM, "测试告警")).thenReturn(null);
+
+        // When & Then
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+            () -> apiController.createAlert("test-source", Alert.AlertSeverity.MEDIUM, "测试告警"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, e.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("测试获取告警限流统计")
+    void testGetAlertRateLimitStats() {
+        // Given
+        RateLimitStats stats = new RateLimitStats(120L, 30L, 4, 10000, 20, 30.0);
+        when(alertRateLimiter.getStats()).thenReturn(stats);
+
+        // When
+        RateLimitStats result = apiController.getAlertRateLimitStats();
+
+        // Then
+        assertSame(stats, result);
+        verify(alertRateLimiter, times(1)).getStats();
+    }
+
+    @Test
+    @DisplayName("测试按来源批量解决告警并推送汇总事件")
+    void testResolveAlertsBySource() {
+        // Given
+        AlertService.BulkResolveResult resolved = new AlertService.BulkResolveResult(2L);
+        when(alertService.resolveAlertsBySource("server-01")).thenReturn(resolved);
+
+        // When
+        AlertService.BulkResolveResult result = apiController.resolveAlerts(null, "server-01", null, null);
+
+        // Then
+        assertSame(resolved, result);
+        verify(webSocketController, times(1)).pushAlertsResolved(resolved);
+    }
+
+    @Test
+    @DisplayName("测试按时间批量解决告警 - 没有命中时不推送")
+    void testResolveAlertsOlderThanNothingResolved() {
+        // Given
+        when(alertService.resolveAlertsBefore(any())).thenReturn(new AlertService.BulkResolveResult(0L));
+
+        // When
+        AlertService.BulkResolveResult result = apiController.resolveAlerts(null, null, null, 30);
+
+        // Then
+        assertEquals(0L, result.getResolvedCount());
+        verify(webSocketController, never()).pushAlertsResolved(any());
+    }
+
+    @Test
+    @DisplayName("测试批量解决告警 - 条件个数不为1")
+    void testResolveAlertsInvalidCriteria() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> apiController.resolveAlerts(null, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> apiController.resolveAlerts(List.of(1L), null, Alert.AlertSeverity.HIGH, null));
+        assertThrows(IllegalArgumentException.class, () -> apiController.resolveAlerts(null, null, null, -1));
+        verifyNoInteractions(alertService);
+    }
+
     @Test
     @DisplayName("测试生成模拟告警")
     void testGenerateMockAlert() {
@@ -452,17 +713,53 @@ class ApiControllerTest {
         verify(alertService, times(1)).getAlertSummary();
     }
 
+    @Test
+    @DisplayName("测试获取告警规则及统计")
+    void testGetAlertRules() {
+        // Given
+        List<AlertRule> rules = List.of(AlertRule.parse("cpu > 85 for 60s HIGH"));
+        RuleEngineStats stats = new RuleEngineStats(1, 100L, 100L, 2L, 1);
+        when(alertRuleEngine.getRules()).thenReturn(rules);
+        when(alertRuleEngine.getStats()).thenReturn(stats);
+
+        // When
+        List<AlertRule> resultRules = apiController.getAlertRules();
+        RuleEngineStats resultStats = apiController.getAlertRuleStats();
+
+        // Then
+        assertEquals(rules, resultRules);
+        assertEquals(2L, resultStats.alertsRaised());
+        verify(alertRuleEngine, times(1)).getRules();
+        verify(alertRuleEngine, times(1)).getStats();
+    }
+
+    @Test
+    @DisplayName("测试获取查询缓存统计")
+    void testGetCacheStats() {
+        // Given
+        QueryCacheStats stats = new QueryCacheStats(90L, 10L, 0.9, 2L, 5L, 12, 256);
+        when(queryResultCache.getStats()).thenReturn(stats);
+
+        // When
+        QueryCacheStats result = apiController.getCacheStats();
+
+        // Then
+        assertEquals(0.9, result.hitRate());
+        assertEquals(12, result.size());
+        verify(queryResultCache, times(1)).getStats();
+    }
+
     @Test
     @DisplayName("测试空结果集")
     void testEmptyResults() {
         // Given
-        when(systemMetricsService.getAllMetrics()).thenReturn(Collections.emptyList());
-        when(taskService.getAllTasks()).thenReturn(Collections.emptyList());
-        when(alertService.getAllAlerts()).thenReturn(Collections.emptyList());
+        when(systemMetricsService.getMetricsPage(null, 100)).thenReturn(new CursorPage<>(Collections.emptyList(), null));
+        when(taskService.getTasksPage(null, 100)).thenReturn(new CursorPage<>(Collections.emptyList(), null));
+        when(alertService.getAlertsPage(null, 100)).thenReturn(new CursorPage<>(Collections.emptyList(), null));
 
         // When & Then
-        assertTrue(apiController.getAllMetrics().isEmpty());
-        assertTrue(apiController.getAllTasks().isEmpty());
-        assertTrue(apiController.getAllAlerts().isEmpty());
+        assertTrue(apiController.getAllMetrics(null, 100).items().isEmpty());
+        assertTrue(apiController.getAllTasks(null, 100).items().isEmpty());
+        assertTrue(apiController.getAllAlerts(null, 100).items().isEmpty());
     }
 }
\ No newline at end of file
@@ -3,9 +3,14 @@ package com.bub6le.systemmonitoring.controller;
 import com.bub6le.systemmonitoring.model.Alert;
 import com.bub6le.systemmonitoring.model.SystemMetrics;
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.view.AlertView;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
 import com.bub6le.systemmonitoring.service.AlertService;
 import com.bub6le.systemmonitoring.service.SystemMetricsService;
 import com.bub6le.systemmonitoring.service.TaskService;
+import com.bub6le.systemmonitoring.store.topk.TopMetric;
+import com.bub6le.systemmonitoring.store.topk.TopServerEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -15,6 +20,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -43,6 +49,8 @@ class WebSocketControllerTest {
     private SystemMetrics testMetric;
     private Task testTask;
     private Alert testAlert;
+    private TaskView testTaskView;
+    private AlertView testAlertView;
 
     @BeforeEach
     void setUp() {
@@ -60,6 +68,11 @@ class WebSocketControllerTest {
         testAlert = new Alert("server-01", Alert.AlertSeverity.HIGH, "CPU使用率过高");
         testAlert.setId(1L);
         testAlert.setResolved(false);
+
+        testTaskView = new TaskView(1L, "系统备份", "生产集群", Task.TaskStatus.RUNNING, 50,
+            testTask.getCreatedTime(), testTask.getUpdatedTime());
+        testAlertView = new AlertView(1L, "server-01", Alert.AlertSeverity.HIGH, "CPU使用率过高",
+            testAlert.getTimestamp(), false, 1L, testAlert.getTimestamp());
         
         // 使用反射设置messagingTemplate字段，因为它是@Autowired的
         try {
@@ -134,22 +147,39 @@ class WebSocketControllerTest {
         verify(messagingTemplate, times(1)).convertAndSend("/topic/health", healthStatus);
     }
 
+    @Test
+    @DisplayName("测试推送Top-K服务器")
+    void testPushTopServers() {
+        // Given
+        List<TopServerEntry> topCpu = List.of(new TopServerEntry("server-01", 92.0, 99.0, 60, LocalDateTime.now()));
+        List<TopServerEntry> topLoad = List.of(new TopServerEntry("server-02", 7.5, 9.0, 60, LocalDateTime.now()));
+        when(systemMetricsService.getTopServers(TopMetric.CPU, 20, "5m")).thenReturn(topCpu);
+        when(systemMetricsService.getTopServers(TopMetric.LOAD, 20, "5m")).thenReturn(topLoad);
+
+        // When
+        webSocketController.pushTopServers();
+
+        // Then
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/top-servers/cpu", topCpu);
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/top-servers/load", topLoad);
+    }
+
     @Test
     @DisplayName("测试推送任务数据")
     void testPushTasks() {
         // Given
-        List<Task> tasks = Arrays.asList(testTask);
+        List<TaskView> tasks = Arrays.asList(testTaskView);
         TaskService.TaskStatusSummary summary =
             new TaskService.TaskStatusSummary(5L, 3L, 2L, 10L);
         
-        when(taskService.getAllTasks()).thenReturn(tasks);
+        when(taskService.getRecentTaskViews(10)).thenReturn(tasks);
         when(taskService.getTaskStatusSummary()).thenReturn(summary);
 
         // When
         webSocketController.pushTasks();
 
         // Then
-        verify(taskService, times(1)).getAllTasks();
+        verify(taskService, times(1)).getRecentTaskViews(10);
         verify(taskService, times(1)).getTaskStatusSummary();
         verify(messagingTemplate, times(1)).convertAndSend("/topic/tasks", tasks);
         verify(messagingTemplate, times(1)).convertAndSend("/topic/task-summary", summary);
@@ -159,23 +189,37 @@ class WebSocketControllerTest {
     @DisplayName("测试推送告警数据")
     void testPushAlerts() {
         // Given
-        List<Alert> alerts = Arrays.asList(testAlert);
+        List<AlertView> alerts = Arrays.asList(testAlertView);
         AlertService.AlertSummary summary =
             new AlertService.AlertSummary(10L, 4L, 3L, 2L, 1L);
         
-        when(alertService.getUnresolvedAlerts()).thenReturn(alerts);
+        when(alertService.getUnresolvedAlertsPage(null, 10)).thenReturn(new CursorPage<>(alerts, null));
         when(alertService.getAlertSummary()).thenReturn(summary);
 
         // When
         webSocketController.pushAlerts();
 
         // Then
-        verify(alertService, times(1)).getUnresolvedAlerts();
+        verify(alertService, times(1)).getUnresolvedAlertsPage(null, 10);
         verify(alertService, times(1)).getAlertSummary();
         verify(messagingTemplate, times(1)).convertAndSend("/topic/alerts", alerts);
         verify(messagingTemplate, times(1)).convertAndSend("/topic/alert-summary", summary);
     }
 
+    @Test
+    @DisplayName("测试推送批量解决告警事件")
+    void testPushAlertsResolved() {
+        // Given
+        AlertService.BulkResolveResult result = new AlertService.BulkResolveResult(3L);
+
+        // When
+        webSocketController.pushAlertsResolved(result);
+
+        // Then - 只推送一条汇总事件
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/alerts-resolved", result);
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
     @Test
     @DisplayName("测试推送空数据")
     void testPushEmptyData() {
@@ -183,10 +227,10 @@ class WebSocketControllerTest {
         when(systemMetricsService.getRecentMetrics(5)).thenReturn(Collections.emptyList());
         when(systemMetricsService.getSystemHealthStatus()).thenReturn(
             new SystemMetricsService.SystemHealthStatus("健康", 0.0, 0.0, 0.0, 0));
-        when(taskService.getAllTasks()).thenReturn(Collections.emptyList());
+        when(taskService.getRecentTaskViews(10)).thenReturn(Collections.emptyList());
         when(taskService.getTaskStatusSummary()).thenReturn(
             new TaskService.TaskStatusSummary(0L, 0L, 0L, 0L));
-        when(alertService.getUnresolvedAlerts()).thenReturn(Collections.emptyList());
+        when(alertService.getUnresolvedAlertsPage(null, 10)).thenReturn(new CursorPage<>(Collections.emptyList(), null));
         when(alertService.getAlertSummary()).thenReturn(
             new AlertService.AlertSummary(0L, 0L, 0L, 0L, 0L));
 
@@ -197,8 +241,8 @@ class WebSocketControllerTest {
 
         // Then
         verify(systemMetricsService, times(1)).getRecentMetrics(5);
-        verify(taskService, times(1)).getAllTasks();
-        verify(alertService, times(1)).getUnresolvedAlerts();
+        verify(taskService, times(1)).getRecentTaskViews(10);
+        verify(alertService, times(1)).getUnresolvedAlertsPage(null, 10);
         verify(messagingTemplate, never()).convertAndSend(eq("/topic/metrics"), any(Object.class));
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/health"), any(Object.class));
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/tasks"), any(Object.class));
@@ -242,7 +286,7 @@ class WebSocketControllerTest {
         TaskService.TaskStatusSummary summary =
             new TaskService.TaskStatusSummary(0L, 1L, 0L, 5L);
         
-        when(taskService.getAllTasks()).thenReturn(Arrays.asList(testTask));
+        when(taskService.getRecentTaskViews(10)).thenReturn(Arrays.asList(testTaskView));
         when(taskService.getTaskStatusSummary()).thenReturn(summary);
 
         // When
@@ -260,7 +304,7 @@ class WebSocketControllerTest {
         AlertService.AlertSummary summary =
             new AlertService.AlertSummary(0L, 0L, 0L, 0L, 0L);
         
-        when(alertService.getUnresolvedAlerts()).thenReturn(Collections.emptyList());
+        when(alertService.getUnresolvedAlertsPage(null, 10)).thenReturn(new CursorPage<>(Collections.emptyList(), null));
         when(alertService.getAlertSummary()).thenReturn(summary);
 
         // When
@@ -0,0 +1,119 @@
+package com.bub6le.systemmonitoring.ingest;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.MetricsIngestService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BinaryIngestServerTest {
+
+    @Mock
+    private MetricsIngestService metricsIngestService;
+
+    @InjectMocks
+    private BinaryIngestServer binaryIngestServer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(binaryIngestServer, "enabled", true);
+        ReflectionTestUtils.setField(binaryIngestServer, "tcpPort", 0);
+        ReflectionTestUtils.setField(binaryIngestServer, "udpPort", 0);
+        ReflectionTestUtils.setField(binaryIngestServer, "bufferSize", 1024);
+        binaryIngestServer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        binaryIngestServer.stop();
+    }
+
+    private SystemMetrics newMetric(String serverName) {
+        return new SystemMetrics(serverName, 50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+    }
+
+    @Test
+    @DisplayName("测试TCP连接上连续的帧以及跨读取边界的帧")
+    void testTcpFrames() throws IOException {
+        // Given
+        when(metricsIngestService.submit(any())).thenReturn(true);
+        ByteBuffer out = ByteBuffer.allocate(4096);
+        for (int i = 0; i < 20; i++) {
+            MetricsFrameCodec.encode(newMetric("server-" + i), out);
+        }
+        out.flip();
+
+        // When - 分两次写入，第二部分从帧中间开始
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", binaryIngestServer.getTcpPort()))) {
+            ByteBuffer first = out.duplicate();
+            first.limit(out.limit() / 2 + 3);
+            while (first.hasRemaining()) {
+                channel.write(first);
+            }
+            out.position(first.limit());
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+
+            // Then
+            verify(metricsIngestService, timeout(2000).times(20)).submit(any(SystemMetrics.class));
+        }
+        verify(metricsIngestService).submit(argThat(m -> m != null && "server-19".equals(m.getServerName())));
+        assertEquals(20, binaryIngestServer.getBinaryIngestStats().getAcceptedFrames());
+    }
+
+    @Test
+    @DisplayName("测试UDP报文中的多个帧")
+    void testUdpDatagram() throws IOException {
+        // Given
+        when(metricsIngestService.submit(any())).thenReturn(true);
+        ByteBuffer out = ByteBuffer.allocate(1024);
+        MetricsFrameCodec.encode(newMetric("server-01"), out);
+        MetricsFrameCodec.encode(newMetric("server-02"), out);
+        out.flip();
+
+        // When
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.send(out, new InetSocketAddress("localhost", binaryIngestServer.getUdpPort()));
+        }
+
+        // Then
+        verify(metricsIngestService, timeout(2000).times(2)).submit(any(SystemMetrics.class));
+    }
+
+    @Test
+    @DisplayName("测试帧长度不合法时断开连接")
+    void testInvalidFrameLength() throws IOException {
+        // Given
+        ByteBuffer out = ByteBuffer.allocate(8);
+        out.putInt(Integer.MAX_VALUE).putInt(0).flip();
+
+        // When
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", binaryIngestServer.getTcpPort()))) {
+            channel.write(out);
+
+            // Then - 服务端关闭后读到流结束
+            channel.socket().setSoTimeout(2000);
+            assertEquals(-1, channel.socket().getInputStream().read());
+        }
+        assertEquals(1, binaryIngestServer.getBinaryIngestStats().getRejectedFrames());
+        verify(metricsIngestService, never()).submit(any());
+    }
+}
@@ -0,0 +1,122 @@
+package com.bub6le.systemmonitoring.ingest;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsFrameCodecTest {
+
+    private MetricsFrameCodec codec;
+    private ByteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        codec = new MetricsFrameCodec();
+        buffer = ByteBuffer.allocateDirect(4096);
+    }
+
+    private SystemMetrics newMetric(String serverName) {
+        SystemMetrics metrics = new SystemMetrics(serverName, 75.5, 60.2, null, 500.0, 250.0, 2.5, "北京", "Web服务");
+        metrics.setTimestamp(LocalDateTime.of(2026, 1, 1, 12, 0, 0, 250_000_000));
+        return metrics;
+    }
+
+    private SystemMetrics decodeNext() {
+        int length = buffer.getInt();
+        return codec.decode(buffer, buffer.position() + length);
+    }
+
+    @Test
+    @DisplayName("测试编码后解码得到相同样本")
+    void testRoundTrip() {
+        // Given
+        MetricsFrameCodec.encode(newMetric("server-01"), buffer);
+        buffer.flip();
+
+        // When
+        SystemMetrics decoded = decodeNext();
+
+        // Then
+        assertNotNull(decoded);
+        assertEquals("server-01", decoded.getServerName());
+        assertEquals(75.5, decoded.getCpuUsage());
+        assertNull(decoded.getDiskUsage());
+        assertEquals("北京", decoded.getRegion());
+        assertEquals("Web服务", decoded.getServiceType());
+        assertEquals(LocalDateTime.of(2026, 1, 1, 12, 0, 0, 250_000_000), decoded.getTimestamp());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    @DisplayName("测试重复的维度字符串复用同一实例")
+    void testStringCache() {
+        // Given
+        MetricsFrameCodec.encode(newMetric("server-01"), buffer);
+        MetricsFrameCodec.encode(newMetric("server-01"), buffer);
+        buffer.flip();
+
+        // When
+        SystemMetrics first = decodeNext();
+        SystemMetrics second = decodeNext();
+
+        // Then
+        assertSame(first.getServerName(), second.getServerName());
+        assertSame(first.getRegion(), second.getRegion());
+    }
+
+    @Test
+    @DisplayName("测试时间戳为0时使用接收时间")
+    void testDefaultTimestamp() {
+        // Given
+        SystemMetrics metrics = newMetric("server-01");
+        metrics.setTimestamp(null);
+        MetricsFrameCodec.encode(metrics, buffer);
+        buffer.flip();
+
+        // When
+        LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+        SystemMetrics decoded = decodeNext();
+
+        // Then
+        assertTrue(decoded.getTimestamp().isAfter(before));
+    }
+
+    @Test
+    @DisplayName("测试字符串越过帧边界时拒绝并跳到帧尾")
+    void testMalformedFrame() {
+        // Given - 声明的服务器名长度超过帧长度
+        MetricsFrameCodec.encode(newMetric("server-01"), buffer);
+        int serverNameOffset = 4 + MetricsFrameCodec.MIN_FRAME_SIZE - 3 * 2;
+        buffer.putShort(serverNameOffset, (short) 1000);
+        int end = buffer.position();
+        buffer.flip();
+
+        // When
+        SystemMetrics decoded = decodeNext();
+
+        // Then
+        assertNull(decoded);
+        assertEquals(end, buffer.position());
+    }
+
+    @Test
+    @DisplayName("测试拒绝未知版本和空服务器名")
+    void testRejectInvalid() {
+        // Given
+        MetricsFrameCodec.encode(newMetric(null), buffer);
+        int secondFrame = buffer.position();
+        MetricsFrameCodec.encode(newMetric("server-01"), buffer);
+        buffer.put(secondFrame + 4, (byte) 9);
+        buffer.flip();
+
+        // When / Then
+        assertNull(decodeNext());
+        assertNull(decodeNext());
+    }
+}
@@ -4,6 +4,9 @@ import com.bub6le.systemmonitoring.controller.WebSocketController;
 import com.bub6le.systemmonitoring.model.Alert;
 import com.bub6le.systemmonitoring.model.SystemMetrics;
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.view.AlertView;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
 import com.bub6le.systemmonitoring.service.AlertService;
 import com.bub6le.systemmonitoring.service.SystemMetricsService;
 import com.bub6le.systemmonitoring.service.TaskService;
@@ -48,6 +51,8 @@ class WebSocketIntegrationTest {
     private SystemMetrics testMetric;
     private Task testTask;
     private Alert testAlert;
+    private TaskView testTaskView;
+    private AlertView testAlertView;
 
     @BeforeEach
     void setUp() {
@@ -65,6 +70,11 @@ class WebSocketIntegrationTest {
         testAlert = new Alert("server-01", Alert.AlertSeverity.HIGH, "CPU使用率过高");
         testAlert.setId(1L);
         testAlert.setResolved(false);
+
+        testTaskView = new TaskView(1L, "系统备份", "生产集群", Task.TaskStatus.RUNNING, 50,
+            testTask.getCreatedTime(), testTask.getUpdatedTime());
+        testAlertView = new AlertView(1L, "server-01", Alert.AlertSeverity.HIGH, "CPU使用率过高",
+            testAlert.getTimestamp(), false, 1L, testAlert.getTimestamp());
         
         // 使用反射设置messagingTemplate字段
         try {
@@ -116,48 +126,48 @@ class WebSocketIntegrationTest {
     @DisplayName("测试任务数据推送")
     void testTaskDataPush() {
         // Given
-        List<Task> tasks = Arrays.asList(testTask);
+        List<TaskView> tasks = Arrays.asList(testTaskView);
         TaskService.TaskStatusSummary summary = 
             new TaskService.TaskStatusSummary(5L, 3L, 2L, 10L);
         
-        when(taskService.getAllTasks()).thenReturn(tasks);
+        when(taskService.getRecentTaskViews(10)).thenReturn(tasks);
         when(taskService.getTaskStatusSummary()).thenReturn(summary);
 
         // When
         webSocketController.pushTasks();
 
         // Then
-        verify(taskService, times(1)).getAllTasks();
+        verify(taskService, times(1)).getRecentTaskViews(10);
         verify(taskService, times(1)).getTaskStatusSummary();
         
         // 验证任务数据完整性
         assertEquals(1, tasks.size());
-        assertEquals("系统备份", tasks.get(0).getTaskName());
-        assertEquals(Task.TaskStatus.RUNNING, tasks.get(0).getStatus());
+        assertEquals("系统备份", tasks.get(0).taskName());
+        assertEquals(Task.TaskStatus.RUNNING, tasks.get(0).status());
     }
 
     @Test
     @DisplayName("测试告警数据推送")
     void testAlertDataPush() {
         // Given
-        List<Alert> alerts = Arrays.asList(testAlert);
+        List<AlertView> alerts = Arrays.asList(testAlertView);
         AlertService.AlertSummary summary = 
             new AlertService.AlertSummary(10L, 4L, 3L, 2L, 1L);
         
-        when(alertService.getUnresolvedAlerts()).thenReturn(alerts);
+        when(alertService.getUnresolvedAlertsPage(null, 10)).thenReturn(new CursorPage<>(alerts, null));
         when(alertService.getAlertSummary()).thenReturn(summary);
 
         // When
         webSocketController.pushAlerts();
 
         // Then
-        verify(alertService, times(1)).getUnresolvedAlerts();
+        verify(alertService, times(1)).getUnresolvedAlertsPage(null, 10);
         verify(alertService, times(1)).getAlertSummary();
         
         // 验证告警数据完整性
         assertEquals(1, alerts.size());
-        assertEquals(Alert.AlertSeverity.HIGH, alerts.get(0).getSeverity());
-        assertFalse(alerts.get(0).getResolved());
+        assertEquals(Alert.AlertSeverity.HIGH, alerts.get(0).severity());
+        assertFalse(alerts.get(0).resolved());
     }
 
     @Test
@@ -213,8 +223,8 @@ class WebSocketIntegrationTest {
     void testConcurrentDataPush() throws InterruptedException {
         // Given
         when(systemMetricsService.getRecentMetrics(5)).thenReturn(Arrays.asList(testMetric));
-        when(taskService.getAllTasks()).thenReturn(Arrays.asList(testTask));
-        when(alertService.getUnresolvedAlerts()).thenReturn(Arrays.asList(testAlert));
+        when(taskService.getRecentTaskViews(10)).thenReturn(Arrays.asList(testTaskView));
+        when(alertService.getUnresolvedAlertsPage(null, 10)).thenReturn(new CursorPage<>(Arrays.asList(testAlertView), null));
 
         // When - 模拟并发推送
         Thread metricsThread = new Thread(() -> webSocketController.pushSystemMetrics());
@@ -232,7 +242,7 @@ class WebSocketIntegrationTest {
 
         // Then
         verify(systemMetricsService, times(1)).getRecentMetrics(5);
-        verify(taskService, times(1)).getAllTasks();
-        verify(alertService, times(1)).getUnresolvedAlerts();
+        verify(taskService, times(1)).getRecentTaskViews(10);
+        verify(alertService, times(1)).getUnresolvedAlertsPage(null, 10);
     }
 }
\ No newline at end of file
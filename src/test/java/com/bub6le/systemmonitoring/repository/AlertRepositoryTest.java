@@ -1,17 +1,21 @@
 package com.bub6le.systemmonitoring.repository;
 
 import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.repository.view.AlertView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -252,6 +256,26 @@ class AlertRepositoryTest {
         assertEquals(Long.valueOf(4), result);
     }
 
+    @Test
+    @DisplayName("测试按严重级别分组统计未解决告警")
+    void testCountUnresolvedBySeverity() {
+        // Given
+        alertRepository.save(testAlert1); // LOW, unresolved
+        alertRepository.save(testAlert2); // MEDIUM, unresolved
+        alertRepository.save(testAlert4); // CRITICAL, unresolved
+        alertRepository.save(testAlert5); // LOW, resolved
+
+        // When
+        List<AlertRepository.SeverityCount> result = alertRepository.countUnresolvedBySeverity();
+
+        // Then - 没有未解决告警的级别不出现在结果中
+        assertEquals(3, result.size());
+        for (AlertRepository.SeverityCount row : result) {
+            assertEquals(Long.valueOf(1), row.getAlertCount());
+            assertNotEquals(Alert.AlertSeverity.HIGH, row.getSeverity());
+        }
+    }
+
     @Test
     @DisplayName("测试查找不存在的来源")
     void testFindByNonExistentSource() {
@@ -428,4 +452,105 @@ class AlertRepositoryTest {
         assertTrue(unresolvedAlerts.isEmpty());
         assertEquals(Long.valueOf(0), unresolvedCount);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("测试告警键集分页")
+    void testFindPage() {
+        // Given
+        alertRepository.saveAll(List.of(testAlert1, testAlert2, testAlert3, testAlert4, testAlert5));
+        PageCursor first = PageCursor.first();
+
+        // When
+        List<AlertView> firstPage = alertRepository.findPage(first.timestamp(), first.id(), Limit.of(2));
+        AlertView last = firstPage.get(firstPage.size() - 1);
+        List<AlertView> secondPage = alertRepository.findPage(last.timestamp(), last.id(), Limit.of(10));
+        List<AlertView> unresolved = alertRepository.findUnresolvedPage(first.timestamp(), first.id(), Limit.of(10));
+        List<AlertView> low = alertRepository.findPageBySeverity(Alert.AlertSeverity.LOW, first.timestamp(), first.id(), Limit.of(10));
+        List<AlertView> server03 = alertRepository.findPageBySource("server-03", first.timestamp(), first.id(), Limit.of(10));
+
+        // Then
+        assertEquals(List.of("server-05", "server-04"), firstPage.stream().map(AlertView::source).toList());
+        assertEquals(List.of("server-03", "server-02", "server-01"), secondPage.stream().map(AlertView::source).toList());
+        assertEquals(4, unresolved.size());
+        assertEquals("server-04", unresolved.get(0).source());
+        assertEquals(List.of("server-05", "server-01"), low.stream().map(AlertView::source).toList());
+        assertEquals(1, server03.size());
+    }
+
+    @Test
+    @DisplayName("测试按指纹查找未解决告警并写回出现次数")
+    void testFingerprintLookupAndUpdateOccurrences() {
+        // Given
+        testAlert3.setResolved(true);
+        Alert resolved = alertRepository.save(testAlert3);
+        Alert duplicate = new Alert("server-03", Alert.AlertSeverity.HIGH, "磁盘空间即将耗尽");
+        Alert open = alertRepository.save(duplicate);
+        LocalDateTime lastSeen = baseTime.plusMinutes(30);
+
+        // When
+        Alert found = alertRepository.findFirstBySourceAndSeverityAndMessageAndResolvedFalseOrderByIdDesc(
+            "server-03", Alert.AlertSeverity.HIGH, "磁盘空间即将耗尽");
+        int updated = alertRepository.updateOccurrences(open.getId(), 5L, lastSeen);
+        int updatedResolved = alertRepository.updateOccurrences(resolved.getId(), 5L, lastSeen);
+
+        // Then - 已解决的行不参与合并
+        assertEquals(open.getId(), found.getId());
+        assertEquals(1, updated);
+        assertEquals(0, updatedResolved);
+        // 定时生成的模拟告警可能同时写入，按id取出本测试的行
+        AlertView updatedView = alertRepository.findUnresolvedPage(PageCursor.first().timestamp(), PageCursor.first().id(), Limit.of(100))
+            .stream().filter(view -> view.id().equals(open.getId())).findFirst().orElseThrow();
+        assertEquals(5L, updatedView.occurrenceCount());
+        assertEquals(lastSeen, updatedView.lastSeen());
+    }
+
+    @Test
+    @DisplayName("测试批量解决前按严重级别分组计数")
+    void testCountUnresolvedForBulkResolve() {
+        // Given
+        alertRepository.saveAll(List.of(testAlert1, testAlert2, testAlert3, testAlert4, testAlert5));
+
+        // When
+        Map<Alert.AlertSeverity, Long> byIds = toMap(alertRepository.countUnresolvedByIdIn(List.of(
+            testAlert1.getId(), testAlert2.getId(), testAlert3.getId(), testAlert4.getId(), testAlert5.getId())));
+        Map<Alert.AlertSeverity, Long> byIdsResolved = toMap(alertRepository.countUnresolvedByIdIn(List.of(testAlert5.getId())));
+
+        // Then - 已解决的告警不计入
+        assertEquals(Map.of(Alert.AlertSeverity.LOW, 1L, Alert.AlertSeverity.MEDIUM, 1L,
+            Alert.AlertSeverity.HIGH, 1L, Alert.AlertSeverity.CRITICAL, 1L), byIds);
+        assertTrue(byIdsResolved.isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试按id和按条件的集合UPDATE只解决未解决的告警")
+    void testResolveByIdInAndCriteria() {
+        // Given
+        alertRepository.saveAll(List.of(testAlert1, testAlert2, testAlert3, testAlert4, testAlert5));
+        List<Long> savedIds = List.of(testAlert1.getId(), testAlert2.getId(), testAlert3.getId(),
+            testAlert4.getId(), testAlert5.getId());
+
+        // When - 已解决的告警不计入更新行数
+        int byIds = alertRepository.resolveByIdIn(List.of(testAlert1.getId(), testAlert2.getId(), testAlert5.getId()));
+        long sourceExpected = count(alertRepository.countUnresolvedBySource("server-03"));
+        int bySource = alertRepository.resolveBySource("server-03");
+        long severityExpected = count(alertRepository.countUnresolvedWithSeverity(Alert.AlertSeverity.CRITICAL));
+        int bySeverity = alertRepository.resolveBySeverity(Alert.AlertSeverity.CRITICAL);
+        int before = alertRepository.resolveBefore(baseTime.minusDays(1));
+
+        // Then - 定时生成的模拟告警可能同时写入，行数与同一时刻的计数比较
+        assertEquals(2, byIds);
+        assertEquals(sourceExpected, bySource);
+        assertEquals(severityExpected, bySeverity);
+        assertEquals(0, before);
+        assertTrue(toMap(alertRepository.countUnresolvedByIdIn(savedIds)).isEmpty());
+    }
+
+    private static Map<Alert.AlertSeverity, Long> toMap(List<AlertRepository.SeverityCount> rows) {
+        return rows.stream().collect(Collectors.toMap(AlertRepository.SeverityCount::getSeverity,
+            AlertRepository.SeverityCount::getAlertCount));
+    }
+
+    private static long count(List<AlertRepository.SeverityCount> rows) {
+        return rows.stream().mapToLong(AlertRepository.SeverityCount::getAlertCount).sum();
+    }
+}
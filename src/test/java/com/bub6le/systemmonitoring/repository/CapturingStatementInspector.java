@@ -0,0 +1,33 @@
+package com.bub6le.systemmonitoring.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 记录当前线程上Hibernate生成的SQL，供查询计划测试对真实语句执行EXPLAIN。
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    static void start() {
+        CAPTURED.set(new ArrayList<>());
+    }
+
+    static List<String> stop() {
+        List<String> statements = CAPTURED.get();
+        CAPTURED.remove();
+        return statements != null ? statements : new ArrayList<>();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = CAPTURED.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
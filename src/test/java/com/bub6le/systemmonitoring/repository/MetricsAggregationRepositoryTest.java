@@ -0,0 +1,129 @@
+package com.bub6le.systemmonitoring.repository;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MetricsAggregationRepositoryTest {
+
+    @Autowired
+    private MetricsAggregationRepository metricsAggregationRepository;
+
+    @Autowired
+    private MetricsPartitionManager metricsPartitionManager;
+
+    @Autowired
+    private SystemMetricsRepository systemMetricsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        systemMetricsRepository.deleteAll();
+        // 对齐到整点，保证按分钟分桶的边界确定
+        baseTime = LocalDateTime.now().minusHours(2).withMinute(0).withSecond(0).withNano(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (MetricsPartitionManager.PartitionInfo partition : metricsPartitionManager.getPartitions()) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.getName());
+        }
+    }
+
+    private void save(String serverName, String region, Double cpu, double load, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, load, region, "Web服务");
+        metrics.setTimestamp(timestamp);
+        systemMetricsRepository.save(metrics);
+    }
+
+    @Test
+    @DisplayName("测试整个时间范围聚合为一个桶")
+    void testAggregateWholeRange() {
+        // Given
+        save("server-01", "北京", 10.0, 1.0, baseTime.plusMinutes(1));
+        save("server-02", "上海", 30.0, 3.0, baseTime.plusMinutes(2));
+        save("server-03", "上海", null, 5.0, baseTime.plusMinutes(3));
+        save("server-04", "上海", 90.0, 9.0, baseTime.plusHours(1));
+
+        // When
+        List<MetricsAggregate> result = metricsAggregationRepository.aggregate(
+            baseTime, baseTime.plusMinutes(30), 0, MetricsGroupBy.NONE);
+
+        // Then - 空值不参与统计，范围之外的样本不计入
+        assertEquals(1, result.size());
+        MetricsAggregate aggregate = result.get(0);
+        assertEquals(baseTime, aggregate.bucketStart());
+        assertNull(aggregate.groupKey());
+        assertEquals(3, aggregate.count());
+        assertEquals(2, aggregate.cpuUsage().count());
+        assertEquals(20.0, aggregate.cpuUsage().avg(), 0.001);
+        assertEquals(10.0, aggregate.cpuUsage().min(), 0.001);
+        assertEquals(30.0, aggregate.cpuUsage().max(), 0.001);
+        assertEquals(9.0, aggregate.loadAverage().sum(), 0.001);
+    }
+
+    @Test
+    @DisplayName("测试按时间桶和维度分组")
+    void testAggregateByBucketAndRegion() {
+        // Given
+        save("server-01", "北京", 10.0, 1.0, baseTime.plusSeconds(10));
+        save("server-02", "北京", 20.0, 1.0, baseTime.plusSeconds(50));
+        save("server-03", "上海", 40.0, 1.0, baseTime.plusSeconds(20));
+        save("server-01", "北京", 60.0, 1.0, baseTime.plusSeconds(70));
+
+        // When
+        List<MetricsAggregate> result = metricsAggregationRepository.aggregate(
+            baseTime, baseTime.plusMinutes(5), 60_000L, MetricsGroupBy.REGION);
+
+        // Then - 结果按桶时间、维度值排序，维度从字典id还原为字符串
+        assertEquals(3, result.size());
+        assertEquals(baseTime, result.get(0).bucketStart());
+        assertEquals(baseTime, result.get(1).bucketStart());
+        assertEquals(baseTime.plusMinutes(1), result.get(2).bucketStart());
+        MetricsAggregate beijing = result.get(0).groupKey().equals("北京") ? result.get(0) : result.get(1);
+        assertEquals(2, beijing.count());
+        assertEquals(15.0, beijing.cpuUsage().avg(), 0.001);
+        assertEquals("北京", result.get(2).groupKey());
+        assertEquals(60.0, result.get(2).cpuUsage().max(), 0.001);
+    }
+
+    @Test
+    @DisplayName("测试合并当前表与已封存分区")
+    void testAggregateAcrossPartitions() {
+        // Given - 同一分钟的数据一半已封存
+        save("server-01", "北京", 10.0, 1.0, baseTime.plusSeconds(5));
+        metricsPartitionManager.rotate();
+        save("server-01", "北京", 50.0, 1.0, baseTime.plusSeconds(25));
+
+        // When
+        List<MetricsAggregate> result = metricsAggregationRepository.aggregate(
+            baseTime, baseTime.plusMinutes(1), 60_000L, MetricsGroupBy.SERVER);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("server-01", result.get(0).groupKey());
+        assertEquals(2, result.get(0).count());
+        assertEquals(30.0, result.get(0).cpuUsage().avg(), 0.001);
+        assertEquals(10.0, result.get(0).cpuUsage().min(), 0.001);
+        assertEquals(50.0, result.get(0).cpuUsage().max(), 0.001);
+    }
+}
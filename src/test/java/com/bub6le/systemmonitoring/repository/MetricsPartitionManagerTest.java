@@ -0,0 +1,352 @@
+package com.bub6le.systemmonitoring.repository;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.view.MetricsChartPoint;
+import com.bub6le.systemmonitoring.service.SystemMetricsService;
+import com.bub6le.systemmonitoring.store.MetricsHistoryStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class MetricsPartitionManagerTest {
+
+    @Autowired
+    private MetricsPartitionManager metricsPartitionManager;
+
+    @Autowired
+    private SystemMetricsRepository systemMetricsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SystemMetricsService systemMetricsService;
+
+    @Autowired
+    private MetricsHistoryStore metricsHistoryStore;
+
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        systemMetricsRepository.deleteAll();
+        baseTime = LocalDateTime.now().minusHours(2).withNano(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM metrics_history_blocks");
+        // 内存库在上下文之间共享，清理本测试产生的分区表
+        for (MetricsPartitionManager.PartitionInfo partition : metricsPartitionManager.getPartitions()) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.getName());
+        }
+    }
+
+    private SystemMetrics newMetric(String serverName, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, 50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setTimestamp(timestamp);
+        return metrics;
+    }
+
+    @Test
+    @DisplayName("测试轮转封存当前分区")
+    void testRotate() {
+        // Given
+        systemMetricsRepository.save(newMetric("server-01", baseTime));
+        systemMetricsRepository.save(newMetric("server-02", baseTime.plusMinutes(10)));
+
+        // When
+        metricsPartitionManager.rotate();
+
+        // Then - 数据整体进入新分区，当前表中不再有这些数据
+        assertTrue(systemMetricsRepository.findMetricsBetween(baseTime, baseTime.plusHours(1)).isEmpty());
+        List<MetricsPartitionManager.PartitionInfo> partitions = metricsPartitionManager.getPartitions();
+        assertEquals(1, partitions.size());
+        assertTrue(partitions.get(0).getRowCount() >= 2);
+        assertEquals(baseTime, partitions.get(0).getMinTimestamp());
+        assertEquals(2, metricsPartitionManager.findMetricsBetween(baseTime, baseTime.plusHours(1)).size());
+
+        // 轮转后当前表仍可写入
+        SystemMetrics saved = systemMetricsRepository.save(newMetric("server-03", baseTime.plusMinutes(20)));
+        assertNotNull(saved.getId());
+        assertEquals(1, systemMetricsRepository.findMetricsBetween(baseTime, baseTime.plusHours(1)).size());
+    }
+
+    private List<String> indexNames(String table) {
+        return jdbcTemplate.queryForList(
+            "SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES WHERE LOWER(TABLE_NAME) = ?", String.class, table);
+    }
+
+    @Test
+    @DisplayName("测试轮转后当前表和封存分区都保留索引")
+    void testRotateKeepsIndexes() {
+        // Given
+        systemMetricsRepository.save(newMetric("server-01", baseTime));
+
+        // When
+        metricsPartitionManager.rotate();
+
+        // Then - 新的当前表重新建索引，封存分区的索引带上分区后缀
+        String partition = metricsPartitionManager.getPartitions().get(0).getName();
+        String suffix = partition.substring("system_metrics".length());
+        List<String> headIndexes = indexNames("system_metrics");
+        List<String> partitionIndexes = indexNames(partition);
+        for (String index : List.of("idx_metrics_timestamp", "idx_metrics_server_time",
+                "idx_metrics_region", "idx_metrics_service_type")) {
+            assertTrue(headIndexes.contains(index), headIndexes.toString());
+            assertTrue(partitionIndexes.contains(index + suffix), partitionIndexes.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("测试轮转失败时当前表保持不变")
+    void testRotateFailureLeavesHeadIntact() {
+        // Given - 占用新表的临时索引名，让建表阶段失败
+        systemMetricsRepository.save(newMetric("server-01", baseTime));
+        jdbcTemplate.execute("CREATE TABLE rotate_blocker (id BIGINT)");
+        jdbcTemplate.execute("CREATE INDEX idx_metrics_region_next ON rotate_blocker (id)");
+
+        try {
+            // When
+            assertThrows(RuntimeException.class, () -> metricsPartitionManager.rotate());
+
+            // Then - 没有封存分区，也没有残留的临时表，当前表的数据和索引都在
+            assertTrue(metricsPartitionManager.getPartitions().isEmpty());
+            assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) = 'system_metrics_next'", Integer.class));
+            assertEquals(1, systemMetricsRepository.findMetricsBetween(baseTime, baseTime.plusHours(1)).size());
+            assertTrue(indexNames("system_metrics").contains("idx_metrics_timestamp"));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE rotate_blocker");
+        }
+
+        // When - 冲突解除后可以正常轮转
+        metricsPartitionManager.rotate();
+
+        // Then
+        assertEquals(1, metricsPartitionManager.getPartitions().size());
+    }
+
+    @Test
+    @DisplayName("测试只查询时间范围重叠的分区")
+    void testFindMetricsBetween() {
+        // Given
+        systemMetricsRepository.save(newMetric("server-01", baseTime));
+        systemMetricsRepository.save(newMetric("server-02", baseTime.plusMinutes(10)));
+        metricsPartitionManager.rotate();
+
+        // When
+        List<SystemMetrics> inRange = metricsPartitionManager.findMetricsBetween(baseTime, baseTime.plusMinutes(30));
+        List<SystemMetrics> partial = metricsPartitionManager.findMetricsBetween(baseTime.plusMinutes(5), baseTime.plusMinutes(30));
+        List<SystemMetrics> outOfRange = metricsPartitionManager.findMetricsBetween(baseTime.plusHours(1), baseTime.plusHours(2));
+
+        // Then
+        assertEquals(2, inRange.size());
+        assertEquals("server-02", inRange.get(0).getServerName());
+        assertEquals(1, partial.size());
+        assertTrue(outOfRange.isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试按维度和键集分页读取封存分区")
+    void testFindByDimensionAndPage() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            systemMetricsRepository.save(newMetric("partition-page", baseTime.plusMinutes(i)));
+        }
+        systemMetricsRepository.save(newMetric("server-other", baseTime));
+        metricsPartitionManager.rotate();
+
+        // When
+        List<SystemMetrics> all = metricsPartitionManager.findByDimension(MetricsGroupBy.SERVER, "partition-page");
+        List<SystemMetrics> first = metricsPartitionManager.findPage(MetricsGroupBy.SERVER, "partition-page",
+            PageCursor.first().timestamp(), PageCursor.first().id(), 2);
+        SystemMetrics last = first.get(1);
+        List<SystemMetrics> second = metricsPartitionManager.findPage(MetricsGroupBy.SERVER, "partition-page",
+            last.getTimestamp(), last.getId(), 10);
+
+        // Then
+        assertEquals(5, all.size());
+        assertEquals(baseTime.plusMinutes(4), all.get(0).getTimestamp());
+        assertEquals(List.of(baseTime.plusMinutes(4), baseTime.plusMinutes(3)),
+            first.stream().map(SystemMetrics::getTimestamp).toList());
+        assertEquals(3, second.size());
+        assertEquals(baseTime.plusMinutes(2), second.get(0).getTimestamp());
+        assertTrue(metricsPartitionManager.findByDimension(MetricsGroupBy.SERVER, "non-existent").isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试分页跨过轮转边界")
+    void testPageAcrossRotation() {
+        // Given - 前3条已封存，后3条在当前分区
+        for (int i = 0; i < 3; i++) {
+            systemMetricsRepository.save(newMetric("rotation-page", baseTime.plusMinutes(i)));
+        }
+        metricsPartitionManager.rotate();
+        for (int i = 3; i < 6; i++) {
+            systemMetricsRepository.save(newMetric("rotation-page", baseTime.plusMinutes(i)));
+        }
+
+        // When - 每页2条翻到底
+        List<LocalDateTime> timestamps = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<SystemMetrics> page = systemMetricsService.getMetricsPageByServer("rotation-page", cursor, 2);
+            page.items().forEach(metrics -> timestamps.add(metrics.getTimestamp()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        // Then - 按时间倒序不重不漏
+        List<LocalDateTime> expected = new ArrayList<>();
+        for (int i = 5; i >= 0; i--) {
+            expected.add(baseTime.plusMinutes(i));
+        }
+        assertEquals(expected, timestamps);
+        assertEquals(6, systemMetricsService.getMetricsByServer("rotation-page").size());
+    }
+
+    @Test
+    @DisplayName("测试从封存分区读取图表数据点")
+    void testFindChartPointsBetween() {
+        // Given
+        systemMetricsRepository.save(newMetric("server-01", baseTime));
+        systemMetricsRepository.save(newMetric("server-02", baseTime.plusMinutes(10)));
+        metricsPartitionManager.rotate();
+
+        // When
+        List<MetricsChartPoint> points = metricsPartitionManager.findChartPointsBetween(baseTime, baseTime.plusMinutes(30));
+
+        // Then - 按时间倒序，只带时间、CPU和内存
+        assertEquals(List.of(
+            new MetricsChartPoint(baseTime.plusMinutes(10), 50.0, 40.0),
+            new MetricsChartPoint(baseTime, 50.0, 40.0)), points);
+        assertTrue(metricsPartitionManager.findChartPointsBetween(baseTime.plusHours(1), baseTime.plusHours(2)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试过期分区整体删除")
+    void testDropExpiredPartitions() {
+        // Given
+        systemMetricsRepository.save(newMetric("server-01", baseTime));
+        metricsPartitionManager.rotate();
+        String partition = metricsPartitionManager.getPartitions().get(0).getName();
+
+        // When - 保留期内不删除
+        metricsPartitionManager.dropExpiredPartitions();
+
+        // Then
+        assertEquals(1, metricsPartitionManager.getPartitions().size());
+
+        // When - 保留期设为负数，所有分区都过期
+        ReflectionTestUtils.setField(metricsPartitionManager, "retentionDays", -1);
+        metricsPartitionManager.dropExpiredPartitions();
+
+        // Then
+        assertTrue(metricsPartitionManager.getPartitions().isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) = ?", Integer.class, partition));
+    }
+
+    @Test
+    @DisplayName("测试删除分区等待正在遍历的读取方")
+    void testDropWaitsForReaders() throws Exception {
+        // Given - 读取方已列出分区表
+        systemMetricsRepository.save(newMetric("server-01", baseTime));
+        metricsPartitionManager.rotate();
+        String partition = metricsPartitionManager.getPartitions().get(0).getName();
+        ReflectionTestUtils.setField(metricsPartitionManager, "retentionDays", -1);
+        metricsPartitionManager.beginPartitionRead();
+        List<String> tables;
+        Thread dropper;
+        try {
+            tables = metricsPartitionManager.tablesOverlapping(baseTime.minusHours(1), baseTime.plusHours(1));
+
+            // When
+            dropper = new Thread(metricsPartitionManager::dropExpiredPartitions);
+            dropper.start();
+            dropper.join(500);
+
+            // Then - 分区已不再列出，但表在读取方释放前不会被删除
+            assertTrue(dropper.isAlive());
+            assertTrue(metricsPartitionManager.getPartitions().isEmpty());
+            assertTrue(tables.contains(partition));
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Integer.class));
+        } finally {
+            metricsPartitionManager.endPartitionRead();
+        }
+        dropper.join(5000);
+        assertFalse(dropper.isAlive());
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE LOWER(TABLE_NAME) = ?", Integer.class, partition));
+    }
+
+    @Test
+    @DisplayName("测试压缩历史持久化覆盖后提前删除原始分区")
+    void testDropPartitionsCoveredByHistory() {
+        // Given - 打开块不按时间提前封存，原始数据保留期设为负数
+        ReflectionTestUtils.setField(metricsHistoryStore, "maxOpenMinutes", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(metricsPartitionManager, "rawRetentionDays", -1);
+        systemMetricsRepository.save(newMetric("history-covered", baseTime));
+        metricsPartitionManager.rotate();
+        metricsHistoryStore.onMetricsIngested(newMetric("history-covered", baseTime.minusMinutes(1)));
+
+        // When - 样本还在打开块中，分区保留
+        metricsPartitionManager.dropExpiredPartitions();
+
+        // Then
+        assertEquals(1, metricsPartitionManager.getPartitions().size());
+
+        // When - 封存并写入表后，分区被删除
+        metricsHistoryStore.flush();
+        metricsPartitionManager.dropExpiredPartitions();
+
+        // Then
+        assertTrue(metricsPartitionManager.getPartitions().isEmpty());
+        assertEquals(1, metricsHistoryStore.scan("history-covered", baseTime.minusMinutes(2), baseTime).count());
+    }
+
+    @Test
+    @DisplayName("测试压缩块写入表中并在重新加载后可读")
+    void testHistoryBlocksReload() {
+        // Given
+        ReflectionTestUtils.setField(metricsHistoryStore, "maxOpenMinutes", Integer.MAX_VALUE);
+        for (int i = 0; i < 3; i++) {
+            metricsHistoryStore.onMetricsIngested(newMetric("history-reload", baseTime.plusSeconds(i * 15L)));
+        }
+
+        // When - 未封存的打开块不写入表，重新加载后丢失
+        metricsHistoryStore.persistSealedBlocks();
+        metricsHistoryStore.reload();
+
+        // Then
+        assertEquals(0, metricsHistoryStore.scan("history-reload", baseTime, baseTime.plusMinutes(1)).count());
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            metricsHistoryStore.onMetricsIngested(newMetric("history-reload", baseTime.plusSeconds(i * 15L)));
+        }
+        metricsHistoryStore.flush();
+        metricsHistoryStore.reload();
+
+        // Then - 内存中的块被丢弃，从表中加载回来
+        assertEquals(3, metricsHistoryStore.scan("history-reload", baseTime, baseTime.plusMinutes(1)).count());
+    }
+}
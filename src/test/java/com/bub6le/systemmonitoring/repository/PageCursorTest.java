@@ -0,0 +1,64 @@
+package com.bub6le.systemmonitoring.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    @DisplayName("测试游标编码解码保留完整精度")
+    void testEncodeDecode() {
+        // Given
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_456_000), 42L);
+
+        // When
+        String encoded = cursor.encode();
+
+        // Then - 编码结果不透明且可以放进URL
+        assertFalse(encoded.contains("2026"));
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, PageCursor.decode(encoded));
+        assertEquals(new PageCursor(LocalDateTime.of(2026, 1, 1, 12, 0), 7L),
+            PageCursor.decode(new PageCursor(LocalDateTime.of(2026, 1, 1, 12, 0), 7L).encode()));
+    }
+
+    @Test
+    @DisplayName("测试空游标为第一页，格式错误抛出异常")
+    void testDecodeFirstAndInvalid() {
+        assertEquals(PageCursor.first(), PageCursor.decode(null));
+        assertEquals(PageCursor.first(), PageCursor.decode(" "));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("!!!"));
+    }
+
+    @Test
+    @DisplayName("测试由多取一行的结果构造分页")
+    void testCursorPageOf() {
+        // Given
+        LocalDateTime time = LocalDateTime.of(2026, 1, 1, 12, 0);
+        List<Long> rows = List.of(5L, 4L, 3L);
+
+        // When
+        CursorPage<Long> full = CursorPage.of(rows, 2, id -> new PageCursor(time, id));
+        CursorPage<Long> last = CursorPage.of(rows, 3, id -> new PageCursor(time, id));
+
+        // Then
+        assertEquals(List.of(5L, 4L), full.items());
+        assertEquals(new PageCursor(time, 4L), PageCursor.decode(full.nextCursor()));
+        assertEquals(rows, last.items());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    @DisplayName("测试每页大小限制在范围内")
+    void testClampLimit() {
+        assertEquals(1, CursorPage.clampLimit(0));
+        assertEquals(50, CursorPage.clampLimit(50));
+        assertEquals(CursorPage.MAX_LIMIT, CursorPage.clampLimit(100_000));
+    }
+}
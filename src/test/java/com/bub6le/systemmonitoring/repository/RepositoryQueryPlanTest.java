@@ -0,0 +1,259 @@
+package com.bub6le.systemmonitoring.repository;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.model.Task;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询计划回归测试：按生产量级灌入数据，对每个仓库方法实际生成的SQL执行EXPLAIN，
+ * 断言没有全表扫描并且命中了预期的索引。
+ */
+@SpringBootTest(properties =
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bub6le.systemmonitoring.repository.CapturingStatementInspector")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class RepositoryQueryPlanTest {
+
+    private static final int METRIC_ROWS = 1_000_000;
+    private static final int ALERT_ROWS = 100_000;
+    private static final int TASK_ROWS = 100_000;
+
+    // 灌入的数据直接使用这些字典id，id起点远离JPA生成的主键
+    private static final int SERVER_ID = 1007;
+    private static final int REGION_ID = 2003;
+    private static final int SERVICE_TYPE_ID = 3001;
+    private static final int SOURCE_ID = 4010;
+    private static final long SEED_ID_OFFSET = 10_000_000L;
+    private static final int PAGE_SIZE = 101;
+
+    @Autowired
+    private SystemMetricsRepository systemMetricsRepository;
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private LocalDateTime since;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT INTO system_metrics (id, server_name, cpu_usage, memory_usage, disk_usage, "
+            + "network_in, network_out, load_average, timestamp, region, service_type) "
+            + "SELECT X + " + SEED_ID_OFFSET + ", 1000 + MOD(X, 200), RAND() * 100, RAND() * 100, RAND() * 100, "
+            + "RAND() * 1000, RAND() * 1000, RAND() * 4, DATEADD(SECOND, -X * 2, LOCALTIMESTAMP), "
+            + "2000 + MOD(X, 5), 3000 + MOD(X, 5) FROM SYSTEM_RANGE(1, " + METRIC_ROWS + ")");
+        jdbcTemplate.update("INSERT INTO alerts (id, source, severity, message, timestamp, resolved) "
+            + "SELECT X + " + SEED_ID_OFFSET + ", 4000 + MOD(X, 50), "
+            + "CASE MOD(X, 4) WHEN 0 THEN 'LOW' WHEN 1 THEN 'MEDIUM' WHEN 2 THEN 'HIGH' ELSE 'CRITICAL' END, "
+            + "'seed', DATEADD(SECOND, -X * 10, LOCALTIMESTAMP), MOD(X, 20) <> 0 "
+            + "FROM SYSTEM_RANGE(1, " + ALERT_ROWS + ")");
+        jdbcTemplate.update("INSERT INTO tasks (id, task_name, target_cluster, status, progress, created_time, updated_time) "
+            + "SELECT X + " + SEED_ID_OFFSET + ", 'seed', CONCAT('cluster-', MOD(X, 20)), "
+            + "CASE MOD(X, 4) WHEN 0 THEN 'QUEUED' WHEN 1 THEN 'RUNNING' WHEN 2 THEN 'FAILED' ELSE 'COMPLETED' END, "
+            + "MOD(X, 101), DATEADD(SECOND, -X * 10, LOCALTIMESTAMP), DATEADD(SECOND, -X * 5, LOCALTIMESTAMP) "
+            + "FROM SYSTEM_RANGE(1, " + TASK_ROWS + ")");
+        // 更新选择度统计，优化器才能按真实数据量选择计划
+        jdbcTemplate.execute("ANALYZE");
+        since = LocalDateTime.now().minusMinutes(5);
+    }
+
+    private String captureSql(Runnable query) {
+        return captureSql(query, "select");
+    }
+
+    private String captureSql(Runnable query, String statementType) {
+        CapturingStatementInspector.start();
+        List<String> statements;
+        try {
+            query.run();
+        } finally {
+            statements = CapturingStatementInspector.stop();
+        }
+        return statements.stream()
+            .filter(sql -> sql.trim().toLowerCase().startsWith(statementType))
+            .reduce((first, second) -> second)
+            .orElseThrow(() -> new AssertionError("No " + statementType.toUpperCase() + " captured"));
+    }
+
+    private void assertUsesIndex(Runnable query, String index, Object... args) {
+        assertPlanUsesIndex(captureSql(query), index, args);
+    }
+
+    private void assertPlanUsesIndex(String sql, String index, Object... args) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args);
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.toLowerCase().contains(index), plan);
+    }
+
+    // 分页查询的LIMIT也是绑定参数，位于过滤条件参数之后
+    private void assertPageUsesIndex(Runnable query, String index, Object... args) {
+        String sql = captureSql(query);
+        int placeholders = (int) sql.chars().filter(ch -> ch == '?').count();
+        Object[] bound = Arrays.copyOf(args, placeholders);
+        Arrays.fill(bound, args.length, placeholders, PAGE_SIZE);
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, bound);
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.toLowerCase().contains(index), plan);
+    }
+
+    private Timestamp sinceTimestamp() {
+        return Timestamp.valueOf(since);
+    }
+
+    @Test
+    @DisplayName("测试指标按服务器查询使用索引")
+    void testMetricsByServer() {
+        assertUsesIndex(() -> systemMetricsRepository.findByServerName("server-01"),
+            "idx_metrics_server_time", SERVER_ID);
+        assertUsesIndex(() -> systemMetricsRepository.findRecentMetricsByServer("server-01", since),
+            "idx_metrics_server_time", SERVER_ID, sinceTimestamp());
+    }
+
+    @Test
+    @DisplayName("测试指标按区域和服务类型查询使用索引")
+    void testMetricsByDimension() {
+        assertUsesIndex(() -> systemMetricsRepository.findByRegion("北京"), "idx_metrics_region", REGION_ID);
+        assertUsesIndex(() -> systemMetricsRepository.findByServiceType("Web服务"),
+            "idx_metrics_service_type", SERVICE_TYPE_ID);
+    }
+
+    @Test
+    @DisplayName("测试指标按时间范围查询使用索引")
+    void testMetricsByTime() {
+        assertUsesIndex(() -> systemMetricsRepository.findRecentMetrics(since),
+            "idx_metrics_timestamp", sinceTimestamp());
+        assertUsesIndex(() -> systemMetricsRepository.findLatestMetrics(since),
+            "idx_metrics_timestamp", sinceTimestamp());
+        assertUsesIndex(() -> systemMetricsRepository.findMetricsBetween(since, since.plusMinutes(1)),
+            "idx_metrics_timestamp", sinceTimestamp(), Timestamp.valueOf(since.plusMinutes(1)));
+        assertUsesIndex(() -> systemMetricsRepository.getAverageCpuUsage(since),
+            "idx_metrics_timestamp", sinceTimestamp());
+        assertUsesIndex(() -> systemMetricsRepository.getAverageMemoryUsage(since),
+            "idx_metrics_timestamp", sinceTimestamp());
+    }
+
+    @Test
+    @DisplayName("测试告警查询使用索引")
+    void testAlertQueries() {
+        assertUsesIndex(() -> alertRepository.findBySource("server-01"), "idx_alerts_source", SOURCE_ID);
+        assertUsesIndex(() -> alertRepository.findBySeverity(Alert.AlertSeverity.HIGH),
+            "idx_alerts_severity_resolved", "HIGH");
+        assertUsesIndex(() -> alertRepository.findByResolved(false), "idx_alerts_resolved_time", false);
+        assertUsesIndex(() -> alertRepository.findUnresolvedAlerts(), "idx_alerts_resolved_time");
+        assertUsesIndex(() -> alertRepository.findUnresolvedAlertsBySeverity(Alert.AlertSeverity.CRITICAL),
+            "idx_alerts_severity_resolved", "CRITICAL");
+        assertUsesIndex(() -> alertRepository.countUnresolvedAlerts(), "idx_alerts_resolved_time");
+        // 无过滤条件的排序查询按索引顺序读取，不做全表排序
+        assertUsesIndex(() -> alertRepository.findAllOrderByTimestamp(), "idx_alerts_timestamp");
+    }
+
+    @Test
+    @DisplayName("测试任务查询使用索引")
+    void testTaskQueries() {
+        assertUsesIndex(() -> taskRepository.findByStatus(Task.TaskStatus.RUNNING),
+            "idx_tasks_status_updated", "RUNNING");
+        assertUsesIndex(() -> taskRepository.findByTargetCluster("cluster-3"),
+            "idx_tasks_target_cluster", "cluster-3");
+        assertUsesIndex(() -> taskRepository.findByStatusInOrderByUpdatedTime(
+                List.of(Task.TaskStatus.QUEUED, Task.TaskStatus.RUNNING)),
+            "idx_tasks_status_updated", "QUEUED", "RUNNING");
+        assertUsesIndex(() -> taskRepository.countByStatus(Task.TaskStatus.FAILED),
+            "idx_tasks_status_updated", "FAILED");
+        assertUsesIndex(() -> taskRepository.findAllOrderByUpdatedTime(), "idx_tasks_updated_time");
+    }
+
+    @Test
+    @DisplayName("测试键集分页沿索引定位")
+    void testPageQueries() {
+        Timestamp ts = sinceTimestamp();
+        long id = SEED_ID_OFFSET + 150;
+        Limit limit = Limit.of(PAGE_SIZE);
+        assertPageUsesIndex(() -> systemMetricsRepository.findPage(since, id, limit),
+            "idx_metrics_timestamp", ts, ts, id);
+        assertPageUsesIndex(() -> systemMetricsRepository.findPageByServerName("server-01", since, id, limit),
+            "idx_metrics_server_time", SERVER_ID, ts, ts, id);
+        assertPageUsesIndex(() -> systemMetricsRepository.findPageByRegion("北京", since, id, limit),
+            "idx_metrics_region", REGION_ID, ts, ts, id);
+        assertPageUsesIndex(() -> systemMetricsRepository.findPageByServiceType("Web服务", since, id, limit),
+            "idx_metrics_service_type", SERVICE_TYPE_ID, ts, ts, id);
+        assertPageUsesIndex(() -> alertRepository.findPage(since, id, limit),
+            "idx_alerts_timestamp", ts, ts, id);
+        assertPageUsesIndex(() -> alertRepository.findUnresolvedPage(since, id, limit),
+            "idx_alerts_resolved_time", ts, ts, id);
+        assertPageUsesIndex(() -> alertRepository.findPageBySource("server-01", since, id, limit),
+            "idx_alerts_source", SOURCE_ID, ts, ts, id);
+        assertPageUsesIndex(() -> alertRepository.findPageBySeverity(Alert.AlertSeverity.HIGH, since, id, limit),
+            "idx_alerts_severity_time", "HIGH", ts, ts, id);
+        assertPageUsesIndex(() -> taskRepository.findPage(since, id, limit),
+            "idx_tasks_created_time", ts, ts, id);
+        assertPageUsesIndex(() -> taskRepository.findPageByStatus(Task.TaskStatus.RUNNING, since, id, limit),
+            "idx_tasks_status_created", "RUNNING", ts, ts, id);
+        assertPageUsesIndex(() -> taskRepository.findPageByTargetCluster("cluster-3", since, id, limit),
+            "idx_tasks_target_cluster", "cluster-3", ts, ts, id);
+    }
+
+    @Test
+    @DisplayName("测试告警指纹查找使用索引")
+    void testFingerprintLookup() {
+        assertPageUsesIndex(() -> alertRepository.findFirstBySourceAndSeverityAndMessageAndResolvedFalseOrderByIdDesc(
+                "server-01", Alert.AlertSeverity.HIGH, "seed"),
+            "idx_alerts_fingerprint", SOURCE_ID, "HIGH", "seed");
+    }
+
+    @Test
+    @DisplayName("测试批量解决告警的分组计数和集合UPDATE使用索引")
+    void testBulkResolveQueries() {
+        // 不存在的id，执行UPDATE不会改动灌入的数据
+        List<Long> ids = List.of(-1L, -2L);
+        assertUsesIndex(() -> alertRepository.countUnresolvedByIdIn(ids), "primary_key", -1L, -2L);
+        assertUsesIndex(() -> alertRepository.countUnresolvedBySource("server-01"),
+            "idx_alerts_fingerprint", SOURCE_ID);
+        assertUsesIndex(() -> alertRepository.countUnresolvedWithSeverity(Alert.AlertSeverity.HIGH),
+            "idx_alerts_severity_resolved", "HIGH");
+        assertUsesIndex(() -> alertRepository.countUnresolvedBefore(since),
+            "idx_alerts_resolved_time", sinceTimestamp());
+        assertPlanUsesIndex(captureSql(() -> alertRepository.resolveByIdIn(ids), "update"), "primary_key", -1L, -2L);
+        // 按条件的UPDATE在回滚的事务中执行，只取SQL，不改动灌入的数据
+        // 来源和解决状态的不同取值都很少，H2的统计里两者选择度相同，可能走任一索引，只要求不扫全表
+        assertPlanUsesIndex(captureRolledBackUpdate(() -> alertRepository.resolveBySource("server-01")),
+            "idx_alerts_", SOURCE_ID);
+        assertPlanUsesIndex(captureRolledBackUpdate(() -> alertRepository.resolveBySeverity(Alert.AlertSeverity.HIGH)),
+            "idx_alerts_severity_resolved", "HIGH");
+        assertPlanUsesIndex(captureRolledBackUpdate(() -> alertRepository.resolveBefore(since)),
+            "idx_alerts_resolved_time", sinceTimestamp());
+    }
+
+    private String captureRolledBackUpdate(Runnable update) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return captureSql(update, "update");
+        });
+    }
+}
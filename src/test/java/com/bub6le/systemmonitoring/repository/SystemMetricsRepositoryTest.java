@@ -1,16 +1,21 @@
 package com.bub6le.systemmonitoring.repository;
 
 import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.view.MetricsChartPoint;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +29,12 @@ class SystemMetricsRepositoryTest {
     @Autowired
     private SystemMetricsRepository systemMetricsRepository;
 
+    @Autowired
+    private DimensionDictionary dimensionDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private SystemMetrics testMetric1;
     private SystemMetrics testMetric2;
     private SystemMetrics testMetric3;
@@ -118,6 +129,42 @@ class SystemMetricsRepositoryTest {
         assertTrue(result.get(0).getTimestamp().isAfter(result.get(1).getTimestamp()));
     }
 
+    @Test
+    @DisplayName("测试查找时间区间内的系统指标")
+    void testFindMetricsBetween() {
+        // Given
+        systemMetricsRepository.save(testMetric1);
+        systemMetricsRepository.save(testMetric2);
+        systemMetricsRepository.save(testMetric3);
+
+        // When - 区间左闭右开
+        List<SystemMetrics> result = systemMetricsRepository.findMetricsBetween(
+            baseTime, baseTime.plusMinutes(2));
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("server-02", result.get(0).getServerName());
+        assertEquals("server-01", result.get(1).getServerName());
+    }
+
+    @Test
+    @DisplayName("测试图表数据点只读取时间、CPU和内存")
+    void testFindChartPointsBetween() {
+        // Given
+        systemMetricsRepository.save(testMetric1);
+        systemMetricsRepository.save(testMetric2);
+        systemMetricsRepository.save(testMetric3);
+
+        // When - 区间左闭右开
+        List<MetricsChartPoint> result = systemMetricsRepository.findChartPointsBetween(
+            baseTime, baseTime.plusMinutes(2));
+
+        // Then
+        assertEquals(List.of(
+            new MetricsChartPoint(baseTime.plusMinutes(1), 80.0, 70.0),
+            new MetricsChartPoint(baseTime, 75.5, 60.2)), result);
+    }
+
     @Test
     @DisplayName("测试根据服务器名称和时间查找最近的系统指标")
     void testFindRecentMetricsByServer() {
@@ -331,4 +378,104 @@ class SystemMetricsRepositoryTest {
         assertTrue(result.get(0).getTimestamp().isAfter(result.get(1).getTimestamp()));
         assertTrue(result.get(1).getTimestamp().isAfter(result.get(2).getTimestamp()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("测试维度列以字典id存储")
+    void testDimensionColumnsStoredAsIds() {
+        // Given
+        SystemMetrics saved = systemMetricsRepository.saveAndFlush(testMetric1);
+
+        // When
+        Integer regionId = jdbcTemplate.queryForObject(
+            "SELECT region FROM system_metrics WHERE id = ?", Integer.class, saved.getId());
+
+        // Then
+        assertEquals(dimensionDictionary.find("北京"), regionId);
+        assertEquals("北京", dimensionDictionary.lookup(regionId));
+        assertEquals(1, systemMetricsRepository.findByRegion("北京").size());
+    }
+
+    @Test
+    @DisplayName("测试查询未知维度值不分配字典项，写入时才分配")
+    void testQueryDoesNotInternDimension() {
+        // Given
+        int sizeBefore = dimensionDictionary.size();
+
+        // When - 用没见过的服务器名查询
+        List<SystemMetrics> result = systemMetricsRepository.findByServerName("server-query-only");
+
+        // Then
+        assertTrue(result.isEmpty());
+        assertEquals(sizeBefore, dimensionDictionary.size());
+        assertEquals(DimensionDictionary.NULL_ID, dimensionDictionary.find("server-query-only"));
+
+        // When - 写入同一个名字
+        systemMetricsRepository.saveAndFlush(new SystemMetrics("server-query-only",
+            50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务"));
+
+        // Then
+        assertNotEquals(DimensionDictionary.NULL_ID, dimensionDictionary.find("server-query-only"));
+        assertEquals(1, systemMetricsRepository.findByServerName("server-query-only").size());
+    }
+
+    @Test
+    @DisplayName("测试键集分页逐页读取不重复不遗漏")
+    void testFindPage() {
+        // Given - 10条指标，每两条时间相同
+        for (int i = 0; i < 10; i++) {
+            SystemMetrics metrics = new SystemMetrics(i % 2 == 0 ? "server-01" : "server-02",
+                50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+            metrics.setTimestamp(baseTime.plusMinutes(i / 2));
+            systemMetricsRepository.save(metrics);
+        }
+
+        // When - 每页3条
+        List<SystemMetrics> all = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<SystemMetrics> page = CursorPage.fetch(cursor, 3, systemMetricsRepository::findPage,
+                metrics -> new PageCursor(metrics.getTimestamp(), metrics.getId()));
+            all.addAll(page.items());
+            pageSizes.add(page.items().size());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // Then - 按(时间, id)倒序，每条恰好出现一次
+        assertEquals(List.of(3, 3, 3, 1), pageSizes);
+        assertEquals(10, all.stream().map(SystemMetrics::getId).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            SystemMetrics previous = all.get(i - 1);
+            SystemMetrics current = all.get(i);
+            assertTrue(current.getTimestamp().isBefore(previous.getTimestamp())
+                || (current.getTimestamp().equals(previous.getTimestamp()) && current.getId() < previous.getId()));
+        }
+    }
+
+    @Test
+    @DisplayName("测试按维度过滤的键集分页")
+    void testFindPageByDimension() {
+        // Given
+        systemMetricsRepository.save(testMetric1);
+        systemMetricsRepository.save(testMetric2);
+        systemMetricsRepository.save(testMetric3);
+        PageCursor first = PageCursor.first();
+
+        // When
+        List<SystemMetrics> server01 = systemMetricsRepository.findPageByServerName("server-01",
+            first.timestamp(), first.id(), Limit.of(1));
+        List<SystemMetrics> server01Next = systemMetricsRepository.findPageByServerName("server-01",
+            server01.get(0).getTimestamp(), server01.get(0).getId(), Limit.of(10));
+        List<SystemMetrics> shanghai = systemMetricsRepository.findPageByRegion("上海",
+            first.timestamp(), first.id(), Limit.of(10));
+        List<SystemMetrics> web = systemMetricsRepository.findPageByServiceType("Web服务",
+            first.timestamp(), first.id(), Limit.of(10));
+
+        // Then
+        assertEquals(baseTime.plusMinutes(2), server01.get(0).getTimestamp());
+        assertEquals(1, server01Next.size());
+        assertEquals(baseTime, server01Next.get(0).getTimestamp());
+        assertEquals(1, shanghai.size());
+        assertEquals(2, web.size());
+    }
+}
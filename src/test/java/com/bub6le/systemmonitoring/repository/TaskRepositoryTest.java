@@ -1,11 +1,13 @@
 package com.bub6le.systemmonitoring.repository;
 
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
@@ -366,4 +368,41 @@ class TaskRepositoryTest {
                       task.getStatus() == Task.TaskStatus.FAILED);
         });
     }
+
+    @Test
+    @DisplayName("测试任务按创建时间键集分页")
+    void testFindPage() {
+        // Given
+        taskRepository.saveAll(List.of(testTask1, testTask2, testTask3, testTask4));
+        PageCursor first = PageCursor.first();
+
+        // When
+        List<TaskView> firstPage = taskRepository.findPage(first.timestamp(), first.id(), Limit.of(3));
+        TaskView last = firstPage.get(firstPage.size() - 1);
+        List<TaskView> secondPage = taskRepository.findPage(last.createdTime(), last.id(), Limit.of(3));
+        List<TaskView> running = taskRepository.findPageByStatus(Task.TaskStatus.RUNNING, first.timestamp(), first.id(), Limit.of(10));
+        List<TaskView> production = taskRepository.findPageByTargetCluster("生产集群", first.timestamp(), first.id(), Limit.of(10));
+
+        // Then
+        assertEquals(List.of("安全扫描", "性能监控", "日志清理"), firstPage.stream().map(TaskView::taskName).toList());
+        assertEquals(List.of("系统备份"), secondPage.stream().map(TaskView::taskName).toList());
+        assertEquals(1, running.size());
+        assertEquals(List.of("安全扫描", "系统备份"), production.stream().map(TaskView::taskName).toList());
+    }
+
+    @Test
+    @DisplayName("测试按更新时间取最近任务的只读投影")
+    void testFindRecentlyUpdatedViews() {
+        // Given
+        taskRepository.saveAll(List.of(testTask1, testTask2, testTask3, testTask4));
+
+        // When
+        List<TaskView> recent = taskRepository.findRecentlyUpdatedViews(Limit.of(2));
+
+        // Then
+        assertEquals(List.of("安全扫描", "性能监控"), recent.stream().map(TaskView::taskName).toList());
+        assertEquals(Task.TaskStatus.FAILED, recent.get(0).status());
+        assertEquals(25, recent.get(0).progress());
+        assertEquals(baseTime.plusMinutes(4), recent.get(0).updatedTime());
+    }
 }
\ No newline at end of file
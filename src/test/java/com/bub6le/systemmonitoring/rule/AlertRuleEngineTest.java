@@ -0,0 +1,162 @@
+package com.bub6le.systemmonitoring.rule;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.service.AlertService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlertRuleEngineTest {
+
+    @Mock
+    private AlertService alertService;
+
+    private AlertRuleEngine newEngine(String definitions) {
+        AlertRuleEngine engine = new AlertRuleEngine(definitions, 300);
+        ReflectionTestUtils.setField(engine, "alertService", alertService);
+        return engine;
+    }
+
+    private SystemMetrics newMetric(String serverName, double cpu, String region, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, 1.0, region, "Web服务");
+        metrics.setTimestamp(timestamp);
+        return metrics;
+    }
+
+    @Test
+    @DisplayName("测试条件持续达到时长后只告警一次")
+    void testDurationRuleFiresOnce() {
+        // Given
+        AlertRuleEngine engine = newEngine("cpu > 85 for 60s HIGH");
+        LocalDateTime start = LocalDateTime.now().minusSeconds(90);
+        when(alertService.createAlert(anyString(), any(), anyString())).thenReturn(new Alert());
+
+        // When - 越限30秒时不告警，60秒时告警，之后持续越限不再重复
+        engine.onMetricsIngested(newMetric("server-01", 90.0, "北京", start));
+        engine.onMetricsIngested(newMetric("server-01", 92.0, "北京", start.plusSeconds(30)));
+        verify(alertService, never()).createAlert(anyString(), any(), anyString());
+        engine.onMetricsIngested(newMetric("server-01", 95.0, "北京", start.plusSeconds(60)));
+        engine.onMetricsIngested(newMetric("server-01", 96.0, "北京", start.plusSeconds(90)));
+
+        // Then - 消息不含观测值，同一规则再次触发时可以按指纹合并
+        verify(alertService, times(1)).createAlert("server-01", Alert.AlertSeverity.HIGH, "CPU使用率 > 85，持续60秒");
+        RuleEngineStats stats = engine.getStats();
+        assertEquals(1, stats.alertsRaised());
+        assertEquals(1, stats.activeBreaches());
+    }
+
+    @Test
+    @DisplayName("测试条件恢复后重新计时")
+    void testRecoveryResetsBreach() {
+        // Given
+        AlertRuleEngine engine = newEngine("cpu > 85 for 60s HIGH");
+        LocalDateTime start = LocalDateTime.now().minusSeconds(120);
+
+        // When - 中途恢复一次，越限时间不累计
+        engine.onMetricsIngested(newMetric("server-01", 90.0, "北京", start));
+        engine.onMetricsIngested(newMetric("server-01", 50.0, "北京", start.plusSeconds(40)));
+        engine.onMetricsIngested(newMetric("server-01", 90.0, "北京", start.plusSeconds(70)));
+
+        // Then
+        verify(alertService, never()).createAlert(anyString(), any(), anyString());
+        assertEquals(1, engine.getStats().activeBreaches());
+    }
+
+    @Test
+    @DisplayName("测试限定维度的规则只判断匹配的样本")
+    void testScopedRulesOnlyEvaluatedForMatchingSamples() {
+        // Given - 一条全局规则，一条只对北京生效
+        AlertRuleEngine engine = newEngine("memory > 90 HIGH; region=北京: cpu > 50 CRITICAL");
+        LocalDateTime now = LocalDateTime.now();
+
+        // When
+        engine.onMetricsIngested(newMetric("server-01", 60.0, "北京", now));
+        engine.onMetricsIngested(newMetric("server-02", 60.0, "上海", now));
+
+        // Then - 北京的样本判断两条规则，上海的只判断全局规则
+        verify(alertService, times(1)).createAlert(eq("server-01"), eq(Alert.AlertSeverity.CRITICAL), anyString());
+        verify(alertService, never()).createAlert(eq("server-02"), any(), anyString());
+        RuleEngineStats stats = engine.getStats();
+        assertEquals(2, stats.ruleCount());
+        assertEquals(2, stats.samples());
+        assertEquals(3, stats.evaluations());
+    }
+
+    @Test
+    @DisplayName("测试过旧的样本不产生告警")
+    void testOldSamplesDoNotFire() {
+        // Given
+        AlertRuleEngine engine = newEngine("cpu > 85 HIGH");
+
+        // When - 回放一小时前的越限样本
+        engine.onMetricsIngested(newMetric("server-01", 99.0, "北京", LocalDateTime.now().minusHours(1)));
+
+        // Then
+        verify(alertService, never()).createAlert(anyString(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("测试保存告警失败不影响写入路径")
+    void testAlertFailureIsContained() {
+        // Given
+        AlertRuleEngine engine = newEngine("cpu > 85 HIGH");
+        when(alertService.createAlert(anyString(), any(), anyString())).thenThrow(new IllegalStateException("database unavailable"));
+
+        // When & Then
+        assertDoesNotThrow(() -> engine.onMetricsIngested(newMetric("server-01", 99.0, "北京", LocalDateTime.now())));
+        assertEquals(0, engine.getStats().alertsRaised());
+    }
+
+    @Test
+    @DisplayName("测试被限流丢弃的告警不计入已产生数")
+    void testRateLimitedAlertNotCounted() {
+        // Given - 限流时createAlert返回null
+        AlertRuleEngine engine = newEngine("cpu > 85 HIGH");
+        when(alertService.createAlert(anyString(), any(), anyString())).thenReturn(null);
+
+        // When
+        engine.onMetricsIngested(newMetric("server-01", 99.0, "北京", LocalDateTime.now()));
+
+        // Then
+        verify(alertService, times(1)).createAlert(anyString(), any(), anyString());
+        assertEquals(0, engine.getStats().alertsRaised());
+    }
+
+    @Test
+    @DisplayName("测试告警在独立的新事务中保存")
+    void testAlertSavedInNewTransaction() {
+        // Given
+        AlertRuleEngine engine = newEngine("cpu > 85 HIGH");
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TransactionStatus status = mock(TransactionStatus.class);
+        ReflectionTestUtils.setField(engine, "transactionManager", transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(status);
+        when(alertService.createAlert(anyString(), any(), anyString())).thenReturn(new Alert());
+
+        // When
+        engine.onMetricsIngested(newMetric("server-01", 99.0, "北京", LocalDateTime.now()));
+
+        // Then - 监听器在外层事务的提交回调中运行，告警不能加入已提交的事务
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        verify(transactionManager).commit(status);
+        verify(alertService, times(1)).createAlert(eq("server-01"), eq(Alert.AlertSeverity.HIGH), anyString());
+        assertEquals(1, engine.getStats().alertsRaised());
+    }
+}
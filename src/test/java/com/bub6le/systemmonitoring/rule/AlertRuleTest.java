@@ -0,0 +1,67 @@
+package com.bub6le.systemmonitoring.rule;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertRuleTest {
+
+    @Test
+    @DisplayName("测试解析全局规则")
+    void testParseGlobalRule() {
+        // When
+        AlertRule rule = AlertRule.parse(" cpu > 85 for 60s HIGH ");
+
+        // Then
+        assertEquals("cpu > 85 for 60s HIGH", rule.expression());
+        assertEquals(MetricsGroupBy.NONE, rule.scope());
+        assertNull(rule.scopeValue());
+        assertEquals(RuleMetric.CPU, rule.metric());
+        assertEquals(RuleOperator.GT, rule.operator());
+        assertEquals(85.0, rule.threshold());
+        assertEquals(60, rule.durationSeconds());
+        assertEquals(Alert.AlertSeverity.HIGH, rule.severity());
+    }
+
+    @Test
+    @DisplayName("测试解析限定维度且无持续时间的规则")
+    void testParseScopedRule() {
+        // When
+        AlertRule rule = AlertRule.parse("region=华东: disk>=95.5 critical");
+
+        // Then
+        assertEquals(MetricsGroupBy.REGION, rule.scope());
+        assertEquals("华东", rule.scopeValue());
+        assertEquals(RuleMetric.DISK, rule.metric());
+        assertEquals(RuleOperator.GE, rule.operator());
+        assertEquals(95.5, rule.threshold());
+        assertEquals(0, rule.durationSeconds());
+        assertEquals(Alert.AlertSeverity.CRITICAL, rule.severity());
+    }
+
+    @Test
+    @DisplayName("测试解析分号分隔的多条规则")
+    void testParseAll() {
+        // When
+        List<AlertRule> rules = AlertRule.parseAll("cpu > 85 HIGH; ;service=数据库: load < 0.1 for 30s LOW;");
+
+        // Then
+        assertEquals(2, rules.size());
+        assertEquals(MetricsGroupBy.SERVICE_TYPE, rules.get(1).scope());
+        assertEquals(RuleOperator.LT, rules.get(1).operator());
+        assertTrue(AlertRule.parseAll(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试无效规则抛出异常")
+    void testParseInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("cpu 85 HIGH"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("temperature > 85 HIGH"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRule.parse("cpu > 85 URGENT"));
+    }
+}
@@ -2,18 +2,35 @@ package com.bub6le.systemmonitoring.service;
 
 import com.bub6le.systemmonitoring.model.Alert;
 import com.bub6le.systemmonitoring.repository.AlertRepository;
+import com.bub6le.systemmonitoring.store.AlertFingerprintIndex;
+import com.bub6le.systemmonitoring.store.AlertSeverityCounters;
+import com.bub6le.systemmonitoring.store.cache.CacheRegion;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.ratelimit.AlertRateLimiter;
+import com.bub6le.systemmonitoring.store.wal.WalCodec;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -25,6 +42,21 @@ class AlertServiceTest {
     @Mock
     private AlertRepository alertRepository;
 
+    @Mock
+    private WriteAheadLog writeAheadLog;
+
+    @Spy
+    private QueryResultCache queryResultCache = new QueryResultCache(64, 60_000);
+
+    @Spy
+    private AlertFingerprintIndex alertFingerprintIndex = new AlertFingerprintIndex();
+
+    @Spy
+    private AlertSeverityCounters alertSeverityCounters = new AlertSeverityCounters();
+
+    @Spy
+    private AlertRateLimiter alertRateLimiter = new AlertRateLimiter(5, 1, 100);
+
     @InjectMocks
     private AlertService alertService;
 
@@ -88,6 +120,26 @@ class AlertServiceTest {
         verify(alertRepository, times(1)).findUnresolvedAlerts();
     }
 
+    @Test
+    @DisplayName("测试未解决告警缓存到下一次写入")
+    void testGetUnresolvedAlertsCachedUntilWrite() {
+        // Given
+        when(alertRepository.findUnresolvedAlerts()).thenReturn(Arrays.asList(testAlert));
+        when(alertRepository.save(testAlert)).thenReturn(testAlert);
+
+        // When - 两次读取之间没有写入，第二次命中缓存；保存告警后重新查询
+        alertService.getUnresolvedAlerts();
+        alertService.getUnresolvedAlerts();
+        verify(alertRepository, times(1)).findUnresolvedAlerts();
+        alertService.saveAlert(testAlert);
+        List<Alert> result = alertService.getUnresolvedAlerts();
+
+        // Then
+        assertEquals(1, result.size());
+        verify(alertRepository, times(2)).findUnresolvedAlerts();
+        verify(queryResultCache, times(1)).invalidate(CacheRegion.ALERTS);
+    }
+
     @Test
     @DisplayName("测试根据来源获取告警")
     void testGetAlertsBySource() {
@@ -140,6 +192,7 @@ class AlertServiceTest {
         assertEquals(Alert.AlertSeverity.CRITICAL, result.getSeverity());
         assertEquals("数据库连接失败", result.getMessage());
         verify(alertRepository, times(1)).save(newAlert);
+        verify(writeAheadLog, times(1)).appendAlert(newAlert);
     }
 
     @Test
@@ -165,6 +218,102 @@ class AlertServiceTest {
         verify(alertRepository, times(1)).save(any(Alert.class));
     }
 
+    // 模拟数据库为新行分配自增id
+    private void stubSaveAssigningId(long firstId) {
+        AtomicLong nextId = new AtomicLong(firstId);
+        when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> {
+            Alert alert = invocation.getArgument(0);
+            if (alert.getId() == null) {
+                alert.setId(nextId.getAndIncrement());
+            }
+            return alert;
+        });
+    }
+
+    @Test
+    @DisplayName("测试相同指纹的未解决告警合并为一行")
+    void testRepeatedAlertsCoalesced() {
+        // Given
+        stubSaveAssigningId(10L);
+
+        // When - 同一来源反复产生相同告警
+        Alert first = alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        Alert second = alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        Alert third = alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        Alert other = alertService.createAlert("server-03", Alert.AlertSeverity.CRITICAL, "CPU使用率过高");
+
+        // Then - 重复的告警不访问数据库，级别不同的另建一行
+        assertEquals(10L, first.getId());
+        assertEquals(10L, third.getId());
+        assertEquals(2L, second.getOccurrenceCount());
+        assertEquals(3L, third.getOccurrenceCount());
+        assertEquals(11L, other.getId());
+        verify(alertRepository, times(2)).save(any(Alert.class));
+        verify(alertRepository, times(2))
+            .findFirstBySourceAndSeverityAndMessageAndResolvedFalseOrderByIdDesc(anyString(), any(), anyString());
+        verify(queryResultCache, times(2)).invalidate(CacheRegion.ALERTS);
+        assertEquals(2, alertFingerprintIndex.getCoalescedCount());
+    }
+
+    @Test
+    @DisplayName("测试定期写回合并的出现次数")
+    void testFlushCoalescedAlerts() {
+        // Given
+        stubSaveAssigningId(10L);
+        alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        Alert latest = alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        when(alertRepository.updateOccurrences(eq(10L), eq(2L), any())).thenReturn(1);
+
+        // When - 第二次写回时没有新的重复
+        alertService.flushCoalescedAlerts();
+        alertService.flushCoalescedAlerts();
+
+        // Then
+        verify(alertRepository, times(1)).updateOccurrences(10L, 2L, latest.getLastSeen());
+        verify(writeAheadLog, times(1)).appendAlert(argThat(alert -> alert.getId() == 10L && alert.getOccurrenceCount() == 2L));
+    }
+
+    @Test
+    @DisplayName("测试索引未命中时合并到数据库中已有的未解决告警")
+    void testCoalesceIntoExistingRow() {
+        // Given - 例如重启后数据库中已有同一指纹的告警
+        Alert existing = new Alert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        existing.setId(5L);
+        existing.setOccurrenceCount(7L);
+        when(alertRepository.findFirstBySourceAndSeverityAndMessageAndResolvedFalseOrderByIdDesc(
+            "server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高")).thenReturn(existing);
+
+        // When
+        Alert result = alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+
+        // Then
+        assertEquals(5L, result.getId());
+        assertEquals(8L, result.getOccurrenceCount());
+        verify(alertRepository, never()).save(any(Alert.class));
+    }
+
+    @Test
+    @DisplayName("测试解决告警后同一指纹重新建行")
+    void testResolveEndsCoalescing() {
+        // Given
+        stubSaveAssigningId(10L);
+        Alert first = alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        when(alertRepository.findById(10L)).thenReturn(Optional.of(first));
+
+        // When
+        alertService.resolveAlert(10L);
+        Alert again = new Alert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        alertService.saveAlert(again);
+
+        // Then - 解决时带上内存中的计数，之后的告警另建一行
+        assertTrue(first.getResolved());
+        assertEquals(2L, first.getOccurrenceCount());
+        assertEquals(1, alertFingerprintIndex.getCoalescedCount());
+        verify(alertRepository, times(3)).save(any(Alert.class));
+        assertEquals(1, alertFingerprintIndex.size());
+    }
+
     @Test
     @DisplayName("测试解决告警")
     void testResolveAlert() {
@@ -215,17 +364,13 @@ class AlertServiceTest {
     @Test
     @DisplayName("测试获取告警摘要")
     void testGetAlertSummary() {
-        // Given
-        List<Alert> unresolvedAlerts = Arrays.asList(
-            new Alert("source1", Alert.AlertSeverity.LOW, "低严重性告警"),
-            new Alert("source2", Alert.AlertSeverity.MEDIUM, "中严重性告警"),
-            new Alert("source3", Alert.AlertSeverity.HIGH, "高严重性告警"),
-            new Alert("source4", Alert.AlertSeverity.CRITICAL, "严重告警"),
-            new Alert("source5", Alert.AlertSeverity.LOW, "另一个低严重性告警")
-        );
-        
-        when(alertRepository.countUnresolvedAlerts()).thenReturn(5L);
-        when(alertRepository.findUnresolvedAlerts()).thenReturn(unresolvedAlerts);
+        // Given - 数据库按严重级别分组计数
+        when(alertRepository.countUnresolvedBySeverity()).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.LOW, 2L),
+            severityCount(Alert.AlertSeverity.MEDIUM, 1L),
+            severityCount(Alert.AlertSeverity.HIGH, 1L),
+            severityCount(Alert.AlertSeverity.CRITICAL, 1L)
+        ));
 
         // When
         AlertService.AlertSummary result = alertService.getAlertSummary();
@@ -238,8 +383,318 @@ class AlertServiceTest {
         assertEquals(1L, result.getHighCount());
         assertEquals(1L, result.getCriticalCount());
 
-        verify(alertRepository, times(1)).countUnresolvedAlerts();
-        verify(alertRepository, times(1)).findUnresolvedAlerts();
+        verify(alertRepository, times(1)).countUnresolvedBySeverity();
+        verify(alertRepository, never()).findUnresolvedAlerts();
+    }
+
+    @Test
+    @DisplayName("测试告警摘要在校准后只读取内存计数")
+    void testAlertSummaryReadsCounters() {
+        // Given - 校准时数据库中有一条HIGH告警
+        when(alertRepository.countUnresolvedBySeverity()).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.HIGH, 1L)
+        ));
+        stubSaveAssigningId(10L);
+        alertService.getAlertSummary();
+
+        // When - 新建告警、合并重复告警后再读取
+        alertService.createAlert("server-03", Alert.AlertSeverity.CRITICAL, "系统崩溃");
+        alertService.createAlert("server-03", Alert.AlertSeverity.CRITICAL, "系统崩溃");
+        alertService.createAlert("server-04", Alert.AlertSeverity.LOW, "磁盘空间不足");
+        AlertService.AlertSummary result = alertService.getAlertSummary();
+
+        // Then - 重复告警不改变计数，分组查询只在校准时执行一次
+        assertEquals(3L, result.getUnresolvedCount());
+        assertEquals(1L, result.getHighCount());
+        assertEquals(1L, result.getCriticalCount());
+        assertEquals(1L, result.getLowCount());
+        assertEquals(1L, result.getCoalescedCount());
+        verify(alertRepository, times(1)).countUnresolvedBySeverity();
+    }
+
+    @Test
+    @DisplayName("测试解决告警后减少对应级别的计数")
+    void testResolveDecrementsSummary() {
+        // Given
+        when(alertRepository.countUnresolvedBySeverity()).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.HIGH, 2L)
+        ));
+        when(alertRepository.findById(1L)).thenReturn(Optional.of(testAlert));
+        when(alertRepository.save(testAlert)).thenReturn(testAlert);
+        alertService.getAlertSummary();
+
+        // When - 重复解决同一告警只减一次
+        alertService.resolveAlert(1L);
+        alertService.resolveAlert(1L);
+        AlertService.AlertSummary result = alertService.getAlertSummary();
+
+        // Then
+        assertEquals(1L, result.getUnresolvedCount());
+        assertEquals(1L, result.getHighCount());
+        verify(alertSeverityCounters, times(1)).decrement(Alert.AlertSeverity.HIGH);
+        verify(alertRepository, times(1)).countUnresolvedBySeverity();
+    }
+
+    @Test
+    @DisplayName("测试直接更新已有告警后重新校准计数")
+    void testUpdateExistingAlertReconciles() {
+        // Given
+        when(alertRepository.countUnresolvedBySeverity()).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.HIGH, 1L)
+        ));
+        when(alertRepository.save(testAlert)).thenReturn(testAlert);
+        alertService.getAlertSummary();
+
+        // When - 无法判断更新前的状态
+        testAlert.setSeverity(Alert.AlertSeverity.CRITICAL);
+        alertService.saveAlert(testAlert);
+        alertService.getAlertSummary();
+
+        // Then
+        verify(alertRepository, times(2)).countUnresolvedBySeverity();
+    }
+
+    @Test
+    @DisplayName("测试同一来源超出限流速率的告警被丢弃")
+    void testCreateAlertRateLimited() {
+        // Given - 每个来源、严重级别突发5条
+        stubSaveAssigningId(10L);
+
+        // When - 消息各不相同，不会被合并
+        int created = 0;
+        for (int i = 0; i < 8; i++) {
+            if (alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "连接失败 #" + i) != null) {
+                created++;
+            }
+        }
+        Alert other = alertService.createAlert("server-04", Alert.AlertSeverity.HIGH, "连接失败 #0");
+
+        // Then - 被丢弃的告警不保存，也不查库
+        assertEquals(5, created);
+        assertNotNull(other);
+        verify(alertRepository, times(6)).save(any(Alert.class));
+        verify(alertRepository, times(6)).findFirstBySourceAndSeverityAndMessageAndResolvedFalseOrderByIdDesc(
+            anyString(), any(Alert.AlertSeverity.class), anyString());
+        assertEquals(3L, alertRateLimiter.getStats().suppressed());
+    }
+
+    @Test
+    @DisplayName("测试合并到已有告警的重复告警不占用限流额度")
+    void testCoalescedAlertsNotRateLimited() {
+        // Given
+        stubSaveAssigningId(10L);
+
+        // When - 同一指纹连续出现20次，超过突发额度
+        Alert last = null;
+        for (int i = 0; i < 20; i++) {
+            last = alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "连接失败");
+        }
+
+        // Then - 只建一行，其余全部合并，没有告警被丢弃
+        assertNotNull(last);
+        assertEquals(20L, last.getOccurrenceCount());
+        verify(alertRepository, times(1)).save(any(Alert.class));
+        verify(alertRepository, times(1)).findFirstBySourceAndSeverityAndMessageAndResolvedFalseOrderByIdDesc(
+            anyString(), any(Alert.AlertSeverity.class), anyString());
+        assertEquals(1L, alertRateLimiter.getStats().admitted());
+        assertEquals(0L, alertRateLimiter.getStats().suppressed());
+    }
+
+    @Test
+    @DisplayName("测试被丢弃的告警汇总为一条告警")
+    void testPublishSuppressedSummary() {
+        // Given
+        stubSaveAssigningId(10L);
+        for (int i = 0; i < 7; i++) {
+            alertService.createAlert("server-03", Alert.AlertSeverity.MEDIUM, "连接失败 #" + i);
+        }
+        for (int i = 0; i < 6; i++) {
+            alertService.createAlert("server-04", Alert.AlertSeverity.CRITICAL, "服务不可用 #" + i);
+        }
+        clearInvocations(alertRepository);
+
+        // When - 第二次汇总时没有新的丢弃
+        alertService.publishSuppressedSummary();
+        alertService.publishSuppressedSummary();
+
+        // Then - 一条汇总告警，级别取最高的，按丢弃数排列来源
+        ArgumentCaptor<Alert> captor = ArgumentCaptor.forClass(Alert.class);
+        verify(alertRepository, times(1)).save(captor.capture());
+        Alert summary = captor.getValue();
+        assertEquals(AlertService.RATE_LIMIT_SOURCE, summary.getSource());
+        assertEquals(Alert.AlertSeverity.CRITICAL, summary.getSeverity());
+        assertEquals("限流丢弃了3条告警：server-03/MEDIUM ×2、server-04/CRITICAL ×1", summary.getMessage());
+    }
+
+    @Test
+    @DisplayName("测试按严重级别批量解决告警")
+    void testResolveAlertsBySeverity() {
+        // Given - 校准时有3条HIGH告警，其中2条将被批量解决
+        when(alertRepository.countUnresolvedBySeverity()).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.HIGH, 3L)
+        ));
+        alertService.getAlertSummary();
+        when(alertRepository.countUnresolvedWithSeverity(Alert.AlertSeverity.HIGH)).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.HIGH, 2L)
+        ));
+        when(alertRepository.resolveBySeverity(Alert.AlertSeverity.HIGH)).thenReturn(2);
+
+        // When
+        AlertService.BulkResolveResult result = alertService.resolveAlertsBySeverity(Alert.AlertSeverity.HIGH);
+
+        // Then - 一条集合UPDATE、一条记录条件的预写日志，计数直接扣减
+        assertEquals(2L, result.getResolvedCount());
+        verify(alertRepository, times(1)).resolveBySeverity(Alert.AlertSeverity.HIGH);
+        verify(alertRepository, never()).resolveByIdIn(any());
+        verify(alertRepository, never()).save(any(Alert.class));
+        verify(writeAheadLog, times(1)).appendAlertsResolvedMatching(WalCodec.ResolveCriteria.bySeverity(Alert.AlertSeverity.HIGH));
+        verify(queryResultCache, atLeastOnce()).invalidate(CacheRegion.ALERTS);
+        assertEquals(1L, alertService.getAlertSummary().getHighCount());
+        verify(alertRepository, times(1)).countUnresolvedBySeverity();
+    }
+
+    @Test
+    @DisplayName("测试按条件批量解决前写回出现次数，解决后移除命中来源的指纹")
+    void testResolveAlertsBySourceRemovesFingerprints() {
+        // Given - server-03的告警合并了一次
+        stubSaveAssigningId(10L);
+        Alert first = alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        alertService.createAlert("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        when(alertRepository.countUnresolvedBySource("server-03")).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.HIGH, 1L)
+        ));
+        when(alertRepository.resolveBySource("server-03")).thenReturn(1);
+        when(alertRepository.updateOccurrences(anyLong(), anyLong(), any())).thenReturn(1);
+
+        // When
+        AlertService.BulkResolveResult result = alertService.resolveAlertsBySource("server-03");
+
+        // Then
+        assertEquals(1L, result.getResolvedCount());
+        InOrder inOrder = inOrder(alertRepository);
+        inOrder.verify(alertRepository).updateOccurrences(eq(first.getId()), eq(2L), any());
+        inOrder.verify(alertRepository).resolveBySource("server-03");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Predicate<Alert>> filter = ArgumentCaptor.forClass(Predicate.class);
+        verify(alertFingerprintIndex, times(1)).removeMatching(filter.capture());
+        assertTrue(filter.getValue().test(new Alert("server-03", Alert.AlertSeverity.LOW, "其他消息")));
+        assertFalse(filter.getValue().test(new Alert("server-04", Alert.AlertSeverity.HIGH, "CPU使用率过高")));
+        assertEquals(0, alertFingerprintIndex.size());
+    }
+
+    @Test
+    @DisplayName("测试按id批量解决按批执行UPDATE")
+    void testResolveAlertsInBatches() {
+        // Given
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            ids.add(id);
+        }
+        when(alertRepository.countUnresolvedByIdIn(anyCollection())).thenAnswer(invocation -> List.of(
+            severityCount(Alert.AlertSeverity.LOW, (long) ((Collection<?>) invocation.getArgument(0)).size())));
+        when(alertRepository.resolveByIdIn(anyCollection())).thenAnswer(invocation ->
+            ((Collection<?>) invocation.getArgument(0)).size());
+
+        // When
+        AlertService.BulkResolveResult result = alertService.resolveAlerts(ids);
+
+        // Then - 1000、1000、500三批
+        assertEquals(2500L, result.getResolvedCount());
+        verify(alertRepository, times(3)).countUnresolvedByIdIn(anyCollection());
+        verify(alertRepository, times(3)).resolveByIdIn(anyCollection());
+        verify(writeAheadLog, times(3)).appendAlertsResolved(anyList());
+    }
+
+    @Test
+    @DisplayName("测试批量解决期间有告警被单独解决时重新校准计数")
+    void testResolveAlertsReconcilesOnConcurrentChange() {
+        // Given
+        when(alertRepository.countUnresolvedBySeverity()).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.MEDIUM, 2L)
+        ));
+        alertService.getAlertSummary();
+        when(alertRepository.countUnresolvedByIdIn(List.of(1L, 2L))).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.MEDIUM, 2L)
+        ));
+        // 计数之后其中一条已被解决
+        when(alertRepository.resolveByIdIn(List.of(1L, 2L))).thenReturn(1);
+
+        // When
+        AlertService.BulkResolveResult result = alertService.resolveAlerts(List.of(1L, 2L));
+        alertService.getAlertSummary();
+
+        // Then
+        assertEquals(1L, result.getResolvedCount());
+        verify(alertSeverityCounters, never()).decrement(any(), anyLong());
+        verify(alertRepository, times(2)).countUnresolvedBySeverity();
+    }
+
+    @Test
+    @DisplayName("测试批量解决在提交后写预写日志，回滚时不写")
+    void testResolveAlertsAppendsWalAfterCommit() {
+        // Given
+        when(alertRepository.countUnresolvedBySource("server-03")).thenReturn(Arrays.asList(
+            severityCount(Alert.AlertSeverity.LOW, 1L)
+        ));
+        when(alertRepository.resolveBySource("server-03")).thenReturn(1);
+
+        // When - 事务提交
+        List<TransactionSynchronization> committed = resolveInTransaction();
+        verify(writeAheadLog, never()).appendAlertsResolvedMatching(any());
+        committed.forEach(TransactionSynchronization::afterCommit);
+        committed.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        // Then
+        InOrder inOrder = inOrder(writeAheadLog, alertRepository);
+        inOrder.verify(alertRepository).resolveBySource("server-03");
+        inOrder.verify(writeAheadLog).appendAlertsResolvedMatching(WalCodec.ResolveCriteria.bySource("server-03"));
+
+        // When - 事务回滚
+        clearInvocations(writeAheadLog);
+        List<TransactionSynchronization> rolledBack = resolveInTransaction();
+        rolledBack.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then
+        verify(writeAheadLog, never()).appendAlertsResolvedMatching(any());
+    }
+
+    private List<TransactionSynchronization> resolveInTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            alertService.resolveAlertsBySource("server-03");
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("测试批量解决没有命中告警")
+    void testResolveAlertsNothingMatched() {
+        // Given
+        when(alertRepository.countUnresolvedBefore(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+
+        // When
+        AlertService.BulkResolveResult empty = alertService.resolveAlerts(Collections.emptyList());
+        AlertService.BulkResolveResult none = alertService.resolveAlertsBefore(LocalDateTime.now());
+
+        // Then - 计数为0时不执行UPDATE
+        assertEquals(0L, empty.getResolvedCount());
+        assertEquals(0L, none.getResolvedCount());
+        verify(alertRepository, never()).countUnresolvedByIdIn(any());
+        verify(alertRepository, never()).resolveByIdIn(any());
+        verify(alertRepository, never()).resolveBefore(any());
+        verify(writeAheadLog, never()).appendAlertsResolvedMatching(any());
+    }
+
+    private AlertRepository.SeverityCount severityCount(Alert.AlertSeverity severity, Long count) {
+        return new AlertRepository.SeverityCount() {
+            @Override
+            public Alert.AlertSeverity getSeverity() { return severity; }
+
+            @Override
+            public Long getAlertCount() { return count; }
+        };
     }
 
     @Test
@@ -310,8 +765,7 @@ class AlertServiceTest {
     @DisplayName("测试告警摘要 - 无未解决告警")
     void testAlertSummaryNoUnresolved() {
         // Given
-        when(alertRepository.countUnresolvedAlerts()).thenReturn(0L);
-        when(alertRepository.findUnresolvedAlerts()).thenReturn(Collections.emptyList());
+        when(alertRepository.countUnresolvedBySeverity()).thenReturn(Collections.emptyList());
 
         // When
         AlertService.AlertSummary result = alertService.getAlertSummary();
@@ -324,8 +778,7 @@ class AlertServiceTest {
         assertEquals(0L, result.getHighCount());
         assertEquals(0L, result.getCriticalCount());
 
-        verify(alertRepository, times(1)).countUnresolvedAlerts();
-        verify(alertRepository, times(1)).findUnresolvedAlerts();
+        verify(alertRepository, times(1)).countUnresolvedBySeverity();
     }
 
     @Test
@@ -0,0 +1,233 @@
+package com.bub6le.systemmonitoring.service;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.MetricsPartitionManager;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsIngestServiceTest {
+
+    @Mock
+    private SystemMetricsService systemMetricsService;
+
+    @Mock
+    private MetricsPartitionManager metricsPartitionManager;
+
+    @Mock
+    private WriteAheadLog writeAheadLog;
+
+    @Spy
+    private ObjectMapper objectMapper = new JsonMapper();
+
+    @InjectMocks
+    private MetricsIngestService metricsIngestService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(metricsIngestService, "queueCapacity", 100);
+        ReflectionTestUtils.setField(metricsIngestService, "batchSize", 3);
+        ReflectionTestUtils.setField(metricsIngestService, "flushIntervalMs", 200L);
+        metricsIngestService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        metricsIngestService.stop();
+    }
+
+    private SystemMetrics newMetric(String serverName) {
+        return new SystemMetrics(serverName, 50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+    }
+
+    @Test
+    @DisplayName("测试攒满批量大小后批量写入")
+    void testFlushBySize() {
+        // When
+        assertTrue(metricsIngestService.submit(newMetric("server-01")));
+        assertTrue(metricsIngestService.submit(newMetric("server-02")));
+        assertTrue(metricsIngestService.submit(newMetric("server-03")));
+
+        // Then
+        verify(systemMetricsService, timeout(1000).times(1))
+            .saveMetricsBatch(argThat((List<SystemMetrics> batch) -> batch.size() == 3));
+    }
+
+    @Test
+    @DisplayName("测试未满一批时按时间间隔写入")
+    void testFlushByInterval() {
+        // When
+        assertTrue(metricsIngestService.submit(newMetric("server-01")));
+
+        // Then
+        verify(systemMetricsService, timeout(1000).times(1))
+            .saveMetricsBatch(argThat((List<SystemMetrics> batch) -> batch.size() == 1));
+    }
+
+    @Test
+    @DisplayName("测试写入失败不影响后续批次")
+    void testFlushFailure() {
+        // Given
+        when(systemMetricsService.saveMetricsBatch(anyList()))
+            .thenThrow(new RuntimeException("db down"))
+            .thenReturn(List.of());
+
+        // When
+        metricsIngestService.submit(newMetric("server-01"));
+        verify(systemMetricsService, timeout(1000).times(1)).saveMetricsBatch(anyList());
+        metricsIngestService.submit(newMetric("server-02"));
+
+        // Then
+        verify(systemMetricsService, timeout(1000).times(2)).saveMetricsBatch(anyList());
+        MetricsIngestService.IngestStats stats = metricsIngestService.getIngestStats();
+        assertEquals(2, stats.getAcceptedCount());
+        assertEquals(1, stats.getFailedCount());
+    }
+
+    @Test
+    @DisplayName("测试入队前写日志，落库后释放")
+    void testWalAppendedBeforeQueue() {
+        // Given
+        SystemMetrics metrics = newMetric("server-01");
+
+        // When
+        assertTrue(metricsIngestService.submit(metrics));
+
+        // Then
+        verify(writeAheadLog).appendMetrics(metrics);
+        verify(writeAheadLog, timeout(1000)).release(metrics);
+        InOrder inOrder = inOrder(writeAheadLog, systemMetricsService);
+        inOrder.verify(writeAheadLog).appendMetrics(metrics);
+        inOrder.verify(systemMetricsService).saveMetricsBatch(anyList());
+        inOrder.verify(writeAheadLog).release(metrics);
+    }
+
+    @Test
+    @DisplayName("测试队列已满时拒绝且不写日志")
+    void testQueueFullNotLogged() {
+        // Given - 队列容量为1，刷新线程未启动
+        metricsIngestService.stop();
+        ReflectionTestUtils.setField(metricsIngestService, "queue", new ArrayBlockingQueue<SystemMetrics>(1));
+
+        // When
+        assertTrue(metricsIngestService.submit(newMetric("server-01")));
+        SystemMetrics rejected = newMetric("server-02");
+
+        // Then
+        assertFalse(metricsIngestService.submit(rejected));
+        verify(writeAheadLog, never()).appendMetrics(rejected);
+    }
+
+    @Test
+    @DisplayName("测试要求持久化时等待WAL落盘")
+    void testSubmitJsonDurable() throws InterruptedException {
+        // Given
+        when(writeAheadLog.appendMetrics(any())).thenReturn(40L, 80L);
+        when(writeAheadLog.awaitDurable(eq(80L), anyLong())).thenReturn(true);
+
+        // When
+        MetricsIngestService.BatchIngestResult result = metricsIngestService.submitJson(body(
+            "[{\"serverName\":\"server-01\"},{\"serverName\":\"server-02\"}]"), true);
+
+        // Then
+        assertEquals(2, result.getAcceptedCount());
+        assertTrue(result.isDurable());
+        verify(writeAheadLog).awaitDurable(eq(80L), anyLong());
+    }
+
+    @Test
+    @DisplayName("测试拒绝空样本")
+    void testSubmitNull() {
+        assertFalse(metricsIngestService.submit(null));
+        assertEquals(1, metricsIngestService.getIngestStats().getRejectedCount());
+    }
+
+    private InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("测试流式解析JSON数组批量提交")
+    void testSubmitJsonArray() {
+        // When
+        MetricsIngestService.BatchIngestResult result = metricsIngestService.submitJson(body(
+            "[{\"serverName\":\"server-01\",\"cpuUsage\":75.5,\"region\":\"北京\",\"timestamp\":\"2026-01-01T12:00:00\"},"
+            + "{\"serverName\":\"server-02\",\"memoryUsage\":60,\"extra\":{\"ignored\":[1,2]}},"
+            + "{\"serverName\":\"server-03\",\"loadAverage\":null}]"));
+
+        // Then
+        assertEquals(3, result.getAcceptedCount());
+        assertEquals(0, result.getRejectedCount());
+        assertNull(result.getError());
+        verify(systemMetricsService, timeout(1000).times(1)).saveMetricsBatch(argThat((List<SystemMetrics> batch) ->
+            batch.size() == 3
+                && batch.get(0).getCpuUsage() == 75.5
+                && "北京".equals(batch.get(0).getRegion())
+                && LocalDateTime.of(2026, 1, 1, 12, 0).equals(batch.get(0).getTimestamp())
+                && batch.get(1).getMemoryUsage() == 60.0));
+    }
+
+    @Test
+    @DisplayName("测试流式解析NDJSON")
+    void testSubmitNdjson() {
+        // When
+        MetricsIngestService.BatchIngestResult result = metricsIngestService.submitJson(body(
+            "{\"serverName\":\"server-01\",\"cpuUsage\":10}\n{\"serverName\":\"server-02\",\"cpuUsage\":20}\n"));
+
+        // Then
+        assertEquals(2, result.getAcceptedCount());
+        assertEquals(0, result.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("测试拒绝不合法的样本")
+    void testSubmitJsonInvalidSamples() {
+        // When - 缺少服务器名、数值类型错误、时间格式错误、非对象元素
+        MetricsIngestService.BatchIngestResult result = metricsIngestService.submitJson(body(
+            "[{\"cpuUsage\":10},"
+            + "{\"serverName\":\"server-01\",\"cpuUsage\":\"high\"},"
+            + "{\"serverName\":\"server-01\",\"timestamp\":\"yesterday\"},"
+            + "42,"
+            + "{\"serverName\":\"server-02\",\"cpuUsage\":30}]"));
+
+        // Then
+        assertEquals(1, result.getAcceptedCount());
+        assertEquals(4, result.getRejectedCount());
+        assertEquals(4, metricsIngestService.getIngestStats().getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("测试JSON语法错误时返回已处理的计数")
+    void testSubmitJsonMalformed() {
+        // When
+        MetricsIngestService.BatchIngestResult result = metricsIngestService.submitJson(body(
+            "[{\"serverName\":\"server-01\",\"cpuUsage\":10},{\"serverName\":"));
+
+        // Then
+        assertEquals(1, result.getAcceptedCount());
+        assertNotNull(result.getError());
+    }
+}
@@ -1,19 +1,55 @@
 package com.bub6le.systemmonitoring.service;
 
 import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.MetricsAggregate;
+import com.bub6le.systemmonitoring.repository.MetricsAggregationRepository;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.repository.MetricsPartitionManager;
+import com.bub6le.systemmonitoring.repository.PageCursor;
 import com.bub6le.systemmonitoring.repository.SystemMetricsRepository;
+import com.bub6le.systemmonitoring.repository.view.MetricsChartPoint;
+import com.bub6le.systemmonitoring.store.DimensionDistributionStore;
+import com.bub6le.systemmonitoring.store.DistributionEntry;
+import com.bub6le.systemmonitoring.store.HealthWindowAggregator;
+import com.bub6le.systemmonitoring.store.LatestMetricsRegistry;
+import com.bub6le.systemmonitoring.store.MetricsHistoryStore;
+import com.bub6le.systemmonitoring.store.MetricsPoint;
+import com.bub6le.systemmonitoring.store.RecentMetricsWindow;
+import com.bub6le.systemmonitoring.store.ServerSnapshot;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.store.downsample.DownsampledChart;
+import com.bub6le.systemmonitoring.store.rollup.MetricsRollupStore;
+import com.bub6le.systemmonitoring.store.rollup.RollupPoint;
+import com.bub6le.systemmonitoring.store.rollup.RollupResolution;
+import com.bub6le.systemmonitoring.store.rollup.RollupSeries;
+import com.bub6le.systemmonitoring.store.sketch.PercentileSketchStore;
+import com.bub6le.systemmonitoring.store.sketch.PercentileSnapshot;
+import com.bub6le.systemmonitoring.store.topk.TopMetric;
+import com.bub6le.systemmonitoring.store.topk.TopServerEntry;
+import com.bub6le.systemmonitoring.store.topk.TopServersTracker;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -25,6 +61,43 @@ class SystemMetricsServiceTest {
     @Mock
     private SystemMetricsRepository systemMetricsRepository;
 
+    @Mock
+    private MetricsPartitionManager metricsPartitionManager;
+
+    @Mock
+    private MetricsAggregationRepository metricsAggregationRepository;
+
+    @Mock
+    private MetricsHistoryStore metricsHistoryStore;
+
+    @Mock
+    private MetricsRollupStore metricsRollupStore;
+
+    @Mock
+    private PercentileSketchStore percentileSketchStore;
+
+    @Mock
+    private TopServersTracker topServersTracker;
+    
+    @Mock
+    private WriteAheadLog writeAheadLog;
+
+    @Spy
+    private RecentMetricsWindow recentMetricsWindow = new RecentMetricsWindow(10, 2048, new DimensionDictionary());
+
+    @Spy
+    private HealthWindowAggregator healthWindowAggregator = new HealthWindowAggregator(5, 5);
+
+    @Spy
+    private DimensionDistributionStore dimensionDistributionStore =
+        new DimensionDistributionStore(60, 60, new DimensionDictionary());
+
+    @Spy
+    private QueryResultCache queryResultCache = new QueryResultCache(64, 60_000);
+
+    @Spy
+    private LatestMetricsRegistry latestMetricsRegistry = new LatestMetricsRegistry(120, 60);
+
     @InjectMocks
     private SystemMetricsService systemMetricsService;
 
@@ -67,10 +140,10 @@ class SystemMetricsServiceTest {
     @Test
     @DisplayName("测试获取最近的系统指标")
     void testGetRecentMetrics() {
-        // Given
+        // Given - 热窗口刚创建，5分钟前的数据只能从数据库读取
         int minutes = 5;
-        LocalDateTime startTime = LocalDateTime.now().minusMinutes(minutes);
-        when(systemMetricsRepository.findRecentMetrics(any(LocalDateTime.class))).thenReturn(mockMetricsList);
+        when(systemMetricsRepository.findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(mockMetricsList);
 
         // When
         List<SystemMetrics> result = systemMetricsService.getRecentMetrics(minutes);
@@ -78,7 +151,150 @@ class SystemMetricsServiceTest {
         // Then
         assertNotNull(result);
         assertEquals(3, result.size());
-        verify(systemMetricsRepository, times(1)).findRecentMetrics(any(LocalDateTime.class));
+        verify(systemMetricsRepository, times(1)).findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(systemMetricsRepository, never()).findRecentMetrics(any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("测试最近指标在写入前复用缓存结果")
+    void testGetRecentMetricsCachedUntilWrite() {
+        // Given
+        when(systemMetricsRepository.findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(mockMetricsList);
+        when(systemMetricsRepository.save(testMetric)).thenReturn(testMetric);
+
+        // When - 同一时间桶内重复读取只查询一次，写入指标后重新查询
+        List<SystemMetrics> first = systemMetricsService.getRecentMetrics(5);
+        List<SystemMetrics> second = systemMetricsService.getRecentMetrics(5);
+        systemMetricsService.saveMetrics(testMetric);
+        systemMetricsService.getRecentMetrics(5);
+
+        // Then
+        assertSame(first, second);
+        verify(systemMetricsRepository, times(2)).findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+        assertThrows(UnsupportedOperationException.class, () -> first.add(testMetric));
+    }
+
+    @Test
+    @DisplayName("测试最近指标合并热窗口与数据库数据")
+    void testGetRecentMetricsMergesHotWindow() {
+        // Given
+        SystemMetrics hotMetric = new SystemMetrics(
+            "server-05", 55.0, 45.0, 35.0, 300.0, 150.0, 1.5, "杭州", "API网关"
+        );
+        recentMetricsWindow.onMetricsIngested(hotMetric);
+        when(systemMetricsRepository.findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(mockMetricsList);
+
+        // When
+        List<SystemMetrics> result = systemMetricsService.getRecentMetrics(5);
+
+        // Then - 热窗口中的数据更新，排在前面
+        assertEquals(4, result.size());
+        assertEquals("server-05", result.get(0).getServerName());
+        assertEquals(55.0, result.get(0).getCpuUsage());
+    }
+
+    @Test
+    @DisplayName("测试最近指标合并已封存分区")
+    void testGetRecentMetricsIncludesSealedPartitions() {
+        // Given
+        SystemMetrics sealedMetric = new SystemMetrics(
+            "server-04", 85.0, 75.0, 55.0, 700.0, 350.0, 4.0, "成都", "API网关"
+        );
+        sealedMetric.setTimestamp(LocalDateTime.now().minusMinutes(4));
+        SystemMetrics headMetric = new SystemMetrics(
+            "server-01", 75.5, 60.2, 45.8, 500.0, 250.0, 2.5, "北京", "Web服务"
+        );
+        headMetric.setTimestamp(LocalDateTime.now().minusMinutes(2));
+        when(systemMetricsRepository.findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of(headMetric));
+        when(metricsPartitionManager.findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of(sealedMetric));
+
+        // When
+        List<SystemMetrics> result = systemMetricsService.getRecentMetrics(5);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("server-01", result.get(0).getServerName());
+        assertEquals("server-04", result.get(1).getServerName());
+    }
+
+    @Test
+    @DisplayName("测试图表数据点合并热窗口、当前表和已封存分区")
+    void testGetChartPoints() {
+        // Given - 热窗口刚创建，更早的部分从当前表和封存分区只读取三列
+        SystemMetrics hotMetric = new SystemMetrics(
+            "server-05", 55.0, 45.0, 35.0, 300.0, 150.0, 1.5, "杭州", "API网关"
+        );
+        recentMetricsWindow.onMetricsIngested(hotMetric);
+        LocalDateTime now = LocalDateTime.now();
+        when(systemMetricsRepository.findChartPointsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of(new MetricsChartPoint(now.minusMinutes(2), 70.0, 60.0)));
+        when(metricsPartitionManager.findChartPointsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of(new MetricsChartPoint(now.minusMinutes(4), 80.0, 65.0)));
+
+        // When
+        List<MetricsChartPoint> result = systemMetricsService.getChartPoints(5);
+
+        // Then - 按时间正序，热窗口的数据在最后
+        assertEquals(3, result.size());
+        assertEquals(80.0, result.get(0).cpuUsage());
+        assertEquals(70.0, result.get(1).cpuUsage());
+        assertEquals(55.0, result.get(2).cpuUsage());
+        assertEquals(45.0, result.get(2).memoryUsage());
+        verify(systemMetricsRepository, never()).findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("测试短范围降采样图表读取原始样本")
+    void testGetDownsampledChartFromRaw() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        when(systemMetricsRepository.findChartPointsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(List.of(new MetricsChartPoint(now.minusMinutes(4), 80.0, 65.0),
+                                new MetricsChartPoint(now.minusMinutes(2), 70.0, null)));
+        when(metricsPartitionManager.findChartPointsBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        DownsampledChart result = systemMetricsService.getDownsampledChart(5, 300);
+
+        // Then - 点数少于目标时原样返回，空值不进入序列
+        assertEquals("raw", result.source());
+        assertEquals(2, result.rawPoints());
+        assertEquals(2, result.cpuUsage().size());
+        assertEquals(1, result.memoryUsage().size());
+        verifyNoInteractions(metricsRollupStore);
+    }
+
+    @Test
+    @DisplayName("测试长范围降采样图表读取预聚合并限制点数")
+    void testGetDownsampledChartFromRollup() {
+        // Given - 7天范围内每5分钟一个桶
+        LocalDateTime now = LocalDateTime.now();
+        List<RollupPoint> rollup = new ArrayList<>();
+        for (int i = 2000; i > 0; i--) {
+            double cpu = 50 + 40 * Math.sin(i / 30.0);
+            RollupPoint.ColumnStats cpuStats = new RollupPoint.ColumnStats(cpu, cpu, cpu, 1, cpu);
+            RollupPoint.ColumnStats other = new RollupPoint.ColumnStats(40.0, 40.0, 40.0, 1, 40.0);
+            rollup.add(new RollupPoint(now.minusMinutes(i * 5L), 1, cpuStats, other, other, other, other, other));
+        }
+        when(metricsRollupStore.query(isNull(), eq(RollupResolution.FIVE_MINUTES), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(rollup);
+
+        // When
+        DownsampledChart result = systemMetricsService.getDownsampledChart(7 * 24 * 60, 300);
+
+        // Then
+        assertEquals("5m", result.source());
+        assertEquals(2000, result.rawPoints());
+        assertEquals(300, result.targetPoints());
+        assertTrue(result.cpuUsage().size() <= 300);
+        assertTrue(result.cpuUsage().size() > 200);
+        assertTrue(result.memoryUsage().size() <= 300);
+        verify(systemMetricsRepository, never()).findChartPointsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
     @Test
@@ -135,6 +351,42 @@ class SystemMetricsServiceTest {
         verify(systemMetricsRepository, times(1)).findByServiceType(serviceType);
     }
 
+    @Test
+    @DisplayName("测试从压缩历史读取服务器指标")
+    void testGetMetricsHistory() {
+        // Given
+        MetricsPoint point = new MetricsPoint(LocalDateTime.now().minusHours(1), 75.5, 60.2, 45.8, 500.0, 250.0, 2.5);
+        when(metricsHistoryStore.scan(eq("server-01"), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(Stream.of(point));
+
+        // When
+        List<MetricsPoint> result = systemMetricsService.getMetricsHistory("server-01", 24);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(75.5, result.get(0).cpuUsage());
+        verify(metricsHistoryStore, times(1)).scan(eq("server-01"), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("测试按时间范围选择预聚合粒度")
+    void testGetMetricsRollup() {
+        // Given
+        when(metricsRollupStore.query(isNull(), any(RollupResolution.class), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        RollupSeries shortRange = systemMetricsService.getMetricsRollup(60, null, 30);
+        RollupSeries longRange = systemMetricsService.getMetricsRollup(7 * 24 * 60, null, 30);
+
+        // Then
+        assertEquals("1m", shortRange.resolution());
+        assertEquals(60, shortRange.stepSeconds());
+        assertEquals("1h", longRange.resolution());
+        verify(metricsRollupStore, times(1)).query(isNull(), eq(RollupResolution.ONE_MINUTE), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(metricsRollupStore, times(1)).query(isNull(), eq(RollupResolution.ONE_HOUR), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
     @Test
     @DisplayName("测试保存系统指标")
     void testSaveMetrics() {
@@ -152,6 +404,77 @@ class SystemMetricsServiceTest {
         assertEquals("server-04", result.getServerName());
         assertEquals(85.0, result.getCpuUsage());
         verify(systemMetricsRepository, times(1)).save(newMetric);
+        verify(metricsPartitionManager, times(1)).beginHeadWrite();
+        verify(metricsPartitionManager, times(1)).endHeadWrite();
+        // 落库前写日志，落库后释放
+        InOrder inOrder = inOrder(writeAheadLog, systemMetricsRepository);
+        inOrder.verify(writeAheadLog).appendMetrics(newMetric);
+        inOrder.verify(systemMetricsRepository).save(newMetric);
+        inOrder.verify(writeAheadLog).release(newMetric);
+    }
+
+    @Test
+    @DisplayName("测试批量保存系统指标")
+    void testSaveMetricsBatch() {
+        // Given
+        when(systemMetricsRepository.saveAll(mockMetricsList)).thenReturn(mockMetricsList);
+
+        // When
+        List<SystemMetrics> result = systemMetricsService.saveMetricsBatch(mockMetricsList);
+
+        // Then
+        assertEquals(3, result.size());
+        verify(systemMetricsRepository, times(1)).saveAll(mockMetricsList);
+        verify(systemMetricsRepository, never()).save(any(SystemMetrics.class));
+    }
+
+    @Test
+    @DisplayName("测试批量写入在事务提交后才通知监听器")
+    void testSaveMetricsBatchNotifiesAfterCommit() {
+        // Given
+        MetricsIngestListener listener = mock(MetricsIngestListener.class);
+        ReflectionTestUtils.setField(systemMetricsService, "ingestListeners", List.of(listener));
+        when(systemMetricsRepository.saveAll(mockMetricsList)).thenReturn(mockMetricsList);
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // When - 事务进行中只登记回调
+            systemMetricsService.saveMetricsBatch(mockMetricsList);
+            verify(listener, never()).onMetricsIngested(any());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verify(listener, times(3)).onMetricsIngested(any(SystemMetrics.class));
+        verify(listener).onMetricsIngested(testMetric);
+    }
+
+    @Test
+    @DisplayName("测试批量写入回滚时不通知监听器")
+    void testSaveMetricsBatchRolledBack() {
+        // Given
+        MetricsIngestListener listener = mock(MetricsIngestListener.class);
+        ReflectionTestUtils.setField(systemMetricsService, "ingestListeners", List.of(listener));
+        when(systemMetricsRepository.saveAll(mockMetricsList)).thenReturn(mockMetricsList);
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            // When
+            systemMetricsService.saveMetricsBatch(mockMetricsList);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        verify(listener, never()).onMetricsIngested(any());
     }
 
     @Test
@@ -192,7 +515,8 @@ class SystemMetricsServiceTest {
     @DisplayName("测试获取系统健康状态 - 无数据")
     void testGetSystemHealthStatusNoData() {
         // Given
-        when(systemMetricsRepository.findLatestMetrics(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+        when(metricsAggregationRepository.aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE)))
+            .thenReturn(Collections.emptyList());
 
         // When
         SystemMetricsService.SystemHealthStatus result = systemMetricsService.getSystemHealthStatus();
@@ -204,7 +528,8 @@ class SystemMetricsServiceTest {
         assertEquals(0.0, result.getAvgMemory());
         assertEquals(0.0, result.getAvgLoad());
         assertEquals(0, result.getServerCount());
-        verify(systemMetricsRepository, times(1)).findLatestMetrics(any(LocalDateTime.class));
+        verify(metricsAggregationRepository, times(1)).aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE));
+        verify(systemMetricsRepository, never()).findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
     @Test
@@ -215,7 +540,9 @@ class SystemMetricsServiceTest {
             new SystemMetrics("server-01", 50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务"),
             new SystemMetrics("server-02", 60.0, 50.0, 35.0, 250.0, 120.0, 1.5, "上海", "数据库")
         );
-        when(systemMetricsRepository.findLatestMetrics(any(LocalDateTime.class))).thenReturn(healthyMetrics);
+        healthyMetrics.forEach(healthWindowAggregator::onMetricsIngested);
+        when(metricsAggregationRepository.aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE)))
+            .thenReturn(Collections.emptyList());
 
         // When
         SystemMetricsService.SystemHealthStatus result = systemMetricsService.getSystemHealthStatus();
@@ -227,7 +554,29 @@ class SystemMetricsServiceTest {
         assertEquals(45.0, result.getAvgMemory(), 0.01);
         assertEquals(1.25, result.getAvgLoad(), 0.01);
         assertEquals(2, result.getServerCount());
-        verify(systemMetricsRepository, times(1)).findLatestMetrics(any(LocalDateTime.class));
+        verify(metricsAggregationRepository, times(1)).aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE));
+        verify(systemMetricsRepository, never()).findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("测试健康状态包含在线与失联服务器数")
+    void testGetSystemHealthStatusServerCounts() {
+        // Given
+        SystemMetrics live = new SystemMetrics("server-01", 50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        SystemMetrics stale = new SystemMetrics("server-02", 60.0, 50.0, 35.0, 250.0, 120.0, 1.5, "上海", "数据库");
+        stale.setTimestamp(LocalDateTime.now().minusMinutes(10));
+        latestMetricsRegistry.onMetricsIngested(live);
+        latestMetricsRegistry.onMetricsIngested(stale);
+        when(metricsAggregationRepository.aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE)))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        SystemMetricsService.SystemHealthStatus result = systemMetricsService.getSystemHealthStatus();
+
+        // Then - 窗口内没有样本，但仍报告服务器在线情况
+        assertEquals("未知", result.getStatus());
+        assertEquals(1, result.getLiveServerCount());
+        assertEquals(1, result.getStaleServerCount());
     }
 
     @Test
@@ -238,7 +587,9 @@ class SystemMetricsServiceTest {
             new SystemMetrics("server-01", 75.0, 60.0, 40.0, 300.0, 150.0, 2.5, "北京", "Web服务"),
             new SystemMetrics("server-02", 80.0, 78.0, 45.0, 350.0, 180.0, 3.2, "上海", "数据库")
         );
-        when(systemMetricsRepository.findLatestMetrics(any(LocalDateTime.class))).thenReturn(warningMetrics);
+        warningMetrics.forEach(healthWindowAggregator::onMetricsIngested);
+        when(metricsAggregationRepository.aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE)))
+            .thenReturn(Collections.emptyList());
 
         // When
         SystemMetricsService.SystemHealthStatus result = systemMetricsService.getSystemHealthStatus();
@@ -250,7 +601,8 @@ class SystemMetricsServiceTest {
         assertEquals(69.0, result.getAvgMemory(), 0.01);
         assertEquals(2.85, result.getAvgLoad(), 0.01);
         assertEquals(2, result.getServerCount());
-        verify(systemMetricsRepository, times(1)).findLatestMetrics(any(LocalDateTime.class));
+        verify(metricsAggregationRepository, times(1)).aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE));
+        verify(systemMetricsRepository, never()).findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
     }
 
     @Test
@@ -261,7 +613,9 @@ class SystemMetricsServiceTest {
             new SystemMetrics("server-01", 90.0, 85.0, 50.0, 400.0, 200.0, 4.5, "北京", "Web服务"),
             new SystemMetrics("server-02", 88.0, 92.0, 55.0, 450.0, 220.0, 5.5, "上海", "数据库")
         );
-        when(systemMetricsRepository.findLatestMetrics(any(LocalDateTime.class))).thenReturn(unhealthyMetrics);
+        unhealthyMetrics.forEach(healthWindowAggregator::onMetricsIngested);
+        when(metricsAggregationRepository.aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE)))
+            .thenReturn(Collections.emptyList());
 
         // When
         SystemMetricsService.SystemHealthStatus result = systemMetricsService.getSystemHealthStatus();
@@ -273,7 +627,184 @@ class SystemMetricsServiceTest {
         assertEquals(88.5, result.getAvgMemory(), 0.01);
         assertEquals(5.0, result.getAvgLoad(), 0.01);
         assertEquals(2, result.getServerCount());
-        verify(systemMetricsRepository, times(1)).findLatestMetrics(any(LocalDateTime.class));
+        verify(metricsAggregationRepository, times(1)).aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE));
+        verify(systemMetricsRepository, never()).findMetricsBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("测试获取系统健康状态 - 合并数据库聚合结果")
+    void testGetSystemHealthStatusMergesStoredAggregate() {
+        // Given - 窗口中1条样本，数据库中窗口之前还有3条样本
+        healthWindowAggregator.onMetricsIngested(
+            new SystemMetrics("server-01", 50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务"));
+        MetricsAggregate stored = new MetricsAggregate(LocalDateTime.now().minusMinutes(5), null, 3,
+            new MetricsAggregate.ColumnStats(60.0, 80.0, 70.0, 210.0, 3),
+            new MetricsAggregate.ColumnStats(50.0, 70.0, 60.0, 180.0, 3),
+            new MetricsAggregate.ColumnStats(30.0, 30.0, 30.0, 90.0, 3),
+            new MetricsAggregate.ColumnStats(200.0, 200.0, 200.0, 600.0, 3),
+            new MetricsAggregate.ColumnStats(100.0, 100.0, 100.0, 300.0, 3),
+            new MetricsAggregate.ColumnStats(2.0, 2.0, 2.0, 6.0, 3));
+        when(metricsAggregationRepository.aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.NONE)))
+            .thenReturn(List.of(stored));
+
+        // When
+        SystemMetricsService.SystemHealthStatus result = systemMetricsService.getSystemHealthStatus();
+
+        // Then
+        assertEquals(65.0, result.getAvgCpu(), 0.01);
+        assertEquals(55.0, result.getAvgMemory(), 0.01);
+        assertEquals(1.75, result.getAvgLoad(), 0.01);
+        assertEquals(4, result.getServerCount());
+    }
+
+    @Test
+    @DisplayName("测试按时间桶和维度聚合指标")
+    void testGetMetricsAggregate() {
+        // Given
+        when(metricsAggregationRepository.aggregate(any(LocalDateTime.class), any(LocalDateTime.class), anyLong(), any(MetricsGroupBy.class)))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        systemMetricsService.getMetricsAggregate(60, 30, MetricsGroupBy.SERVER);
+        systemMetricsService.getMetricsAggregate(60, 30, null);
+
+        // Then
+        verify(metricsAggregationRepository, times(1)).aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(30_000L), eq(MetricsGroupBy.SERVER));
+        verify(metricsAggregationRepository, times(1)).aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(30_000L), eq(MetricsGroupBy.NONE));
+    }
+
+    @Test
+    @DisplayName("测试按维度分组取平均CPU最高的前N组")
+    void testGetMetricsDistribution() {
+        // Given - 窗口中两个区域，数据库中窗口之前还有第三个区域
+        ingestRegion("北京", 20.0);
+        ingestRegion("北京", 40.0);
+        ingestRegion("上海", 60.0);
+        MetricsAggregate.ColumnStats cpu = new MetricsAggregate.ColumnStats(90.0, 90.0, 90.0, 90.0, 1);
+        MetricsAggregate.ColumnStats other = new MetricsAggregate.ColumnStats(1.0, 1.0, 1.0, 1.0, 1);
+        when(metricsAggregationRepository.aggregate(any(LocalDateTime.class), any(LocalDateTime.class), eq(0L), eq(MetricsGroupBy.REGION)))
+            .thenReturn(List.of(new MetricsAggregate(LocalDateTime.now().minusMinutes(5), "深圳", 1,
+                cpu, other, other, other, other, other)));
+
+        // When
+        List<DistributionEntry> result = systemMetricsService.getMetricsDistribution(MetricsGroupBy.REGION, 5, 2);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("深圳", result.get(0).key());
+        assertEquals("上海", result.get(1).key());
+        assertEquals(60.0, result.get(1).avgCpu(), 0.01);
+    }
+
+    @Test
+    @DisplayName("测试minutes为0时按各服务器当前值分组")
+    void testGetMetricsDistributionFromLatest() {
+        // Given - server-01先后上报两次，只取最新值；失联的server-03不参与
+        latestMetricsRegistry.onMetricsIngested(new SystemMetrics("server-01", 20.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务"));
+        latestMetricsRegistry.onMetricsIngested(new SystemMetrics("server-01", 40.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务"));
+        latestMetricsRegistry.onMetricsIngested(new SystemMetrics("server-02", 60.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "数据库"));
+        SystemMetrics stale = new SystemMetrics("server-03", 95.0, 40.0, 30.0, 200.0, 100.0, 1.0, "上海", "缓存");
+        stale.setTimestamp(LocalDateTime.now().minusMinutes(10));
+        latestMetricsRegistry.onMetricsIngested(stale);
+
+        // When
+        List<DistributionEntry> result = systemMetricsService.getMetricsDistribution(MetricsGroupBy.REGION, 0, 8);
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals("北京", result.get(0).key());
+        assertEquals(2, result.get(0).count());
+        assertEquals(50.0, result.get(0).avgCpu(), 0.01);
+        verifyNoInteractions(metricsAggregationRepository);
+    }
+
+    @Test
+    @DisplayName("测试获取每台服务器的最新值")
+    void testGetLatestMetrics() {
+        // Given
+        latestMetricsRegistry.onMetricsIngested(testMetric);
+        SystemMetrics stale = new SystemMetrics("server-02", 80.0, 70.0, 50.0, 600.0, 300.0, 3.0, "上海", "数据库");
+        stale.setTimestamp(LocalDateTime.now().minusMinutes(10));
+        latestMetricsRegistry.onMetricsIngested(stale);
+
+        // When
+        List<ServerSnapshot> all = systemMetricsService.getLatestMetrics(true);
+        List<ServerSnapshot> live = systemMetricsService.getLatestMetrics(false);
+
+        // Then
+        assertEquals(2, all.size());
+        assertEquals(1, live.size());
+        assertEquals("server-01", live.get(0).serverName());
+        verifyNoInteractions(systemMetricsRepository);
+    }
+
+    private void ingestRegion(String region, double cpu) {
+        dimensionDistributionStore.onMetricsIngested(
+            new SystemMetrics("server-01", cpu, 40.0, 30.0, 200.0, 100.0, 1.0, region, "Web服务"));
+    }
+
+    @Test
+    @DisplayName("测试分位数汇总按limit截取")
+    void testGetMetricsPercentiles() {
+        // Given
+        PercentileSnapshot.ColumnPercentiles stats = new PercentileSnapshot.ColumnPercentiles(20.0, 80.0, 95.0, 99.0);
+        List<PercentileSnapshot> snapshots = List.of(
+            new PercentileSnapshot(LocalDateTime.now(), "server-01", 10, stats, stats, stats, stats, stats),
+            new PercentileSnapshot(LocalDateTime.now(), "server-02", 10, stats, stats, stats, stats, stats),
+            new PercentileSnapshot(LocalDateTime.now(), "server-03", 10, stats, stats, stats, stats, stats));
+        when(percentileSketchStore.summarize(eq(MetricsGroupBy.SERVER), isNull(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(snapshots);
+
+        // When
+        List<PercentileSnapshot> result = systemMetricsService.getMetricsPercentiles(60, MetricsGroupBy.SERVER, null, 2);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("server-01", result.get(0).groupKey());
+        verify(percentileSketchStore, times(1)).summarize(eq(MetricsGroupBy.SERVER), isNull(), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("测试指标分页传递游标并在最后一页返回空游标")
+    void testGetMetricsPage() {
+        // Given
+        LocalDateTime time = LocalDateTime.of(2026, 1, 1, 12, 0);
+        SystemMetrics metrics = new SystemMetrics("server-01", 50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setId(9L);
+        metrics.setTimestamp(time);
+        String cursor = new PageCursor(time.plusMinutes(1), 10L).encode();
+        when(systemMetricsRepository.findPageByServerName(eq("server-01"), eq(time.plusMinutes(1)), eq(10L),
+                argThat((Limit limit) -> limit.max() == 101)))
+            .thenReturn(List.of(metrics));
+
+        // When
+        CursorPage<SystemMetrics> page = systemMetricsService.getMetricsPageByServer("server-01", cursor, 100);
+
+        // Then
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+        assertThrows(IllegalArgumentException.class, () -> systemMetricsService.getMetricsPage("bad", 100));
+    }
+
+    @Test
+    @DisplayName("测试Top-K查询解析窗口参数")
+    void testGetTopServers() {
+        // Given
+        List<TopServerEntry> top = List.of(new TopServerEntry("server-01", 90.0, 95.0, 10, LocalDateTime.now()));
+        when(topServersTracker.top(eq(TopMetric.CPU), eq(20), anyLong())).thenReturn(top);
+
+        // When
+        assertEquals(top, systemMetricsService.getTopServers(TopMetric.CPU, 20, "5m"));
+        systemMetricsService.getTopServers(TopMetric.CPU, 20, "30s");
+        systemMetricsService.getTopServers(TopMetric.CPU, 20, "1h");
+        systemMetricsService.getTopServers(TopMetric.CPU, 20, "10");
+        systemMetricsService.getTopServers(TopMetric.CPU, 20, "abc");
+
+        // Then - 无法解析时使用5分钟
+        verify(topServersTracker, times(2)).top(TopMetric.CPU, 20, 300_000L);
+        verify(topServersTracker, times(1)).top(TopMetric.CPU, 20, 30_000L);
+        verify(topServersTracker, times(1)).top(TopMetric.CPU, 20, 3600_000L);
+        verify(topServersTracker, times(1)).top(TopMetric.CPU, 20, 600_000L);
     }
 
     @Test
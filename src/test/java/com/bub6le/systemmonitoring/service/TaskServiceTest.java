@@ -1,15 +1,24 @@
 package com.bub6le.systemmonitoring.service;
 
 import com.bub6le.systemmonitoring.model.Task;
+import com.bub6le.systemmonitoring.repository.CursorPage;
+import com.bub6le.systemmonitoring.repository.PageCursor;
 import com.bub6le.systemmonitoring.repository.TaskRepository;
+import com.bub6le.systemmonitoring.repository.view.TaskView;
+import com.bub6le.systemmonitoring.store.cache.CacheRegion;
+import com.bub6le.systemmonitoring.store.cache.QueryResultCache;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +34,12 @@ class TaskServiceTest {
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private WriteAheadLog writeAheadLog;
+
+    @Spy
+    private QueryResultCache queryResultCache = new QueryResultCache(64, 60_000);
+
     @InjectMocks
     private TaskService taskService;
 
@@ -110,6 +125,44 @@ class TaskServiceTest {
         verify(taskRepository, times(1)).findByTargetCluster(cluster);
     }
 
+    @Test
+    @DisplayName("测试按创建时间分页获取任务")
+    void testGetTasksPage() {
+        // Given - 每页2条，仓库多返回一条表示还有下一页
+        LocalDateTime baseTime = LocalDateTime.of(2026, 1, 1, 12, 0);
+        TaskView task1 = new TaskView(3L, "任务1", "生产集群", Task.TaskStatus.RUNNING, 10, baseTime.plusMinutes(2), baseTime.plusMinutes(2));
+        TaskView task2 = new TaskView(2L, "任务2", "生产集群", Task.TaskStatus.RUNNING, 20, baseTime.plusMinutes(1), baseTime.plusMinutes(1));
+        TaskView task3 = new TaskView(1L, "任务3", "生产集群", Task.TaskStatus.RUNNING, 30, baseTime, baseTime);
+        PageCursor first = PageCursor.first();
+        when(taskRepository.findPageByStatus(eq(Task.TaskStatus.RUNNING), eq(first.timestamp()), eq(first.id()),
+                argThat((Limit limit) -> limit.max() == 3)))
+            .thenReturn(Arrays.asList(task1, task2, task3));
+
+        // When
+        CursorPage<TaskView> page = taskService.getTasksPageByStatus(Task.TaskStatus.RUNNING, null, 2);
+
+        // Then - 游标取本页最后一条的创建时间和id
+        assertEquals(2, page.items().size());
+        assertEquals(new PageCursor(baseTime.plusMinutes(1), 2L), PageCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    @DisplayName("测试获取最近更新任务的只读投影")
+    void testGetRecentTaskViews() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        TaskView view = new TaskView(1L, "系统备份", "生产集群", Task.TaskStatus.RUNNING, 50, now, now);
+        when(taskRepository.findRecentlyUpdatedViews(argThat((Limit limit) -> limit.max() == 10)))
+            .thenReturn(List.of(view));
+
+        // When
+        List<TaskView> result = taskService.getRecentTaskViews(10);
+
+        // Then
+        assertEquals(List.of(view), result);
+        verify(taskRepository, never()).findAllOrderByUpdatedTime();
+    }
+
     @Test
     @DisplayName("测试保存任务")
     void testSaveTask() {
@@ -125,6 +178,7 @@ class TaskServiceTest {
         assertEquals("数据同步", result.getTaskName());
         assertEquals("预发布集群", result.getTargetCluster());
         verify(taskRepository, times(1)).save(newTask);
+        verify(writeAheadLog, times(1)).appendTask(newTask);
     }
 
     @Test
@@ -336,6 +390,25 @@ class TaskServiceTest {
         verify(taskRepository, times(1)).countByStatus(Task.TaskStatus.COMPLETED);
     }
 
+    @Test
+    @DisplayName("测试任务摘要缓存到下一次写入")
+    void testGetTaskStatusSummaryCachedUntilWrite() {
+        // Given
+        when(taskRepository.countByStatus(any(Task.TaskStatus.class))).thenReturn(1L);
+        when(taskRepository.save(testTask)).thenReturn(testTask);
+
+        // When
+        taskService.getTaskStatusSummary();
+        taskService.getTaskStatusSummary();
+        taskService.saveTask(testTask);
+        TaskService.TaskStatusSummary result = taskService.getTaskStatusSummary();
+
+        // Then - 每次计算查询四个状态，写入前的第二次读取命中缓存
+        assertEquals(4L, result.getTotalCount());
+        verify(taskRepository, times(8)).countByStatus(any(Task.TaskStatus.class));
+        verify(queryResultCache, times(1)).invalidate(CacheRegion.TASKS);
+    }
+
     @Test
     @DisplayName("测试TaskStatusSummary类")
     void testTaskStatusSummaryClass() {
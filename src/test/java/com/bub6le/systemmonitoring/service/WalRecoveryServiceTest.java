@@ -0,0 +1,127 @@
+package com.bub6le.systemmonitoring.service;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.AlertRepository;
+import com.bub6le.systemmonitoring.repository.MetricsPartitionManager;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.store.wal.WriteAheadLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext
+class WalRecoveryServiceTest {
+
+    private static Path walDir;
+
+    // 启用WAL，并使用独立的内存库，不影响其他测试共享的库
+    @DynamicPropertySource
+    static void walProperties(DynamicPropertyRegistry registry) throws IOException {
+        walDir = Files.createTempDirectory("wal-recovery-test");
+        registry.add("monitoring.wal.enabled", () -> "true");
+        registry.add("monitoring.wal.dir", walDir::toString);
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:waltest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+    }
+
+    @Autowired
+    private WalRecoveryService walRecoveryService;
+
+    @Autowired
+    private WriteAheadLog writeAheadLog;
+
+    @Autowired
+    private SystemMetricsService systemMetricsService;
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private AlertRepository alertRepository;
+
+    @Autowired
+    private MetricsPartitionManager metricsPartitionManager;
+
+    @Autowired
+    private DimensionDictionary dimensionDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SystemMetrics newMetric(String serverName, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, 50.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setTimestamp(timestamp);
+        return metrics;
+    }
+
+    private int countRows(String table, String serverName) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE server_name = ?",
+            Integer.class, dimensionDictionary.find(serverName));
+    }
+
+    @Test
+    @DisplayName("测试检查点停在进行中的记录之前，恢复后按wal_lsn去重回放")
+    void testCheckpointAndRecover() {
+        // Given - 一条样本已写日志但还没落库；之后写入的样本进入封存分区和当前表
+        LocalDateTime baseTime = LocalDateTime.now().minusHours(1).withNano(0);
+        SystemMetrics inFlight = newMetric("wal-inflight", baseTime);
+        writeAheadLog.appendMetrics(inFlight);
+        systemMetricsService.saveMetrics(newMetric("wal-sealed", baseTime.minusMinutes(30)));
+        metricsPartitionManager.rotate();
+        String partition = metricsPartitionManager.getPartitions().get(0).getName();
+        systemMetricsService.saveMetrics(newMetric("wal-head", baseTime));
+        Alert alert = alertService.saveAlert(new Alert("wal-source", Alert.AlertSeverity.HIGH, "磁盘即将写满"));
+
+        // When
+        walRecoveryService.checkpoint();
+        systemMetricsService.saveMetrics(newMetric("wal-after", baseTime));
+        assertEquals(1L, alertService.resolveAlertsBySource("wal-source").getResolvedCount());
+
+        // Then - 检查点没有越过进行中的记录，分区单独导出
+        long checkpointLsn = writeAheadLog.getCheckpointLsn();
+        assertTrue(checkpointLsn <= inFlight.getWalLsn());
+        assertTrue(Files.isDirectory(walDir.resolve("snapshot-" + checkpointLsn)));
+        assertTrue(Files.exists(walDir.resolve("partitions").resolve(partition + ".sql.gz")));
+
+        // When - 模拟崩溃：清空数据，用重新打开的WAL恢复
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        jdbcTemplate.update("DELETE FROM system_metrics");
+        jdbcTemplate.update("DELETE FROM alerts");
+        WriteAheadLog reopened = new WriteAheadLog(true, walDir.toString(), 16 * 1024 * 1024, 100);
+        reopened.open();
+        ReflectionTestUtils.setField(walRecoveryService, "writeAheadLog", reopened);
+        try {
+            walRecoveryService.recover();
+        } finally {
+            ReflectionTestUtils.setField(walRecoveryService, "writeAheadLog", writeAheadLog);
+            reopened.close();
+        }
+
+        // Then - 快照中已有的样本不重复写入，快照之外的样本由回放补齐
+        assertEquals(1, countRows(partition, "wal-sealed"));
+        assertEquals(0, countRows("system_metrics", "wal-sealed"));
+        assertEquals(1, countRows("system_metrics", "wal-head"));
+        assertEquals(1, countRows("system_metrics", "wal-inflight"));
+        assertEquals(1, countRows("system_metrics", "wal-after"));
+        assertTrue(alertRepository.findById(alert.getId()).isPresent());
+        assertEquals("wal-source", alertRepository.findById(alert.getId()).get().getSource());
+        // 检查点之后按来源批量解决，由条件记录回放
+        assertTrue(alertRepository.findById(alert.getId()).get().getResolved());
+    }
+}
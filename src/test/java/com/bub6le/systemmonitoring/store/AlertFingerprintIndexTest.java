@@ -0,0 +1,200 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertFingerprintIndexTest {
+
+    private static final AlertFingerprint FINGERPRINT =
+        new AlertFingerprint("server-03", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+
+    private AlertFingerprintIndex index;
+    private AtomicInteger creates;
+
+    @BeforeEach
+    void setUp() {
+        index = new AlertFingerprintIndex();
+        creates = new AtomicInteger();
+    }
+
+    private Alert record(LocalDateTime seenAt) {
+        return index.record(FINGERPRINT, seenAt, () -> null, () -> {
+            Alert alert = new Alert(FINGERPRINT.source(), FINGERPRINT.severity(), FINGERPRINT.message());
+            alert.setId(100L + creates.incrementAndGet());
+            alert.setTimestamp(seenAt);
+            alert.setLastSeen(seenAt);
+            return alert;
+        });
+    }
+
+    @Test
+    @DisplayName("测试重复告警累加次数和最近出现时间")
+    void testRepeatsCoalesced() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+        // When
+        Alert first = record(start);
+        record(start.plusSeconds(10));
+        Alert latest = record(start.plusSeconds(20));
+
+        // Then - 只建了一行，首次时间不变
+        assertEquals(1, creates.get());
+        assertEquals(first.getId(), latest.getId());
+        assertEquals(3L, latest.getOccurrenceCount());
+        assertEquals(start, latest.getTimestamp());
+        assertEquals(start.plusSeconds(20), latest.getLastSeen());
+        assertEquals(2, index.getCoalescedCount());
+    }
+
+    @Test
+    @DisplayName("测试只查内存的合并在索引未命中时返回null")
+    void testCoalesceIfPresent() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+        // When
+        Alert missed = index.coalesceIfPresent(FINGERPRINT, start);
+        record(start);
+        Alert coalesced = index.coalesceIfPresent(FINGERPRINT, start.plusSeconds(5));
+
+        // Then
+        assertNull(missed);
+        assertEquals(1, creates.get());
+        assertEquals(2L, coalesced.getOccurrenceCount());
+        assertEquals(start.plusSeconds(5), coalesced.getLastSeen());
+    }
+
+    @Test
+    @DisplayName("测试取出待写回的计数后清除标记")
+    void testDrainDirty() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        record(start);
+        record(start.plusSeconds(5));
+
+        // When
+        List<Alert> firstDrain = index.drainDirty();
+        List<Alert> secondDrain = index.drainDirty();
+        index.markDirty(firstDrain.get(0).getId());
+        List<Alert> retried = index.drainDirty();
+
+        // Then - 新建的行本身不需要写回
+        assertEquals(1, firstDrain.size());
+        assertEquals(2L, firstDrain.get(0).getOccurrenceCount());
+        assertTrue(secondDrain.isEmpty());
+        assertEquals(1, retried.size());
+    }
+
+    @Test
+    @DisplayName("测试移除后同一指纹重新建行")
+    void testRemove() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        Alert first = record(start);
+        record(start.plusSeconds(5));
+
+        // When
+        Alert removed = index.remove(first.getId());
+        Alert again = record(start.plusSeconds(10));
+
+        // Then
+        assertEquals(2L, removed.getOccurrenceCount());
+        assertNull(index.remove(999L));
+        assertNotEquals(first.getId(), again.getId());
+        assertEquals(2, creates.get());
+    }
+
+    @Test
+    @DisplayName("测试清理长时间没有出现且无待写回计数的指纹")
+    void testEvictIdle() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        record(start);
+        index.record(new AlertFingerprint("server-04", Alert.AlertSeverity.LOW, "磁盘空间不足"), start, () -> {
+            Alert existing = new Alert("server-04", Alert.AlertSeverity.LOW, "磁盘空间不足");
+            existing.setId(7L);
+            existing.setTimestamp(start);
+            existing.setLastSeen(start);
+            return existing;
+        }, () -> fail("should reuse existing row"));
+
+        // When - server-04的计数尚未写回，不能清理
+        int evicted = index.evictIdle(start.plusMinutes(1));
+
+        // Then
+        assertEquals(1, evicted);
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("测试事务中新建的行提交后才进入索引，回滚时丢弃")
+    void testPublishedAfterCommit() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 12, 0);
+        TransactionSynchronizationManager.initSynchronization();
+        List<TransactionSynchronization> synchronizations;
+        try {
+            // When - 提交前的重复告警累加到待提交条目上，不会再建一行
+            record(start);
+            Alert repeated = record(start.plusSeconds(5));
+            assertEquals(1, creates.get());
+            assertEquals(2L, repeated.getOccurrenceCount());
+            assertEquals(0, index.size());
+            synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Then - 回滚后不留下不存在的id，再出现时重新建行
+        assertEquals(0, index.size());
+        assertTrue(index.drainDirty().isEmpty());
+        Alert again = record(start.plusSeconds(10));
+        assertEquals(2, creates.get());
+        assertEquals(1, index.size());
+        assertEquals(1L, again.getOccurrenceCount());
+    }
+
+    @Test
+    @DisplayName("测试并发的相同告警只建一行")
+    void testConcurrentRecordsCreateOnce() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        LocalDateTime now = LocalDateTime.now();
+
+        try {
+            // When
+            for (int i = 0; i < 200; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    return record(now);
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+            // Then
+            assertEquals(1, creates.get());
+            assertEquals(200L, index.drainDirty().get(0).getOccurrenceCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertSeverityCountersTest {
+
+    private AlertSeverityCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        counters = new AlertSeverityCounters();
+    }
+
+    @Test
+    @DisplayName("测试按严重级别增减计数")
+    void testIncrementAndDecrement() {
+        // When
+        counters.increment(Alert.AlertSeverity.HIGH);
+        counters.increment(Alert.AlertSeverity.HIGH);
+        counters.increment(Alert.AlertSeverity.LOW);
+        counters.decrement(Alert.AlertSeverity.HIGH);
+
+        // Then
+        assertEquals(1L, counters.get(Alert.AlertSeverity.HIGH));
+        assertEquals(1L, counters.get(Alert.AlertSeverity.LOW));
+        assertEquals(0L, counters.get(Alert.AlertSeverity.CRITICAL));
+        assertEquals(2L, counters.getTotal());
+    }
+
+    @Test
+    @DisplayName("测试校准覆盖内存计数，空严重级别只计入总数")
+    void testReconcile() {
+        // Given
+        counters.increment(Alert.AlertSeverity.CRITICAL);
+        Map<Alert.AlertSeverity, Long> counts = new HashMap<>();
+        counts.put(Alert.AlertSeverity.MEDIUM, 4L);
+        counts.put(null, 2L);
+
+        // When
+        assertFalse(counters.isReconciled());
+        counters.reconcile(counts);
+
+        // Then
+        assertTrue(counters.isReconciled());
+        assertEquals(0L, counters.get(Alert.AlertSeverity.CRITICAL));
+        assertEquals(4L, counters.get(Alert.AlertSeverity.MEDIUM));
+        assertEquals(2L, counters.get(null));
+        assertEquals(6L, counters.getTotal());
+    }
+
+    @Test
+    @DisplayName("测试标记为未校准")
+    void testInvalidate() {
+        // Given
+        counters.reconcile(Map.of());
+
+        // When
+        counters.invalidate();
+
+        // Then
+        assertFalse(counters.isReconciled());
+    }
+
+    @Test
+    @DisplayName("测试并发增减不丢失计数")
+    void testConcurrentUpdates() throws Exception {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // When - 每个线程增加1000次、减少500次
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        counters.increment(Alert.AlertSeverity.LOW);
+                        if (j % 2 == 0) {
+                            counters.decrement(Alert.AlertSeverity.LOW);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+
+            // Then
+            assertEquals(4000L, counters.get(Alert.AlertSeverity.LOW));
+            assertEquals(4000L, counters.getTotal());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DimensionDistributionStoreTest {
+
+    private DimensionDistributionStore store;
+
+    @BeforeEach
+    void setUp() {
+        // 10分钟窗口、1分钟一个桶
+        store = new DimensionDistributionStore(10, 60, new DimensionDictionary());
+        // 模拟已运行一段时间，窗口内的样本都在覆盖范围内
+        ReflectionTestUtils.setField(store, "createdAt", EpochTime.nowMillis() - 20 * 60_000L);
+    }
+
+    private SystemMetrics newMetric(String serverName, String region, String serviceType, double cpu, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, 1.0, region, serviceType);
+        metrics.setTimestamp(timestamp);
+        return metrics;
+    }
+
+    @Test
+    @DisplayName("测试按各维度分组累加")
+    void testAggregateByDimension() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        store.onMetricsIngested(newMetric("server-01", "北京", "Web服务", 10.0, now));
+        store.onMetricsIngested(newMetric("server-02", "北京", "数据库", 30.0, now));
+        store.onMetricsIngested(newMetric("server-01", "上海", "Web服务", 50.0, now.minusMinutes(2)));
+
+        // When
+        Map<String, RecentMetricsWindow.WindowAggregate> servers = store.aggregateSince(MetricsGroupBy.SERVER, now.minusMinutes(5));
+        Map<String, RecentMetricsWindow.WindowAggregate> regions = store.aggregateSince(MetricsGroupBy.REGION, now.minusMinutes(5));
+        Map<String, RecentMetricsWindow.WindowAggregate> services = store.aggregateSince(MetricsGroupBy.SERVICE_TYPE, now.minusMinutes(5));
+
+        // Then
+        assertEquals(2, servers.size());
+        assertEquals(2, servers.get("server-01").getCount());
+        assertEquals(30.0, servers.get("server-01").getAvgCpu(), 0.01);
+        assertEquals(20.0, regions.get("北京").getAvgCpu(), 0.01);
+        assertEquals(1, regions.get("上海").getCount());
+        assertEquals(2, services.get("Web服务").getCount());
+    }
+
+    @Test
+    @DisplayName("测试只合并起始时间之后的桶")
+    void testAggregateSince() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        store.onMetricsIngested(newMetric("server-01", "北京", "Web服务", 10.0, now));
+        store.onMetricsIngested(newMetric("server-02", "北京", "Web服务", 90.0, now.minusMinutes(8)));
+
+        // When
+        Map<String, RecentMetricsWindow.WindowAggregate> recent = store.aggregateSince(MetricsGroupBy.SERVER, now.minusMinutes(3));
+        Map<String, RecentMetricsWindow.WindowAggregate> all = store.aggregateSince(MetricsGroupBy.SERVER, now.minusMinutes(10));
+
+        // Then
+        assertEquals(1, recent.size());
+        assertTrue(recent.containsKey("server-01"));
+        assertEquals(2, all.size());
+    }
+
+    @Test
+    @DisplayName("测试忽略窗口之外和缺少维度的样本")
+    void testIgnoreOutOfWindowAndMissingDimension() {
+        // When
+        store.onMetricsIngested(newMetric("server-01", "北京", "Web服务", 10.0, LocalDateTime.now().minusMinutes(30)));
+        store.onMetricsIngested(newMetric("server-02", null, "Web服务", 10.0, LocalDateTime.now()));
+
+        // Then
+        assertEquals(1, store.aggregateSince(MetricsGroupBy.SERVER, LocalDateTime.now().minusMinutes(10)).size());
+        assertTrue(store.aggregateSince(MetricsGroupBy.REGION, LocalDateTime.now().minusMinutes(10)).isEmpty());
+        assertTrue(store.aggregateSince(MetricsGroupBy.NONE, LocalDateTime.now().minusMinutes(10)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试忽略创建之前的样本，避免与数据库补齐部分重复统计")
+    void testIgnoreSamplesBeforeCreation() {
+        // Given - 刚创建的分布统计
+        DimensionDistributionStore fresh = new DimensionDistributionStore(10, 60, new DimensionDictionary());
+        LocalDateTime coverageStart = fresh.getCoverageStart();
+
+        // When - 回放或迟到的样本落在覆盖起点之前
+        fresh.onMetricsIngested(newMetric("server-01", "北京", "Web服务", 10.0, coverageStart.minusMinutes(2)));
+        fresh.onMetricsIngested(newMetric("server-02", "北京", "Web服务", 30.0, coverageStart.plusSeconds(1)));
+
+        // Then
+        Map<String, RecentMetricsWindow.WindowAggregate> servers =
+            fresh.aggregateSince(MetricsGroupBy.SERVER, coverageStart.minusMinutes(5));
+        assertEquals(1, servers.size());
+        assertTrue(servers.containsKey("server-02"));
+    }
+}
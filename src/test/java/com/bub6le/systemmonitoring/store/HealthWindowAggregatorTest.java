@@ -0,0 +1,120 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HealthWindowAggregatorTest {
+
+    private HealthWindowAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        // 1分钟窗口、5秒一个桶，共13个桶
+        aggregator = new HealthWindowAggregator(1, 5);
+        // 模拟已运行一段时间，窗口内的样本都在覆盖范围内
+        ReflectionTestUtils.setField(aggregator, "createdAt", EpochTime.nowMillis() - 120_000L);
+    }
+
+    private SystemMetrics newMetric(String serverName, double cpu, double memory, double load, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, memory, 30.0, 200.0, 100.0, load, "北京", "Web服务");
+        metrics.setTimestamp(timestamp);
+        return metrics;
+    }
+
+    @Test
+    @DisplayName("测试跨服务器累加窗口内样本")
+    void testSnapshot() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        aggregator.onMetricsIngested(newMetric("server-01", 50.0, 40.0, 1.0, now.minusSeconds(30)));
+        aggregator.onMetricsIngested(newMetric("server-02", 60.0, 50.0, 2.0, now.minusSeconds(10)));
+        aggregator.onMetricsIngested(newMetric("server-03", 70.0, 60.0, 3.0, now));
+
+        // When
+        RecentMetricsWindow.WindowAggregate aggregate = aggregator.snapshot();
+
+        // Then
+        assertEquals(3, aggregate.getCount());
+        assertEquals(60.0, aggregate.getAvgCpu(), 0.01);
+        assertEquals(50.0, aggregate.getAvgMemory(), 0.01);
+        assertEquals(2.0, aggregate.getAvgLoad(), 0.01);
+    }
+
+    @Test
+    @DisplayName("测试空值不计入平均值")
+    void testNullValues() {
+        // Given
+        SystemMetrics partial = newMetric("server-01", 50.0, 40.0, 1.0, LocalDateTime.now());
+        partial.setCpuUsage(null);
+        aggregator.onMetricsIngested(partial);
+        aggregator.onMetricsIngested(newMetric("server-02", 80.0, 60.0, 3.0, LocalDateTime.now()));
+
+        // When
+        RecentMetricsWindow.WindowAggregate aggregate = aggregator.snapshot();
+
+        // Then
+        assertEquals(2, aggregate.getCount());
+        assertEquals(80.0, aggregate.getAvgCpu(), 0.01);
+        assertEquals(50.0, aggregate.getAvgMemory(), 0.01);
+    }
+
+    @Test
+    @DisplayName("测试忽略窗口之外的样本")
+    void testIgnoreExpiredSamples() {
+        // When
+        aggregator.onMetricsIngested(newMetric("server-01", 50.0, 40.0, 1.0, LocalDateTime.now().minusMinutes(2)));
+        aggregator.onMetricsIngested(newMetric("server-01", 50.0, 40.0, 1.0, null));
+
+        // Then
+        assertEquals(0, aggregator.snapshot().getCount());
+    }
+
+    @Test
+    @DisplayName("测试桶被新时间段复用时作废旧数据")
+    void testBucketReuse() {
+        // Given - 相差13个桶的两个时间点落在同一个槽位
+        LocalDateTime now = LocalDateTime.now();
+        aggregator.onMetricsIngested(newMetric("server-01", 10.0, 10.0, 1.0, now));
+        aggregator.onMetricsIngested(newMetric("server-01", 90.0, 90.0, 5.0, now.plusSeconds(65)));
+
+        // When - 迟到的旧样本不会覆盖更新的桶
+        aggregator.onMetricsIngested(newMetric("server-02", 10.0, 10.0, 1.0, now));
+
+        // Then
+        RecentMetricsWindow.WindowAggregate aggregate = aggregator.snapshot();
+        assertEquals(1, aggregate.getCount());
+        assertEquals(90.0, aggregate.getAvgCpu(), 0.01);
+    }
+
+    @Test
+    @DisplayName("测试覆盖起始时间不早于创建时间")
+    void testCoverageStart() {
+        LocalDateTime coverageStart = new HealthWindowAggregator(1, 5).getCoverageStart();
+        assertFalse(coverageStart.isBefore(LocalDateTime.now().minusSeconds(5)));
+    }
+
+    @Test
+    @DisplayName("测试忽略创建之前的样本，避免与数据库补齐部分重复统计")
+    void testIgnoreSamplesBeforeCreation() {
+        // Given - 刚创建的聚合器
+        HealthWindowAggregator fresh = new HealthWindowAggregator(1, 5);
+        LocalDateTime coverageStart = fresh.getCoverageStart();
+
+        // When - 回放或迟到的样本落在覆盖起点之前
+        fresh.onMetricsIngested(newMetric("server-01", 50.0, 40.0, 1.0, coverageStart.minusSeconds(10)));
+        fresh.onMetricsIngested(newMetric("server-02", 70.0, 60.0, 3.0, coverageStart.plusSeconds(1)));
+
+        // Then
+        RecentMetricsWindow.WindowAggregate aggregate = fresh.snapshot();
+        assertEquals(1, aggregate.getCount());
+        assertEquals(70.0, aggregate.getAvgCpu(), 0.01);
+    }
+}
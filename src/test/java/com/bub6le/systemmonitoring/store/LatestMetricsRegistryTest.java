@@ -0,0 +1,102 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatestMetricsRegistryTest {
+
+    private LatestMetricsRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        // 2分钟未上报视为失联，1小时未上报移除
+        registry = new LatestMetricsRegistry(120, 60);
+    }
+
+    private SystemMetrics newMetric(String serverName, double cpu, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setTimestamp(timestamp);
+        return metrics;
+    }
+
+    @Test
+    @DisplayName("测试每台服务器只保留最新一条，按服务器名排序")
+    void testLatestWins() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        registry.onMetricsIngested(newMetric("server-02", 30.0, now.minusSeconds(20)));
+        registry.onMetricsIngested(newMetric("server-01", 50.0, now.minusSeconds(10)));
+        registry.onMetricsIngested(newMetric("server-01", 70.0, now));
+
+        // When
+        List<ServerSnapshot> result = registry.snapshot(true);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("server-01", result.get(0).serverName());
+        assertEquals(70.0, result.get(0).cpuUsage(), 0.01);
+        assertEquals(now, result.get(0).lastSeen());
+        assertEquals("server-02", result.get(1).serverName());
+        assertFalse(result.get(0).stale());
+    }
+
+    @Test
+    @DisplayName("测试迟到的旧样本不覆盖最新值")
+    void testLateSampleIgnored() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        registry.onMetricsIngested(newMetric("server-01", 70.0, now));
+
+        // When
+        registry.onMetricsIngested(newMetric("server-01", 10.0, now.minusSeconds(30)));
+
+        // Then
+        ServerSnapshot snapshot = registry.find("server-01");
+        assertNotNull(snapshot);
+        assertEquals(70.0, snapshot.cpuUsage(), 0.01);
+        assertNull(registry.find("server-99"));
+    }
+
+    @Test
+    @DisplayName("测试超过阈值未上报的服务器标记为失联")
+    void testStaleServers() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        registry.onMetricsIngested(newMetric("server-01", 50.0, now));
+        registry.onMetricsIngested(newMetric("server-02", 60.0, now.minusMinutes(5)));
+
+        // When
+        List<ServerSnapshot> all = registry.snapshot(true);
+        List<ServerSnapshot> live = registry.snapshot(false);
+
+        // Then
+        assertEquals(2, all.size());
+        assertTrue(all.get(1).stale());
+        assertEquals(1, live.size());
+        assertEquals("server-01", live.get(0).serverName());
+    }
+
+    @Test
+    @DisplayName("测试移除长时间未上报的服务器")
+    void testEvictIdleServers() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        registry.onMetricsIngested(newMetric("server-01", 50.0, now));
+        registry.onMetricsIngested(newMetric("server-02", 60.0, now.minusMinutes(90)));
+
+        // When
+        registry.evictIdleServers();
+
+        // Then
+        List<ServerSnapshot> result = registry.snapshot(true);
+        assertEquals(1, result.size());
+        assertEquals("server-01", result.get(0).serverName());
+    }
+}
@@ -0,0 +1,88 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsHistoryStoreTest {
+
+    private MetricsHistoryStore store;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        store = new MetricsHistoryStore(4, 14);
+        baseTime = LocalDateTime.of(2023, 12, 23, 10, 0, 0);
+    }
+
+    private void ingest(String serverName, int secondsOffset, double cpu) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setTimestamp(baseTime.plusSeconds(secondsOffset));
+        store.onMetricsIngested(metrics);
+    }
+
+    @Test
+    @DisplayName("测试跨封存块和打开块的范围扫描")
+    void testScanAcrossBlocks() {
+        // Given - 块大小为4，10条样本产生2个封存块和1个打开块
+        for (int i = 0; i < 10; i++) {
+            ingest("server-01", i * 15, 10.0 + i);
+        }
+
+        // When
+        List<MetricsPoint> points = store.scan("server-01", baseTime.plusSeconds(30), baseTime.plusSeconds(120)).toList();
+
+        // Then
+        assertEquals(6, points.size());
+        assertEquals(baseTime.plusSeconds(30), points.get(0).timestamp());
+        assertEquals(12.0, points.get(0).cpuUsage());
+        assertEquals(17.0, points.get(5).cpuUsage());
+    }
+
+    @Test
+    @DisplayName("测试空值以NaN保存")
+    void testNullValues() {
+        // Given
+        SystemMetrics metrics = new SystemMetrics("server-01", null, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setTimestamp(baseTime);
+        store.onMetricsIngested(metrics);
+
+        // When
+        List<MetricsPoint> points = store.scan("server-01", baseTime, baseTime.plusSeconds(1)).toList();
+
+        // Then
+        assertEquals(1, points.size());
+        assertTrue(Double.isNaN(points.get(0).cpuUsage()));
+        assertEquals(40.0, points.get(0).memoryUsage());
+    }
+
+    @Test
+    @DisplayName("测试未知服务器返回空流")
+    void testScanUnknownServer() {
+        assertEquals(0, store.scan("server-99", baseTime, baseTime.plusHours(1)).count());
+    }
+
+    @Test
+    @DisplayName("测试过期块被清理")
+    void testEvictExpiredBlocks() {
+        // Given - 2023年的数据早已超出14天保留期
+        for (int i = 0; i < 9; i++) {
+            ingest("server-01", i, 10.0);
+        }
+        assertEquals(9, store.getHistoryStats().getSampleCount());
+
+        // When
+        store.evictExpiredBlocks();
+
+        // Then - 只剩下打开块中的1条
+        MetricsHistoryStore.HistoryStats stats = store.getHistoryStats();
+        assertEquals(1, stats.getSampleCount());
+        assertEquals(1, stats.getSeriesCount());
+    }
+}
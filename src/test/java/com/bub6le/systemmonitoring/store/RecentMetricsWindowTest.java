@@ -0,0 +1,110 @@
+package com.bub6le.systemmonitoring.store;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentMetricsWindowTest {
+
+    private RecentMetricsWindow window;
+    private LocalDateTime startTime;
+
+    @BeforeEach
+    void setUp() {
+        window = new RecentMetricsWindow(10, 3, new DimensionDictionary());
+        startTime = window.getCoverageStart();
+    }
+
+    private SystemMetrics newMetric(String serverName, double cpu, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setTimestamp(timestamp);
+        return metrics;
+    }
+
+    @Test
+    @DisplayName("测试按时间倒序读取窗口数据")
+    void testFindSince() {
+        // Given
+        window.onMetricsIngested(newMetric("server-01", 10.0, startTime.plusSeconds(1)));
+        window.onMetricsIngested(newMetric("server-02", 20.0, startTime.plusSeconds(3)));
+        window.onMetricsIngested(newMetric("server-01", 30.0, startTime.plusSeconds(2)));
+
+        // When
+        List<SystemMetrics> result = window.findSince(startTime);
+
+        // Then
+        assertEquals(3, result.size());
+        assertEquals(20.0, result.get(0).getCpuUsage());
+        assertEquals(30.0, result.get(1).getCpuUsage());
+        assertEquals(10.0, result.get(2).getCpuUsage());
+        assertEquals("北京", result.get(0).getRegion());
+        assertEquals(2, window.getServerCount());
+    }
+
+    @Test
+    @DisplayName("测试按服务器读取窗口数据")
+    void testFindSinceByServer() {
+        // Given
+        window.onMetricsIngested(newMetric("server-01", 10.0, startTime.plusSeconds(1)));
+        window.onMetricsIngested(newMetric("server-02", 20.0, startTime.plusSeconds(2)));
+
+        // When & Then
+        assertEquals(1, window.findSinceByServer("server-01", startTime).size());
+        assertTrue(window.findSinceByServer("server-99", startTime).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试覆盖范围之前的数据不从窗口返回")
+    void testSamplesBeforeCoverageExcluded() {
+        // Given
+        window.onMetricsIngested(newMetric("server-01", 10.0, startTime.minusMinutes(1)));
+
+        // When & Then
+        assertTrue(window.findSince(startTime.minusMinutes(5)).isEmpty());
+        assertEquals(0, window.aggregateSince(startTime.minusMinutes(5)).getCount());
+    }
+
+    @Test
+    @DisplayName("测试环形缓冲区覆盖后覆盖范围前移")
+    void testOverwriteAdvancesCoverage() {
+        // Given - 容量为3，第4条会覆盖最早的一条
+        for (int i = 1; i <= 4; i++) {
+            window.onMetricsIngested(newMetric("server-01", i * 10.0, startTime.plusSeconds(i)));
+        }
+
+        // When
+        List<SystemMetrics> result = window.findSince(startTime);
+
+        // Then
+        assertEquals(3, result.size());
+        assertEquals(40.0, result.get(0).getCpuUsage());
+        assertTrue(window.getCoverageStart().isAfter(startTime.plusSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("测试窗口聚合")
+    void testAggregateSince() {
+        // Given
+        window.onMetricsIngested(newMetric("server-01", 50.0, startTime.plusSeconds(1)));
+        window.onMetricsIngested(newMetric("server-02", 70.0, startTime.plusSeconds(2)));
+        SystemMetrics partial = newMetric("server-03", 60.0, startTime.plusSeconds(3));
+        partial.setLoadAverage(null);
+        window.onMetricsIngested(partial);
+
+        // When
+        RecentMetricsWindow.WindowAggregate aggregate = window.aggregateSince(startTime);
+
+        // Then
+        assertEquals(3, aggregate.getCount());
+        assertEquals(60.0, aggregate.getAvgCpu(), 0.01);
+        assertEquals(40.0, aggregate.getAvgMemory(), 0.01);
+        assertEquals(1.0, aggregate.getAvgLoad(), 0.01);
+    }
+}
@@ -0,0 +1,188 @@
+package com.bub6le.systemmonitoring.store.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryResultCacheTest {
+
+    private QueryResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        // 最多3个条目、1分钟一个时间桶，测试期间不会跨桶
+        cache = new QueryResultCache(3, 60_000);
+    }
+
+    @Test
+    @DisplayName("测试同一时间桶内的相同查询只加载一次")
+    void testHitWithinBucket() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        List<String> first = cache.get(CacheRegion.METRICS, "recent:5", () -> List.of("v" + loads.incrementAndGet()));
+        List<String> second = cache.get(CacheRegion.METRICS, "recent:5", () -> List.of("v" + loads.incrementAndGet()));
+        List<String> other = cache.get(CacheRegion.METRICS, "recent:15", () -> List.of("v" + loads.incrementAndGet()));
+
+        // Then
+        assertEquals(List.of("v1"), first);
+        assertSame(first, second);
+        assertEquals(List.of("v2"), other);
+        QueryCacheStats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.size());
+    }
+
+    @Test
+    @DisplayName("测试写入只使对应区域失效")
+    void testInvalidateRegion() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        cache.getUntilInvalidated(CacheRegion.ALERTS, "summary", loads::incrementAndGet);
+        cache.getUntilInvalidated(CacheRegion.TASKS, "summary", loads::incrementAndGet);
+
+        // When
+        cache.invalidate(CacheRegion.ALERTS);
+        int alerts = cache.getUntilInvalidated(CacheRegion.ALERTS, "summary", loads::incrementAndGet);
+        int tasks = cache.getUntilInvalidated(CacheRegion.TASKS, "summary", loads::incrementAndGet);
+
+        // Then - 告警重新加载，任务仍命中
+        assertEquals(3, alerts);
+        assertEquals(2, tasks);
+        assertEquals(1, cache.getStats().invalidations());
+    }
+
+    @Test
+    @DisplayName("测试超出容量时淘汰最近最少使用的条目")
+    void testLruEviction() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        cache.getUntilInvalidated(CacheRegion.TASKS, "a", loads::incrementAndGet);
+        cache.getUntilInvalidated(CacheRegion.TASKS, "b", loads::incrementAndGet);
+        cache.getUntilInvalidated(CacheRegion.TASKS, "c", loads::incrementAndGet);
+
+        // When - 访问a后写入d，最久未使用的b被淘汰
+        cache.getUntilInvalidated(CacheRegion.TASKS, "a", loads::incrementAndGet);
+        cache.getUntilInvalidated(CacheRegion.TASKS, "d", loads::incrementAndGet);
+        int a = cache.getUntilInvalidated(CacheRegion.TASKS, "a", loads::incrementAndGet);
+        int b = cache.getUntilInvalidated(CacheRegion.TASKS, "b", loads::incrementAndGet);
+
+        // Then
+        assertEquals(1, a);
+        assertEquals(5, b);
+        assertEquals(3, cache.getStats().size());
+        assertEquals(2, cache.getStats().evictions());
+    }
+
+    @Test
+    @DisplayName("测试加载失败时不缓存结果")
+    void testLoaderFailureNotCached() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        assertThrows(IllegalStateException.class, () -> cache.get(CacheRegion.METRICS, "health", () -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("database unavailable");
+        }));
+        int value = cache.get(CacheRegion.METRICS, "health", loads::incrementAndGet);
+
+        // Then
+        assertEquals(2, value);
+        assertEquals(1, cache.getStats().size());
+    }
+
+    @Test
+    @DisplayName("测试并发的相同查询共享一次加载")
+    void testConcurrentLoadsCoalesced() throws Exception {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // When - 第一个请求加载期间，其余请求到达
+            Future<Integer> owner = executor.submit(() -> cache.get(CacheRegion.METRICS, "recent:5", () -> {
+                loading.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return loads.incrementAndGet();
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            List<Future<Integer>> waiters = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                waiters.add(executor.submit(() -> cache.get(CacheRegion.METRICS, "recent:5", loads::incrementAndGet)));
+            }
+            // 等待其他请求进入等待状态
+            while (cache.getStats().hits() < 7) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            // Then
+            assertEquals(1, owner.get(5, TimeUnit.SECONDS));
+            for (Future<Integer> waiter : waiters) {
+                assertEquals(1, waiter.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("测试加载期间发生写入时结果不再命中")
+    void testWriteDuringLoadInvalidatesResult() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+
+        // When - 加载过程中发生写入
+        int stale = cache.getUntilInvalidated(CacheRegion.ALERTS, "unresolved", () -> {
+            cache.invalidate(CacheRegion.ALERTS);
+            return loads.incrementAndGet();
+        });
+        int fresh = cache.getUntilInvalidated(CacheRegion.ALERTS, "unresolved", loads::incrementAndGet);
+
+        // Then
+        assertEquals(1, stale);
+        assertEquals(2, fresh);
+    }
+
+    @Test
+    @DisplayName("测试失效只递增版本号，旧条目在再次读取时被替换")
+    void testInvalidateKeepsEntriesUntilReplaced() {
+        // Given
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(CacheRegion.METRICS, "recent:5", loads::incrementAndGet);
+        cache.get(CacheRegion.METRICS, "health", loads::incrementAndGet);
+
+        // When - 连续多个写入批次
+        for (int i = 0; i < 100; i++) {
+            cache.invalidate(CacheRegion.METRICS);
+        }
+
+        // Then - 条目没有被逐个删除，读取时按版本号判定失效并原地替换
+        assertEquals(2, cache.getStats().size());
+        assertEquals(100, cache.getStats().invalidations());
+        assertEquals(3, cache.get(CacheRegion.METRICS, "recent:5", loads::incrementAndGet));
+        assertEquals(3, cache.get(CacheRegion.METRICS, "recent:5", loads::incrementAndGet));
+        assertEquals(2, cache.getStats().size());
+    }
+}
@@ -0,0 +1,64 @@
+package com.bub6le.systemmonitoring.store.dict;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DimensionDictionaryTest {
+
+    private DimensionDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new DimensionDictionary();
+    }
+
+    @Test
+    @DisplayName("测试相同字符串得到相同id")
+    void testIntern() {
+        int beijing = dictionary.intern("北京");
+        int shanghai = dictionary.intern("上海");
+
+        assertEquals(beijing, dictionary.intern(new String("北京")));
+        assertNotEquals(beijing, shanghai);
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    @DisplayName("测试按id反查字符串")
+    void testLookup() {
+        int id = dictionary.intern("Web服务");
+
+        assertEquals("Web服务", dictionary.lookup(id));
+        assertNull(dictionary.lookup(DimensionDictionary.NULL_ID));
+        assertNull(dictionary.lookup(999));
+    }
+
+    @Test
+    @DisplayName("测试查找不存在的值不分配id")
+    void testFind() {
+        assertEquals(DimensionDictionary.NULL_ID, dictionary.find("server-01"));
+        assertEquals(0, dictionary.size());
+
+        int id = dictionary.intern("server-01");
+        assertEquals(id, dictionary.find("server-01"));
+    }
+
+    @Test
+    @DisplayName("测试空值")
+    void testNull() {
+        assertEquals(DimensionDictionary.NULL_ID, dictionary.intern(null));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    @DisplayName("测试超过初始容量后扩容")
+    void testGrow() {
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, dictionary.intern("server-" + i));
+        }
+        assertEquals("server-150", dictionary.lookup(150));
+    }
+}
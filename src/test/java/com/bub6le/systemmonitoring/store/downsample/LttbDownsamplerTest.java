@@ -0,0 +1,87 @@
+package com.bub6le.systemmonitoring.store.downsample;
+
+import com.bub6le.systemmonitoring.util.EpochTime;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LttbDownsamplerTest {
+
+    private static final long FROM = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("测试点数不超过阈值且保留首尾两点")
+    void testThresholdAndEndpoints() {
+        // Given - 1万个点，每秒一个
+        LttbDownsampler downsampler = new LttbDownsampler(FROM, FROM + 10_000_000L, 100);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            downsampler.add(FROM + i * 1000L, Math.sin(i / 50.0) * 50 + 50);
+        }
+        List<SeriesPoint> result = downsampler.finish();
+
+        // Then
+        assertEquals(100, result.size());
+        assertEquals(10_000, downsampler.getInputCount());
+        assertEquals(EpochTime.fromMillis(FROM), result.get(0).timestamp());
+        assertEquals(EpochTime.fromMillis(FROM + 9_999_000L), result.get(result.size() - 1).timestamp());
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i).timestamp().isAfter(result.get(i - 1).timestamp()));
+        }
+    }
+
+    @Test
+    @DisplayName("测试尖峰被保留")
+    void testSpikePreserved() {
+        // Given - 平稳序列中间有一个尖峰
+        LttbDownsampler downsampler = new LttbDownsampler(FROM, FROM + 1_000_000L, 10);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            downsampler.add(FROM + i * 1000L, i == 537 ? 99.0 : 10.0);
+        }
+        List<SeriesPoint> result = downsampler.finish();
+
+        // Then
+        assertTrue(result.stream().anyMatch(point -> point.value() == 99.0));
+        assertTrue(result.size() <= 10);
+    }
+
+    @Test
+    @DisplayName("测试点数少于阈值时原样返回")
+    void testFewerPointsThanThreshold() {
+        // Given
+        LttbDownsampler downsampler = new LttbDownsampler(FROM, FROM + 60_000L, 100);
+
+        // When
+        downsampler.add(FROM, 10.0);
+        downsampler.add(FROM + 20_000L, 20.0);
+        downsampler.add(FROM + 40_000L, 30.0);
+        List<SeriesPoint> result = downsampler.finish();
+
+        // Then
+        assertEquals(List.of(10.0, 20.0, 30.0), result.stream().map(SeriesPoint::value).toList());
+    }
+
+    @Test
+    @DisplayName("测试忽略NaN且空序列返回空列表")
+    void testNaNAndEmpty() {
+        // Given
+        LttbDownsampler empty = new LttbDownsampler(FROM, FROM + 60_000L, 10);
+        LttbDownsampler single = new LttbDownsampler(FROM, FROM + 60_000L, 10);
+
+        // When
+        single.add(FROM, Double.NaN);
+        single.add(FROM + 1000L, 42.0);
+
+        // Then
+        assertTrue(empty.finish().isEmpty());
+        List<SeriesPoint> result = single.finish();
+        assertEquals(1, result.size());
+        assertEquals(42.0, result.get(0).value());
+    }
+}
@@ -0,0 +1,128 @@
+package com.bub6le.systemmonitoring.store.gorilla;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedMetricsBlockTest {
+
+    private static final long BASE_TIME = 1_700_000_000_000L;
+
+    @Test
+    @DisplayName("测试规则间隔数据的编解码")
+    void testRoundTripRegularInterval() {
+        // Given
+        MetricsBlockBuilder builder = new MetricsBlockBuilder(100);
+        double[][] values = new double[100][CompressedMetricsBlock.COLUMN_COUNT];
+        for (int i = 0; i < 100; i++) {
+            values[i] = new double[] {50.0 + i % 3, 40.0, 30.5, 200.0 + i, 100.0, 1.25};
+            builder.append(BASE_TIME + i * 15_000L, values[i]);
+        }
+
+        // When
+        CompressedMetricsBlock block = builder.snapshot();
+
+        // Then
+        assertEquals(100, block.getCount());
+        assertEquals(BASE_TIME, block.getMinTimestamp());
+        assertEquals(BASE_TIME + 99 * 15_000L, block.getMaxTimestamp());
+        // 原始数据每个样本7个long，共56字节
+        assertTrue(block.getSizeInBytes() < 100 * 56 / 4);
+
+        CompressedMetricsBlock.Cursor cursor = block.cursor();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cursor.hasNext());
+            cursor.next();
+            assertEquals(BASE_TIME + i * 15_000L, cursor.timestamp());
+            for (int column = 0; column < CompressedMetricsBlock.COLUMN_COUNT; column++) {
+                assertEquals(values[i][column], cursor.value(column));
+            }
+        }
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    @DisplayName("测试乱序时间戳、NaN和随机值的编解码")
+    void testRoundTripIrregularData() {
+        // Given
+        Random random = new Random(42);
+        int count = 500;
+        long[] timestamps = new long[count];
+        double[][] values = new double[count][CompressedMetricsBlock.COLUMN_COUNT];
+        MetricsBlockBuilder builder = new MetricsBlockBuilder(16);
+        long timestamp = BASE_TIME;
+        for (int i = 0; i < count; i++) {
+            timestamp += random.nextInt(5) == 0 ? random.nextInt(200_000) - 100_000 : 2_000;
+            timestamps[i] = timestamp;
+            for (int column = 0; column < CompressedMetricsBlock.COLUMN_COUNT; column++) {
+                values[i][column] = random.nextInt(10) == 0 ? Double.NaN : random.nextDouble() * 100.0;
+            }
+            builder.append(timestamps[i], values[i]);
+        }
+
+        // When
+        CompressedMetricsBlock.Cursor cursor = builder.snapshot().cursor();
+
+        // Then
+        for (int i = 0; i < count; i++) {
+            cursor.next();
+            assertEquals(timestamps[i], cursor.timestamp());
+            for (int column = 0; column < CompressedMetricsBlock.COLUMN_COUNT; column++) {
+                assertEquals(Double.doubleToLongBits(values[i][column]),
+                             Double.doubleToLongBits(cursor.value(column)));
+            }
+        }
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    @DisplayName("测试快照后构建器可以继续追加")
+    void testSnapshotIsImmutable() {
+        // Given
+        MetricsBlockBuilder builder = new MetricsBlockBuilder(4);
+        builder.append(BASE_TIME, new double[] {1, 2, 3, 4, 5, 6});
+        CompressedMetricsBlock first = builder.snapshot();
+
+        // When
+        builder.append(BASE_TIME + 1000, new double[] {1, 2, 3, 4, 5, 6});
+
+        // Then
+        assertEquals(1, first.getCount());
+        assertEquals(2, builder.snapshot().getCount());
+        assertTrue(first.overlaps(BASE_TIME, BASE_TIME + 1));
+        assertFalse(first.overlaps(BASE_TIME + 1, BASE_TIME + 2));
+    }
+
+    @Test
+    @DisplayName("测试压缩块按字节形式保存和还原")
+    void testBytesRoundTrip() {
+        // Given
+        MetricsBlockBuilder builder = new MetricsBlockBuilder(10);
+        for (int i = 0; i < 10; i++) {
+            builder.append(BASE_TIME + i * 15_000L, new double[] {50.0 + i, 40.0, Double.NaN, 200.0, 100.0, 1.25});
+        }
+        CompressedMetricsBlock block = builder.snapshot();
+
+        // When
+        CompressedMetricsBlock restored = CompressedMetricsBlock.fromBytes(
+            block.toBytes(), block.getCount(), block.getMinTimestamp(), block.getMaxTimestamp());
+
+        // Then
+        assertEquals(block.getSizeInBytes(), restored.getSizeInBytes());
+        CompressedMetricsBlock.Cursor expected = block.cursor();
+        CompressedMetricsBlock.Cursor actual = restored.cursor();
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            expected.next();
+            actual.next();
+            assertEquals(expected.timestamp(), actual.timestamp());
+            for (int column = 0; column < CompressedMetricsBlock.COLUMN_COUNT; column++) {
+                assertEquals(expected.value(column), actual.value(column));
+            }
+        }
+        assertFalse(actual.hasNext());
+    }
+}
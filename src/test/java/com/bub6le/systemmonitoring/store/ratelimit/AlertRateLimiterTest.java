@@ -0,0 +1,121 @@
+package com.bub6le.systemmonitoring.store.ratelimit;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertRateLimiterTest {
+
+    private static final long NOW = 1_800_000_000_000L;
+
+    private AlertRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        // 突发3条，之后每分钟6条（每10秒补充一个令牌），最多4个令牌桶
+        limiter = new AlertRateLimiter(3, 6, 4);
+    }
+
+    @Test
+    @DisplayName("测试突发额度用完后丢弃告警")
+    void testBurstThenSuppress() {
+        // When
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW)) {
+                admitted++;
+            }
+        }
+
+        // Then
+        assertEquals(3, admitted);
+        RateLimitStats stats = limiter.getStats();
+        assertEquals(3, stats.admitted());
+        assertEquals(7, stats.suppressed());
+        assertEquals(1, stats.trackedBuckets());
+    }
+
+    @Test
+    @DisplayName("测试令牌按时间补充")
+    void testRefill() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW);
+        }
+
+        // When & Then - 10秒补充一个令牌，空闲再久也不超过突发额度
+        assertFalse(limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW + 9_000));
+        assertTrue(limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW + 10_000));
+        assertFalse(limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW + 10_000));
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW + 3_600_000)) {
+                admitted++;
+            }
+        }
+        assertEquals(3, admitted);
+    }
+
+    @Test
+    @DisplayName("测试来源和严重级别各自限流")
+    void testBucketsPerSourceAndSeverity() {
+        // Given - server-01的HIGH额度用完
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW);
+        }
+
+        // When & Then
+        assertTrue(limiter.tryAcquire("server-01", Alert.AlertSeverity.CRITICAL, NOW));
+        assertTrue(limiter.tryAcquire("server-02", Alert.AlertSeverity.HIGH, NOW));
+        assertFalse(limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW));
+    }
+
+    @Test
+    @DisplayName("测试取出丢弃计数并清理空闲令牌桶")
+    void testDrainSuppressed() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("server-01", Alert.AlertSeverity.HIGH, NOW);
+        }
+        limiter.tryAcquire("server-02", Alert.AlertSeverity.LOW, NOW);
+
+        // When
+        List<SuppressedAlerts> first = limiter.drainSuppressed(NOW);
+        List<SuppressedAlerts> second = limiter.drainSuppressed(NOW);
+        List<SuppressedAlerts> later = limiter.drainSuppressed(NOW + 3_600_000);
+
+        // Then - 计数只取出一次，补满后的令牌桶被移除
+        assertEquals(List.of(new SuppressedAlerts("server-01", Alert.AlertSeverity.HIGH, 2)), first);
+        assertTrue(second.isEmpty());
+        assertTrue(later.isEmpty());
+        assertEquals(0, limiter.getStats().trackedBuckets());
+    }
+
+    @Test
+    @DisplayName("测试令牌桶数量达到上限后新来源共用溢出桶")
+    void testOverflowBucket() {
+        // Given - 4个令牌桶已满
+        for (int i = 1; i <= 4; i++) {
+            limiter.tryAcquire("server-0" + i, Alert.AlertSeverity.LOW, NOW);
+        }
+
+        // When - 新来源共用溢出桶的突发额度
+        int admitted = 0;
+        for (int i = 5; i <= 9; i++) {
+            if (limiter.tryAcquire("server-0" + i, Alert.AlertSeverity.LOW, NOW)) {
+                admitted++;
+            }
+        }
+
+        // Then
+        assertEquals(3, admitted);
+        assertEquals(5, limiter.getStats().trackedBuckets());
+        assertEquals(List.of(new SuppressedAlerts(AlertRateLimiter.OVERFLOW_SOURCE, Alert.AlertSeverity.LOW, 2)),
+            limiter.drainSuppressed(NOW));
+    }
+}
@@ -0,0 +1,148 @@
+package com.bub6le.systemmonitoring.store.rollup;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.store.MetricsHistoryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRollupStoreTest {
+
+    private MetricsRollupStore store;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        store = new MetricsRollupStore();
+        baseTime = LocalDateTime.of(2023, 12, 23, 10, 0, 0);
+    }
+
+    private void ingest(String serverName, int secondsOffset, Double cpu) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setTimestamp(baseTime.plusSeconds(secondsOffset));
+        store.onMetricsIngested(metrics);
+    }
+
+    @Test
+    @DisplayName("测试1分钟桶的min/max/avg/count/last")
+    void testOneMinuteBuckets() {
+        // Given
+        ingest("server-01", 0, 10.0);
+        ingest("server-01", 30, 30.0);
+        ingest("server-01", 20, 20.0);
+        ingest("server-01", 70, 50.0);
+
+        // When
+        List<RollupPoint> points = store.query("server-01", RollupResolution.ONE_MINUTE,
+            baseTime, baseTime.plusMinutes(5));
+
+        // Then
+        assertEquals(2, points.size());
+        RollupPoint first = points.get(0);
+        assertEquals(baseTime, first.timestamp());
+        assertEquals(3, first.count());
+        assertEquals(10.0, first.cpuUsage().min());
+        assertEquals(30.0, first.cpuUsage().max());
+        assertEquals(20.0, first.cpuUsage().avg(), 0.001);
+        // last取时间戳最新的样本，而不是最后写入的样本
+        assertEquals(30.0, first.cpuUsage().last());
+        assertEquals(50.0, points.get(1).cpuUsage().last());
+    }
+
+    @Test
+    @DisplayName("测试跨服务器合并及缺失值")
+    void testMergeAcrossServers() {
+        // Given
+        ingest("server-01", 0, 10.0);
+        ingest("server-02", 60, 30.0);
+        ingest("server-03", 120, null);
+
+        // When
+        List<RollupPoint> points = store.query(null, RollupResolution.FIVE_MINUTES,
+            baseTime, baseTime.plusMinutes(5));
+
+        // Then
+        assertEquals(1, points.size());
+        assertEquals(3, points.get(0).count());
+        assertEquals(2, points.get(0).cpuUsage().count());
+        assertEquals(20.0, points.get(0).cpuUsage().avg(), 0.001);
+        assertEquals(3, points.get(0).memoryUsage().count());
+    }
+
+    @Test
+    @DisplayName("测试未知服务器返回空结果")
+    void testUnknownServer() {
+        assertTrue(store.query("server-99", RollupResolution.ONE_HOUR, baseTime, baseTime.plusHours(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试过期桶被清理")
+    void testEvictExpiredBuckets() {
+        // Given - 2023年的1分钟桶早已超过1天保留期
+        ingest("server-01", 0, 10.0);
+
+        // When
+        store.evictExpiredBuckets();
+
+        // Then
+        assertTrue(store.query("server-01", RollupResolution.ONE_MINUTE, baseTime, baseTime.plusMinutes(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试长时间没有样本的服务器被整体移除")
+    void testEvictIdleServers() {
+        // Given - server-01很早以前上报过，server-02刚刚上报
+        ingest("server-01", 0, 10.0);
+        SystemMetrics recent = new SystemMetrics("server-02", 20.0, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+        recent.setTimestamp(LocalDateTime.now());
+        store.onMetricsIngested(recent);
+
+        // When
+        store.evictExpiredBuckets();
+
+        // Then
+        assertEquals(1, store.getServerCount());
+        assertFalse(store.query("server-02", RollupResolution.ONE_MINUTE,
+            LocalDateTime.now().minusMinutes(5), LocalDateTime.now().plusMinutes(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试从压缩历史重建预聚合")
+    void testRebuildFromHistory() {
+        // Given - 历史中已有的样本，预聚合为空（模拟重启）
+        MetricsHistoryStore history = new MetricsHistoryStore(4, 14);
+        LocalDateTime start = LocalDateTime.now().withNano(0).minusHours(2);
+        for (int i = 0; i < 10; i++) {
+            SystemMetrics metrics = new SystemMetrics("server-01", 10.0 * i, 40.0, 30.0, 200.0, 100.0, 1.0, "北京", "Web服务");
+            metrics.setTimestamp(start.plusSeconds(i));
+            history.onMetricsIngested(metrics);
+        }
+        ReflectionTestUtils.setField(store, "metricsHistoryStore", history);
+        ingest("server-99", 0, 1.0);
+
+        // When
+        store.rebuildFromHistory();
+
+        // Then - 重建前的内存内容被丢弃，历史样本全部计入
+        assertEquals(1, store.getServerCount());
+        List<RollupPoint> points = store.query("server-01", RollupResolution.ONE_HOUR,
+            start.minusHours(1), start.plusHours(1));
+        assertEquals(10, points.stream().mapToLong(RollupPoint::count).sum());
+        assertEquals(90.0, points.stream().mapToDouble(p -> p.cpuUsage().max()).max().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("测试按时间范围选择粒度")
+    void testChooseResolution() {
+        assertEquals(RollupResolution.ONE_MINUTE, RollupResolution.choose(15 * 60_000L, 30));
+        assertEquals(RollupResolution.ONE_MINUTE, RollupResolution.choose(60 * 60_000L, 30));
+        assertEquals(RollupResolution.FIVE_MINUTES, RollupResolution.choose(6 * 3600_000L, 30));
+        assertEquals(RollupResolution.ONE_HOUR, RollupResolution.choose(7 * 24 * 3600_000L, 30));
+    }
+}
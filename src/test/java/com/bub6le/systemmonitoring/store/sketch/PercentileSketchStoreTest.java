@@ -0,0 +1,112 @@
+package com.bub6le.systemmonitoring.store.sketch;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.repository.MetricsGroupBy;
+import com.bub6le.systemmonitoring.store.dict.DimensionDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PercentileSketchStoreTest {
+
+    private PercentileSketchStore store;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        // 1分钟一个桶
+        store = new PercentileSketchStore(60, 360, 0.01, new DimensionDictionary());
+        baseTime = LocalDateTime.of(2023, 12, 23, 10, 0, 0);
+    }
+
+    private void ingest(String serverName, String region, int secondsOffset, double cpu) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, 1.0, region, "Web服务");
+        metrics.setTimestamp(baseTime.plusSeconds(secondsOffset));
+        store.onMetricsIngested(metrics);
+    }
+
+    @Test
+    @DisplayName("测试按服务器汇总分位数")
+    void testSummarizeByServer() {
+        // Given - server-01有一个尖峰，平均值看不出来
+        for (int i = 0; i < 100; i++) {
+            ingest("server-01", "北京", i, i < 97 ? 20.0 : 95.0);
+            ingest("server-02", "北京", i, 50.0);
+        }
+
+        // When
+        List<PercentileSnapshot> result = store.summarize(MetricsGroupBy.SERVER, null, baseTime, baseTime.plusMinutes(5));
+
+        // Then - 按CPU p95从高到低排序
+        assertEquals(2, result.size());
+        assertEquals("server-02", result.get(0).groupKey());
+        PercentileSnapshot server01 = result.get(1);
+        assertEquals(100, server01.count());
+        assertEquals(20.0, server01.cpuUsage().p50(), 0.2);
+        assertEquals(95.0, server01.cpuUsage().p99(), 1.0);
+        assertEquals(95.0, server01.cpuUsage().max());
+    }
+
+    @Test
+    @DisplayName("测试跨时间桶和维度合并")
+    void testMergeAcrossBucketsAndDimensions() {
+        // Given
+        ingest("server-01", "北京", 0, 10.0);
+        ingest("server-02", "北京", 70, 30.0);
+        ingest("server-03", "上海", 130, 90.0);
+
+        // When
+        List<PercentileSnapshot> all = store.summarize(MetricsGroupBy.NONE, null, baseTime, baseTime.plusMinutes(5));
+        List<PercentileSnapshot> beijing = store.summarize(MetricsGroupBy.REGION, "北京", baseTime, baseTime.plusMinutes(5));
+        List<PercentileSnapshot> unknown = store.summarize(MetricsGroupBy.REGION, "成都", baseTime, baseTime.plusMinutes(5));
+
+        // Then
+        assertEquals(1, all.size());
+        assertNull(all.get(0).groupKey());
+        assertEquals(3, all.get(0).count());
+        assertEquals(1, beijing.size());
+        assertEquals(2, beijing.get(0).count());
+        assertEquals(30.0, beijing.get(0).cpuUsage().max());
+        assertTrue(unknown.isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试逐桶分位数序列")
+    void testSeries() {
+        // Given
+        ingest("server-01", "北京", 0, 10.0);
+        ingest("server-01", "北京", 30, 20.0);
+        ingest("server-01", "北京", 90, 80.0);
+        ingest("server-02", "北京", 90, 60.0);
+
+        // When
+        List<PercentileSnapshot> server01 = store.series(MetricsGroupBy.SERVER, "server-01", baseTime, baseTime.plusMinutes(5));
+        List<PercentileSnapshot> all = store.series(MetricsGroupBy.SERVER, null, baseTime, baseTime.plusMinutes(5));
+
+        // Then
+        assertEquals(2, server01.size());
+        assertEquals(baseTime, server01.get(0).timestamp());
+        assertEquals(2, server01.get(0).count());
+        assertEquals(baseTime.plusMinutes(1), server01.get(1).timestamp());
+        assertEquals(2, all.size());
+        assertEquals(2, all.get(1).count());
+    }
+
+    @Test
+    @DisplayName("测试清理过期桶")
+    void testEvictExpiredBuckets() {
+        // Given
+        ingest("server-01", "北京", 0, 10.0);
+
+        // When
+        store.evictExpiredBuckets();
+
+        // Then
+        assertTrue(store.summarize(MetricsGroupBy.NONE, null, baseTime, baseTime.plusMinutes(5)).isEmpty());
+    }
+}
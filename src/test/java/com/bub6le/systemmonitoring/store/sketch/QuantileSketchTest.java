@@ -0,0 +1,73 @@
+package com.bub6le.systemmonitoring.store.sketch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    @DisplayName("测试分位数相对误差在精度范围内")
+    void testQuantileAccuracy() {
+        // Given - 均匀分布与长尾分布混合
+        Random random = new Random(42);
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        double[] values = new double[20000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? random.nextDouble() * 100 : Math.exp(random.nextGaussian() * 2);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        // When & Then
+        for (double q : new double[]{0.5, 0.95, 0.99}) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            assertEquals(exact, sketch.quantile(q), exact * 0.01, "q=" + q);
+        }
+        assertEquals(values.length, sketch.getCount());
+        assertEquals(values[values.length - 1], sketch.getMax());
+    }
+
+    @Test
+    @DisplayName("测试合并后的结果与一次性写入一致")
+    void testMerge() {
+        // Given
+        QuantileSketch left = new QuantileSketch(0.02);
+        QuantileSketch right = new QuantileSketch(0.02);
+        QuantileSketch whole = new QuantileSketch(0.02);
+        for (int i = 1; i <= 1000; i++) {
+            (i % 3 == 0 ? left : right).add(i * 0.1);
+            whole.add(i * 0.1);
+        }
+
+        // When
+        left.merge(right);
+
+        // Then
+        assertEquals(whole.getCount(), left.getCount());
+        assertEquals(whole.quantile(0.5), left.quantile(0.5));
+        assertEquals(whole.quantile(0.99), left.quantile(0.99));
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new QuantileSketch(0.01)));
+    }
+
+    @Test
+    @DisplayName("测试零值、空值与空草图")
+    void testEdgeCases() {
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+
+        sketch.add(0.0);
+        sketch.add(0.0);
+        sketch.add(Double.NaN);
+        sketch.add(-1.0);
+        sketch.add(50.0);
+
+        assertEquals(3, sketch.getCount());
+        assertEquals(0.0, sketch.quantile(0.5));
+        assertEquals(50.0, sketch.quantile(1.0));
+    }
+}
@@ -0,0 +1,124 @@
+package com.bub6le.systemmonitoring.store.topk;
+
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopServersTrackerTest {
+
+    private TopServersTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        // 15分钟窗口、10秒一个桶
+        tracker = new TopServersTracker(15, 10);
+    }
+
+    private SystemMetrics newMetric(String serverName, double cpu, double load, LocalDateTime timestamp) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, 30.0, 200.0, 100.0, load, "北京", "Web服务");
+        metrics.setTimestamp(timestamp);
+        return metrics;
+    }
+
+    @Test
+    @DisplayName("测试按窗口平均值取前k台服务器")
+    void testTop() {
+        // Given - 100台服务器，CPU依次为0..99
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 100; i++) {
+            tracker.onMetricsIngested(newMetric(String.format("server-%03d", i), i, 100 - i, now.minusSeconds(30)));
+            tracker.onMetricsIngested(newMetric(String.format("server-%03d", i), i + 2, 100 - i, now));
+        }
+
+        // When
+        List<TopServerEntry> topCpu = tracker.top(TopMetric.CPU, 3, 5 * 60_000L);
+        List<TopServerEntry> topLoad = tracker.top(TopMetric.LOAD, 2, 5 * 60_000L);
+
+        // Then
+        assertEquals(3, topCpu.size());
+        assertEquals("server-099", topCpu.get(0).serverName());
+        assertEquals(100.0, topCpu.get(0).average(), 0.001);
+        assertEquals(101.0, topCpu.get(0).max(), 0.001);
+        assertEquals(2, topCpu.get(0).count());
+        assertEquals("server-098", topCpu.get(1).serverName());
+        assertEquals("server-097", topCpu.get(2).serverName());
+        assertEquals(List.of("server-000", "server-001"), topLoad.stream().map(TopServerEntry::serverName).toList());
+    }
+
+    @Test
+    @DisplayName("测试只统计查询窗口内的样本")
+    void testWindow() {
+        // Given - server-01早先很高，最近回落；server-02一直中等
+        LocalDateTime now = LocalDateTime.now();
+        tracker.onMetricsIngested(newMetric("server-01", 95.0, 1.0, now.minusMinutes(10)));
+        tracker.onMetricsIngested(newMetric("server-01", 10.0, 1.0, now));
+        tracker.onMetricsIngested(newMetric("server-02", 50.0, 1.0, now));
+
+        // When
+        List<TopServerEntry> lastMinute = tracker.top(TopMetric.CPU, 1, 60_000L);
+        List<TopServerEntry> lastQuarter = tracker.top(TopMetric.CPU, 1, 15 * 60_000L);
+
+        // Then
+        assertEquals("server-02", lastMinute.get(0).serverName());
+        assertEquals("server-01", lastQuarter.get(0).serverName());
+        assertEquals(52.5, lastQuarter.get(0).average(), 0.001);
+    }
+
+    @Test
+    @DisplayName("测试空值和窗口外样本不参与排行")
+    void testIgnoredSamples() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        SystemMetrics partial = newMetric("server-01", 90.0, 1.0, now);
+        partial.setCpuUsage(null);
+        tracker.onMetricsIngested(partial);
+        tracker.onMetricsIngested(newMetric("server-02", 90.0, 1.0, now.minusHours(1)));
+        tracker.onMetricsIngested(newMetric("server-03", 20.0, 1.0, now));
+
+        // When
+        List<TopServerEntry> top = tracker.top(TopMetric.CPU, 10, 15 * 60_000L);
+
+        // Then
+        assertEquals(1, top.size());
+        assertEquals("server-03", top.get(0).serverName());
+        assertTrue(tracker.top(TopMetric.CPU, 0, 60_000L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试清理窗口内没有上报的服务器")
+    void testEvictIdleServers() {
+        // Given - 1分钟窗口，样本在窗口边缘
+        tracker = new TopServersTracker(1, 10);
+        tracker.onMetricsIngested(newMetric("server-01", 50.0, 1.0, LocalDateTime.now().minusSeconds(59)));
+        tracker.onMetricsIngested(newMetric("server-02", 50.0, 1.0, LocalDateTime.now()));
+
+        // When
+        try {
+            Thread.sleep(1100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tracker.evictIdleServers();
+
+        // Then
+        List<TopServerEntry> top = tracker.top(TopMetric.CPU, 10, 60_000L);
+        assertEquals(1, top.size());
+        assertEquals("server-02", top.get(0).serverName());
+    }
+
+    @Test
+    @DisplayName("测试解析指标参数")
+    void testFromParam() {
+        assertEquals(TopMetric.CPU, TopMetric.fromParam("cpu"));
+        assertEquals(TopMetric.LOAD, TopMetric.fromParam("LOAD"));
+        assertEquals(TopMetric.NETWORK_IN, TopMetric.fromParam("network_in"));
+        assertEquals(TopMetric.CPU, TopMetric.fromParam("unknown"));
+        assertEquals(TopMetric.CPU, TopMetric.fromParam(null));
+    }
+}
@@ -0,0 +1,285 @@
+package com.bub6le.systemmonitoring.store.wal;
+
+import com.bub6le.systemmonitoring.model.Alert;
+import com.bub6le.systemmonitoring.model.SystemMetrics;
+import com.bub6le.systemmonitoring.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<WriteAheadLog> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(WriteAheadLog::close);
+    }
+
+    private WriteAheadLog open(int segmentSize) {
+        WriteAheadLog wal = new WriteAheadLog(true, dir.toString(), segmentSize, 20);
+        wal.open();
+        opened.add(wal);
+        return wal;
+    }
+
+    private SystemMetrics newMetric(String serverName, double cpu) {
+        SystemMetrics metrics = new SystemMetrics(serverName, cpu, 40.0, null, 200.0, 100.0, 1.0, "北京", "Web服务");
+        metrics.setTimestamp(LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_000_000));
+        return metrics;
+    }
+
+    private List<WalRecord> replayAll(WriteAheadLog wal) {
+        List<WalRecord> records = new ArrayList<>();
+        wal.replay((lsn, record) -> records.add(record));
+        return records;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(".wal")).count();
+        }
+    }
+
+    @Test
+    @DisplayName("测试重启后按顺序回放记录")
+    void testReplayAfterRestart() {
+        // Given
+        WriteAheadLog wal = open(4096);
+        wal.appendMetrics(newMetric("server-01", 12.5));
+        Alert alert = new Alert("server-02", Alert.AlertSeverity.HIGH, "CPU使用率过高");
+        alert.setId(7L);
+        alert.setOccurrenceCount(4L);
+        wal.appendAlert(alert);
+        Task task = new Task("系统备份", "生产集群");
+        task.setId(3L);
+        task.setProgress(40);
+        wal.appendTask(task);
+        wal.close();
+
+        // When
+        List<WalRecord> records = replayAll(open(4096));
+
+        // Then
+        assertEquals(3, records.size());
+        assertEquals(WalRecordType.METRICS, records.get(0).type());
+        SystemMetrics metrics = WalCodec.decodeMetrics(records.get(0).payload());
+        assertEquals("server-01", metrics.getServerName());
+        assertEquals(12.5, metrics.getCpuUsage());
+        assertNull(metrics.getDiskUsage());
+        assertEquals(LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_000_000), metrics.getTimestamp());
+
+        Alert replayedAlert = WalCodec.decodeAlert(records.get(1).payload());
+        assertEquals(7L, replayedAlert.getId());
+        assertEquals(Alert.AlertSeverity.HIGH, replayedAlert.getSeverity());
+        assertFalse(replayedAlert.getResolved());
+        assertEquals(4L, replayedAlert.getOccurrenceCount());
+        assertEquals(alert.getLastSeen(), replayedAlert.getLastSeen());
+
+        Task replayedTask = WalCodec.decodeTask(records.get(2).payload());
+        assertEquals(3L, replayedTask.getId());
+        assertEquals(40, replayedTask.getProgress());
+        assertEquals(task.getUpdatedTime(), replayedTask.getUpdatedTime());
+    }
+
+    @Test
+    @DisplayName("测试批量解决的告警id记录为一条")
+    void testAlertsResolvedRecord() {
+        // Given
+        WriteAheadLog wal = open(4096);
+        wal.appendAlertsResolved(List.of(3L, 9L, 12L));
+        wal.close();
+
+        // When
+        List<WalRecord> records = replayAll(open(4096));
+
+        // Then
+        assertEquals(1, records.size());
+        assertEquals(WalRecordType.ALERTS_RESOLVED, records.get(0).type());
+        assertEquals(List.of(3L, 9L, 12L), WalCodec.decodeAlertIds(records.get(0).payload()));
+    }
+
+    @Test
+    @DisplayName("测试按条件批量解决只记录条件")
+    void testAlertsResolvedMatchingRecord() {
+        // Given
+        LocalDateTime before = LocalDateTime.of(2026, 1, 1, 12, 0);
+        WriteAheadLog wal = open(4096);
+        wal.appendAlertsResolvedMatching(WalCodec.ResolveCriteria.bySource("server-03"));
+        wal.appendAlertsResolvedMatching(WalCodec.ResolveCriteria.bySeverity(Alert.AlertSeverity.HIGH));
+        wal.appendAlertsResolvedMatching(WalCodec.ResolveCriteria.before(before));
+        wal.close();
+
+        // When
+        List<WalRecord> records = replayAll(open(4096));
+
+        // Then
+        assertEquals(3, records.size());
+        assertEquals(WalRecordType.ALERTS_RESOLVED_MATCHING, records.get(0).type());
+        assertEquals(WalCodec.ResolveCriteria.bySource("server-03"), WalCodec.decodeResolveCriteria(records.get(0).payload()));
+        assertEquals(WalCodec.ResolveCriteria.bySeverity(Alert.AlertSeverity.HIGH), WalCodec.decodeResolveCriteria(records.get(1).payload()));
+        assertEquals(WalCodec.ResolveCriteria.before(before), WalCodec.decodeResolveCriteria(records.get(2).payload()));
+    }
+
+    @Test
+    @DisplayName("测试段写满后滚动到新文件")
+    void testSegmentRolling() throws IOException {
+        // Given
+        WriteAheadLog wal = open(256);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            wal.appendMetrics(newMetric("server-" + i, i));
+        }
+        wal.close();
+
+        // Then
+        assertTrue(segmentCount() > 1);
+        List<WalRecord> records = replayAll(open(256));
+        assertEquals(10, records.size());
+        assertEquals("server-9", WalCodec.decodeMetrics(records.get(9).payload()).getServerName());
+    }
+
+    @Test
+    @DisplayName("测试检查点之前的记录不再回放且整段删除")
+    void testCheckpoint() throws IOException {
+        // Given
+        WriteAheadLog wal = open(256);
+        for (int i = 0; i < 6; i++) {
+            wal.appendMetrics(newMetric("server-" + i, i));
+        }
+        long segmentsBefore = segmentCount();
+
+        // When
+        wal.checkpoint(wal.getCurrentLsn());
+        wal.appendMetrics(newMetric("server-after", 1.0));
+        wal.close();
+
+        // Then
+        assertTrue(segmentCount() < segmentsBefore);
+        List<WalRecord> records = replayAll(open(256));
+        assertEquals(1, records.size());
+        assertEquals("server-after", WalCodec.decodeMetrics(records.get(0).payload()).getServerName());
+    }
+
+    @Test
+    @DisplayName("测试写到一半的记录在回放时被丢弃")
+    void testTornRecordIgnored() throws IOException {
+        // Given
+        WriteAheadLog wal = open(4096);
+        wal.appendMetrics(newMetric("server-01", 1.0));
+        long end = wal.append(WalRecordType.METRICS, WalCodec.encodeMetrics(newMetric("server-02", 2.0)));
+        wal.close();
+
+        // 破坏第二条记录的最后一个字节
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(path -> path.toString().endsWith(".wal")).sorted().findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // 第一个段从LSN 0开始，LSN即文件偏移
+            file.seek(end - 1);
+            int last = file.read();
+            file.seek(end - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        // When
+        List<WalRecord> records = replayAll(open(4096));
+
+        // Then
+        assertEquals(1, records.size());
+    }
+
+    @Test
+    @DisplayName("测试组提交后等待持久化返回")
+    void testAwaitDurable() throws InterruptedException {
+        // Given
+        WriteAheadLog wal = open(4096);
+
+        // When
+        long lsn = wal.append(WalRecordType.METRICS, WalCodec.encodeMetrics(newMetric("server-01", 1.0)));
+
+        // Then
+        assertTrue(wal.awaitDurable(lsn, 2000));
+        assertTrue(wal.getWalStats().getSyncCount() >= 1);
+        assertEquals(1, wal.getWalStats().getAppendedRecords());
+    }
+
+    @Test
+    @DisplayName("测试指标记录的起始LSN写入样本并与回放一致")
+    void testAppendMetricsAssignsLsn() {
+        // Given
+        WriteAheadLog wal = open(4096);
+        SystemMetrics first = newMetric("server-01", 1.0);
+        SystemMetrics second = newMetric("server-02", 2.0);
+
+        // When
+        long end = wal.appendMetrics(first);
+        wal.appendMetrics(second);
+        wal.close();
+
+        // Then
+        assertEquals(0L, first.getWalLsn());
+        assertEquals(end, second.getWalLsn());
+        List<Long> lsns = new ArrayList<>();
+        open(4096).replay((lsn, record) -> lsns.add(lsn));
+        assertEquals(List.of(first.getWalLsn(), second.getWalLsn()), lsns);
+    }
+
+    @Test
+    @DisplayName("测试低水位停在最早的进行中记录")
+    void testLowWaterLsn() {
+        // Given
+        WriteAheadLog wal = open(4096);
+        SystemMetrics first = newMetric("server-01", 1.0);
+        SystemMetrics second = newMetric("server-02", 2.0);
+        wal.appendMetrics(first);
+        wal.appendMetrics(second);
+        wal.appendTask(new Task("系统备份", "生产集群"));
+
+        // Then - 两条都未落库
+        assertEquals(first.getWalLsn(), wal.getLowWaterLsn());
+        assertEquals(2, wal.getWalStats().getInFlightRecords());
+
+        // When - 第二条先落库
+        wal.release(second);
+
+        // Then
+        assertEquals(first.getWalLsn(), wal.getLowWaterLsn());
+
+        // When
+        wal.release(first);
+
+        // Then - 没有进行中的记录时为当前LSN
+        assertEquals(wal.getCurrentLsn(), wal.getLowWaterLsn());
+    }
+
+    @Test
+    @DisplayName("测试未启用时不写文件")
+    void testDisabled() throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(false, dir.toString(), 4096, 20);
+        wal.open();
+
+        assertEquals(-1, wal.append(WalRecordType.METRICS, new byte[]{1}));
+        SystemMetrics metrics = newMetric("server-01", 1.0);
+        assertEquals(-1, wal.appendMetrics(metrics));
+        assertNull(metrics.getWalLsn());
+        assertEquals(0, segmentCount());
+    }
+}